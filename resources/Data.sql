@@ -5,16 +5,23 @@ use prod;
 create table parking(
 PARKING_NUMBER int PRIMARY KEY,
 AVAILABLE bool NOT NULL,
-TYPE varchar(10) NOT NULL
+TYPE varchar(10) NOT NULL,
+LEASE_OWNER varchar(64),
+LEASE_EXPIRY DATETIME
 );
 
 create table ticket(
  ID int PRIMARY KEY AUTO_INCREMENT,
  PARKING_NUMBER int NOT NULL,
  VEHICLE_REG_NUMBER varchar(10) NOT NULL,
- PRICE double,
+ PRICE decimal(10,2),
  IN_TIME DATETIME NOT NULL,
  OUT_TIME DATETIME,
+ ENTRY_REQUEST_ID varchar(64) UNIQUE,
+ EXIT_REQUEST_ID varchar(64) UNIQUE,
+ RATE decimal(10,2),
+ INDEX TICKET_PLATE_IN_TIME (VEHICLE_REG_NUMBER, IN_TIME, ID),
+ INDEX TICKET_IN_TIME (IN_TIME, ID),
  FOREIGN KEY (PARKING_NUMBER)
  REFERENCES parking(PARKING_NUMBER));
 
@@ -32,16 +39,23 @@ use test;
 create table parking(
 PARKING_NUMBER int PRIMARY KEY,
 AVAILABLE bool NOT NULL,
-TYPE varchar(10) NOT NULL
+TYPE varchar(10) NOT NULL,
+LEASE_OWNER varchar(64),
+LEASE_EXPIRY DATETIME
 );
 
 create table ticket(
  ID int PRIMARY KEY AUTO_INCREMENT,
  PARKING_NUMBER int NOT NULL,
  VEHICLE_REG_NUMBER varchar(10) NOT NULL,
- PRICE double,
+ PRICE decimal(10,2),
  IN_TIME DATETIME NOT NULL,
  OUT_TIME DATETIME,
+ ENTRY_REQUEST_ID varchar(64) UNIQUE,
+ EXIT_REQUEST_ID varchar(64) UNIQUE,
+ RATE decimal(10,2),
+ INDEX TICKET_PLATE_IN_TIME (VEHICLE_REG_NUMBER, IN_TIME, ID),
+ INDEX TICKET_IN_TIME (IN_TIME, ID),
  FOREIGN KEY (PARKING_NUMBER)
  REFERENCES parking(PARKING_NUMBER));
 
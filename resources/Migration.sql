@@ -0,0 +1,55 @@
+/* Upgrading a PROD DB created by an earlier Data.sql */
+use prod;
+
+/* Gate requests are deduplicated by request id */
+alter table ticket
+ add ENTRY_REQUEST_ID varchar(64) UNIQUE,
+ add EXIT_REQUEST_ID varchar(64) UNIQUE;
+
+/* Instances sharing the database lease blocks of spots */
+alter table parking
+ add LEASE_OWNER varchar(64),
+ add LEASE_EXPIRY DATETIME;
+
+/* Visit history and time range pages are read through indexes, newest first or in in-time order */
+alter table ticket
+ add INDEX TICKET_PLATE_IN_TIME (VEHICLE_REG_NUMBER, IN_TIME, ID),
+ add INDEX TICKET_IN_TIME (IN_TIME, ID);
+
+/* Prices are stored exactly, and each ticket records the hourly rate in force at entry */
+alter table ticket
+ modify PRICE decimal(10,2),
+ add RATE decimal(10,2);
+
+/* Plates are looked up in canonical form: letters and digits only, in upper case */
+update ticket set VEHICLE_REG_NUMBER = upper(regexp_replace(VEHICLE_REG_NUMBER, '[^[:alnum:]]', ''))
+ where binary VEHICLE_REG_NUMBER <> upper(regexp_replace(VEHICLE_REG_NUMBER, '[^[:alnum:]]', ''));
+commit;
+
+/* Upgrading a TEST DB created by an earlier Data.sql */
+use test;
+
+/* Gate requests are deduplicated by request id */
+alter table ticket
+ add ENTRY_REQUEST_ID varchar(64) UNIQUE,
+ add EXIT_REQUEST_ID varchar(64) UNIQUE;
+
+/* Instances sharing the database lease blocks of spots */
+alter table parking
+ add LEASE_OWNER varchar(64),
+ add LEASE_EXPIRY DATETIME;
+
+/* Visit history and time range pages are read through indexes, newest first or in in-time order */
+alter table ticket
+ add INDEX TICKET_PLATE_IN_TIME (VEHICLE_REG_NUMBER, IN_TIME, ID),
+ add INDEX TICKET_IN_TIME (IN_TIME, ID);
+
+/* Prices are stored exactly, and each ticket records the hourly rate in force at entry */
+alter table ticket
+ modify PRICE decimal(10,2),
+ add RATE decimal(10,2);
+
+/* Plates are looked up in canonical form: letters and digits only, in upper case */
+update ticket set VEHICLE_REG_NUMBER = upper(regexp_replace(VEHICLE_REG_NUMBER, '[^[:alnum:]]', ''))
+ where binary VEHICLE_REG_NUMBER <> upper(regexp_replace(VEHICLE_REG_NUMBER, '[^[:alnum:]]', ''));
+commit;
@@ -14,6 +14,10 @@ public class App {
     
     public static void main(String args[]){
         logger.info("Initializing Parking System");
+        if (Boolean.getBoolean("parkit.startup.training")) {
+            InteractiveShell.trainStartup();
+            return;
+        }
         InteractiveShell.loadInterface();
     }
 }
@@ -0,0 +1,308 @@
+package com.parkit.parkingsystem.config;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scheduler limiting the number of database connections open at once and deciding who gets the next one when
+ * the database is saturated, so that exit gates, where cars queue on the road, do not wait behind entry lookups
+ * and reporting jobs.
+ * <p>
+ * Each thread works for a {@link Priority} class, set with {@link #setPriority(Priority)} for the duration of a
+ * gate operation and {@link Priority#BACKGROUND} otherwise. Waiting connections are granted by weighted fair
+ * queuing: each class is given a virtual finish tag advancing by the inverse of its weight per connection, and the
+ * class with the lowest tag goes first. A busy class thus gets a share of the connections proportional to its
+ * weight without starving the others, and a class coming back from idle cannot claim the time it was idle.
+ * Each class also has its own concurrency limit, so that background work never holds the connections an exit
+ * would need.
+ */
+public class DataBaseAccessScheduler {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+
+    // Virtual time needed by a connection of a class of weight 1
+    private static final long COST = 1L << 20;
+
+    /**
+     * Class of work competing for database connections, by decreasing priority.
+     */
+    public enum Priority {
+        EXIT,
+        ENTRY,
+        BACKGROUND
+    }
+
+    private static final ThreadLocal<Priority> PRIORITY = ThreadLocal.withInitial(() -> Priority.BACKGROUND);
+
+    private final int maxConcurrent;
+    private final long timeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, PriorityState> states = new EnumMap<>(Priority.class);
+    private int nbActive;
+    private long virtualTime;
+
+    /**
+     * Thread waiting for a connection.
+     */
+    private static final class Waiter {
+
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * Connections in use and waiting for a class, with its virtual time tags.
+     */
+    private static final class PriorityState {
+
+        private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+        private final LongAdder granted = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private int weight;
+        private int maxConcurrent;
+        private int nbActive;
+        // Finish tag of the last granted connection, and of the first waiting one
+        private long lastFinish;
+        private long headFinish;
+
+        private PriorityState(int weight, int maxConcurrent) {
+            this.weight = weight;
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        private boolean isEligible() {
+            return !waiting.isEmpty() && nbActive < maxConcurrent;
+        }
+    }
+
+    /**
+     * Constructs a DataBaseAccessScheduler weighting exits 8, entries 4 and background work 1. Entries may not
+     * take the last connection and background work may take a quarter of them, at least one.
+     *
+     * @param maxConcurrent the maximum number of connections open at once
+     * @param timeoutMillis the time after which a thread stops waiting for a connection, in milliseconds
+     */
+    public DataBaseAccessScheduler(int maxConcurrent, long timeoutMillis) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("At least one connection is needed: " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        states.put(Priority.EXIT, new PriorityState(8, maxConcurrent));
+        states.put(Priority.ENTRY, new PriorityState(4, Math.max(1, maxConcurrent - 1)));
+        states.put(Priority.BACKGROUND, new PriorityState(1, Math.max(1, maxConcurrent / 4)));
+    }
+
+    /**
+     * Sets the weight and concurrency limit of a class.
+     *
+     * @param priority the class
+     * @param weight the share of the connections the class gets when every class is waiting, relative to the others
+     * @param maxConcurrent the maximum number of connections the class holds at once
+     */
+    public void configure(Priority priority, int weight, int maxConcurrent) {
+        if (weight < 1 || maxConcurrent < 1) {
+            throw new IllegalArgumentException("Weight and concurrency limit must be positive");
+        }
+        lock.lock();
+        try {
+            PriorityState state = states.get(priority);
+            state.weight = weight;
+            state.maxConcurrent = maxConcurrent;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the class the current thread works for, until set again.
+     *
+     * @param priority the class of the current work
+     * @return the class the thread worked for before, to restore once the work is done
+     */
+    public static Priority setPriority(Priority priority) {
+        Priority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        return previous;
+    }
+
+    /**
+     * Returns the class the current thread works for.
+     *
+     * @return the class of the current work
+     */
+    public static Priority getPriority() {
+        return PRIORITY.get();
+    }
+
+    /**
+     * Waits until a connection may be opened for the class of the current thread.
+     *
+     * @return the class charged for the connection, to pass to {@link #release(Priority)} once it is closed
+     * @throws SQLException if the timeout elapsed or the thread was interrupted first
+     */
+    public Priority acquire() throws SQLException {
+        Priority priority = PRIORITY.get();
+        PriorityState state = states.get(priority);
+        long startNanos = System.nanoTime();
+        lock.lock();
+        try {
+            if (nbActive < maxConcurrent && state.nbActive < state.maxConcurrent && state.waiting.isEmpty()) {
+                grant(state, Math.max(virtualTime, state.lastFinish) + COST / state.weight);
+                return priority;
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            if (state.waiting.isEmpty()) {
+                state.headFinish = Math.max(virtualTime, state.lastFinish) + COST / state.weight;
+            }
+            state.waiting.addLast(waiter);
+            long nanos = timeoutNanos;
+            try {
+                while (!waiter.granted) {
+                    if (nanos <= 0) {
+                        removeWaiting(state, waiter);
+                        throw new SQLException("Timed out waiting for a database connection for " + priority);
+                    }
+                    nanos = waiter.condition.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    releaseLocked(state);
+                } else {
+                    removeWaiting(state, waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection for " + priority, e);
+            }
+            state.waitNanos.add(System.nanoTime() - startNanos);
+            return priority;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a connection, granting it to the waiting class with the lowest finish tag.
+     *
+     * @param priority the class returned by {@link #acquire()}
+     */
+    public void release(Priority priority) {
+        lock.lock();
+        try {
+            releaseLocked(states.get(priority));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of connections held by a class.
+     *
+     * @param priority the class
+     * @return the number of connections
+     */
+    public int getNbActive(Priority priority) {
+        lock.lock();
+        try {
+            return states.get(priority).nbActive;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of threads of a class waiting for a connection.
+     *
+     * @param priority the class
+     * @return the number of waiting threads
+     */
+    public int getNbWaiting(Priority priority) {
+        lock.lock();
+        try {
+            return states.get(priority).waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the average time the connections of a class waited to be granted, those granted at once included.
+     *
+     * @param priority the class
+     * @return the average wait, in milliseconds, or 0 if no connection was granted
+     */
+    public double getAverageWaitMillis(Priority priority) {
+        PriorityState state = states.get(priority);
+        long nbGranted = state.granted.sum();
+        return (nbGranted == 0) ? 0 : state.waitNanos.sum() / 1_000_000d / nbGranted;
+    }
+
+    private void grant(PriorityState state, long finish) {
+        state.nbActive++;
+        nbActive++;
+        state.granted.increment();
+        virtualTime = finish - COST / state.weight;
+        state.lastFinish = finish;
+    }
+
+    private void releaseLocked(PriorityState state) {
+        state.nbActive--;
+        nbActive--;
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (nbActive < maxConcurrent) {
+            PriorityState next = null;
+            for (PriorityState state : states.values()) {
+                // Ties go to the higher priority, visited first
+                if (state.isEligible() && (next == null || state.headFinish < next.headFinish)) {
+                    next = state;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            grant(next, next.headFinish);
+            Waiter waiter = next.waiting.pollFirst();
+            waiter.granted = true;
+            waiter.condition.signal();
+            if (!next.waiting.isEmpty()) {
+                next.headFinish = next.lastFinish + COST / next.weight;
+            }
+        }
+    }
+
+    private void removeWaiting(PriorityState state, Waiter waiter) {
+        boolean head = state.waiting.peekFirst() == waiter;
+        state.waiting.remove(waiter);
+        if (head && !state.waiting.isEmpty()) {
+            state.headFinish = Math.max(virtualTime, state.lastFinish) + COST / state.weight;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        for (Priority priority : Priority.values()) {
+            if (report.length() > 0) {
+                report.append(", ");
+            }
+            report.append(priority).append(": active=").append(getNbActive(priority))
+                    .append(" waiting=").append(getNbWaiting(priority))
+                    .append(" avgWait=").append(String.format("%.1f ms", getAverageWaitMillis(priority)));
+        }
+        return report.toString();
+    }
+}
@@ -1,9 +1,13 @@
 package com.parkit.parkingsystem.config;
 
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.util.Tracer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Configuration class for managing database connections.
@@ -17,27 +21,111 @@ public class DataBaseConfig {
      */
     private static final Logger logger = LogManager.getLogger("DataBaseConfig");
 
+    // Class charged for each connection open through the access scheduler
+    private final Map<Connection, DataBaseAccessScheduler.Priority> scheduledConnections = new ConcurrentHashMap<>();
+    private volatile DataBaseAccessScheduler accessScheduler;
+
     /**
-     * Establishes a connection to the database.
+     * Sets the scheduler deciding which thread opens the next connection when the database is saturated.
+     * Configurations sharing a scheduler share its connection limit.
+     *
+     * @param accessScheduler the scheduler, or {@code null} to open connections without waiting
+     */
+    public void setAccessScheduler(DataBaseAccessScheduler accessScheduler) {
+        this.accessScheduler = accessScheduler;
+    }
+
+    /**
+     * Establishes a connection to the database, timed as a span of the traced gate operation if any.
+     * With an access scheduler, waits first for the turn of the class of the current thread.
      *
      * @return A new {@link Connection} to the database.
      * @throws ClassNotFoundException if the JDBC driver is not found.
-     * @throws SQLException if a database access error occurs.
+     * @throws SQLException if a database access error occurs, or if no connection was granted in time.
      */
     public Connection getConnection() throws ClassNotFoundException, SQLException {
+        Tracer.Span span = Tracer.startSpan("DataBaseConfig.getConnection", null);
+        try {
+            DataBaseAccessScheduler scheduler = accessScheduler;
+            if (scheduler == null) {
+                return openConnection();
+            }
+            DataBaseAccessScheduler.Priority priority = scheduler.acquire();
+            try {
+                Connection con = openConnection();
+                scheduledConnections.put(con, priority);
+                return con;
+            } catch (ClassNotFoundException | SQLException | RuntimeException e) {
+                scheduler.release(priority);
+                throw e;
+            }
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Opens a connection to the database. Overridden by configurations connecting to another database.
+     *
+     * @return A new {@link Connection} to the database.
+     * @throws ClassNotFoundException if the JDBC driver is not found.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected Connection openConnection() throws ClassNotFoundException, SQLException {
         logger.info("Create DB connection");
         Class.forName("com.mysql.cj.jdbc.Driver");
         return DriverManager.getConnection(
                 "jdbc:mysql://localhost:3306/prod?serverTimezone=Europe/Paris","root","rootroot");
     }
 
+    /**
+     * Returns the fetch size making the driver stream rows one by one instead of buffering the whole result set.
+     * Overridden by configurations connecting to another database.
+     *
+     * @return The fetch size to set on the statements of a streamed scan.
+     */
+    public int getStreamingFetchSize() {
+        return DBConstants.STREAMING_FETCH_SIZE;
+    }
+
+    /**
+     * Opens and closes a connection, so that the JDBC driver is loaded and initialized before the first
+     * gate operation needs the database.
+     *
+     * @return {@code true} if the database could be reached, {@code false} otherwise.
+     */
+    public boolean warmUp() {
+        Connection con = null;
+        try {
+            con = getConnection();
+            return con.isValid(0);
+        } catch (Exception e) {
+            logger.error("Error warming up DB connection", e);
+            return false;
+        } finally {
+            closeConnection(con);
+        }
+    }
 
     /**
-     * Closes an active database connection.
+     * Closes an active database connection, giving its turn back to the access scheduler if any.
      *
      * @param con The {@link Connection} to close.
      */
     public void closeConnection(Connection con){
+        DataBaseAccessScheduler.Priority priority = (con == null) ? null : scheduledConnections.remove(con);
+        releaseConnection(con);
+        if (priority != null) {
+            accessScheduler.release(priority);
+        }
+    }
+
+    /**
+     * Closes a connection. Overridden by configurations keeping connections open for reuse.
+     *
+     * @param con The {@link Connection} to close.
+     */
+    protected void releaseConnection(Connection con){
         if(con!=null){
             try {
                 con.close();
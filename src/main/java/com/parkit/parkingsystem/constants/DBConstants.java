@@ -8,15 +8,57 @@ public class DBConstants {
 
     public static final String GET_NEXT_PARKING_SPOT = "select min(PARKING_NUMBER) from parking where AVAILABLE = true and TYPE = ?";
     public static final String GET_PARKING_SPOT_ISAVAILABLE =  "select AVAILABLE from parking where PARKING_NUMBER = ?";
-    public static final String UPDATE_PARKING_SPOT = "update parking set available = ? where PARKING_NUMBER = ?";
+    public static final String UPDATE_PARKING_SPOT = "update parking set available = ?, LEASE_OWNER = null, LEASE_EXPIRY = null where PARKING_NUMBER = ?";
+    public static final String OCCUPY_LEASED_PARKING_SPOT = "update parking set available = false, LEASE_OWNER = null, LEASE_EXPIRY = null where PARKING_NUMBER = ? and AVAILABLE = true and (LEASE_OWNER = ? or LEASE_OWNER is null)";
+    public static final String CLAIM_PARKING_SPOTS = "update parking set LEASE_OWNER = ?, LEASE_EXPIRY = ? where AVAILABLE = true and TYPE = ? and (LEASE_OWNER is null or LEASE_OWNER = ? or LEASE_EXPIRY < ?) order by PARKING_NUMBER limit ?";
+    public static final String GET_LEASED_PARKING_SPOTS = "select PARKING_NUMBER from parking where LEASE_OWNER = ? and LEASE_EXPIRY = ? and AVAILABLE = true and TYPE = ? order by PARKING_NUMBER";
+    public static final String RELEASE_PARKING_LEASES = "update parking set LEASE_OWNER = null, LEASE_EXPIRY = null where LEASE_OWNER = ? and AVAILABLE = true";
+    public static final String GET_ALL_PARKING_SPOTS = "select PARKING_NUMBER, TYPE, AVAILABLE from parking order by PARKING_NUMBER";
+    public static final String GET_NB_PARKING_SPOT = "select count(*) from parking where TYPE = ?";
+    public static final String GET_NB_AVAILABLE_PARKING_SPOT = "select count(*) from parking where AVAILABLE = true and TYPE = ?";
     
 
     
-    public static final String SAVE_TICKET = "insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME) values(?,?,?,?,?)";
+    public static final String SAVE_TICKET = "insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME, RATE) values(?,?,?,?,?,?)";
+    public static final String SAVE_TICKET_WITH_REQUEST_ID = "insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME, ENTRY_REQUEST_ID, RATE) values(?,?,?,?,?,?,?)";
     public static final String UPDATE_TICKET = "update ticket set PRICE=?, OUT_TIME=? where ID=?";
-    public static final String GET_TICKET = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE from ticket t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER=? order by t.IN_TIME  limit 1";
+    public static final String CLOSE_TICKET = "update ticket set PRICE=?, OUT_TIME=? where ID=? and OUT_TIME is null";
+    public static final String CLOSE_TICKET_WITH_REQUEST_ID = "update ticket set PRICE=?, OUT_TIME=?, EXIT_REQUEST_ID=? where ID=? and OUT_TIME is null";
+    public static final String GET_TICKET = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE, t.RATE from ticket t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER=? order by t.IN_TIME desc limit 1";
+    public static final String GET_TICKET_BY_ENTRY_REQUEST_ID = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE, t.VEHICLE_REG_NUMBER, t.RATE from ticket t,parking p where p.parking_number = t.parking_number and t.ENTRY_REQUEST_ID=?";
+    public static final String GET_TICKET_BY_EXIT_REQUEST_ID = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE, t.VEHICLE_REG_NUMBER, t.RATE from ticket t,parking p where p.parking_number = t.parking_number and t.EXIT_REQUEST_ID=?";
     public static final String GET_NB_TICKET = "select COUNT(*) from ticket where VEHICLE_REG_NUMBER=?";
+    public static final String GET_ALL_PLATES = "select distinct VEHICLE_REG_NUMBER from ticket";
     public static final String GET_TICKET_PRICE = "select PRICE from ticket where VEHICLE_REG_NUMBER=?";
+    public static final String GET_ALL_TICKETS = "select t.ID, t.PARKING_NUMBER, p.TYPE, t.VEHICLE_REG_NUMBER, t.PRICE, t.IN_TIME, t.OUT_TIME from ticket t,parking p where p.parking_number = t.parking_number order by t.ID";
+    public static final String GET_TICKET_ID_RANGE = "select min(ID), max(ID) from ticket";
+    public static final String GET_TICKETS_BY_ID_RANGE = "select t.ID, t.PARKING_NUMBER, p.TYPE, t.VEHICLE_REG_NUMBER, t.PRICE, t.IN_TIME, t.OUT_TIME from ticket t,parking p where p.parking_number = t.parking_number and t.ID >= ? and t.ID < ? order by t.ID";
+    public static final String GET_CLOSED_TICKETS = "select t.ID, t.PARKING_NUMBER, p.TYPE, t.VEHICLE_REG_NUMBER, t.PRICE, t.IN_TIME, t.OUT_TIME from ticket t,parking p where p.parking_number = t.parking_number and t.OUT_TIME >= ? and t.OUT_TIME < ?";
+
+    /**
+     * Keyset pagination on (IN_TIME, ID): a page starts strictly after the last ticket of the previous page,
+     * through the (VEHICLE_REG_NUMBER, IN_TIME, ID) and (IN_TIME, ID) indexes, and reads one extra row to tell
+     * whether another page follows.
+     */
+    public static final String GET_TICKET_HISTORY = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE, t.VEHICLE_REG_NUMBER, t.RATE from ticket t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER=? order by t.IN_TIME desc, t.ID desc limit ?";
+    public static final String GET_TICKET_HISTORY_AFTER = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE, t.VEHICLE_REG_NUMBER, t.RATE from ticket t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER=? and (t.IN_TIME < ? or (t.IN_TIME = ? and t.ID < ?)) order by t.IN_TIME desc, t.ID desc limit ?";
+    public static final String GET_TICKETS_IN_RANGE_AFTER = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE, t.VEHICLE_REG_NUMBER, t.RATE from ticket t,parking p where p.parking_number = t.parking_number and (t.IN_TIME > ? or (t.IN_TIME = ? and t.ID > ?)) and t.IN_TIME < ? order by t.IN_TIME, t.ID limit ?";
+
+    /**
+     * Multi-row inserts used by bulk imports: the statement is the prefix followed by one row placeholder per row,
+     * separated by commas.
+     */
+    public static final String BULK_INSERT_TICKET = "insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME) values ";
+    public static final String BULK_INSERT_TICKET_ROW = "(?,?,?,?,?)";
+    public static final String BULK_INSERT_PARKING_SPOT = "insert into parking(PARKING_NUMBER, AVAILABLE, TYPE) values ";
+    public static final String BULK_INSERT_PARKING_SPOT_ROW = "(?,?,?)";
+
+    /**
+     * Fetch size asking the MySQL driver to stream rows one by one instead of buffering the whole result set.
+     * Without {@code useCursorFetch}, any other fetch size is ignored and the whole result set is buffered.
+     * A streaming result set must be read to the end before its connection runs another statement.
+     */
+    public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
 
 }
 
@@ -8,4 +8,9 @@ public class Fare {
     public static final double BIKE_RATE_PER_HOUR = 1.0;
     public static final double CAR_RATE_PER_HOUR = 1.5;
     public static final double DISCOUNT_RATE = 0.95;
+
+    // Rates used to compute fares, in cents so that prices are exact
+    public static final long BIKE_RATE_PER_HOUR_CENTS = 100;
+    public static final long CAR_RATE_PER_HOUR_CENTS = 150;
+    public static final long DISCOUNT_PERCENT = 95;
 }
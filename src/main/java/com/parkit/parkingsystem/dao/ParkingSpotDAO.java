@@ -4,12 +4,17 @@ import com.parkit.parkingsystem.config.DataBaseConfig;
 import com.parkit.parkingsystem.constants.DBConstants;
 import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.util.Tracer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * DAO class responsible for database operations related to parking spots.
@@ -26,6 +31,7 @@ public class ParkingSpotDAO {
      * @return The parking spot number if available, otherwise -1.
      */
     public int getNextAvailableSlot(ParkingType parkingType){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.getNextAvailableSlot", "GET_NEXT_PARKING_SPOT");
         Connection con = null;
         int result=-1;
         try {
@@ -42,6 +48,7 @@ public class ParkingSpotDAO {
             logger.error("Error fetching next available slot",ex);
         }finally {
             dataBaseConfig.closeConnection(con);
+            span.end();
         }
         return result;
     }
@@ -53,11 +60,23 @@ public class ParkingSpotDAO {
      * @return {@code true} if the update was successful, {@code false} otherwise.
      */
     public boolean updateParking(ParkingSpot parkingSpot){
+        return updateParking(parkingSpot, parkingSpot.isAvailable());
+    }
+
+    /**
+     * Stores the availability of a given parking spot, leaving the {@link ParkingSpot} instance untouched.
+     *
+     * @param parkingSpot The {@link ParkingSpot} to update.
+     * @param available {@code true} to mark the spot free, {@code false} to mark it occupied.
+     * @return {@code true} if the update was successful, {@code false} otherwise.
+     */
+    public boolean updateParking(ParkingSpot parkingSpot, boolean available){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.updateParking", "UPDATE_PARKING_SPOT");
     	Connection con = null;
         try {
             con = dataBaseConfig.getConnection();
             PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT);
-            ps.setBoolean(1, parkingSpot.isAvailable());
+            ps.setBoolean(1, available);
             ps.setInt(2, parkingSpot.getId());
             int updateRowCount = ps.executeUpdate();
             dataBaseConfig.closePreparedStatement(ps);
@@ -65,9 +84,268 @@ public class ParkingSpotDAO {
         }catch (Exception ex){
             logger.error("Error updating parking info",ex);
             return false;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+    }
+
+    /**
+     * Updates the availability of several parking spots in a single JDBC batch and transaction.
+     *
+     * @param parkingSpots The parking spots to update.
+     * @return {@code true} if every spot was updated, {@code false} otherwise.
+     */
+    public boolean updateParkings(List<ParkingSpot> parkingSpots){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.updateParkings", "UPDATE_PARKING_SPOT");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            con.setAutoCommit(false);
+            PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT);
+            for (ParkingSpot parkingSpot : parkingSpots) {
+                ps.setBoolean(1, parkingSpot.isAvailable());
+                ps.setInt(2, parkingSpot.getId());
+                ps.addBatch();
+            }
+            int[] updateRowCounts = ps.executeBatch();
+            con.commit();
+            dataBaseConfig.closePreparedStatement(ps);
+            for (int updateRowCount : updateRowCounts) {
+                if (updateRowCount != 1 && updateRowCount != Statement.SUCCESS_NO_INFO) {
+                    return false;
+                }
+            }
+            return true;
+        }catch (Exception ex){
+            logger.error("Error updating parking batch",ex);
+            if (con != null) {
+                try {
+                    con.rollback();
+                } catch (Exception e) {
+                    logger.error("Error rolling back parking batch",e);
+                }
+            }
+            return false;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+    }
+
+    /**
+     * Retrieves every parking spot, ordered by spot number.
+     *
+     * @return The list of parking spots, empty if they could not be fetched.
+     */
+    public List<ParkingSpot> getParkingSpots(){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.getParkingSpots", "GET_ALL_PARKING_SPOTS");
+        Connection con = null;
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.GET_ALL_PARKING_SPOTS);
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                parkingSpots.add(new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(2)), rs.getBoolean(3)));
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+        }catch (Exception ex){
+            logger.error("Error fetching parking spots",ex);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return parkingSpots;
+    }
+
+    /**
+     * Leases a block of free parking spots of a given type to a node, with a conditional update which only takes
+     * spots that are not leased or whose lease has expired. Spots already leased to the node are renewed.
+     *
+     * @param parkingType The type of parking spot (CAR or BIKE).
+     * @param leaseOwner The id of the node claiming the spots.
+     * @param maxSpots The maximum number of spots to lease.
+     * @param now The current time, in epoch milliseconds.
+     * @param leaseExpiry The end of the lease, in epoch milliseconds.
+     * @return The numbers of the spots leased until {@code leaseExpiry}, empty if none could be leased.
+     */
+    public List<Integer> claimParkingSpots(ParkingType parkingType, String leaseOwner, int maxSpots, long now, long leaseExpiry){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.claimParkingSpots", "CLAIM_PARKING_SPOTS");
+        Connection con = null;
+        List<Integer> parkingNumbers = new ArrayList<>();
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.CLAIM_PARKING_SPOTS);
+            ps.setString(1, leaseOwner);
+            ps.setTimestamp(2, new Timestamp(leaseExpiry));
+            ps.setString(3, parkingType.toString());
+            ps.setString(4, leaseOwner);
+            ps.setTimestamp(5, new Timestamp(now));
+            ps.setInt(6, maxSpots);
+            int claimed = ps.executeUpdate();
+            dataBaseConfig.closePreparedStatement(ps);
+            if(claimed > 0){
+                ps = con.prepareStatement(DBConstants.GET_LEASED_PARKING_SPOTS);
+                ps.setString(1, leaseOwner);
+                ps.setTimestamp(2, new Timestamp(leaseExpiry));
+                ps.setString(3, parkingType.toString());
+                ResultSet rs = ps.executeQuery();
+                while(rs.next()){
+                    parkingNumbers.add(rs.getInt(1));
+                }
+                dataBaseConfig.closeResultSet(rs);
+                dataBaseConfig.closePreparedStatement(ps);
+            }
+        }catch (Exception ex){
+            logger.error("Error claiming parking spots",ex);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return parkingNumbers;
+    }
+
+    /**
+     * Marks a free parking spot occupied, with a conditional update which fails if the lease of the node expired
+     * and another node claimed the spot or occupied it meanwhile.
+     *
+     * @param parkingNumber The number of the spot to occupy.
+     * @param leaseOwner The id of the node which leased the spot.
+     * @return {@code true} if the spot was occupied, {@code false} if it was taken over or on error.
+     */
+    public boolean occupyLeasedParkingSpot(int parkingNumber, String leaseOwner){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.occupyLeasedParkingSpot", "OCCUPY_LEASED_PARKING_SPOT");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.OCCUPY_LEASED_PARKING_SPOT);
+            ps.setInt(1, parkingNumber);
+            ps.setString(2, leaseOwner);
+            int updateRowCount = ps.executeUpdate();
+            dataBaseConfig.closePreparedStatement(ps);
+            return (updateRowCount == 1);
+        }catch (Exception ex){
+            logger.error("Error occupying leased parking spot",ex);
+            return false;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+    }
+
+    /**
+     * Gives back the free parking spots leased to a node, so that other nodes can claim them at once.
+     *
+     * @param leaseOwner The id of the node releasing its spots.
+     * @return The number of released spots, or -1 on error.
+     */
+    public int releaseParkingLeases(String leaseOwner){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.releaseParkingLeases", "RELEASE_PARKING_LEASES");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.RELEASE_PARKING_LEASES);
+            ps.setString(1, leaseOwner);
+            int released = ps.executeUpdate();
+            dataBaseConfig.closePreparedStatement(ps);
+            return released;
+        }catch (Exception ex){
+            logger.error("Error releasing parking leases",ex);
+            return -1;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+    }
+
+    /**
+     * Inserts parking spots with a single multi-row insert, committed on the given connection.
+     * The connection is left open so that bulk imports can reuse it for the next batch.
+     *
+     * @param con A connection with auto-commit disabled.
+     * @param parkingSpots The parking spots to insert.
+     * @return The number of inserted spots, or -1 if the batch was rolled back.
+     */
+    public int bulkInsertParkingSpots(Connection con, List<ParkingSpot> parkingSpots){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.bulkInsertParkingSpots", "BULK_INSERT_PARKING_SPOT");
+        PreparedStatement ps = null;
+        try {
+            ps = con.prepareStatement(TicketDAO.multiRowInsert(DBConstants.BULK_INSERT_PARKING_SPOT,
+                    DBConstants.BULK_INSERT_PARKING_SPOT_ROW, parkingSpots.size()));
+            int parameter = 1;
+            for (ParkingSpot parkingSpot : parkingSpots) {
+                ps.setInt(parameter++, parkingSpot.getId());
+                ps.setBoolean(parameter++, parkingSpot.isAvailable());
+                ps.setString(parameter++, parkingSpot.getParkingType().toString());
+            }
+            int inserted = ps.executeUpdate();
+            con.commit();
+            return inserted;
+        }catch (Exception ex){
+            logger.error("Error inserting parking batch",ex);
+            try {
+                con.rollback();
+            } catch (Exception e) {
+                logger.error("Error rolling back parking batch",e);
+            }
+            return -1;
+        }finally {
+            dataBaseConfig.closePreparedStatement(ps);
+            span.end();
+        }
+    }
+
+    /**
+     * Counts the parking spots of a given type.
+     *
+     * @param parkingType The type of parking spot (CAR or BIKE).
+     * @return The number of spots of that type, or -1 if they could not be counted.
+     */
+    public int getNbParkingSpot(ParkingType parkingType){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.getNbParkingSpot", "GET_NB_PARKING_SPOT");
+        try {
+            return count(DBConstants.GET_NB_PARKING_SPOT, parkingType);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Counts the available parking spots of a given type.
+     *
+     * @param parkingType The type of parking spot (CAR or BIKE).
+     * @return The number of available spots of that type, or -1 if they could not be counted.
+     */
+    public int getNbAvailableParkingSpot(ParkingType parkingType){
+        Tracer.Span span = Tracer.startSpan("ParkingSpotDAO.getNbAvailableParkingSpot", "GET_NB_AVAILABLE_PARKING_SPOT");
+        try {
+            return count(DBConstants.GET_NB_AVAILABLE_PARKING_SPOT, parkingType);
+        } finally {
+            span.end();
+        }
+    }
+
+    private int count(String query, ParkingType parkingType){
+        Connection con = null;
+        int result=-1;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(query);
+            ps.setString(1, parkingType.toString());
+            ResultSet rs = ps.executeQuery();
+            if(rs.next()){
+                result = rs.getInt(1);
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+        }catch (Exception ex){
+            logger.error("Error counting parking spots",ex);
         }finally {
             dataBaseConfig.closeConnection(con);
         }
+        return result;
     }
 
 }
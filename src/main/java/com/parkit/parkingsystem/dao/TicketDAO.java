@@ -4,17 +4,31 @@ import com.parkit.parkingsystem.config.DataBaseConfig;
 import com.parkit.parkingsystem.constants.DBConstants;
 import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.SpotStateTable;
 import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketBatch;
+import com.parkit.parkingsystem.model.TicketPage;
+import com.parkit.parkingsystem.util.PlateBloomFilter;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import com.parkit.parkingsystem.util.Tracer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * DAO class responsible for database operations related to tickets.
+ * Vehicle registration numbers are normalized with {@link PlateNormalizer} before being stored or looked up.
  */
 public class TicketDAO {
 
@@ -22,33 +36,245 @@ public class TicketDAO {
 
     public DataBaseConfig dataBaseConfig = new DataBaseConfig();
 
+    private SpotStateTable spotStateTable;
+    // Filter receiving the plates saved, from the start of its loading
+    private volatile PlateBloomFilter plateFilter;
+    // Same filter once fully loaded, answering getNbTicket; read once per call, as it may be replaced meanwhile
+    private volatile PlateBloomFilter loadedPlateFilter;
+
     /**
-     * Saves a new ticket into the database.
+     * Sets the table whose shared spots are attached to the tickets read, instead of a new spot per ticket.
+     *
+     * @param spotStateTable the spot state table, or null to build the spots from the result sets
+     */
+    public void setSpotStateTable(SpotStateTable spotStateTable) {
+        this.spotStateTable = spotStateTable;
+    }
+
+    /**
+     * Loads every plate of the ticket table into a Bloom filter, then uses it to answer {@link #getNbTicket(String)}
+     * without querying the database for plates that have never been seen. Plates of the tickets saved afterwards
+     * are added to the filter, so the ticket table must not be written by another application instance.
+     *
+     * @param plateFilter An empty filter.
+     * @return {@code true} if the filter was loaded, {@code false} on error, in which case it is not used.
+     */
+    public boolean loadPlateFilter(PlateBloomFilter plateFilter){
+        Tracer.Span span = Tracer.startSpan("TicketDAO.loadPlateFilter", "GET_ALL_PLATES");
+        // Plates saved while loading go into the filter too
+        this.loadedPlateFilter = null;
+        this.plateFilter = plateFilter;
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.GET_ALL_PLATES,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(dataBaseConfig.getStreamingFetchSize());
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                plateFilter.add(rs.getString(1));
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            loadedPlateFilter = plateFilter;
+            logger.info("Loaded " + plateFilter.size() + " plates in " + plateFilter.getMemoryBytes() + " bytes");
+            return true;
+        }catch (Exception ex){
+            logger.error("Error loading plates",ex);
+            this.plateFilter = null;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return false;
+    }
+
+    private void addToPlateFilter(String canonicalPlate) {
+        PlateBloomFilter filter = plateFilter;
+        if (filter != null) {
+            filter.add(canonicalPlate);
+        }
+    }
+
+    /**
+     * Saves a new ticket into the database, setting its generated id.
      *
      * @param ticket The ticket to be saved.
      * @return {@code true} if the ticket was saved successfully, {@code false} otherwise.
      */
     public boolean saveTicket(Ticket ticket){
+        Tracer.Span span = Tracer.startSpan("TicketDAO.saveTicket", "SAVE_TICKET");
         Connection con = null;
         try {
             con = dataBaseConfig.getConnection();
-            PreparedStatement ps = con.prepareStatement(DBConstants.SAVE_TICKET);
+            PreparedStatement ps = con.prepareStatement(DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS);
             //ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME)
             //ps.setInt(1,ticket.getId());
+            String vehicleRegNumber = PlateNormalizer.normalize(ticket.getVehicleRegNumber());
+            addToPlateFilter(vehicleRegNumber);
             ps.setInt(1,ticket.getParkingSpot().getId());
-            ps.setString(2, ticket.getVehicleRegNumber());
-            ps.setDouble(3, ticket.getPrice());
+            ps.setString(2, vehicleRegNumber);
+            ps.setBigDecimal(3, toAmount(ticket.getPriceCents()));
             ps.setTimestamp(4, new Timestamp(ticket.getInTime().getTime()));
             ps.setTimestamp(5, (ticket.getOutTime() == null)?null: (new Timestamp(ticket.getOutTime().getTime())) );
-            return ps.execute();
+            ps.setBigDecimal(6, toRateAmount(ticket.getRatePerHourCents()));
+            ps.executeUpdate();
+            ResultSet rs = ps.getGeneratedKeys();
+            if(rs.next()){
+                ticket.setId(rs.getInt(1));
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            return true;
         }catch (Exception ex){
-            logger.error("Error fetching next available slot",ex);
+            logger.error("Error saving ticket",ex);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return false;
+    }
+
+    /**
+     * Saves a new ticket tagged with the id of the entry request which created it, setting its generated id.
+     * The request id is unique in the ticket table, so a retried request can never create a second ticket.
+     *
+     * @param ticket The ticket to be saved.
+     * @param entryRequestId The id of the entry request.
+     * @return {@code true} if the ticket was saved, {@code false} if the request id was already used or on error.
+     */
+    public boolean saveTicket(Ticket ticket, String entryRequestId){
+        Tracer.Span span = Tracer.startSpan("TicketDAO.saveTicket", "SAVE_TICKET_WITH_REQUEST_ID");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.SAVE_TICKET_WITH_REQUEST_ID, Statement.RETURN_GENERATED_KEYS);
+            String vehicleRegNumber = PlateNormalizer.normalize(ticket.getVehicleRegNumber());
+            addToPlateFilter(vehicleRegNumber);
+            ps.setInt(1,ticket.getParkingSpot().getId());
+            ps.setString(2, vehicleRegNumber);
+            ps.setBigDecimal(3, toAmount(ticket.getPriceCents()));
+            ps.setTimestamp(4, new Timestamp(ticket.getInTime().getTime()));
+            ps.setTimestamp(5, (ticket.getOutTime() == null)?null: (new Timestamp(ticket.getOutTime().getTime())) );
+            ps.setString(6, entryRequestId);
+            ps.setBigDecimal(7, toRateAmount(ticket.getRatePerHourCents()));
+            ps.executeUpdate();
+            ResultSet rs = ps.getGeneratedKeys();
+            if(rs.next()){
+                ticket.setId(rs.getInt(1));
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            return true;
+        }catch (SQLIntegrityConstraintViolationException ex){
+            logger.info("Entry request " + entryRequestId + " has already been saved");
+        }catch (Exception ex){
+            logger.error("Error saving ticket",ex);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return false;
+    }
+
+    /**
+     * Saves several new tickets in a single JDBC batch and transaction, setting their generated ids.
+     *
+     * @param tickets The tickets to be saved.
+     * @return {@code true} if every ticket was saved, {@code false} if none was.
+     */
+    public boolean saveTickets(List<Ticket> tickets){
+        Tracer.Span span = Tracer.startSpan("TicketDAO.saveTickets", "SAVE_TICKET");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            con.setAutoCommit(false);
+            PreparedStatement ps = con.prepareStatement(DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS);
+            for (Ticket ticket : tickets) {
+                String vehicleRegNumber = PlateNormalizer.normalize(ticket.getVehicleRegNumber());
+                addToPlateFilter(vehicleRegNumber);
+                ps.setInt(1,ticket.getParkingSpot().getId());
+                ps.setString(2, vehicleRegNumber);
+                ps.setBigDecimal(3, toAmount(ticket.getPriceCents()));
+                ps.setTimestamp(4, new Timestamp(ticket.getInTime().getTime()));
+                ps.setTimestamp(5, (ticket.getOutTime() == null)?null: (new Timestamp(ticket.getOutTime().getTime())) );
+                ps.setBigDecimal(6, toRateAmount(ticket.getRatePerHourCents()));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            con.commit();
+            ResultSet rs = ps.getGeneratedKeys();
+            for (int i = 0; i < tickets.size() && rs.next(); i++) {
+                tickets.get(i).setId(rs.getInt(1));
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            return true;
+        }catch (Exception ex){
+            logger.error("Error saving ticket batch",ex);
+            rollback(con);
         }finally {
             dataBaseConfig.closeConnection(con);
+            span.end();
         }
         return false;
     }
 
+    /**
+     * Inserts a batch of tickets with a single multi-row insert, committed on the given connection.
+     * The connection is left open so that bulk imports can reuse it for the next batch.
+     *
+     * @param con A connection with auto-commit disabled.
+     * @param batch The tickets to insert, with normalized registration numbers.
+     * @return The number of inserted tickets, or -1 if the batch was rolled back.
+     */
+    public int bulkInsertTickets(Connection con, TicketBatch batch){
+        Tracer.Span span = Tracer.startSpan("TicketDAO.bulkInsertTickets", "BULK_INSERT_TICKET");
+        PreparedStatement ps = null;
+        try {
+            ps = con.prepareStatement(multiRowInsert(DBConstants.BULK_INSERT_TICKET, DBConstants.BULK_INSERT_TICKET_ROW, batch.size()));
+            int parameter = 1;
+            for (int row = 0; row < batch.size(); row++) {
+                addToPlateFilter(batch.getVehicleRegNumber(row));
+                ps.setInt(parameter++, batch.getParkingNumber(row));
+                ps.setString(parameter++, batch.getVehicleRegNumber(row));
+                ps.setBigDecimal(parameter++, toAmount(batch.getPriceCents(row)));
+                ps.setTimestamp(parameter++, new Timestamp(batch.getInTime(row)));
+                ps.setTimestamp(parameter++, (batch.getOutTime(row) < 0) ? null : new Timestamp(batch.getOutTime(row)));
+            }
+            int inserted = ps.executeUpdate();
+            con.commit();
+            return inserted;
+        }catch (Exception ex){
+            logger.error("Error inserting ticket batch",ex);
+            rollback(con);
+            return -1;
+        }finally {
+            dataBaseConfig.closePreparedStatement(ps);
+            span.end();
+        }
+    }
+
+    /**
+     * Builds a multi-row insert statement.
+     *
+     * @param prefix The insert statement up to the {@code values} keyword.
+     * @param row The placeholders of one row.
+     * @param nbRow The number of rows.
+     * @return The statement.
+     */
+    static String multiRowInsert(String prefix, String row, int nbRow) {
+        StringBuilder sql = new StringBuilder(prefix.length() + nbRow * (row.length() + 1));
+        sql.append(prefix);
+        for (int i = 0; i < nbRow; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
     /**
      * Retrieves a ticket based on the vehicle registration number.
      *
@@ -56,6 +282,8 @@ public class TicketDAO {
      * @return The ticket associated with the vehicle, or {@code null} if not found.
      */
     public Ticket getTicket(String vehicleRegNumber) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.getTicket", "GET_TICKET");
+        vehicleRegNumber = PlateNormalizer.normalize(vehicleRegNumber);
         Connection con = null;
         Ticket ticket = null;
         try {
@@ -66,13 +294,13 @@ public class TicketDAO {
             ResultSet rs = ps.executeQuery();
             if(rs.next()){
                 ticket = new Ticket();
-                ParkingSpot parkingSpot = new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(6)),false);
-                ticket.setParkingSpot(parkingSpot);
+                ticket.setParkingSpot(toParkingSpot(rs.getInt(1), rs.getString(6)));
                 ticket.setId(rs.getInt(2));
                 ticket.setVehicleRegNumber(vehicleRegNumber);
-                ticket.setPrice(rs.getDouble(3));
+                ticket.setPriceCents(toCents(rs.getBigDecimal(3)));
                 ticket.setInTime(rs.getTimestamp(4));
                 ticket.setOutTime(rs.getTimestamp(5));
+                ticket.setRatePerHourCents(toCents(rs.getBigDecimal(7)));
             }
             dataBaseConfig.closeResultSet(rs);
             dataBaseConfig.closePreparedStatement(ps);
@@ -80,6 +308,7 @@ public class TicketDAO {
             logger.error("Error fetching next available slot",ex);
         }finally {
             dataBaseConfig.closeConnection(con);
+            span.end();
         }
         return ticket;
     }
@@ -91,11 +320,12 @@ public class TicketDAO {
      * @return {@code true} if the update was successful, {@code false} otherwise.
      */
     public boolean updateTicket(Ticket ticket) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.updateTicket", "UPDATE_TICKET");
         Connection con = null;
         try {
             con = dataBaseConfig.getConnection();
             PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_TICKET);
-            ps.setDouble(1, ticket.getPrice());
+            ps.setBigDecimal(1, toAmount(ticket.getPriceCents()));
             ps.setTimestamp(2, new Timestamp(ticket.getOutTime().getTime()));
             ps.setInt(3,ticket.getId());
             ps.execute();
@@ -104,17 +334,246 @@ public class TicketDAO {
             logger.error("Error saving ticket info",ex);
         }finally {
             dataBaseConfig.closeConnection(con);
+            span.end();
         }
         return false;
     }
     
+    /**
+     * Closes an open ticket, tagging it with the id of the exit request which closed it.
+     * The update only applies to a ticket without out-time, so a retried request can never price it twice.
+     *
+     * @param ticket The ticket to be closed, with its price and out-time set.
+     * @param exitRequestId The id of the exit request.
+     * @return {@code true} if the ticket was closed, {@code false} if it was already closed or on error.
+     */
+    public boolean closeTicket(Ticket ticket, String exitRequestId) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.closeTicket", "CLOSE_TICKET_WITH_REQUEST_ID");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.CLOSE_TICKET_WITH_REQUEST_ID);
+            ps.setBigDecimal(1, toAmount(ticket.getPriceCents()));
+            ps.setTimestamp(2, new Timestamp(ticket.getOutTime().getTime()));
+            ps.setString(3, exitRequestId);
+            ps.setInt(4,ticket.getId());
+            int updateRowCount = ps.executeUpdate();
+            dataBaseConfig.closePreparedStatement(ps);
+            return (updateRowCount == 1);
+        }catch (SQLIntegrityConstraintViolationException ex){
+            logger.info("Exit request " + exitRequestId + " has already been saved");
+        }catch (Exception ex){
+            logger.error("Error closing ticket",ex);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the ticket created by an entry request.
+     *
+     * @param entryRequestId The id of the entry request.
+     * @return The ticket, or {@code null} if no ticket was created by this request.
+     */
+    public Ticket getTicketByEntryRequestId(String entryRequestId) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.getTicketByEntryRequestId", "GET_TICKET_BY_ENTRY_REQUEST_ID");
+        try {
+            return getTicketByRequestId(DBConstants.GET_TICKET_BY_ENTRY_REQUEST_ID, entryRequestId);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Retrieves the ticket closed by an exit request.
+     *
+     * @param exitRequestId The id of the exit request.
+     * @return The ticket, or {@code null} if no ticket was closed by this request.
+     */
+    public Ticket getTicketByExitRequestId(String exitRequestId) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.getTicketByExitRequestId", "GET_TICKET_BY_EXIT_REQUEST_ID");
+        try {
+            return getTicketByRequestId(DBConstants.GET_TICKET_BY_EXIT_REQUEST_ID, exitRequestId);
+        } finally {
+            span.end();
+        }
+    }
+
+    private ParkingSpot toParkingSpot(int number, String parkingType) {
+        ParkingSpot parkingSpot = (spotStateTable != null) ? spotStateTable.getSpot(number) : null;
+        return (parkingSpot != null) ? parkingSpot : new ParkingSpot(number, ParkingType.valueOf(parkingType), false);
+    }
+
+    private Ticket getTicketByRequestId(String query, String requestId) {
+        Connection con = null;
+        Ticket ticket = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(query);
+            ps.setString(1,requestId);
+            ResultSet rs = ps.executeQuery();
+            if(rs.next()){
+                ticket = toTicket(rs);
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+        }catch (Exception ex){
+            logger.error("Error fetching ticket by request id",ex);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+        }
+        return ticket;
+    }
+
+    /**
+     * Reads a ticket from a row holding PARKING_NUMBER, ID, PRICE, IN_TIME, OUT_TIME, TYPE, VEHICLE_REG_NUMBER
+     * and RATE.
+     */
+    private Ticket toTicket(ResultSet rs) throws SQLException {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(toParkingSpot(rs.getInt(1), rs.getString(6)));
+        ticket.setId(rs.getInt(2));
+        ticket.setPriceCents(toCents(rs.getBigDecimal(3)));
+        ticket.setInTime(rs.getTimestamp(4));
+        ticket.setOutTime(rs.getTimestamp(5));
+        ticket.setVehicleRegNumber(rs.getString(7));
+        ticket.setRatePerHourCents(toCents(rs.getBigDecimal(8)));
+        return ticket;
+    }
+
+    /**
+     * Retrieves a page of the visit history of a vehicle, most recent first.
+     *
+     * @param vehicleRegNumber The vehicle registration number.
+     * @param previous The previous page, or {@code null} for the first page.
+     * @param pageSize The maximum number of tickets of the page.
+     * @return The page, empty if there is no more ticket or on error.
+     */
+    public TicketPage getTicketHistory(String vehicleRegNumber, TicketPage previous, int pageSize) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.getTicketHistory",
+                (previous == null) ? "GET_TICKET_HISTORY" : "GET_TICKET_HISTORY_AFTER");
+        try {
+            vehicleRegNumber = PlateNormalizer.normalize(vehicleRegNumber);
+            if(previous == null) {
+                return getTicketPage(DBConstants.GET_TICKET_HISTORY, pageSize, vehicleRegNumber, pageSize + 1);
+            }
+            Timestamp lastInTime = new Timestamp(previous.getLastInTime());
+            return getTicketPage(DBConstants.GET_TICKET_HISTORY_AFTER, pageSize, vehicleRegNumber, lastInTime,
+                    lastInTime, previous.getLastId(), pageSize + 1);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Retrieves a page of the tickets whose in-time falls within a time range, in in-time order.
+     *
+     * @param from The start of the range, inclusive, in epoch milliseconds.
+     * @param to The end of the range, exclusive, in epoch milliseconds.
+     * @param previous The previous page, or {@code null} for the first page.
+     * @param pageSize The maximum number of tickets of the page.
+     * @return The page, empty if there is no more ticket or on error.
+     */
+    public TicketPage getTicketsInTimeRange(long from, long to, TicketPage previous, int pageSize) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.getTicketsInTimeRange", "GET_TICKETS_IN_RANGE_AFTER");
+        try {
+            // The first page starts after a virtual ticket with id 0 entered at the start of the range
+            Timestamp lastInTime = new Timestamp((previous == null) ? from : previous.getLastInTime());
+            int lastId = (previous == null) ? 0 : previous.getLastId();
+            return getTicketPage(DBConstants.GET_TICKETS_IN_RANGE_AFTER, pageSize, lastInTime, lastInTime, lastId,
+                    new Timestamp(to), pageSize + 1);
+        } finally {
+            span.end();
+        }
+    }
+
+    private TicketPage getTicketPage(String query, int pageSize, Object... parameters) {
+        Connection con = null;
+        List<Ticket> tickets = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(query,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(pageSize + 1);
+            for (int i = 0; i < parameters.length; i++) {
+                ps.setObject(i + 1, parameters[i]);
+            }
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                if(tickets.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                tickets.add(toTicket(rs));
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+        }catch (Exception ex){
+            logger.error("Error fetching ticket page",ex);
+            tickets.clear();
+            hasMore = false;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+        }
+        return new TicketPage(tickets, hasMore);
+    }
+
+    /**
+     * Closes several open tickets in a single JDBC batch and transaction.
+     * Each update only applies to a ticket without out-time, so a ticket is never closed twice.
+     *
+     * @param tickets The tickets to be closed, with their price and out-time set.
+     * @return For each ticket, whether it was closed by this call rather than already closed,
+     * or {@code null} if none was closed because of an error.
+     */
+    public boolean[] closeTickets(List<Ticket> tickets) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.closeTickets", "CLOSE_TICKET");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            con.setAutoCommit(false);
+            PreparedStatement ps = con.prepareStatement(DBConstants.CLOSE_TICKET);
+            for (Ticket ticket : tickets) {
+                ps.setBigDecimal(1, toAmount(ticket.getPriceCents()));
+                ps.setTimestamp(2, new Timestamp(ticket.getOutTime().getTime()));
+                ps.setInt(3,ticket.getId());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            con.commit();
+            dataBaseConfig.closePreparedStatement(ps);
+            boolean[] closed = new boolean[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                closed[i] = counts[i] > 0;
+            }
+            return closed;
+        }catch (Exception ex){
+            logger.error("Error closing ticket batch",ex);
+            rollback(con);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return null;
+    }
+
     /**
      * Retrieves the number of tickets associated with a given vehicle registration number.
+     * Once a plate filter is loaded, plates that have never been seen are answered without querying the database.
      *
      * @param vehicleRegNumber The vehicle registration number.
      * @return The number of tickets found.
      */
     public int getNbTicket(String vehicleRegNumber) {
+        vehicleRegNumber = PlateNormalizer.normalize(vehicleRegNumber);
+        PlateBloomFilter loadedFilter = loadedPlateFilter;
+        if(loadedFilter != null && !loadedFilter.mightContain(vehicleRegNumber)) {
+            return 0;
+        }
+        Tracer.Span span = Tracer.startSpan("TicketDAO.getNbTicket", "GET_NB_TICKET");
     	int nbTicket = 0;
         Connection con = null;
         try {
@@ -131,8 +590,168 @@ public class TicketDAO {
             logger.error("Error fetching next available slot",ex);
         }finally {
             dataBaseConfig.closeConnection(con);
+            span.end();
         }
         return nbTicket;
 
     }
+
+    /**
+     * Streams every row of the ticket table to the given handler, in ticket id order.
+     * Rows are fetched one by one from the server so that the whole table is never held in memory.
+     *
+     * @param handler The handler receiving each row.
+     * @return The number of rows streamed, or -1 if the rows could not be streamed entirely.
+     */
+    public long streamTickets(TicketRowHandler handler) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.streamTickets", "GET_ALL_TICKETS");
+        try {
+            return stream(DBConstants.GET_ALL_TICKETS, handler);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Streams the tickets closed within a time range to the given handler.
+     *
+     * @param from The start of the range, inclusive, in epoch milliseconds.
+     * @param to The end of the range, exclusive, in epoch milliseconds.
+     * @param handler The handler receiving each row.
+     * @return The number of rows streamed, or -1 if the rows could not be streamed entirely.
+     */
+    public long streamClosedTickets(long from, long to, TicketRowHandler handler) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.streamClosedTickets", "GET_CLOSED_TICKETS");
+        try {
+            return stream(DBConstants.GET_CLOSED_TICKETS, handler, new Timestamp(from), new Timestamp(to));
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Retrieves the lowest and highest ticket ids, to split the ticket table into chunks scanned in parallel.
+     *
+     * @return The lowest and highest ids, an empty array if there is no ticket, or {@code null} on error.
+     */
+    public int[] getTicketIdRange() {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.getTicketIdRange", "GET_TICKET_ID_RANGE");
+        Connection con = null;
+        int[] range = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            PreparedStatement ps = con.prepareStatement(DBConstants.GET_TICKET_ID_RANGE);
+            ResultSet rs = ps.executeQuery();
+            if(rs.next()){
+                range = (rs.getObject(1) != null) ? new int[]{rs.getInt(1), rs.getInt(2)} : new int[0];
+            }
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+        }catch (Exception ex){
+            logger.error("Error fetching ticket id range",ex);
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+        return range;
+    }
+
+    /**
+     * Streams the tickets of an id range to the given handler, in ticket id order. Each call holds its own
+     * connection, streaming its rows one by one, so that disjoint ranges can be scanned in parallel.
+     *
+     * @param fromId The first id of the range, inclusive.
+     * @param toId The last id of the range, exclusive.
+     * @param handler The handler receiving each row.
+     * @return The number of rows streamed, or -1 if the range could not be streamed entirely.
+     */
+    public long streamTicketsByIdRange(int fromId, int toId, TicketRowHandler handler) {
+        Tracer.Span span = Tracer.startSpan("TicketDAO.streamTicketsByIdRange", "GET_TICKETS_BY_ID_RANGE");
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            return stream(con, DBConstants.GET_TICKETS_BY_ID_RANGE, handler, fromId, toId);
+        }catch (Exception ex){
+            logger.error("Error streaming tickets " + fromId + " to " + toId,ex);
+            return -1;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+            span.end();
+        }
+    }
+
+    private long stream(Connection con, String query, TicketRowHandler handler, Object... parameters)
+            throws SQLException {
+        long count = 0;
+        PreparedStatement ps = con.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(dataBaseConfig.getStreamingFetchSize());
+        for (int i = 0; i < parameters.length; i++) {
+            ps.setObject(i + 1, parameters[i]);
+        }
+        ResultSet rs = ps.executeQuery();
+        while(rs.next()){
+            Timestamp outTime = rs.getTimestamp(7);
+            handler.onRow(rs.getInt(1), rs.getInt(2), ParkingType.valueOf(rs.getString(3)), rs.getString(4),
+                    toCents(rs.getBigDecimal(5)), rs.getTimestamp(6).getTime(),
+                    (outTime == null) ? -1 : outTime.getTime());
+            count++;
+        }
+        dataBaseConfig.closeResultSet(rs);
+        dataBaseConfig.closePreparedStatement(ps);
+        return count;
+    }
+
+    private long stream(String query, TicketRowHandler handler, Object... parameters) {
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            return stream(con, query, handler, parameters);
+        }catch (Exception ex){
+            logger.error("Error streaming tickets",ex);
+            return -1;
+        }finally {
+            dataBaseConfig.closeConnection(con);
+        }
+    }
+
+    /**
+     * Converts a price in cents to the amount stored in the PRICE column.
+     *
+     * @param cents The price, in cents.
+     * @return The amount, with two decimals.
+     */
+    static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Converts an hourly rate in cents to the amount stored in the RATE column, leaving unrecorded rates null.
+     *
+     * @param cents The hourly rate, in cents, or 0 if not recorded.
+     * @return The amount, with two decimals, or {@code null}.
+     */
+    static BigDecimal toRateAmount(long cents) {
+        return (cents <= 0) ? null : toAmount(cents);
+    }
+
+    /**
+     * Converts an amount read from the PRICE or RATE column to cents.
+     *
+     * @param amount The amount, possibly {@code null}.
+     * @return The price, in cents.
+     */
+    static long toCents(BigDecimal amount) {
+        return (amount == null) ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private void rollback(Connection con) {
+        if (con != null) {
+            try {
+                con.rollback();
+            } catch (Exception ex) {
+                logger.error("Error rolling back ticket batch",ex);
+            }
+        }
+    }
 }
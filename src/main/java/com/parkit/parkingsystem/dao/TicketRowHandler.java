@@ -0,0 +1,25 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Callback receiving the rows of the ticket table one at a time while it is being streamed.
+ * Values are passed as primitives so that a full table scan does not build a {@code Ticket}
+ * per row.
+ */
+public interface TicketRowHandler {
+
+    /**
+     * Handles a single ticket row.
+     *
+     * @param id               The ticket identifier.
+     * @param parkingNumber    The parking spot number.
+     * @param parkingType      The type of the parking spot.
+     * @param vehicleRegNumber The vehicle registration number.
+     * @param priceCents       The price of the ticket, in cents.
+     * @param inTime           The in-time, in epoch milliseconds.
+     * @param outTime          The out-time, in epoch milliseconds, or -1 if the ticket is still open.
+     */
+    void onRow(int id, int parkingNumber, ParkingType parkingType, String vehicleRegNumber,
+               long priceCents, long inTime, long outTime);
+}
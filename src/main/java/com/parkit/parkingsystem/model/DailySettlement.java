@@ -0,0 +1,67 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable end-of-day totals of the tickets closed during one day.
+ * Figures are indexed by {@link ParkingType}.
+ */
+public class DailySettlement {
+    private final LocalDate day;
+    private final int[] nbTickets;
+    private final long[] totalCents;
+
+    /**
+     * Constructor to initialize a daily settlement. The arrays are indexed by {@link ParkingType#ordinal()}
+     * and are not copied.
+     *
+     * @param day        The settled day.
+     * @param nbTickets  The number of tickets closed during the day.
+     * @param totalCents The total price of the tickets closed during the day, in cents.
+     */
+    public DailySettlement(LocalDate day, int[] nbTickets, long[] totalCents) {
+        this.day = day;
+        this.nbTickets = nbTickets;
+        this.totalCents = totalCents;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public int getNbTicket(ParkingType parkingType) {
+        return nbTickets[parkingType.ordinal()];
+    }
+
+    public long getTotalCents(ParkingType parkingType) {
+        return totalCents[parkingType.ordinal()];
+    }
+
+    /**
+     * Returns the number of tickets closed during the day, all parking types included.
+     *
+     * @return the number of tickets
+     */
+    public int getNbTicket() {
+        int nbTicket = 0;
+        for (int count : nbTickets) {
+            nbTicket += count;
+        }
+        return nbTicket;
+    }
+
+    /**
+     * Returns the total price of the tickets closed during the day, all parking types included.
+     *
+     * @return the total, in cents
+     */
+    public long getTotalCents() {
+        long total = 0;
+        for (long cents : totalCents) {
+            total += cents;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,55 @@
+package com.parkit.parkingsystem.model;
+
+/**
+ * Model class representing the amount due for an open ticket at a given time, as shown by pay stations.
+ * A quote does not close nor modify the ticket.
+ */
+public class FareQuote {
+    private final int ticketId;
+    private final String vehicleRegNumber;
+    private final long priceCents;
+    private final long asOfTime;
+    private final long validUntil;
+
+    /**
+     * Constructor to initialize a fare quote.
+     *
+     * @param ticketId         The identifier of the quoted ticket.
+     * @param vehicleRegNumber The registration number of the vehicle.
+     * @param priceCents       The amount due, in cents.
+     * @param asOfTime         The time the amount is computed at, in epoch milliseconds.
+     * @param validUntil       The time from which the quote is computed again, in epoch milliseconds.
+     */
+    public FareQuote(int ticketId, String vehicleRegNumber, long priceCents, long asOfTime, long validUntil) {
+        this.ticketId = ticketId;
+        this.vehicleRegNumber = vehicleRegNumber;
+        this.priceCents = priceCents;
+        this.asOfTime = asOfTime;
+        this.validUntil = validUntil;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    public long getAsOfTime() {
+        return asOfTime;
+    }
+
+    public long getValidUntil() {
+        return validUntil;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d.%02d as of %d", vehicleRegNumber, priceCents / 100, priceCents % 100, asOfTime);
+    }
+}
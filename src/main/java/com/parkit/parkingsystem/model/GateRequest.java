@@ -0,0 +1,121 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Model class representing a vehicle passing a gate, as it flows through the stages of the gate pipeline.
+ * Each stage fills in the fields it is responsible for before handing the request to the next one.
+ */
+public class GateRequest {
+
+    /**
+     * Direction of a vehicle passing a gate.
+     */
+    public enum Kind {
+        ENTRY,
+        EXIT
+    }
+
+    /**
+     * Outcome of a gate request.
+     */
+    public enum Status {
+        PENDING,
+        ACCEPTED,
+        REJECTED,
+        FAILED
+    }
+
+    private final String input;
+    private final long receivedTime;
+    private Kind kind;
+    private ParkingType parkingType;
+    private String vehicleRegNumber;
+    private ParkingSpot parkingSpot;
+    private Ticket ticket;
+    private Status status = Status.PENDING;
+    private String message;
+
+    /**
+     * Constructor to initialize a gate request from the raw gate input.
+     *
+     * @param input        The line read at the gate.
+     * @param receivedTime The time the line was read, in epoch milliseconds.
+     */
+    public GateRequest(String input, long receivedTime) {
+        this.input = input;
+        this.receivedTime = receivedTime;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public long getReceivedTime() {
+        return receivedTime;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public ParkingType getParkingType() {
+        return parkingType;
+    }
+
+    public void setParkingType(ParkingType parkingType) {
+        this.parkingType = parkingType;
+    }
+
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+
+    public void setVehicleRegNumber(String vehicleRegNumber) {
+        this.vehicleRegNumber = vehicleRegNumber;
+    }
+
+    public ParkingSpot getParkingSpot() {
+        return parkingSpot;
+    }
+
+    public void setParkingSpot(ParkingSpot parkingSpot) {
+        this.parkingSpot = parkingSpot;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the outcome of the request.
+     *
+     * @param status  The outcome.
+     * @param message The message displayed at the gate.
+     */
+    public void complete(Status status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "GateRequest[" + input + "] " + status + ((message == null) ? "" : ": " + message);
+    }
+}
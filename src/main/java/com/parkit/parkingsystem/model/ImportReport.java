@@ -0,0 +1,65 @@
+package com.parkit.parkingsystem.model;
+
+/**
+ * Immutable summary of a bulk import.
+ */
+public class ImportReport {
+
+    private final long rowsRead;
+    private final long rowsImported;
+    private final long rowsRejected;
+    private final long rowsFailed;
+    private final long elapsedMillis;
+
+    /**
+     * Constructor to initialize an import report.
+     *
+     * @param rowsRead      The number of rows read from the input.
+     * @param rowsImported  The number of rows written to the database.
+     * @param rowsRejected  The number of rows rejected by validation.
+     * @param rowsFailed    The number of valid rows the database refused.
+     * @param elapsedMillis The duration of the import, in milliseconds.
+     */
+    public ImportReport(long rowsRead, long rowsImported, long rowsRejected, long rowsFailed, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.rowsFailed = rowsFailed;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the import rate.
+     *
+     * @return the number of rows imported per second
+     */
+    public double getRowsPerSecond() {
+        return (elapsedMillis == 0) ? rowsImported : rowsImported * 1000d / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return rowsImported + " rows imported out of " + rowsRead + " read (" + rowsRejected + " rejected, "
+                + rowsFailed + " failed) in " + elapsedMillis + " ms, " + String.format("%.0f rows/s", getRowsPerSecond());
+    }
+}
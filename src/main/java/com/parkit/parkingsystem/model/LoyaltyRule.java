@@ -0,0 +1,69 @@
+package com.parkit.parkingsystem.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model class representing a loyalty rule: a discount granted to vehicles with a minimum number of visits
+ * within a sliding window of days, the current visit included.
+ */
+public class LoyaltyRule {
+    private final int minVisits;
+    private final int windowDays;
+    private final long discountPercent;
+
+    /**
+     * Constructor to initialize a loyalty rule.
+     *
+     * @param minVisits       The minimum number of visits within the window.
+     * @param windowDays      The length of the window, in days, ending with the current day.
+     * @param discountPercent The percentage of the full fare charged when the rule applies.
+     */
+    public LoyaltyRule(int minVisits, int windowDays, long discountPercent) {
+        if (minVisits < 1 || windowDays < 1 || discountPercent < 0 || discountPercent > 100) {
+            throw new IllegalArgumentException("Invalid loyalty rule: " + minVisits + " visits in " + windowDays
+                    + " days at " + discountPercent + "%");
+        }
+        this.minVisits = minVisits;
+        this.windowDays = windowDays;
+        this.discountPercent = discountPercent;
+    }
+
+    public int getMinVisits() {
+        return minVisits;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    public long getDiscountPercent() {
+        return discountPercent;
+    }
+
+    /**
+     * Parses a comma-separated list of rules written {@code visits/days:percent}, for example
+     * {@code "2/30:95,5/30:90"} for 5% off from the second visit in 30 days and 10% off from the fifth.
+     *
+     * @param rules The rules to parse.
+     * @return The parsed rules.
+     * @throws IllegalArgumentException if a rule is malformed
+     */
+    public static List<LoyaltyRule> parse(String rules) {
+        List<LoyaltyRule> parsed = new ArrayList<>();
+        for (String rule : rules.split(",")) {
+            String[] parts = rule.trim().split("[/:]");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid loyalty rule: " + rule);
+            }
+            parsed.add(new LoyaltyRule(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Long.parseLong(parts[2].trim())));
+        }
+        return parsed;
+    }
+
+    @Override
+    public String toString() {
+        return minVisits + "/" + windowDays + ":" + discountPercent;
+    }
+}
@@ -0,0 +1,66 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Immutable alert raised when a vehicle has been parked for longer than an overstay threshold.
+ */
+public class OverstayAlert {
+
+    private final String vehicleRegNumber;
+    private final int parkingNumber;
+    private final ParkingType parkingType;
+    private final long inTime;
+    private final int thresholdIndex;
+    private final long thresholdMillis;
+
+    /**
+     * Constructor to initialize an overstay alert.
+     *
+     * @param vehicleRegNumber The vehicle registration number.
+     * @param parkingNumber    The parking spot number.
+     * @param parkingType      The type of the parking spot.
+     * @param inTime           The in-time of the open ticket, in epoch milliseconds.
+     * @param thresholdIndex   The index of the exceeded threshold, 0 being the shortest.
+     * @param thresholdMillis  The exceeded threshold, in milliseconds.
+     */
+    public OverstayAlert(String vehicleRegNumber, int parkingNumber, ParkingType parkingType, long inTime,
+                         int thresholdIndex, long thresholdMillis) {
+        this.vehicleRegNumber = vehicleRegNumber;
+        this.parkingNumber = parkingNumber;
+        this.parkingType = parkingType;
+        this.inTime = inTime;
+        this.thresholdIndex = thresholdIndex;
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+
+    public int getParkingNumber() {
+        return parkingNumber;
+    }
+
+    public ParkingType getParkingType() {
+        return parkingType;
+    }
+
+    public long getInTime() {
+        return inTime;
+    }
+
+    public int getThresholdIndex() {
+        return thresholdIndex;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Vehicle " + vehicleRegNumber + " parked in spot " + parkingNumber + " for more than "
+                + (thresholdMillis / 60000) + " minutes";
+    }
+}
@@ -0,0 +1,83 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Immutable domain event recording a change of the parking lot state.
+ */
+public class ParkingEvent {
+
+    /**
+     * Kinds of parking events.
+     */
+    public enum Type {
+        VEHICLE_ENTERED,
+        VEHICLE_EXITED,
+        SPOT_RELEASED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final long timestamp;
+    private final int parkingNumber;
+    private final ParkingType parkingType;
+    private final int ticketId;
+    private final String vehicleRegNumber;
+    private final long priceCents;
+
+    /**
+     * Constructor to initialize a parking event.
+     *
+     * @param sequence         The position of the event in the event log.
+     * @param type             The kind of event.
+     * @param timestamp        The time of the event, in epoch milliseconds.
+     * @param parkingNumber    The parking spot number.
+     * @param parkingType      The type of the parking spot.
+     * @param ticketId         The ticket identifier, or 0 if unknown.
+     * @param vehicleRegNumber The vehicle registration number, or {@code null} for a released spot.
+     * @param priceCents       The price paid on exit, in cents.
+     */
+    public ParkingEvent(long sequence, Type type, long timestamp, int parkingNumber, ParkingType parkingType,
+                        int ticketId, String vehicleRegNumber, long priceCents) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.parkingNumber = parkingNumber;
+        this.parkingType = parkingType;
+        this.ticketId = ticketId;
+        this.vehicleRegNumber = vehicleRegNumber;
+        this.priceCents = priceCents;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getParkingNumber() {
+        return parkingNumber;
+    }
+
+    public ParkingType getParkingType() {
+        return parkingType;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+
+    public long getPriceCents() {
+        return priceCents;
+    }
+}
@@ -8,7 +8,7 @@ import com.parkit.parkingsystem.constants.ParkingType;
 public class ParkingSpot {
     private int number;
     private ParkingType parkingType;
-    private boolean isAvailable;
+    private volatile boolean isAvailable;
 
     /**
      * Constructor to initialize a parking spot.
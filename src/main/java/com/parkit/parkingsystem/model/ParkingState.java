@@ -0,0 +1,223 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory state of the parking lot rebuilt from {@link ParkingEvent}s: availability of every known spot
+ * and open tickets. The state can be written to and read from a compact binary snapshot. Methods are synchronized.
+ */
+public class ParkingState {
+
+    private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+
+    // Spot type ordinal plus one, indexed by spot number: 0 marks an unknown spot
+    private byte[] spotTypes = new byte[16];
+    private boolean[] available = new boolean[16];
+    private TicketStore openTickets = new TicketStore(256);
+    private long lastSequence;
+
+    /**
+     * Records the type and availability of a spot.
+     *
+     * @param number The parking spot number.
+     * @param parkingType The type of the parking spot.
+     * @param isAvailable The availability status of the parking spot.
+     */
+    public synchronized void registerSpot(int number, ParkingType parkingType, boolean isAvailable) {
+        if (number >= spotTypes.length) {
+            int length = Math.max(number + 1, spotTypes.length * 2);
+            spotTypes = Arrays.copyOf(spotTypes, length);
+            available = Arrays.copyOf(available, length);
+        }
+        spotTypes[number] = (byte) (parkingType.ordinal() + 1);
+        available[number] = isAvailable;
+    }
+
+    /**
+     * Records an open ticket.
+     *
+     * @param ticketId The ticket identifier.
+     * @param parkingNumber The parking spot number.
+     * @param parkingType The type of the parking spot.
+     * @param vehicleRegNumber The vehicle registration number.
+     * @param inTime The in-time, in epoch milliseconds.
+     */
+    public synchronized void openTicket(int ticketId, int parkingNumber, ParkingType parkingType,
+                                        String vehicleRegNumber, long inTime) {
+        openTickets.add(ticketId, parkingNumber, parkingType, vehicleRegNumber, 0, inTime, -1);
+    }
+
+    /**
+     * Applies an event to the state.
+     *
+     * @param event the event, which must follow the last applied one
+     */
+    public synchronized void apply(ParkingEvent event) {
+        switch (event.getType()) {
+            case VEHICLE_ENTERED: {
+                registerSpot(event.getParkingNumber(), event.getParkingType(), false);
+                openTicket(event.getTicketId(), event.getParkingNumber(), event.getParkingType(),
+                        event.getVehicleRegNumber(), event.getTimestamp());
+                break;
+            }
+            case VEHICLE_EXITED: {
+                int slot = openTickets.findOpenTicket(event.getVehicleRegNumber());
+                if (slot >= 0) {
+                    openTickets.remove(slot);
+                }
+                break;
+            }
+            case SPOT_RELEASED: {
+                registerSpot(event.getParkingNumber(), event.getParkingType(), true);
+                break;
+            }
+            default: throw new IllegalArgumentException("Unknown event type");
+        }
+        lastSequence = event.getSequence();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Checks if a spot is known and available.
+     *
+     * @param number The parking spot number.
+     * @return {@code true} if the spot is available, {@code false} if it is occupied or unknown.
+     */
+    public synchronized boolean isAvailable(int number) {
+        return number > 0 && number < spotTypes.length && spotTypes[number] != 0 && available[number];
+    }
+
+    /**
+     * Counts the available spots of a given type.
+     *
+     * @param parkingType The type of parking spot.
+     * @return The number of available spots.
+     */
+    public synchronized int getNbAvailableSpot(ParkingType parkingType) {
+        int count = 0;
+        for (int number = 0; number < spotTypes.length; number++) {
+            if (spotTypes[number] == parkingType.ordinal() + 1 && available[number]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists every known spot with its availability, to rebuild the spot table without reading the parking table.
+     *
+     * @return new parking spots, by increasing number
+     */
+    public synchronized List<ParkingSpot> getParkingSpots() {
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        for (int number = 0; number < spotTypes.length; number++) {
+            if (spotTypes[number] != 0) {
+                parkingSpots.add(new ParkingSpot(number, PARKING_TYPES[spotTypes[number] - 1], available[number]));
+            }
+        }
+        return parkingSpots;
+    }
+
+    /**
+     * Lists the open tickets, to start the services following them without reading the ticket table.
+     *
+     * @return views of the open tickets
+     */
+    public synchronized List<Ticket> getOpenTickets() {
+        List<Ticket> tickets = new ArrayList<>(openTickets.getOpenCount());
+        openTickets.forEachOpenTicket(slot -> tickets.add(openTickets.getTicket(slot)));
+        return tickets;
+    }
+
+    public synchronized int getNbOpenTicket() {
+        return openTickets.getOpenCount();
+    }
+
+    /**
+     * Finds the open ticket of a vehicle.
+     *
+     * @param vehicleRegNumber The vehicle registration number.
+     * @return A view of the open ticket, or {@code null} if the vehicle has no open ticket.
+     */
+    public synchronized Ticket getOpenTicket(String vehicleRegNumber) {
+        int slot = openTickets.findOpenTicket(vehicleRegNumber);
+        return (slot < 0) ? null : openTickets.getTicket(slot);
+    }
+
+    /**
+     * Writes a snapshot of the state.
+     *
+     * @param out the output receiving the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeLong(lastSequence);
+        int nbSpot = 0;
+        for (byte spotType : spotTypes) {
+            if (spotType != 0) {
+                nbSpot++;
+            }
+        }
+        out.writeInt(nbSpot);
+        for (int number = 0; number < spotTypes.length; number++) {
+            if (spotTypes[number] != 0) {
+                out.writeInt(number);
+                out.writeByte(spotTypes[number] - 1);
+                out.writeBoolean(available[number]);
+            }
+        }
+        out.writeInt(openTickets.getOpenCount());
+        IOException[] failure = new IOException[1];
+        openTickets.forEachOpenTicket(slot -> {
+            try {
+                out.writeInt(openTickets.getId(slot));
+                out.writeInt(openTickets.getParkingNumber(slot));
+                out.writeByte(openTickets.getParkingType(slot).ordinal());
+                out.writeUTF(openTickets.getVehicleRegNumber(slot));
+                out.writeLong(openTickets.getInTime(slot));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in the input holding the snapshot
+     * @return the state of the snapshot
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static ParkingState readFrom(DataInput in) throws IOException {
+        ParkingState state = new ParkingState();
+        state.lastSequence = in.readLong();
+        int nbSpot = in.readInt();
+        for (int i = 0; i < nbSpot; i++) {
+            int number = in.readInt();
+            ParkingType parkingType = PARKING_TYPES[in.readByte()];
+            state.registerSpot(number, parkingType, in.readBoolean());
+        }
+        int nbOpenTicket = in.readInt();
+        state.openTickets = new TicketStore(nbOpenTicket);
+        for (int i = 0; i < nbOpenTicket; i++) {
+            int ticketId = in.readInt();
+            int parkingNumber = in.readInt();
+            ParkingType parkingType = PARKING_TYPES[in.readByte()];
+            state.openTicket(ticketId, parkingNumber, parkingType, in.readUTF(), in.readLong());
+        }
+        return state;
+    }
+}
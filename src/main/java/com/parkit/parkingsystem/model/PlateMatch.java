@@ -0,0 +1,47 @@
+package com.parkit.parkingsystem.model;
+
+/**
+ * Model class representing a plate found by a fuzzy search, with its distance to the searched plate.
+ */
+public class PlateMatch {
+    private final String vehicleRegNumber;
+    private final int distance;
+    private final boolean open;
+    private final long lastSeenTime;
+
+    /**
+     * Constructor to initialize a plate match.
+     *
+     * @param vehicleRegNumber The canonical registration number found.
+     * @param distance         The number of characters to insert, delete or replace to get the searched plate.
+     * @param open             Whether the vehicle has an open ticket.
+     * @param lastSeenTime     The last entry or exit time of the vehicle, in epoch milliseconds.
+     */
+    public PlateMatch(String vehicleRegNumber, int distance, boolean open, long lastSeenTime) {
+        this.vehicleRegNumber = vehicleRegNumber;
+        this.distance = distance;
+        this.open = open;
+        this.lastSeenTime = lastSeenTime;
+    }
+
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public long getLastSeenTime() {
+        return lastSeenTime;
+    }
+
+    @Override
+    public String toString() {
+        return vehicleRegNumber + " (distance " + distance + (open ? ", parked)" : ")");
+    }
+}
@@ -0,0 +1,107 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.Fare;
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.util.Arrays;
+
+/**
+ * Model class representing the hourly rates in force at a given time, for every parking type.
+ * Snapshots are immutable: new rates are published as a new snapshot, so that a reader always sees
+ * the rates of all types as they were published together.
+ */
+public class RateSnapshot {
+
+    private static final RateSnapshot BASE = createBase();
+
+    private final long version;
+    // Indexed by parking type ordinal
+    private final long[] ratePerHourCents;
+    private final long[] ratePercent;
+
+    /**
+     * Constructor to initialize a snapshot. The arrays are indexed by parking type ordinal and must not be
+     * modified afterwards.
+     *
+     * @param version          The number of snapshots published before this one.
+     * @param ratePerHourCents The hourly rate of each parking type, in cents.
+     * @param ratePercent      The percentage of the base rate that each rate stands for.
+     */
+    public RateSnapshot(long version, long[] ratePerHourCents, long[] ratePercent) {
+        this.version = version;
+        this.ratePerHourCents = ratePerHourCents;
+        this.ratePercent = ratePercent;
+    }
+
+    /**
+     * Returns the snapshot of the base rates defined in {@link Fare}.
+     *
+     * @return The base rates.
+     */
+    public static RateSnapshot base() {
+        return BASE;
+    }
+
+    /**
+     * Returns the base hourly rate of a parking type, as defined in {@link Fare}.
+     *
+     * @param parkingType The parking type.
+     * @return The base rate, in cents.
+     */
+    public static long getBaseRatePerHourCents(ParkingType parkingType) {
+        return BASE.getRatePerHourCents(parkingType);
+    }
+
+    private static RateSnapshot createBase() {
+        long[] ratePerHourCents = new long[ParkingType.values().length];
+        long[] ratePercent = new long[ratePerHourCents.length];
+        ratePerHourCents[ParkingType.CAR.ordinal()] = Fare.CAR_RATE_PER_HOUR_CENTS;
+        ratePerHourCents[ParkingType.BIKE.ordinal()] = Fare.BIKE_RATE_PER_HOUR_CENTS;
+        Arrays.fill(ratePercent, 100);
+        return new RateSnapshot(0, ratePerHourCents, ratePercent);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the hourly rate of a parking type.
+     *
+     * @param parkingType The parking type.
+     * @return The rate, in cents.
+     */
+    public long getRatePerHourCents(ParkingType parkingType) {
+        return ratePerHourCents[parkingType.ordinal()];
+    }
+
+    /**
+     * Returns the percentage of the base rate charged for a parking type.
+     *
+     * @param parkingType The parking type.
+     * @return The percentage, 100 when no surge applies.
+     */
+    public long getRatePercent(ParkingType parkingType) {
+        return ratePercent[parkingType.ordinal()];
+    }
+
+    /**
+     * Tells whether this snapshot holds the given rate percentages.
+     *
+     * @param otherRatePercent The rate percentages, indexed by parking type ordinal.
+     * @return {@code true} if every percentage is the same.
+     */
+    public boolean hasRatePercents(long[] otherRatePercent) {
+        return Arrays.equals(ratePercent, otherRatePercent);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("v").append(version);
+        for (ParkingType parkingType : ParkingType.values()) {
+            long cents = getRatePerHourCents(parkingType);
+            builder.append(String.format(" %s:%d.%02d", parkingType, cents / 100, cents % 100));
+        }
+        return builder.toString();
+    }
+}
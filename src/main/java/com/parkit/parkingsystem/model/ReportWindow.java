@@ -0,0 +1,75 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Immutable snapshot of the revenue and occupancy figures aggregated over a time window.
+ * Figures are indexed by {@link ParkingType}.
+ */
+public class ReportWindow {
+    private final long startTime;
+    private final long endTime;
+    private final long[] revenueCents;
+    private final int[] entries;
+    private final int[] exits;
+    private final long[] stayMillis;
+    private final int[] peakOccupancy;
+
+    /**
+     * Constructor to initialize a report window. The arrays are indexed by {@link ParkingType#ordinal()}
+     * and are not copied.
+     *
+     * @param startTime     The start of the window, in epoch milliseconds (inclusive).
+     * @param endTime       The end of the window, in epoch milliseconds (exclusive).
+     * @param revenueCents  The revenue of the tickets closed in the window, in cents.
+     * @param entries       The number of vehicles that entered during the window.
+     * @param exits         The number of vehicles that left during the window.
+     * @param stayMillis    The cumulated stay duration of the vehicles that left during the window.
+     * @param peakOccupancy The highest number of occupied spots seen during the window.
+     */
+    public ReportWindow(long startTime, long endTime, long[] revenueCents, int[] entries, int[] exits,
+                        long[] stayMillis, int[] peakOccupancy) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.revenueCents = revenueCents;
+        this.entries = entries;
+        this.exits = exits;
+        this.stayMillis = stayMillis;
+        this.peakOccupancy = peakOccupancy;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getRevenueCents(ParkingType parkingType) {
+        return revenueCents[parkingType.ordinal()];
+    }
+
+    public int getEntries(ParkingType parkingType) {
+        return entries[parkingType.ordinal()];
+    }
+
+    public int getExits(ParkingType parkingType) {
+        return exits[parkingType.ordinal()];
+    }
+
+    public int getPeakOccupancy(ParkingType parkingType) {
+        return peakOccupancy[parkingType.ordinal()];
+    }
+
+    /**
+     * Computes the average stay duration of the vehicles that left during the window.
+     *
+     * @param parkingType The type of parking spot.
+     * @return The average stay in milliseconds, or 0 if no vehicle left during the window.
+     */
+    public long getAverageStayMillis(ParkingType parkingType) {
+        int nbExits = exits[parkingType.ordinal()];
+        return (nbExits == 0) ? 0 : stayMillis[parkingType.ordinal()] / nbExits;
+    }
+}
@@ -0,0 +1,68 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Model class representing a booking of one or more parking spots over a time range.
+ */
+public class Reservation {
+    private final long id;
+    private final String vehicleRegNumber;
+    private final ParkingType parkingType;
+    private final int spots;
+    private final long startTime;
+    private final long endTime;
+
+    /**
+     * Constructor to initialize a reservation.
+     *
+     * @param id               The unique identifier of the reservation.
+     * @param vehicleRegNumber The registration number of the vehicle holding the reservation.
+     * @param parkingType      The type of the reserved spots.
+     * @param spots            The number of reserved spots.
+     * @param startTime        The start of the reservation, in epoch milliseconds (inclusive).
+     * @param endTime          The end of the reservation, in epoch milliseconds (exclusive).
+     */
+    public Reservation(long id, String vehicleRegNumber, ParkingType parkingType, int spots, long startTime, long endTime) {
+        this.id = id;
+        this.vehicleRegNumber = vehicleRegNumber;
+        this.parkingType = parkingType;
+        this.spots = spots;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+
+    public ParkingType getParkingType() {
+        return parkingType;
+    }
+
+    public int getSpots() {
+        return spots;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Checks if the reservation covers the given time.
+     *
+     * @param time a time, in epoch milliseconds
+     * @return {@code true} if the time is within the reservation, {@code false} otherwise
+     */
+    public boolean isActiveAt(long time) {
+        return startTime <= time && time < endTime;
+    }
+}
@@ -0,0 +1,182 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Canonical, preallocated table of the parking spots of a single application instance, indexed by spot number.
+ * <p>
+ * Each spot is held once as a shared {@link ParkingSpot}. Types are packed in a byte per spot, and availability
+ * in one bit per spot of an {@link AtomicLongArray}, so that taking or giving back a spot is a compare-and-set on a
+ * single word and checking a spot takes constant time. Free spots of a type are found by masking whole words with
+ * a precomputed per-type mask, lowest number first, like {@code getNextAvailableSlot}. Methods are thread-safe.
+ * <p>
+ * The shared instances follow their bit: every change copies the bit to the flag of the instance under its lock,
+ * so the last copy always carries the latest change and callers reading {@link ParkingSpot#isAvailable()} on a spot
+ * of the table, or on the spot of a ticket read through it, see its current availability.
+ * <p>
+ * The table is the allocation authority of the instance that owns it; instances sharing the database must use
+ * leased blocks instead.
+ */
+public class SpotStateTable {
+
+    private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+    private static final byte NO_SPOT = -1;
+
+    private final ParkingSpot[] spots;
+    private final byte[] types;
+    // Bits of the spots of each type, indexed by type then word
+    private final long[][] typeMasks;
+    private final AtomicLongArray availableBits;
+    private final AtomicIntegerArray nbAvailable = new AtomicIntegerArray(PARKING_TYPES.length);
+    private final int[] nbSpot = new int[PARKING_TYPES.length];
+
+    /**
+     * Builds the table from the parking spots stored in the database.
+     *
+     * @param parkingSpots every parking spot, with its type and availability
+     */
+    public SpotStateTable(List<ParkingSpot> parkingSpots) {
+        int maxNumber = 0;
+        for (ParkingSpot parkingSpot : parkingSpots) {
+            maxNumber = Math.max(maxNumber, parkingSpot.getId());
+        }
+        int nbWord = (maxNumber >> 6) + 1;
+        spots = new ParkingSpot[maxNumber + 1];
+        types = new byte[maxNumber + 1];
+        Arrays.fill(types, NO_SPOT);
+        typeMasks = new long[PARKING_TYPES.length][nbWord];
+        availableBits = new AtomicLongArray(nbWord);
+        for (ParkingSpot parkingSpot : parkingSpots) {
+            int number = parkingSpot.getId();
+            int type = parkingSpot.getParkingType().ordinal();
+            spots[number] = new ParkingSpot(number, parkingSpot.getParkingType(), parkingSpot.isAvailable());
+            types[number] = (byte) type;
+            typeMasks[type][number >> 6] |= 1L << number;
+            nbSpot[type]++;
+            if (parkingSpot.isAvailable()) {
+                availableBits.set(number >> 6, availableBits.get(number >> 6) | (1L << number));
+                nbAvailable.incrementAndGet(type);
+            }
+        }
+    }
+
+    /**
+     * Takes the free spot of the given type with the lowest number.
+     *
+     * @param parkingType the type of parking spot required (CAR or BIKE)
+     * @return the shared instance of the spot, or {@code null} if no spot of the type is free
+     */
+    public ParkingSpot acquire(ParkingType parkingType) {
+        long[] mask = typeMasks[parkingType.ordinal()];
+        for (int word = 0; word < mask.length; word++) {
+            long bits = availableBits.get(word);
+            long free;
+            while ((free = bits & mask[word]) != 0) {
+                long bit = Long.lowestOneBit(free);
+                if (availableBits.compareAndSet(word, bits, bits & ~bit)) {
+                    nbAvailable.decrementAndGet(parkingType.ordinal());
+                    int number = (word << 6) + Long.numberOfTrailingZeros(bit);
+                    copyAvailability(number);
+                    return spots[number];
+                }
+                bits = availableBits.get(word);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a given spot if it is free.
+     *
+     * @param number the spot number
+     * @return {@code true} if the spot was free and is now taken
+     */
+    public boolean tryAcquire(int number) {
+        return update(number, false);
+    }
+
+    /**
+     * Gives a spot back.
+     *
+     * @param number the spot number
+     * @return {@code true} if the spot was taken and is now free, {@code false} if it was already free
+     */
+    public boolean release(int number) {
+        return update(number, true);
+    }
+
+    /**
+     * Checks whether a spot is free.
+     *
+     * @param number the spot number
+     * @return {@code true} if the spot exists and is free
+     */
+    public boolean isAvailable(int number) {
+        return getSpot(number) != null && (availableBits.get(number >> 6) & (1L << number)) != 0;
+    }
+
+    /**
+     * Returns the shared instance of a spot.
+     *
+     * @param number the spot number
+     * @return the spot, or {@code null} if there is no spot with this number
+     */
+    public ParkingSpot getSpot(int number) {
+        return (number > 0 && number < spots.length) ? spots[number] : null;
+    }
+
+    /**
+     * Returns the number of free spots of a given type.
+     *
+     * @param parkingType the type of parking spot
+     * @return the number of free spots
+     */
+    public int getNbAvailable(ParkingType parkingType) {
+        return nbAvailable.get(parkingType.ordinal());
+    }
+
+    /**
+     * Returns the number of spots of a given type, free or not.
+     *
+     * @param parkingType the type of parking spot
+     * @return the number of spots
+     */
+    public int getNbSpot(ParkingType parkingType) {
+        return nbSpot[parkingType.ordinal()];
+    }
+
+    private boolean update(int number, boolean available) {
+        if (getSpot(number) == null) {
+            return false;
+        }
+        int word = number >> 6;
+        long bit = 1L << number;
+        while (true) {
+            long bits = availableBits.get(word);
+            if (((bits & bit) != 0) == available) {
+                return false;
+            }
+            if (availableBits.compareAndSet(word, bits, bits ^ bit)) {
+                if (available) {
+                    nbAvailable.incrementAndGet(types[number]);
+                } else {
+                    nbAvailable.decrementAndGet(types[number]);
+                }
+                copyAvailability(number);
+                return true;
+            }
+        }
+    }
+
+    private void copyAvailability(int number) {
+        ParkingSpot parkingSpot = spots[number];
+        synchronized (parkingSpot) {
+            parkingSpot.setAvailable(isAvailable(number));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.parkit.parkingsystem.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model class representing a surge band: the percentage of the base hourly rate charged to vehicles entering
+ * while the occupancy of their parking type is at or above a threshold.
+ */
+public class SurgeBand {
+    private final int minOccupancyPercent;
+    private final long ratePercent;
+
+    /**
+     * Constructor to initialize a surge band.
+     *
+     * @param minOccupancyPercent The occupancy, in percent of the spots of the type, from which the band applies.
+     * @param ratePercent         The percentage of the base hourly rate charged within the band.
+     */
+    public SurgeBand(int minOccupancyPercent, long ratePercent) {
+        if (minOccupancyPercent < 0 || minOccupancyPercent > 100 || ratePercent < 1) {
+            throw new IllegalArgumentException("Invalid surge band: " + ratePercent + "% from "
+                    + minOccupancyPercent + "% occupancy");
+        }
+        this.minOccupancyPercent = minOccupancyPercent;
+        this.ratePercent = ratePercent;
+    }
+
+    public int getMinOccupancyPercent() {
+        return minOccupancyPercent;
+    }
+
+    public long getRatePercent() {
+        return ratePercent;
+    }
+
+    /**
+     * Parses a comma-separated list of bands written {@code occupancy:percent}, for example
+     * {@code "85:150,95:200"} for rates 1.5 times the base rate from 85% full and twice the base rate from 95% full.
+     *
+     * @param bands The bands to parse.
+     * @return The parsed bands.
+     * @throws IllegalArgumentException if a band is malformed
+     */
+    public static List<SurgeBand> parse(String bands) {
+        List<SurgeBand> parsed = new ArrayList<>();
+        for (String band : bands.split(",")) {
+            String[] parts = band.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid surge band: " + band);
+            }
+            parsed.add(new SurgeBand(Integer.parseInt(parts[0].trim()), Long.parseLong(parts[1].trim())));
+        }
+        return parsed;
+    }
+
+    @Override
+    public String toString() {
+        return minOccupancyPercent + ":" + ratePercent;
+    }
+}
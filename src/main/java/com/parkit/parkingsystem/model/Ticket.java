@@ -1,5 +1,7 @@
 package com.parkit.parkingsystem.model;
 
+import com.parkit.parkingsystem.constants.Fare;
+
 import java.util.Calendar;
 import java.util.Date;
 
@@ -10,10 +12,11 @@ public class Ticket {
     private int id;
     private ParkingSpot parkingSpot;
     private String vehicleRegNumber;
-    private double price;
+    private long priceCents;
     private Date inTime;
     private Date outTime;
-    private boolean discount;
+    private long discountPercent = 100;
+    private long ratePerHourCents;
 
     public int getId() {
         return id;
@@ -39,12 +42,30 @@ public class Ticket {
         this.vehicleRegNumber = vehicleRegNumber;
     }
 
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+    }
+
+    /**
+     * Returns the price in currency units, for display.
+     *
+     * @return the price
+     */
     public double getPrice() {
-        return price;
+        return priceCents / 100.0;
     }
 
+    /**
+     * Sets the price in currency units, rounded to the nearest cent.
+     *
+     * @param price the price
+     */
     public void setPrice(double price) {
-        this.price = price;
+        this.priceCents = Math.round(price * 100);
     }
 
     public Date getInTime() {
@@ -64,10 +85,41 @@ public class Ticket {
     }
     
     public boolean getDiscount() {
-        return discount;
+        return discountPercent < 100;
     }
 
+    /**
+     * Sets whether the fare gets the standard loyalty discount of {@link Fare#DISCOUNT_PERCENT}.
+     *
+     * @param discount {@code true} to apply the standard discount, {@code false} to charge the full fare
+     */
     public void setDiscount(boolean discount) {
-        this.discount = discount;
+        this.discountPercent = discount ? Fare.DISCOUNT_PERCENT : 100;
+    }
+
+    public long getDiscountPercent() {
+        return discountPercent;
+    }
+
+    /**
+     * Sets the share of the full fare charged for this ticket.
+     *
+     * @param discountPercent the percentage of the full fare to charge, 100 for no discount
+     */
+    public void setDiscountPercent(long discountPercent) {
+        this.discountPercent = discountPercent;
+    }
+
+    public long getRatePerHourCents() {
+        return ratePerHourCents;
+    }
+
+    /**
+     * Sets the hourly rate in force when the vehicle entered, which its fare is computed from at exit.
+     *
+     * @param ratePerHourCents the hourly rate in cents, or 0 to use the base rate of the parking type
+     */
+    public void setRatePerHourCents(long ratePerHourCents) {
+        this.ratePerHourCents = ratePerHourCents;
     }
 }
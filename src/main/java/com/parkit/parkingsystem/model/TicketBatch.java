@@ -0,0 +1,78 @@
+package com.parkit.parkingsystem.model;
+
+/**
+ * Fixed-capacity batch of ticket rows held in parallel primitive arrays, used to bulk insert tickets
+ * without allocating a {@link Ticket} per row. Instances are not thread-safe.
+ */
+public class TicketBatch {
+
+    private final int[] parkingNumbers;
+    private final String[] vehicleRegNumbers;
+    private final long[] pricesCents;
+    private final long[] inTimes;
+    // -1 marks an open ticket
+    private final long[] outTimes;
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param capacity the maximum number of rows of the batch
+     */
+    public TicketBatch(int capacity) {
+        parkingNumbers = new int[capacity];
+        vehicleRegNumbers = new String[capacity];
+        pricesCents = new long[capacity];
+        inTimes = new long[capacity];
+        outTimes = new long[capacity];
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param parkingNumber The parking spot number.
+     * @param vehicleRegNumber The normalized vehicle registration number.
+     * @param priceCents The price, in cents.
+     * @param inTime The in-time, in epoch milliseconds.
+     * @param outTime The out-time, in epoch milliseconds, or -1 for an open ticket.
+     */
+    public void add(int parkingNumber, String vehicleRegNumber, long priceCents, long inTime, long outTime) {
+        if (isFull()) {
+            throw new IllegalStateException("Ticket batch is full");
+        }
+        parkingNumbers[size] = parkingNumber;
+        vehicleRegNumbers[size] = vehicleRegNumber;
+        pricesCents[size] = priceCents;
+        inTimes[size] = inTime;
+        outTimes[size] = outTime;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == parkingNumbers.length;
+    }
+
+    public int getParkingNumber(int row) {
+        return parkingNumbers[row];
+    }
+
+    public String getVehicleRegNumber(int row) {
+        return vehicleRegNumbers[row];
+    }
+
+    public long getPriceCents(int row) {
+        return pricesCents[row];
+    }
+
+    public long getInTime(int row) {
+        return inTimes[row];
+    }
+
+    public long getOutTime(int row) {
+        return outTimes[row];
+    }
+}
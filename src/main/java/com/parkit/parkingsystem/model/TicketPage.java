@@ -0,0 +1,59 @@
+package com.parkit.parkingsystem.model;
+
+import java.util.List;
+
+/**
+ * Model class representing a page of tickets read with keyset pagination on {@code (IN_TIME, ID)}.
+ * The in-time and id of the last ticket of the page are the cursor from which the next page is read,
+ * so every page costs the same whatever its depth.
+ */
+public class TicketPage {
+    private final List<Ticket> tickets;
+    private final boolean hasMore;
+
+    /**
+     * Constructor to initialize a page of tickets.
+     *
+     * @param tickets The tickets of the page, in page order.
+     * @param hasMore Whether tickets follow this page.
+     */
+    public TicketPage(List<Ticket> tickets, boolean hasMore) {
+        this.tickets = tickets;
+        this.hasMore = hasMore;
+    }
+
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Returns the in-time of the last ticket of the page, which the next page starts after.
+     *
+     * @return The in-time, in epoch milliseconds.
+     * @throws IllegalStateException if the page is empty
+     */
+    public long getLastInTime() {
+        return getLastTicket().getInTime().getTime();
+    }
+
+    /**
+     * Returns the id of the last ticket of the page, which breaks ties between tickets with the same in-time.
+     *
+     * @return The ticket id.
+     * @throws IllegalStateException if the page is empty
+     */
+    public int getLastId() {
+        return getLastTicket().getId();
+    }
+
+    private Ticket getLastTicket() {
+        if (tickets.isEmpty()) {
+            throw new IllegalStateException("Empty ticket page has no cursor");
+        }
+        return tickets.get(tickets.size() - 1);
+    }
+}
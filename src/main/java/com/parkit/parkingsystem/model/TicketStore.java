@@ -0,0 +1,275 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.util.PlateDictionary;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.function.IntConsumer;
+
+/**
+ * Compact in-memory store of tickets, laid out as a structure of arrays.
+ * <p>
+ * A ticket occupies one slot across primitive columns: epoch millisecond times, int spot number,
+ * int price in cents and a dictionary-encoded plate, which takes about 30 bytes per ticket instead
+ * of the object graph of a {@link Ticket}. {@link Ticket} instances are only built on demand by
+ * {@link #getTicket(int)}. Slots of removed tickets are recycled. Methods are synchronized.
+ */
+public class TicketStore {
+
+    private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+    private static final int NO_SLOT = -1;
+
+    private final PlateDictionary plateDictionary;
+
+    private int[] ids;
+    private int[] parkingNumbers;
+    private byte[] types;
+    private int[] plateCodes;
+    private int[] pricesCents;
+    private long[] inTimes;
+    private long[] outTimes;
+
+    // Slot of the open ticket of each plate, indexed by plate code
+    private int[] openSlotByPlate = new int[64];
+
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int highWaterMark;
+    private int size;
+    private int openCount;
+
+    /**
+     * Constructs an empty store with its own plate dictionary.
+     *
+     * @param initialCapacity the number of tickets the store can hold before growing
+     */
+    public TicketStore(int initialCapacity) {
+        this(initialCapacity, new PlateDictionary());
+    }
+
+    /**
+     * Constructs an empty store interning plates in the given dictionary, which may be shared with other stores.
+     *
+     * @param initialCapacity the number of tickets the store can hold before growing
+     * @param plateDictionary the dictionary encoding the plates
+     */
+    public TicketStore(int initialCapacity, PlateDictionary plateDictionary) {
+        this.plateDictionary = plateDictionary;
+        int capacity = Math.max(16, initialCapacity);
+        ids = new int[capacity];
+        parkingNumbers = new int[capacity];
+        types = new byte[capacity];
+        plateCodes = new int[capacity];
+        pricesCents = new int[capacity];
+        inTimes = new long[capacity];
+        outTimes = new long[capacity];
+        Arrays.fill(openSlotByPlate, NO_SLOT);
+    }
+
+    /**
+     * Adds a ticket, copying its fields into the store.
+     *
+     * @param ticket the ticket to add
+     * @return the slot of the ticket
+     */
+    public int add(Ticket ticket) {
+        return add(ticket.getId(), ticket.getParkingSpot().getId(), ticket.getParkingSpot().getParkingType(),
+                ticket.getVehicleRegNumber(), ticket.getPriceCents(), ticket.getInTime().getTime(),
+                (ticket.getOutTime() == null) ? -1 : ticket.getOutTime().getTime());
+    }
+
+    /**
+     * Adds a ticket. If the ticket is open, it becomes the open ticket of its plate.
+     *
+     * @param id The ticket identifier.
+     * @param parkingNumber The parking spot number.
+     * @param parkingType The type of the parking spot.
+     * @param vehicleRegNumber The vehicle registration number.
+     * @param priceCents The price of the ticket, in cents.
+     * @param inTime The in-time, in epoch milliseconds.
+     * @param outTime The out-time, in epoch milliseconds, or -1 if the ticket is still open.
+     * @return the slot of the ticket
+     */
+    public synchronized int add(int id, int parkingNumber, ParkingType parkingType, String vehicleRegNumber,
+                                long priceCents, long inTime, long outTime) {
+        int slot = allocateSlot();
+        int plateCode = plateDictionary.encode(vehicleRegNumber);
+        ids[slot] = id;
+        parkingNumbers[slot] = parkingNumber;
+        types[slot] = (byte) parkingType.ordinal();
+        plateCodes[slot] = plateCode;
+        pricesCents[slot] = Math.toIntExact(priceCents);
+        inTimes[slot] = inTime;
+        outTimes[slot] = outTime;
+        size++;
+        if (plateCode >= openSlotByPlate.length) {
+            int length = openSlotByPlate.length;
+            openSlotByPlate = Arrays.copyOf(openSlotByPlate, Math.max(plateCode + 1, length * 2));
+            Arrays.fill(openSlotByPlate, length, openSlotByPlate.length, NO_SLOT);
+        }
+        if (outTime < 0) {
+            if (openSlotByPlate[plateCode] == NO_SLOT) {
+                openCount++;
+            }
+            openSlotByPlate[plateCode] = slot;
+        }
+        return slot;
+    }
+
+    /**
+     * Closes the ticket held in the given slot.
+     *
+     * @param slot the slot of the ticket
+     * @param outTime the out-time, in epoch milliseconds
+     * @param priceCents the price of the ticket, in cents
+     */
+    public synchronized void close(int slot, long outTime, long priceCents) {
+        checkSlot(slot);
+        outTimes[slot] = outTime;
+        pricesCents[slot] = Math.toIntExact(priceCents);
+        clearOpenSlot(slot);
+    }
+
+    /**
+     * Removes the ticket held in the given slot, which may then be reused.
+     *
+     * @param slot the slot of the ticket
+     */
+    public synchronized void remove(int slot) {
+        checkSlot(slot);
+        clearOpenSlot(slot);
+        plateCodes[slot] = NO_SLOT;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    /**
+     * Finds the open ticket of a vehicle.
+     *
+     * @param vehicleRegNumber the vehicle registration number
+     * @return the slot of the open ticket, or -1 if the vehicle has no open ticket
+     */
+    public synchronized int findOpenTicket(String vehicleRegNumber) {
+        int plateCode = plateDictionary.lookup(vehicleRegNumber);
+        return (plateCode < 0 || plateCode >= openSlotByPlate.length) ? NO_SLOT : openSlotByPlate[plateCode];
+    }
+
+    /**
+     * Calls the given action with the slot of every open ticket.
+     *
+     * @param action the action receiving the slots
+     */
+    public synchronized void forEachOpenTicket(IntConsumer action) {
+        for (int slot : openSlotByPlate) {
+            if (slot != NO_SLOT) {
+                action.accept(slot);
+            }
+        }
+    }
+
+    /**
+     * Builds a {@link Ticket} view of the given slot. The view is a copy: changing it does not change the store.
+     *
+     * @param slot the slot of the ticket
+     * @return a new ticket holding the values of the slot
+     */
+    public synchronized Ticket getTicket(int slot) {
+        checkSlot(slot);
+        Ticket ticket = new Ticket();
+        ticket.setId(ids[slot]);
+        ticket.setParkingSpot(new ParkingSpot(parkingNumbers[slot], PARKING_TYPES[types[slot]], false));
+        ticket.setVehicleRegNumber(plateDictionary.decode(plateCodes[slot]));
+        ticket.setPriceCents(pricesCents[slot]);
+        ticket.setInTime(new Date(inTimes[slot]));
+        ticket.setOutTime((outTimes[slot] < 0) ? null : new Date(outTimes[slot]));
+        return ticket;
+    }
+
+    public synchronized int getId(int slot) {
+        checkSlot(slot);
+        return ids[slot];
+    }
+
+    public synchronized int getParkingNumber(int slot) {
+        checkSlot(slot);
+        return parkingNumbers[slot];
+    }
+
+    public synchronized ParkingType getParkingType(int slot) {
+        checkSlot(slot);
+        return PARKING_TYPES[types[slot]];
+    }
+
+    public synchronized String getVehicleRegNumber(int slot) {
+        checkSlot(slot);
+        return plateDictionary.decode(plateCodes[slot]);
+    }
+
+    public synchronized long getPriceCents(int slot) {
+        checkSlot(slot);
+        return pricesCents[slot];
+    }
+
+    public synchronized long getInTime(int slot) {
+        checkSlot(slot);
+        return inTimes[slot];
+    }
+
+    public synchronized long getOutTime(int slot) {
+        checkSlot(slot);
+        return outTimes[slot];
+    }
+
+    /**
+     * Returns the number of tickets in the store.
+     *
+     * @return the number of tickets
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of open tickets in the store.
+     *
+     * @return the number of open tickets
+     */
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWaterMark == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            parkingNumbers = Arrays.copyOf(parkingNumbers, capacity);
+            types = Arrays.copyOf(types, capacity);
+            plateCodes = Arrays.copyOf(plateCodes, capacity);
+            pricesCents = Arrays.copyOf(pricesCents, capacity);
+            inTimes = Arrays.copyOf(inTimes, capacity);
+            outTimes = Arrays.copyOf(outTimes, capacity);
+        }
+        return highWaterMark++;
+    }
+
+    private void clearOpenSlot(int slot) {
+        int plateCode = plateCodes[slot];
+        if (openSlotByPlate[plateCode] == slot) {
+            openSlotByPlate[plateCode] = NO_SLOT;
+            openCount--;
+        }
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= highWaterMark || plateCodes[slot] == NO_SLOT) {
+            throw new IllegalArgumentException("No ticket in slot:" + slot);
+        }
+    }
+}
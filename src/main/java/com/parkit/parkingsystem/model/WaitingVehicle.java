@@ -0,0 +1,108 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Model class representing a vehicle waiting at the gate for a spot of its type to be freed.
+ * A waiting vehicle ends exactly once, either handed a spot or cancelled: both outcomes are decided by a single
+ * compare-and-set, so a spot can never be handed to a vehicle which gave up at the same time.
+ */
+public class WaitingVehicle {
+
+    // Marks a vehicle which gave up or timed out, in place of a handed spot
+    private static final ParkingSpot CANCELLED = new ParkingSpot(0, null, false);
+
+    private final String vehicleRegNumber;
+    private final ParkingType parkingType;
+    private final long deadlineNanos;
+    private final AtomicReference<ParkingSpot> handedSpot = new AtomicReference<>();
+    private final CountDownLatch ended = new CountDownLatch(1);
+
+    /**
+     * Constructor to initialize a waiting vehicle.
+     *
+     * @param vehicleRegNumber The registration number of the vehicle.
+     * @param parkingType      The type of spot the vehicle waits for.
+     * @param deadlineNanos    The {@link System#nanoTime()} after which the vehicle stops waiting.
+     */
+    public WaitingVehicle(String vehicleRegNumber, ParkingType parkingType, long deadlineNanos) {
+        this.vehicleRegNumber = vehicleRegNumber;
+        this.parkingType = parkingType;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+
+    public ParkingType getParkingType() {
+        return parkingType;
+    }
+
+    /**
+     * Tells whether the vehicle still waits, that is it was neither handed a spot, nor cancelled, nor timed out.
+     *
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return {@code true} if the vehicle still waits.
+     */
+    public boolean isWaiting(long nowNanos) {
+        return handedSpot.get() == null && nowNanos - deadlineNanos < 0;
+    }
+
+    /**
+     * Hands a freed spot to the vehicle, unless it no longer waits.
+     *
+     * @param parkingSpot The freed spot, still marked unavailable.
+     * @param nowNanos    The current {@link System#nanoTime()}.
+     * @return {@code true} if the vehicle took the spot.
+     */
+    public boolean handOff(ParkingSpot parkingSpot, long nowNanos) {
+        if (nowNanos - deadlineNanos >= 0) {
+            cancel();
+            return false;
+        }
+        if (handedSpot.compareAndSet(null, parkingSpot)) {
+            ended.countDown();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stops waiting, unless a spot was handed to the vehicle already.
+     *
+     * @return {@code true} if the vehicle was cancelled, {@code false} if it was handed a spot before.
+     */
+    public boolean cancel() {
+        if (handedSpot.compareAndSet(null, CANCELLED)) {
+            ended.countDown();
+            return true;
+        }
+        return handedSpot.get() == CANCELLED;
+    }
+
+    /**
+     * Waits until a spot is handed to the vehicle or its deadline passes, then stops waiting.
+     *
+     * @return The handed spot, or {@code null} if the vehicle timed out or was cancelled.
+     * @throws InterruptedException if the waiting thread is interrupted, the vehicle being cancelled
+     */
+    public ParkingSpot awaitSpot() throws InterruptedException {
+        try {
+            ended.await(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            cancel();
+        }
+        ParkingSpot parkingSpot = handedSpot.get();
+        return (parkingSpot == CANCELLED) ? null : parkingSpot;
+    }
+
+    @Override
+    public String toString() {
+        return vehicleRegNumber + " waiting for " + parkingType;
+    }
+}
@@ -0,0 +1,390 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ImportReport;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.TicketBatch;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import com.parkit.parkingsystem.util.TicketColumnarReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads historical tickets and parking spot inventory in bulk.
+ * <p>
+ * The input is read sequentially by the calling thread and cut into chunks of {@code batchSize} rows, which are
+ * handed through a bounded queue to worker threads. Each worker owns one database connection for the whole import,
+ * parses and validates its chunks, and writes each of them with a single multi-row insert committed on its own.
+ * Invalid rows are rejected and counted without stopping the import; a chunk the database refuses is rolled back
+ * and its rows counted as failed. Progress and rate are logged periodically.
+ * <p>
+ * Ticket CSV files hold {@code PARKING_NUMBER,VEHICLE_REG_NUMBER,PRICE,IN_TIME,OUT_TIME} with times formatted as
+ * {@code yyyy-mm-dd hh:mm:ss} and an empty OUT_TIME for open tickets. Parking CSV files hold
+ * {@code PARKING_NUMBER,AVAILABLE,TYPE}. A first line that does not start with a digit is treated as a header.
+ */
+public class BulkImportService {
+
+    private static final Logger logger = LogManager.getLogger("BulkImportService");
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long PROGRESS_INTERVAL_MILLIS = 5000;
+
+    private static final int MAX_PLATE_LENGTH = 10;
+
+    private final TicketDAO ticketDAO;
+    private final ParkingSpotDAO parkingSpotDAO;
+    private final int workers;
+    private final int batchSize;
+
+    /**
+     * A unit of work handed to the workers.
+     */
+    private interface Chunk {
+
+        /**
+         * Validates and writes the rows of the chunk.
+         *
+         * @param con the connection of the worker, or {@code null} if it could not be opened
+         * @param progress the counters of the import
+         */
+        void write(Connection con, Progress progress);
+    }
+
+    /**
+     * Counters shared by the reader, the workers and the progress reporter.
+     */
+    private static final class Progress {
+
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder rowsImported = new LongAdder();
+        private final LongAdder rowsRejected = new LongAdder();
+        private final LongAdder rowsFailed = new LongAdder();
+        private final long start = System.currentTimeMillis();
+
+        private void written(int rows, int inserted) {
+            if (inserted < 0) {
+                rowsFailed.add(rows);
+            } else {
+                rowsImported.add(inserted);
+                rowsFailed.add(rows - inserted);
+            }
+        }
+
+        private ImportReport report() {
+            return new ImportReport(rowsRead.sum(), rowsImported.sum(), rowsRejected.sum(), rowsFailed.sum(),
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    // Sent once per worker to signal the end of the input
+    private static final Chunk END = (con, progress) -> { };
+
+    /**
+     * Creates an import service using one worker per available processor and the default batch size.
+     *
+     * @param ticketDAO data access object for ticket information
+     * @param parkingSpotDAO data access object for parking spot information
+     */
+    public BulkImportService(TicketDAO ticketDAO, ParkingSpotDAO parkingSpotDAO) {
+        this(ticketDAO, parkingSpotDAO, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates an import service.
+     *
+     * @param ticketDAO data access object for ticket information
+     * @param parkingSpotDAO data access object for parking spot information
+     * @param workers the number of worker threads, each holding one database connection
+     * @param batchSize the number of rows written by a single insert
+     */
+    public BulkImportService(TicketDAO ticketDAO, ParkingSpotDAO parkingSpotDAO, int workers, int batchSize) {
+        if (workers <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid import configuration");
+        }
+        this.ticketDAO = ticketDAO;
+        this.parkingSpotDAO = parkingSpotDAO;
+        this.workers = workers;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports tickets from a CSV file.
+     *
+     * @param csv the file to import
+     * @return the import report
+     * @throws IOException if the file cannot be read
+     */
+    public ImportReport importTickets(Path csv) throws IOException {
+        return run("tickets from " + csv, (queue, progress) -> readLines(csv, queue, progress, TicketLines::new));
+    }
+
+    /**
+     * Imports tickets from a file written by {@code TicketColumnarWriter}. The rows were validated when exported, so
+     * only the registration number length is checked again.
+     *
+     * @param columnarFile the file to import
+     * @return the import report
+     * @throws IOException if the file cannot be read
+     */
+    public ImportReport importColumnarTickets(Path columnarFile) throws IOException {
+        return run("tickets from " + columnarFile, (queue, progress) -> {
+            try (TicketColumnarReader reader = TicketColumnarReader.open(columnarFile)) {
+                TicketBatch[] batch = {new TicketBatch(batchSize)};
+                reader.forEachRow((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+                    progress.rowsRead.increment();
+                    if (vehicleRegNumber.length() > MAX_PLATE_LENGTH) {
+                        progress.rowsRejected.increment();
+                        return;
+                    }
+                    batch[0].add(parkingNumber, vehicleRegNumber, priceCents, inTime, outTime);
+                    if (batch[0].isFull()) {
+                        put(queue, new TicketRows(batch[0]));
+                        batch[0] = new TicketBatch(batchSize);
+                    }
+                });
+                if (batch[0].size() > 0) {
+                    put(queue, new TicketRows(batch[0]));
+                }
+            }
+        });
+    }
+
+    /**
+     * Imports parking spots from a CSV file.
+     *
+     * @param csv the file to import
+     * @return the import report
+     * @throws IOException if the file cannot be read
+     */
+    public ImportReport importParkingSpots(Path csv) throws IOException {
+        return run("parking spots from " + csv, (queue, progress) -> readLines(csv, queue, progress, ParkingLines::new));
+    }
+
+    /**
+     * Reads the input and feeds the queue.
+     */
+    private interface ChunkReader {
+
+        void read(BlockingQueue<Chunk> queue, Progress progress) throws IOException;
+    }
+
+    /**
+     * Wraps a list of raw lines into a chunk.
+     */
+    private interface LineChunkFactory {
+
+        Chunk create(List<String> lines);
+    }
+
+    private ImportReport run(String description, ChunkReader chunkReader) throws IOException {
+        logger.info("Importing " + description + " with " + workers + " workers");
+        Progress progress = new Progress();
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(workers * 2);
+        CountDownLatch done = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(() -> work(queue, progress, done), "bulk-import-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bulk-import-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> logger.info("Import in progress: " + progress.report()),
+                PROGRESS_INTERVAL_MILLIS, PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            chunkReader.read(queue, progress);
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                put(queue, END);
+            }
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reporter.shutdownNow();
+        }
+        ImportReport report = progress.report();
+        logger.info("Imported " + description + ": " + report);
+        return report;
+    }
+
+    private void work(BlockingQueue<Chunk> queue, Progress progress, CountDownLatch done) {
+        Connection con = null;
+        try {
+            try {
+                con = ticketDAO.dataBaseConfig.getConnection();
+                con.setAutoCommit(false);
+            } catch (Exception ex) {
+                logger.error("Error opening import connection", ex);
+                ticketDAO.dataBaseConfig.closeConnection(con);
+                con = null;
+            }
+            Chunk chunk;
+            while ((chunk = queue.take()) != END) {
+                chunk.write(con, progress);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ticketDAO.dataBaseConfig.closeConnection(con);
+            done.countDown();
+        }
+    }
+
+    private void readLines(Path csv, BlockingQueue<Chunk> queue, Progress progress, LineChunkFactory factory)
+            throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>(batchSize);
+            String line = reader.readLine();
+            if (line != null && !line.isEmpty() && !Character.isDigit(line.charAt(0))) {
+                line = reader.readLine();
+            }
+            for (; line != null; line = reader.readLine()) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                progress.rowsRead.increment();
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    put(queue, factory.create(lines));
+                    lines = new ArrayList<>(batchSize);
+                }
+            }
+            if (!lines.isEmpty()) {
+                put(queue, factory.create(lines));
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Ticket rows already validated.
+     */
+    private final class TicketRows implements Chunk {
+
+        private final TicketBatch batch;
+
+        private TicketRows(TicketBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void write(Connection con, Progress progress) {
+            progress.written(batch.size(), (con == null) ? -1 : ticketDAO.bulkInsertTickets(con, batch));
+        }
+    }
+
+    /**
+     * Raw ticket CSV lines, parsed and validated by the worker.
+     */
+    private final class TicketLines implements Chunk {
+
+        private final List<String> lines;
+
+        private TicketLines(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void write(Connection con, Progress progress) {
+            TicketBatch batch = new TicketBatch(lines.size());
+            for (String line : lines) {
+                try {
+                    String[] columns = line.split(",", -1);
+                    int parkingNumber = Integer.parseInt(columns[0].trim());
+                    String vehicleRegNumber = PlateNormalizer.normalize(columns[1]);
+                    long priceCents = Math.round(Double.parseDouble(columns[2].trim()) * 100);
+                    long inTime = Timestamp.valueOf(columns[3].trim()).getTime();
+                    long outTime = columns[4].trim().isEmpty() ? -1 : Timestamp.valueOf(columns[4].trim()).getTime();
+                    if (columns.length != 5 || parkingNumber <= 0 || vehicleRegNumber.isEmpty()
+                            || vehicleRegNumber.length() > MAX_PLATE_LENGTH || priceCents < 0
+                            || (outTime >= 0 && outTime < inTime)) {
+                        throw new IllegalArgumentException("Invalid ticket row");
+                    }
+                    batch.add(parkingNumber, vehicleRegNumber, priceCents, inTime, outTime);
+                } catch (RuntimeException e) {
+                    logger.debug("Rejected ticket row: " + line);
+                    progress.rowsRejected.increment();
+                }
+            }
+            if (batch.size() > 0) {
+                new TicketRows(batch).write(con, progress);
+            }
+        }
+    }
+
+    /**
+     * Raw parking CSV lines, parsed and validated by the worker.
+     */
+    private final class ParkingLines implements Chunk {
+
+        private final List<String> lines;
+
+        private ParkingLines(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void write(Connection con, Progress progress) {
+            List<ParkingSpot> parkingSpots = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                try {
+                    String[] columns = line.split(",", -1);
+                    int parkingNumber = Integer.parseInt(columns[0].trim());
+                    String available = columns[1].trim();
+                    if (columns.length != 3 || parkingNumber <= 0) {
+                        throw new IllegalArgumentException("Invalid parking row");
+                    }
+                    boolean isAvailable;
+                    if (available.equals("1") || available.equalsIgnoreCase("true")) {
+                        isAvailable = true;
+                    } else if (available.equals("0") || available.equalsIgnoreCase("false")) {
+                        isAvailable = false;
+                    } else {
+                        throw new IllegalArgumentException("Invalid availability");
+                    }
+                    ParkingType parkingType = ParkingType.valueOf(columns[2].trim().toUpperCase(Locale.ROOT));
+                    parkingSpots.add(new ParkingSpot(parkingNumber, parkingType, isAvailable));
+                } catch (RuntimeException e) {
+                    logger.debug("Rejected parking row: " + line);
+                    progress.rowsRejected.increment();
+                }
+            }
+            if (!parkingSpots.isEmpty()) {
+                progress.written(parkingSpots.size(),
+                        (con == null) ? -1 : parkingSpotDAO.bulkInsertParkingSpots(con, parkingSpots));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listener holding back the events of another listener until it is released, so that a listener can be backfilled
+ * on a background thread while vehicles are already processed.
+ * <p>
+ * Events received before {@link #release()} are queued, then delivered in order on release; later events are
+ * delivered as they come. The backfill must stop at a time before the first queued event, so that no event is
+ * counted twice.
+ */
+public class DeferredParkingEventListener implements ParkingEventListener {
+
+    private final ParkingEventListener listener;
+    private List<Runnable> pendingEvents = new ArrayList<>();
+
+    /**
+     * Constructs a DeferredParkingEventListener holding back the events of a listener.
+     *
+     * @param listener the listener receiving the events once released
+     */
+    public DeferredParkingEventListener(ParkingEventListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Delivers the queued events to the listener, then lets the following events through.
+     */
+    public synchronized void release() {
+        if (pendingEvents == null) {
+            return;
+        }
+        for (Runnable event : pendingEvents) {
+            event.run();
+        }
+        pendingEvents = null;
+    }
+
+    /**
+     * Returns the number of events waiting for {@link #release()}.
+     *
+     * @return the number of queued events, 0 once released
+     */
+    public synchronized int getNbPendingEvent() {
+        return (pendingEvents == null) ? 0 : pendingEvents.size();
+    }
+
+    @Override
+    public void onVehicleEntered(Ticket ticket) {
+        deliver(() -> listener.onVehicleEntered(ticket));
+    }
+
+    @Override
+    public void onVehicleExited(Ticket ticket) {
+        deliver(() -> listener.onVehicleExited(ticket));
+    }
+
+    @Override
+    public void onSpotReleased(ParkingSpot parkingSpot, long releaseTime) {
+        deliver(() -> listener.onSpotReleased(parkingSpot, releaseTime));
+    }
+
+    private synchronized void deliver(Runnable event) {
+        if (pendingEvents != null) {
+            pendingEvents.add(event);
+        } else {
+            event.run();
+        }
+    }
+}
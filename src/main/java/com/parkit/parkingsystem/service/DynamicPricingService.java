@@ -0,0 +1,118 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.RateSnapshot;
+import com.parkit.parkingsystem.model.SpotStateTable;
+import com.parkit.parkingsystem.model.SurgeBand;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service adjusting the hourly rate of each parking type to the live occupancy of the parking lot.
+ * The rate of a type is the base rate of {@link com.parkit.parkingsystem.constants.Fare} times the surge band
+ * reached by the occupancy of that type, for example 150% above 85% full.
+ * <p>
+ * Rates are published as immutable {@link RateSnapshot}s swapped atomically, so fare calculation reads the
+ * current rates with a single volatile load and never sees the rates of two publications mixed. Occupancy is
+ * read from the {@link SpotStateTable} whenever a vehicle enters or leaves, by registering the
+ * service as a {@link ParkingEventListener}; a new snapshot is only published when a type changes band.
+ */
+public class DynamicPricingService implements ParkingEventListener {
+
+    private static final Logger logger = LogManager.getLogger("DynamicPricingService");
+
+    private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+
+    private final List<SurgeBand> surgeBands;
+    private final SpotStateTable spotStateTable;
+    private final AtomicReference<RateSnapshot> currentRates = new AtomicReference<>(RateSnapshot.base());
+
+    /**
+     * Constructs a DynamicPricingService starting at the base rates.
+     *
+     * @param surgeBands the surge bands, in any order
+     * @param spotStateTable the table giving the number of free spots of each type
+     */
+    public DynamicPricingService(List<SurgeBand> surgeBands, SpotStateTable spotStateTable) {
+        this.surgeBands = new ArrayList<>(surgeBands);
+        this.surgeBands.sort(Comparator.comparingInt(SurgeBand::getMinOccupancyPercent).reversed());
+        this.spotStateTable = spotStateTable;
+        refresh();
+    }
+
+    /**
+     * Returns the rates in force.
+     *
+     * @return the current rate snapshot
+     */
+    public RateSnapshot getCurrentRates() {
+        return currentRates.get();
+    }
+
+    /**
+     * Reads the occupancy of every parking type and publishes the matching rates if a type changed band.
+     *
+     * @return the rates in force after the refresh
+     */
+    public RateSnapshot refresh() {
+        while (true) {
+            RateSnapshot current = currentRates.get();
+            // Read after the snapshot, so that a lost race is retried with the occupancy of the winner or later
+            long[] ratePercent = new long[PARKING_TYPES.length];
+            for (ParkingType parkingType : PARKING_TYPES) {
+                int nbSpot = spotStateTable.getNbSpot(parkingType);
+                ratePercent[parkingType.ordinal()] = getRatePercent(
+                        nbSpot - spotStateTable.getNbAvailable(parkingType), nbSpot);
+            }
+            if (current.hasRatePercents(ratePercent)) {
+                return current;
+            }
+            long[] ratePerHourCents = new long[PARKING_TYPES.length];
+            for (ParkingType parkingType : PARKING_TYPES) {
+                // Rounded half up to the nearest cent
+                ratePerHourCents[parkingType.ordinal()] = (RateSnapshot.getBaseRatePerHourCents(parkingType)
+                        * ratePercent[parkingType.ordinal()] + 50) / 100;
+            }
+            RateSnapshot published = new RateSnapshot(current.getVersion() + 1, ratePerHourCents, ratePercent);
+            if (currentRates.compareAndSet(current, published)) {
+                logger.info("Published rates " + published);
+                return published;
+            }
+        }
+    }
+
+    @Override
+    public void onVehicleEntered(Ticket ticket) {
+        refresh();
+    }
+
+    @Override
+    public void onVehicleExited(Ticket ticket) {
+        refresh();
+    }
+
+    @Override
+    public void onSpotReleased(ParkingSpot parkingSpot, long releaseTime) {
+        refresh();
+    }
+
+    private long getRatePercent(int nbOccupied, int nbSpot) {
+        if (nbSpot == 0) {
+            return 100;
+        }
+        long occupancyPercent = nbOccupied * 100L / nbSpot;
+        for (SurgeBand surgeBand : surgeBands) {
+            if (occupancyPercent >= surgeBand.getMinOccupancyPercent()) {
+                return surgeBand.getRatePercent();
+            }
+        }
+        return 100;
+    }
+}
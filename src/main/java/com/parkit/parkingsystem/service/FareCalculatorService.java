@@ -1,7 +1,12 @@
 package com.parkit.parkingsystem.service;
 
-import com.parkit.parkingsystem.constants.Fare;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.RateSnapshot;
 import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.Tracer;
+
+import java.time.Clock;
+import java.util.Date;
 
 /**
  * Service responsible for calculating the fare for a parking ticket based on the parking duration
@@ -9,9 +14,67 @@ import com.parkit.parkingsystem.model.Ticket;
  */
 public class FareCalculatorService {
 
+    private static final long HOUR_MILLIS = 3600000;
+    private static final long HALF_HOUR_MILLIS = HOUR_MILLIS / 2;
+
+    private final Clock clock;
+    private volatile DynamicPricingService dynamicPricingService;
+
+    /**
+     * Constructs a fare calculator reading the current time from the system clock.
+     */
+    public FareCalculatorService() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a fare calculator reading the current time from the given clock.
+     *
+     * @param clock the clock giving the out-time of closed tickets
+     */
+    public FareCalculatorService(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Sets the pricing service adjusting hourly rates to occupancy. Without pricing service, the base rates
+     * of {@link com.parkit.parkingsystem.constants.Fare} apply.
+     *
+     * @param dynamicPricingService the pricing service, or null to charge the base rates
+     */
+    public void setDynamicPricingService(DynamicPricingService dynamicPricingService) {
+        this.dynamicPricingService = dynamicPricingService;
+    }
+
+    /**
+     * Returns the hourly rate in force for a parking type, to be recorded on the tickets of entering vehicles.
+     * Rates are refreshed from the occupancy first, so that the spot just taken by the entering vehicle counts,
+     * although it is only notified once its ticket is saved.
+     *
+     * @param parkingType the type of the parking spot
+     * @return the hourly rate, in cents
+     */
+    public long getRatePerHourCents(ParkingType parkingType) {
+        DynamicPricingService pricing = dynamicPricingService;
+        RateSnapshot rates = (pricing == null) ? RateSnapshot.base() : pricing.refresh();
+        return rates.getRatePerHourCents(parkingType);
+    }
+
+    /**
+     * Sets the out-time of the given ticket to the current time of the clock and calculates its fare.
+     *
+     * @param ticket the ticket of the vehicle leaving the parking lot
+     * @throws IllegalArgumentException if the in-time is in the future, or if the parking type is unknown
+     */
+    public void closeTicket(Ticket ticket) {
+        ticket.setOutTime(new Date(clock.millis()));
+        calculateFare(ticket);
+    }
+
 	/**
-     * Calculates the parking fare for the given ticket based on the parking duration and type.
-     * The fare is updated in the ticket object.
+     * Calculates the parking fare for the given ticket based on the parking duration and the hourly rate
+     * recorded at entry, or the base rate of its parking type for tickets without recorded rate.
+     * The fare is computed in integer cents, rounded half up, and updated in the ticket object.
      * 
      * @param ticket the ticket for which the fare needs to be calculated
      * @throws IllegalArgumentException if the outTime is null or before inTime, or if the parking type is unknown
@@ -21,30 +84,53 @@ public class FareCalculatorService {
             throw new IllegalArgumentException("Out time provided is incorrect:"+ticket.getOutTime().toString());
         }
 
-        long inHour = ticket.getInTime().getTime();
-        long outHour = ticket.getOutTime().getTime();
-
-        float duration = (float)(outHour - inHour) / 3600000;
-        
-        if(duration < 0.5) {
-        	ticket.setPrice(0);
-        }
-        else {
-            switch (ticket.getParkingSpot().getParkingType()){
-	            case CAR: {
-	                ticket.setPrice(duration * Fare.CAR_RATE_PER_HOUR);
-	                break;
-	            }
-	            case BIKE: {
-	                ticket.setPrice(duration * Fare.BIKE_RATE_PER_HOUR);
-	                break;
-	            }
-	            default: throw new IllegalArgumentException("Unkown Parking Type");
+        Tracer.Span span = Tracer.startSpan("FareCalculatorService.calculateFare", null);
+        try {
+            long duration = ticket.getOutTime().getTime() - ticket.getInTime().getTime();
+            long ratePerHourCents = ticket.getRatePerHourCents();
+            if(ratePerHourCents <= 0) {
+                ratePerHourCents = RateSnapshot.getBaseRatePerHourCents(ticket.getParkingSpot().getParkingType());
             }
+            ticket.setPriceCents(calculateFareCents(ratePerHourCents, duration, ticket.getDiscountPercent()));
+        } finally {
+            span.end();
         }
-        if (ticket.getDiscount()) {
-        	ticket.setPrice(ticket.getPrice() * Fare.DISCOUNT_RATE);
+    }
+
+    /**
+     * Calculates the fare of a stay at the base rate of its parking type, without reading nor writing any ticket.
+     * The fare is computed in integer cents, rounded half up.
+     *
+     * @param parkingType the type of the parking spot
+     * @param duration the duration of the stay, in milliseconds
+     * @param discountPercent the percentage of the full fare to charge
+     * @return the fare, in cents
+     * @throws IllegalArgumentException if the parking type is unknown
+     */
+    public long calculateFareCents(ParkingType parkingType, long duration, long discountPercent) {
+        switch (parkingType){
+            case CAR:
+            case BIKE:
+                return calculateFareCents(RateSnapshot.getBaseRatePerHourCents(parkingType), duration, discountPercent);
+            default: throw new IllegalArgumentException("Unkown Parking Type");
         }
+    }
 
+    /**
+     * Calculates the fare of a stay at a given hourly rate, without reading nor writing any ticket, so that
+     * open tickets can be quoted. The fare is computed in integer cents, rounded half up.
+     *
+     * @param ratePerHourCents the hourly rate, in cents
+     * @param duration the duration of the stay, in milliseconds
+     * @param discountPercent the percentage of the full fare to charge
+     * @return the fare, in cents
+     */
+    public long calculateFareCents(long ratePerHourCents, long duration, long discountPercent) {
+        if(duration < HALF_HOUR_MILLIS) {
+            return 0;
+        }
+        // Rounded once, half up, to the nearest cent
+        long divisor = HOUR_MILLIS * 100;
+        return (ratePerHourCents * duration * discountPercent + divisor / 2) / divisor;
     }
-}
\ No newline at end of file
+}
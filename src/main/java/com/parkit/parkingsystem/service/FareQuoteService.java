@@ -0,0 +1,171 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.Fare;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.FareQuote;
+import com.parkit.parkingsystem.model.RateSnapshot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Service quoting the amount due for open tickets, for pay stations and apps polling before the vehicle leaves.
+ * Quoting never writes the ticket nor the database.
+ * <p>
+ * Time is cut into pricing buckets, and a quote is the fare as of the start of the current bucket. The open ticket
+ * of a plate is fetched from the database on the first quote only; its quote is then cached until the bucket ends,
+ * after which it is recomputed from the cached ticket without querying the database again. Repeated polling thus
+ * costs a hash lookup. The fare charged at exit may exceed the last quote by at most one bucket of parking.
+ * <p>
+ * Cached tickets are dropped when the vehicle enters or leaves, by registering the service as a
+ * {@link ParkingEventListener}.
+ */
+public class FareQuoteService implements ParkingEventListener {
+
+    public static final long DEFAULT_BUCKET_MILLIS = 60 * 1000;
+
+    private static final int VERSION_STRIPES = 256;
+
+    private final TicketDAO ticketDAO;
+    private final Clock clock;
+    private final long bucketMillis;
+    private final FareCalculatorService fareCalculatorService;
+    private final ConcurrentMap<String, CachedQuote> quotes = new ConcurrentHashMap<>();
+    // Entries and exits seen per stripe of plates, so that a ticket fetched meanwhile is not cached
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private LoyaltyService loyaltyService;
+
+    /**
+     * The open ticket of a plate with its latest quote.
+     */
+    private static final class CachedQuote {
+
+        private final int ticketId;
+        private final long ratePerHourCents;
+        private final long inTime;
+        private final long discountPercent;
+        private final long bucket;
+        private final FareQuote quote;
+
+        private CachedQuote(int ticketId, long ratePerHourCents, long inTime, long discountPercent, long bucket,
+                            FareQuote quote) {
+            this.ticketId = ticketId;
+            this.ratePerHourCents = ratePerHourCents;
+            this.inTime = inTime;
+            this.discountPercent = discountPercent;
+            this.bucket = bucket;
+            this.quote = quote;
+        }
+    }
+
+    /**
+     * Constructs a FareQuoteService.
+     *
+     * @param ticketDAO data access object used to fetch open tickets
+     * @param clock the clock giving the current time
+     * @param bucketMillis the length of the pricing buckets, in milliseconds
+     */
+    public FareQuoteService(TicketDAO ticketDAO, Clock clock, long bucketMillis) {
+        this.ticketDAO = ticketDAO;
+        this.clock = clock;
+        this.bucketMillis = bucketMillis;
+        this.fareCalculatorService = new FareCalculatorService(clock);
+    }
+
+    /**
+     * Sets the loyalty service evaluating discounts, as set on {@link ParkingService}. Without loyalty service,
+     * vehicles with more than one ticket get the standard discount.
+     *
+     * @param loyaltyService the loyalty service, or null to count the tickets of each vehicle
+     */
+    public void setLoyaltyService(LoyaltyService loyaltyService) {
+        this.loyaltyService = loyaltyService;
+    }
+
+    /**
+     * Quotes the amount due for the open ticket of a vehicle as of now.
+     *
+     * @param vehicleRegNumber the registration number of the vehicle
+     * @return the quote, or {@code null} if the vehicle has no open ticket
+     */
+    public FareQuote quote(String vehicleRegNumber) {
+        String plate = PlateNormalizer.normalize(vehicleRegNumber);
+        long bucket = Math.floorDiv(clock.millis(), bucketMillis);
+        CachedQuote cached = quotes.get(plate);
+        if (cached != null && cached.bucket == bucket) {
+            return cached.quote;
+        }
+        long version = versions.get(stripe(plate));
+        if (cached == null) {
+            Ticket ticket = ticketDAO.getTicket(plate);
+            if (ticket == null || ticket.getOutTime() != null) {
+                return null;
+            }
+            long ratePerHourCents = ticket.getRatePerHourCents();
+            if (ratePerHourCents <= 0) {
+                ratePerHourCents = RateSnapshot.getBaseRatePerHourCents(ticket.getParkingSpot().getParkingType());
+            }
+            cached = new CachedQuote(ticket.getId(), ratePerHourCents, ticket.getInTime().getTime(),
+                    getDiscountPercent(plate), bucket, null);
+        }
+        CachedQuote quoted = price(plate, cached, bucket);
+        // Never cache over an exit which dropped the ticket meanwhile
+        if (cached.quote == null) {
+            if (quotes.putIfAbsent(plate, quoted) == null && versions.get(stripe(plate)) != version) {
+                // The vehicle may have left while its ticket was fetched, before the quote was cached
+                quotes.remove(plate, quoted);
+            }
+        } else {
+            quotes.replace(plate, cached, quoted);
+        }
+        return quoted.quote;
+    }
+
+    /**
+     * Returns the number of plates whose quote is cached.
+     *
+     * @return the number of cached quotes
+     */
+    public int getCachedCount() {
+        return quotes.size();
+    }
+
+    @Override
+    public void onVehicleEntered(Ticket ticket) {
+        drop(PlateNormalizer.normalize(ticket.getVehicleRegNumber()));
+    }
+
+    @Override
+    public void onVehicleExited(Ticket ticket) {
+        drop(PlateNormalizer.normalize(ticket.getVehicleRegNumber()));
+    }
+
+    private void drop(String plate) {
+        versions.incrementAndGet(stripe(plate));
+        quotes.remove(plate);
+    }
+
+    private static int stripe(String plate) {
+        return plate.hashCode() & (VERSION_STRIPES - 1);
+    }
+
+    private CachedQuote price(String plate, CachedQuote cached, long bucket) {
+        long asOfTime = Math.max(bucket * bucketMillis, cached.inTime);
+        long priceCents = fareCalculatorService.calculateFareCents(cached.ratePerHourCents, asOfTime - cached.inTime,
+                cached.discountPercent);
+        FareQuote quote = new FareQuote(cached.ticketId, plate, priceCents, asOfTime, (bucket + 1) * bucketMillis);
+        return new CachedQuote(cached.ticketId, cached.ratePerHourCents, cached.inTime, cached.discountPercent, bucket,
+                quote);
+    }
+
+    private long getDiscountPercent(String plate) {
+        if (loyaltyService != null) {
+            return loyaltyService.getDiscountPercent(plate, clock.millis());
+        }
+        return (ticketDAO.getNbTicket(plate) > 1) ? Fare.DISCOUNT_PERCENT : 100;
+    }
+}
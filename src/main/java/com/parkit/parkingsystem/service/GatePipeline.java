@@ -0,0 +1,530 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.config.DataBaseAccessScheduler;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.GateRequest;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.BoundedRingQueue;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import com.parkit.parkingsystem.util.StageMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Staged pipeline processing gate traffic without one blocking chain per vehicle.
+ * <p>
+ * Gate input lines go through four stages, each running on its own thread and connected by
+ * {@link BoundedRingQueue}s:
+ * <ol>
+ * <li>decode: parses lines such as {@code IN CAR AB-123-CD} or {@code OUT AB-123-CD};</li>
+ * <li>allocation: assigns spots from an in-memory free list seeded from the database;</li>
+ * <li>persistence: writes whatever has queued up since its last round in one JDBC batch, so a slow
+ * database results in larger batches rather than in a blocked gate;</li>
+ * <li>notification: fires the {@link ParkingEventListener}s and hands the outcome back to the gate.</li>
+ * </ol>
+ * A stage whose output queue is full waits for it to drain, which fills its own input queue in turn, until
+ * {@link #submit(String)} refuses new input. The allocation stage owns the free spot list, so the pipeline
+ * must be the only component allocating spots while it runs.
+ */
+public class GatePipeline {
+
+    private static final Logger logger = LogManager.getLogger("GatePipeline");
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final ParkingSpotDAO parkingSpotDAO;
+    private final TicketDAO ticketDAO;
+    private final FareCalculatorService fareCalculatorService = new FareCalculatorService();
+    private final int batchSize;
+
+    private final BoundedRingQueue<GateRequest> decodeQueue;
+    private final BoundedRingQueue<GateRequest> allocationQueue;
+    private final BoundedRingQueue<GateRequest> persistenceQueue;
+    private final BoundedRingQueue<GateRequest> notificationQueue;
+    // Created on start, with room for every spot
+    private BoundedRingQueue<ParkingSpot> releasedSpots;
+    private final Stage[] stages;
+
+    // Only accessed by the allocation stage once started
+    private final Map<ParkingType, PriorityQueue<Integer>> freeSpots = new EnumMap<>(ParkingType.class);
+
+    private final List<ParkingEventListener> parkingEventListeners = new CopyOnWriteArrayList<>();
+    private volatile LoyaltyService loyaltyService;
+    private volatile Consumer<GateRequest> completionHandler = request -> { };
+    private volatile boolean accepting;
+
+    /**
+     * Creates a pipeline with the default queue capacity and batch size.
+     *
+     * @param parkingSpotDAO data access object for parking spot information
+     * @param ticketDAO data access object for ticket information
+     */
+    public GatePipeline(ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO) {
+        this(parkingSpotDAO, ticketDAO, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param parkingSpotDAO data access object for parking spot information
+     * @param ticketDAO data access object for ticket information
+     * @param queueCapacity the capacity of each queue between two stages
+     * @param batchSize the maximum number of requests handled by a stage in one round
+     */
+    public GatePipeline(ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO, int queueCapacity, int batchSize) {
+        this.parkingSpotDAO = parkingSpotDAO;
+        this.ticketDAO = ticketDAO;
+        this.batchSize = batchSize;
+        decodeQueue = new BoundedRingQueue<>(queueCapacity);
+        allocationQueue = new BoundedRingQueue<>(queueCapacity);
+        persistenceQueue = new BoundedRingQueue<>(queueCapacity);
+        notificationQueue = new BoundedRingQueue<>(queueCapacity);
+        stages = new Stage[] {
+                new Stage("decode", decodeQueue, this::decode),
+                new Stage("allocation", allocationQueue, this::allocate),
+                new Stage("persistence", persistenceQueue, this::persist),
+                new Stage("notification", notificationQueue, this::notifyGate)
+        };
+    }
+
+    /**
+     * Registers a listener notified of every vehicle entering or leaving the parking lot through the pipeline.
+     *
+     * @param listener the listener to register
+     */
+    public void addParkingEventListener(ParkingEventListener listener) {
+        parkingEventListeners.add(listener);
+    }
+
+    /**
+     * Sets the loyalty service evaluating discounts from recent visits, instead of counting the tickets of each
+     * vehicle. The loyalty service must also be registered as a listener so that it records visits.
+     *
+     * @param loyaltyService the loyalty service, or null to count the tickets of each vehicle
+     */
+    public void setLoyaltyService(LoyaltyService loyaltyService) {
+        this.loyaltyService = loyaltyService;
+    }
+
+    /**
+     * Sets the pricing service adjusting hourly rates to occupancy. The rate in force when a vehicle is allocated
+     * its spot is recorded on its ticket and charged at exit.
+     *
+     * @param dynamicPricingService the pricing service, or null to charge the base rates
+     */
+    public void setDynamicPricingService(DynamicPricingService dynamicPricingService) {
+        fareCalculatorService.setDynamicPricingService(dynamicPricingService);
+    }
+
+    /**
+     * Sets the handler receiving every completed request, on the notification thread.
+     *
+     * @param completionHandler the handler, typically displaying the message at the gate
+     */
+    public void setCompletionHandler(Consumer<GateRequest> completionHandler) {
+        this.completionHandler = completionHandler;
+    }
+
+    /**
+     * Loads the available spots and starts the stage threads.
+     */
+    public void start() {
+        for (ParkingType parkingType : ParkingType.values()) {
+            freeSpots.put(parkingType, new PriorityQueue<>());
+        }
+        List<ParkingSpot> parkingSpots = parkingSpotDAO.getParkingSpots();
+        // A spot is queued at most once until the allocation stage takes it back, so releasing never waits
+        releasedSpots = new BoundedRingQueue<>(Math.max(2, parkingSpots.size()));
+        for (ParkingSpot parkingSpot : parkingSpots) {
+            if (parkingSpot.isAvailable()) {
+                freeSpots.get(parkingSpot.getParkingType()).add(parkingSpot.getId());
+            }
+        }
+        for (Stage stage : stages) {
+            stage.start();
+        }
+        accepting = true;
+        logger.info("Gate pipeline started");
+    }
+
+    /**
+     * Stops accepting input, lets every stage drain the requests already submitted and stops the stage threads.
+     *
+     * @throws InterruptedException if interrupted while waiting for a stage to drain
+     */
+    public void stop() throws InterruptedException {
+        accepting = false;
+        for (Stage stage : stages) {
+            stage.stop();
+        }
+        logMetrics();
+    }
+
+    /**
+     * Submits a line read at a gate.
+     *
+     * @param input the gate line
+     * @return {@code true} if the line was queued, {@code false} if the pipeline is saturated or stopped
+     */
+    public boolean submit(String input) {
+        if (!accepting || !decodeQueue.offer(new GateRequest(input, System.currentTimeMillis()))) {
+            stages[0].metrics.recordRejected();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the metrics of every stage, in pipeline order.
+     *
+     * @return the stage metrics
+     */
+    public List<StageMetrics> getStageMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>(stages.length);
+        for (Stage stage : stages) {
+            metrics.add(stage.metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Logs the metrics of every stage.
+     */
+    public void logMetrics() {
+        for (Stage stage : stages) {
+            logger.info(stage.metrics);
+        }
+    }
+
+    private void decode(List<GateRequest> requests) {
+        for (GateRequest request : requests) {
+            String[] tokens = request.getInput().trim().split("\\s+", 3);
+            try {
+                if (tokens.length == 3 && tokens[0].equalsIgnoreCase("IN")) {
+                    request.setKind(GateRequest.Kind.ENTRY);
+                    request.setParkingType(ParkingType.valueOf(tokens[1].toUpperCase()));
+                    request.setVehicleRegNumber(PlateNormalizer.normalize(tokens[2]));
+                } else if (tokens.length >= 2 && tokens[0].equalsIgnoreCase("OUT")) {
+                    request.setKind(GateRequest.Kind.EXIT);
+                    request.setVehicleRegNumber(PlateNormalizer.normalize(
+                            (tokens.length == 2) ? tokens[1] : tokens[1] + tokens[2]));
+                }
+            } catch (IllegalArgumentException e) {
+                logger.error("Error parsing gate input " + request.getInput(), e);
+                request.setKind(null);
+            }
+            if (request.getKind() == null || request.getVehicleRegNumber().isEmpty()) {
+                request.complete(GateRequest.Status.REJECTED, "Invalid input provided");
+                forward(notificationQueue, request);
+            } else {
+                forward(allocationQueue, request);
+            }
+        }
+    }
+
+    private void allocate(List<GateRequest> requests) {
+        takeBackReleasedSpots();
+        for (GateRequest request : requests) {
+            if (request.getKind() == GateRequest.Kind.ENTRY) {
+                Integer parkingNumber = freeSpots.get(request.getParkingType()).poll();
+                if (parkingNumber == null) {
+                    request.complete(GateRequest.Status.REJECTED, "Parking slots might be full");
+                    forwardAllocated(notificationQueue, request);
+                    continue;
+                }
+                ParkingSpot parkingSpot = new ParkingSpot(parkingNumber, request.getParkingType(), false);
+                Ticket ticket = new Ticket();
+                ticket.setParkingSpot(parkingSpot);
+                ticket.setVehicleRegNumber(request.getVehicleRegNumber());
+                ticket.setPriceCents(0);
+                ticket.setInTime(new Date(request.getReceivedTime()));
+                ticket.setOutTime(null);
+                ticket.setRatePerHourCents(fareCalculatorService.getRatePerHourCents(request.getParkingType()));
+                request.setParkingSpot(parkingSpot);
+                request.setTicket(ticket);
+            }
+            forwardAllocated(persistenceQueue, request);
+        }
+    }
+
+    private void persist(List<GateRequest> requests) {
+        DataBaseAccessScheduler.Priority previousPriority = DataBaseAccessScheduler.getPriority();
+        try {
+            // Entries are written before exits, so a vehicle both leaving and entering again is written in arrival
+            // order by splitting the batch where it comes back
+            Map<String, GateRequest.Kind> kinds = new HashMap<>();
+            int from = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                GateRequest request = requests.get(i);
+                GateRequest.Kind kind = kinds.putIfAbsent(request.getVehicleRegNumber(), request.getKind());
+                if (kind != null && kind != request.getKind()) {
+                    persistSegment(requests.subList(from, i));
+                    kinds.clear();
+                    kinds.put(request.getVehicleRegNumber(), request.getKind());
+                    from = i;
+                }
+            }
+            persistSegment(requests.subList(from, requests.size()));
+        } finally {
+            DataBaseAccessScheduler.setPriority(previousPriority);
+            for (GateRequest request : requests) {
+                if (request.getStatus() == GateRequest.Status.PENDING) {
+                    request.complete(GateRequest.Status.FAILED, "Unable to process vehicle. Error occurred");
+                }
+                forward(notificationQueue, request);
+            }
+        }
+    }
+
+    private void persistSegment(List<GateRequest> requests) {
+        List<GateRequest> entries = new ArrayList<>();
+        List<GateRequest> exits = new ArrayList<>();
+        for (GateRequest request : requests) {
+            if (request.getKind() == GateRequest.Kind.ENTRY) {
+                entries.add(request);
+            } else {
+                exits.add(request);
+            }
+        }
+        if (!entries.isEmpty()) {
+            DataBaseAccessScheduler.setPriority(DataBaseAccessScheduler.Priority.ENTRY);
+            persistEntries(entries);
+        }
+        if (!exits.isEmpty()) {
+            DataBaseAccessScheduler.setPriority(DataBaseAccessScheduler.Priority.EXIT);
+            persistExits(exits);
+        }
+    }
+
+    private void persistEntries(List<GateRequest> entries) {
+        List<ParkingSpot> parkingSpots = new ArrayList<>(entries.size());
+        List<Ticket> tickets = new ArrayList<>(entries.size());
+        for (GateRequest request : entries) {
+            parkingSpots.add(request.getParkingSpot());
+            tickets.add(request.getTicket());
+        }
+        boolean saved = parkingSpotDAO.updateParkings(parkingSpots);
+        if (saved && !ticketDAO.saveTickets(tickets)) {
+            saved = false;
+            parkingSpotDAO.updateParkings(freeCopies(parkingSpots));
+        }
+        for (GateRequest request : entries) {
+            if (saved) {
+                request.complete(GateRequest.Status.ACCEPTED,
+                        "Please park your vehicle in spot number:" + request.getParkingSpot().getId());
+            } else {
+                request.complete(GateRequest.Status.FAILED, "Unable to save ticket information. Error occurred");
+                release(request.getParkingSpot());
+            }
+        }
+    }
+
+    private void persistExits(List<GateRequest> exits) {
+        List<GateRequest> closing = new ArrayList<>(exits.size());
+        List<Ticket> tickets = new ArrayList<>(exits.size());
+        Set<String> plates = new HashSet<>();
+        for (GateRequest request : exits) {
+            if (!plates.add(request.getVehicleRegNumber())) {
+                request.complete(GateRequest.Status.REJECTED, "This vehicle is already exiting");
+                continue;
+            }
+            Ticket ticket = ticketDAO.getTicket(request.getVehicleRegNumber());
+            if (ticket == null || ticket.getOutTime() != null) {
+                request.complete(GateRequest.Status.REJECTED, "No parked vehicle found for this registration number");
+                continue;
+            }
+            if (loyaltyService != null) {
+                ticket.setDiscountPercent(loyaltyService.getDiscountPercent(request.getVehicleRegNumber(),
+                        request.getReceivedTime()));
+            } else {
+                ticket.setDiscount(ticketDAO.getNbTicket(request.getVehicleRegNumber()) > 1);
+            }
+            ticket.setOutTime(new Date(request.getReceivedTime()));
+            try {
+                fareCalculatorService.calculateFare(ticket);
+            } catch (IllegalArgumentException e) {
+                logger.error("Error calculating fare for " + request.getVehicleRegNumber(), e);
+                request.complete(GateRequest.Status.FAILED, "Unable to calculate the parking fare. Error occurred");
+                continue;
+            }
+            request.setTicket(ticket);
+            request.setParkingSpot(ticket.getParkingSpot());
+            closing.add(request);
+            tickets.add(ticket);
+        }
+        if (closing.isEmpty()) {
+            return;
+        }
+        boolean[] closed = ticketDAO.closeTickets(tickets);
+        if (closed == null) {
+            for (GateRequest request : closing) {
+                request.complete(GateRequest.Status.FAILED, "Unable to update ticket information. Error occurred");
+            }
+            return;
+        }
+        List<ParkingSpot> parkingSpots = new ArrayList<>(closing.size());
+        for (int i = 0; i < closing.size(); i++) {
+            GateRequest request = closing.get(i);
+            if (!closed[i]) {
+                // Closed by another gate since it was read: its spot was released there
+                request.complete(GateRequest.Status.REJECTED, "No parked vehicle found for this registration number");
+                continue;
+            }
+            parkingSpots.add(request.getParkingSpot());
+            request.complete(GateRequest.Status.ACCEPTED, "Please pay the parking fare:" + request.getTicket().getPrice());
+        }
+        if (parkingSpots.isEmpty()) {
+            return;
+        }
+        if (parkingSpotDAO.updateParkings(freeCopies(parkingSpots))) {
+            for (ParkingSpot parkingSpot : parkingSpots) {
+                release(parkingSpot);
+            }
+        } else {
+            logger.error("Unable to release parking spots " + Arrays.toString(parkingSpots.stream()
+                    .mapToInt(ParkingSpot::getId).toArray()));
+        }
+    }
+
+    /**
+     * Copies spots as free spots to store, leaving the spots of the tickets untouched: the spot of a ticket read
+     * from the database is shared with the other readers of its spot state table.
+     */
+    private static List<ParkingSpot> freeCopies(List<ParkingSpot> parkingSpots) {
+        List<ParkingSpot> freeSpots = new ArrayList<>(parkingSpots.size());
+        for (ParkingSpot parkingSpot : parkingSpots) {
+            freeSpots.add(new ParkingSpot(parkingSpot.getId(), parkingSpot.getParkingType(), true));
+        }
+        return freeSpots;
+    }
+
+    private void notifyGate(List<GateRequest> requests) {
+        for (GateRequest request : requests) {
+            if (request.getStatus() == GateRequest.Status.ACCEPTED) {
+                for (ParkingEventListener listener : parkingEventListeners) {
+                    try {
+                        if (request.getKind() == GateRequest.Kind.ENTRY) {
+                            listener.onVehicleEntered(request.getTicket());
+                        } else {
+                            listener.onVehicleExited(request.getTicket());
+                            listener.onSpotReleased(request.getParkingSpot(), request.getTicket().getOutTime().getTime());
+                        }
+                    } catch (Exception e) {
+                        logger.error("Error notifying gate event", e);
+                    }
+                }
+            }
+            try {
+                completionHandler.accept(request);
+            } catch (Exception e) {
+                logger.error("Error completing gate request", e);
+            }
+        }
+    }
+
+    private void release(ParkingSpot parkingSpot) {
+        while (!releasedSpots.offer(parkingSpot)) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Returns the spots released by the persistence stage to the free spot list.
+     */
+    private void takeBackReleasedSpots() {
+        ParkingSpot released;
+        while ((released = releasedSpots.poll()) != null) {
+            freeSpots.get(released.getParkingType()).add(released.getId());
+        }
+    }
+
+    /**
+     * Hands a request from the allocation stage to the next stage, taking back released spots while its queue is
+     * full: the persistence stage may itself wait to release spots, spots added since the start not being
+     * accounted for in the capacity of the released spot queue.
+     */
+    private void forwardAllocated(BoundedRingQueue<GateRequest> queue, GateRequest request) {
+        while (!queue.offer(request)) {
+            takeBackReleasedSpots();
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Hands a request to the next stage, waiting while its queue is full.
+     */
+    private static void forward(BoundedRingQueue<GateRequest> queue, GateRequest request) {
+        while (!queue.offer(request)) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * A stage thread draining its input queue in batches.
+     */
+    private class Stage implements Runnable {
+
+        private final BoundedRingQueue<GateRequest> input;
+        private final Consumer<List<GateRequest>> handler;
+        private final StageMetrics metrics;
+        private final Thread thread;
+        private volatile boolean stopping;
+
+        Stage(String name, BoundedRingQueue<GateRequest> input, Consumer<List<GateRequest>> handler) {
+            this.input = input;
+            this.handler = handler;
+            this.metrics = new StageMetrics(name, input::size);
+            this.thread = new Thread(this, "gate-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+            stopping = true;
+            thread.join();
+        }
+
+        @Override
+        public void run() {
+            List<GateRequest> batch = new ArrayList<>(batchSize);
+            while (!stopping || !input.isEmpty()) {
+                metrics.sampleQueueDepth();
+                if (input.drainTo(batch, batchSize) == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    handler.accept(batch);
+                } catch (Exception e) {
+                    logger.error("Error in gate pipeline stage " + metrics.getName(), e);
+                }
+                metrics.recordBatch(batch.size(), System.nanoTime() - start);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -1,11 +1,27 @@
 package com.parkit.parkingsystem.service;
 
+import com.parkit.parkingsystem.config.DataBaseAccessScheduler;
+import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.dao.ParkingSpotDAO;
 import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.LoyaltyRule;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.ParkingState;
+import com.parkit.parkingsystem.model.SpotStateTable;
+import com.parkit.parkingsystem.model.SurgeBand;
+import com.parkit.parkingsystem.model.Ticket;
 import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.PlateBloomFilter;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import com.parkit.parkingsystem.util.Tracer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.List;
+
 /**
  * Provides an interactive command-line interface for users to interact with the parking system.
  * The user can select various options such as processing incoming and outgoing vehicles,
@@ -15,6 +31,29 @@ public class InteractiveShell {
 
     private static final Logger logger = LogManager.getLogger("InteractiveShell");
 
+    private static final String EVENT_LOG_DIRECTORY = System.getProperty("parkit.eventlog.dir", "eventlog");
+    private static final int EVENT_LOG_SNAPSHOT_INTERVAL = 1000;
+    // Set when several instances share the database, to allocate spots from leased blocks
+    private static final String NODE_ID = System.getProperty("parkit.node.id");
+    private static final int PLATE_FILTER_INITIAL_CAPACITY = 1 << 20;
+    private static final double PLATE_FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
+    // Loyalty rules written visits/days:percent, enabling windowed discounts when set
+    private static final String LOYALTY_RULES = System.getProperty("parkit.loyalty.rules");
+    private static final String LOYALTY_JOURNAL = System.getProperty("parkit.loyalty.journal", "loyalty.journal");
+    private static final int LOYALTY_COMPACT_INTERVAL = 10000;
+    private static final int FARE_WARM_UP_ITERATIONS = 20000;
+    private static final long STARTUP_TRAINING_TIMEOUT_MILLIS = 60000;
+    // Surge bands written occupancy:percent, enabling occupancy-driven rates when set
+    private static final String SURGE_BANDS = System.getProperty("parkit.pricing.surge");
+    // Fraction of gate operations traced, tracing being off unless set
+    private static final double TRACE_SAMPLE_RATE = Double.parseDouble(System.getProperty("parkit.trace.rate", "0"));
+    private static final int TRACE_CAPACITY = Integer.getInteger("parkit.trace.capacity", Tracer.DEFAULT_CAPACITY);
+    private static final String TRACE_FILE = System.getProperty("parkit.trace.file", "parkit-trace.json");
+    // Spots bookable ahead of time written parkingType:spots, enabling reservations when set
+    private static final String RESERVATION_SPOTS = System.getProperty("parkit.reservation.spots");
+    // Maximum number of database connections open at once, scheduling exits ahead of entries and background work when set
+    private static final Integer DATABASE_CONNECTIONS = Integer.getInteger("parkit.db.connections");
+
     /**
      * Initializes the application, displays the welcome message, and starts an interactive shell 
      * where the user can choose actions to process incoming or outgoing vehicles, or shut down the system.
@@ -22,15 +61,131 @@ public class InteractiveShell {
     public static void loadInterface(){
         logger.info("App initialized!!!");
         System.out.println("Welcome to Parking System!");
+        if (TRACE_SAMPLE_RATE > 0) {
+            Tracer.configure(TRACE_SAMPLE_RATE, TRACE_CAPACITY);
+        }
 
         boolean continueApp = true;
         InputReaderUtil inputReaderUtil = new InputReaderUtil();
         ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
         TicketDAO ticketDAO = new TicketDAO();
+        if (DATABASE_CONNECTIONS != null) {
+            DataBaseAccessScheduler accessScheduler = new DataBaseAccessScheduler(DATABASE_CONNECTIONS,
+                    DataBaseAccessScheduler.DEFAULT_TIMEOUT_MILLIS);
+            parkingSpotDAO.dataBaseConfig.setAccessScheduler(accessScheduler);
+            ticketDAO.dataBaseConfig.setAccessScheduler(accessScheduler);
+        }
         ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
+        StartupService startupService = createStartupService(ticketDAO, NODE_ID == null);
+        ParkingEventLog parkingEventLog = null;
+        ParkingEventLog openedLog = null;
+        try {
+            openedLog = new ParkingEventLog(Paths.get(EVENT_LOG_DIRECTORY), EVENT_LOG_SNAPSHOT_INTERVAL);
+            if (openedLog.isEmpty()) {
+                openedLog.seed(parkingSpotDAO, ticketDAO);
+            }
+            parkingEventLog = openedLog;
+        } catch (IOException e) {
+            logger.error("Unable to open the parking event log", e);
+            closeEventLog(openedLog);
+        }
+        // A single instance sees every event, so its recovered open tickets stand for the ticket table
+        ParkingState parkingState = (NODE_ID == null && parkingEventLog != null) ? parkingEventLog.getState() : null;
+        SpotLeaseAllocator spotLeaseAllocator = null;
+        SpotStateTable spotStateTable = null;
+        if (NODE_ID != null) {
+            spotLeaseAllocator = new SpotLeaseAllocator(parkingSpotDAO, NODE_ID,
+                    SpotLeaseAllocator.DEFAULT_BLOCK_SIZE, SpotLeaseAllocator.DEFAULT_LEASE_MILLIS);
+            parkingService.setSpotLeaseAllocator(spotLeaseAllocator);
+        } else {
+            // Read from the parking table, which holds the spots occupied before a crash lost their events
+            // and the spots imported since the log was seeded
+            List<ParkingSpot> parkingSpots = parkingSpotDAO.getParkingSpots();
+            if (parkingSpots.isEmpty() && parkingState != null) {
+                logger.error("Unable to read the parking spots, allocating from the parking event log");
+                parkingSpots = parkingState.getParkingSpots();
+            }
+            spotStateTable = new SpotStateTable(parkingSpots);
+            parkingService.setSpotStateTable(spotStateTable);
+            ticketDAO.setSpotStateTable(spotStateTable);
+        }
+        List<Ticket> openTickets = (parkingState != null) ? parkingState.getOpenTickets() : null;
+        // Backfilled as of now in the background, the gate events received meanwhile being delivered afterwards
+        long backfillTime = System.currentTimeMillis();
+        ParkingReportService parkingReportService = new ParkingReportService();
+        DeferredParkingEventListener reportEvents = new DeferredParkingEventListener(parkingReportService);
+        parkingService.addParkingEventListener(reportEvents);
+        startupService.addTask("report", () -> {
+            try {
+                return ((openTickets != null) ? parkingReportService.backfill(ticketDAO, openTickets, backfillTime)
+                        : parkingReportService.backfill(ticketDAO, backfillTime)) >= 0;
+            } finally {
+                reportEvents.release();
+            }
+        });
+        OverstayMonitor overstayMonitor = new OverstayMonitor();
+        DeferredParkingEventListener overstayEvents = new DeferredParkingEventListener(overstayMonitor);
+        parkingService.addParkingEventListener(overstayEvents);
+        startupService.addTask("overstay monitor", () -> {
+            try {
+                if (openTickets != null) {
+                    overstayMonitor.backfill(openTickets);
+                } else {
+                    overstayMonitor.backfill(ticketDAO, backfillTime);
+                }
+            } finally {
+                overstayEvents.release();
+            }
+            overstayMonitor.start();
+            return true;
+        });
+        startupService.start();
+        if (parkingEventLog != null) {
+            parkingService.addParkingEventListener(parkingEventLog);
+        }
+
+        if (LOYALTY_RULES != null) {
+            try {
+                LoyaltyService loyaltyService = new LoyaltyService(LoyaltyRule.parse(LOYALTY_RULES),
+                        Clock.systemDefaultZone(), Paths.get(LOYALTY_JOURNAL), LOYALTY_COMPACT_INTERVAL);
+                if (loyaltyService.isEmpty()) {
+                    loyaltyService.seed(ticketDAO);
+                }
+                parkingService.addParkingEventListener(loyaltyService);
+                parkingService.setLoyaltyService(loyaltyService);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Unable to start the loyalty service, counting tickets instead", e);
+            }
+        }
+
+        if (SURGE_BANDS != null) {
+            if (spotStateTable == null) {
+                logger.error("Occupancy-driven rates need the spot state table of a single instance, charging base rates");
+            } else {
+                try {
+                    DynamicPricingService dynamicPricingService = new DynamicPricingService(
+                            SurgeBand.parse(SURGE_BANDS), spotStateTable);
+                    parkingService.addParkingEventListener(dynamicPricingService);
+                    parkingService.setDynamicPricingService(dynamicPricingService);
+                } catch (IllegalArgumentException e) {
+                    logger.error("Unable to start dynamic pricing, charging base rates", e);
+                }
+            }
+        }
+
+        boolean reservations = false;
+        if (RESERVATION_SPOTS != null) {
+            try {
+                parkingService.setReservationService(new ReservationService(
+                        ReservationService.parseBookableSpots(RESERVATION_SPOTS)));
+                reservations = true;
+            } catch (IllegalArgumentException e) {
+                logger.error("Unable to start reservations, admitting every vehicle", e);
+            }
+        }
 
         while(continueApp){
-            loadMenu();
+            loadMenu(reservations);
             int option = inputReaderUtil.readSelection();
             switch(option){
                 case 1: {
@@ -43,22 +198,123 @@ public class InteractiveShell {
                 }
                 case 3: {
                     System.out.println("Exiting from the system!");
+                    if (spotLeaseAllocator != null) {
+                        spotLeaseAllocator.releaseAll();
+                    }
                     continueApp = false;
                     break;
                 }
+                case 4: {
+                    if (TRACE_SAMPLE_RATE > 0) {
+                        exportTraces();
+                    } else {
+                        System.out.println("Unsupported option. Please enter a number corresponding to the provided menu");
+                    }
+                    break;
+                }
+                case 5: {
+                    if (reservations) {
+                        parkingService.processReservation();
+                    } else {
+                        System.out.println("Unsupported option. Please enter a number corresponding to the provided menu");
+                    }
+                    break;
+                }
                 default: System.out.println("Unsupported option. Please enter a number corresponding to the provided menu");
             }
         }
     }
 
+    /**
+     * Loads and warms up the classes of the gate without opening the interactive shell, then returns.
+     * Run once with {@code -XX:ArchiveClassesAtExit} to dump the class-data sharing archive of the
+     * {@code appcds} Maven profile: whether the database can be reached or not, the classes are loaded.
+     */
+    public static void trainStartup() {
+        ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+        TicketDAO ticketDAO = new TicketDAO();
+        new ParkingService(new InputReaderUtil(), parkingSpotDAO, ticketDAO);
+        new ParkingReportService();
+        new OverstayMonitor();
+        StartupService startupService = createStartupService(ticketDAO, true);
+        startupService.start();
+        try {
+            startupService.awaitReady(STARTUP_TRAINING_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Startup training done: " + startupService.getReport());
+    }
+
+    /**
+     * Registers the warm-up tasks run in the background while the gate already accepts input. Only tasks which
+     * leave their subsystem working, if slower, until they finish are registered here; the backfills of the
+     * listeners are added by the caller, with their events held back until they finish. The spot state table is
+     * still built before the menu is shown, from the parking table, since it allocates spots.
+     */
+    private static StartupService createStartupService(TicketDAO ticketDAO, boolean singleInstance) {
+        StartupService startupService = new StartupService();
+        startupService.addTask("database", ticketDAO.dataBaseConfig::warmUp);
+        startupService.addTask("fares", InteractiveShell::warmUpFares);
+        if (singleInstance) {
+            startupService.addTask("plate filter", () -> ticketDAO.loadPlateFilter(
+                    new PlateBloomFilter(PLATE_FILTER_INITIAL_CAPACITY, PLATE_FILTER_FALSE_POSITIVE_PROBABILITY)));
+        }
+        return startupService;
+    }
+
+    /**
+     * Runs fare calculation and plate normalization until the JIT compiles them, off the gate thread.
+     */
+    private static boolean warmUpFares() {
+        FareCalculatorService fareCalculatorService = new FareCalculatorService();
+        long checksum = 0;
+        for (int i = 0; i < FARE_WARM_UP_ITERATIONS; i++) {
+            ParkingType parkingType = ((i & 1) == 0) ? ParkingType.CAR : ParkingType.BIKE;
+            checksum += fareCalculatorService.calculateFareCents(parkingType, i * 1000L, 95 + (i & 5));
+            checksum += PlateNormalizer.pack(PlateNormalizer.normalize("AB-" + (i & 1023) + "-CD"));
+        }
+        return checksum != 0;
+    }
+
     /**
      * Displays the menu of available options for the user to choose from.
+     *
+     * @param reservations whether spots can be booked ahead of time
      */
-    private static void loadMenu(){
+    private static void loadMenu(boolean reservations){
         System.out.println("Please select an option. Simply enter the number to choose an action");
         System.out.println("1 New Vehicle Entering - Allocate Parking Space");
         System.out.println("2 Vehicle Exiting - Generate Ticket Price");
         System.out.println("3 Shutdown System");
+        if (TRACE_SAMPLE_RATE > 0) {
+            System.out.println("4 Export Traces");
+        }
+        if (reservations) {
+            System.out.println("5 Book a Parking Space");
+        }
+    }
+
+    private static void closeEventLog(ParkingEventLog parkingEventLog) {
+        if (parkingEventLog != null) {
+            try {
+                parkingEventLog.close();
+            } catch (IOException e) {
+                logger.error("Unable to close the parking event log", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the traced gate operations to the trace file, to be opened in a trace viewer.
+     */
+    private static void exportTraces() {
+        try {
+            int nbSpan = Tracer.export(Paths.get(TRACE_FILE));
+            System.out.println("Exported " + nbSpan + " spans to " + TRACE_FILE);
+        } catch (IOException e) {
+            logger.error("Unable to export traces", e);
+        }
     }
 
 }
@@ -0,0 +1,486 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.LoyaltyRule;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.PlateIndex;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service granting loyalty discounts from the number of recent visits of each vehicle, according to a set of
+ * {@link LoyaltyRule}s. The best discount among the rules a vehicle satisfies applies.
+ * <p>
+ * Visits are counted per plate in a ring of daily buckets as long as the longest rule window, held in a flat byte
+ * array and saturating at 255 visits a day. Recording a visit or evaluating the rules reads at most one ring, so it
+ * never depends on the ticket history and never queries the database. Plates are found through a
+ * {@link PlateIndex} of their packed form, plates that cannot be packed through a map.
+ * <p>
+ * Each visit is appended to a journal file, which is replayed on startup and then rewritten with only the buckets
+ * still inside the window. The journal is also rewritten every {@code compactInterval} visits, on a background
+ * thread so that entries only wait for the records to be encoded in memory. Plates without any visit left inside
+ * the window are evicted when the journal is rewritten, and their slots reused. An empty journal can be seeded once
+ * from the ticket table with {@link #seed(TicketDAO)}.
+ * <p>
+ * Visits are recorded as vehicles enter, by registering the service as a {@link ParkingEventListener}.
+ */
+public class LoyaltyService implements ParkingEventListener {
+
+    private static final Logger logger = LogManager.getLogger("LoyaltyService");
+
+    private static final long DAY_MILLIS = 24 * 3600 * 1000;
+    private static final int MAX_BUCKET_COUNT = 0xFF;
+    // Last day of a slot whose plate was evicted
+    private static final int FREE_SLOT = Integer.MIN_VALUE;
+
+    private final LoyaltyRule[] rules;
+    private final int ringDays;
+    private final Clock clock;
+    private final Path journal;
+    private final int compactInterval;
+    private final ExecutorService compactor;
+
+    private final PlateIndex packedSlots = new PlateIndex(1024);
+    private final Map<String, Integer> unpackedSlots = new HashMap<>();
+    private long[] keys = new long[1024];
+    private int[] lastDays = new int[1024];
+    private byte[] counts;
+    private int nbSlot;
+    private int[] freeSlots = new int[16];
+    private int nbFreeSlot;
+
+    private DataOutputStream journalOut;
+    private int visitsSinceCompaction;
+    // Visits recorded while the journal is rewritten, appended to the rewritten journal
+    private ByteArrayOutputStream pendingRecords;
+    private DataOutputStream pendingOut;
+
+    /**
+     * Constructs a loyalty service holding its counters in memory only.
+     *
+     * @param rules the loyalty rules
+     * @param clock the clock whose time zone delimits days
+     */
+    public LoyaltyService(List<LoyaltyRule> rules, Clock clock) {
+        this.rules = sortByDiscount(rules);
+        this.ringDays = getLongestWindow(this.rules);
+        this.counts = new byte[keys.length * ringDays];
+        this.clock = clock;
+        this.journal = null;
+        this.compactInterval = 0;
+        this.compactor = null;
+    }
+
+    /**
+     * Constructs a loyalty service persisting its counters in a journal file, recovering the counters it holds.
+     *
+     * @param rules the loyalty rules
+     * @param clock the clock whose time zone delimits days
+     * @param journal the journal file, created if missing
+     * @param compactInterval the number of visits appended between two rewrites of the journal
+     * @throws IOException if the journal cannot be read or rewritten
+     */
+    public LoyaltyService(List<LoyaltyRule> rules, Clock clock, Path journal, int compactInterval) throws IOException {
+        this.rules = sortByDiscount(rules);
+        this.ringDays = getLongestWindow(this.rules);
+        this.counts = new byte[keys.length * ringDays];
+        this.clock = clock;
+        this.journal = journal;
+        this.compactInterval = compactInterval;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loyalty-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (Files.exists(journal)) {
+            replay();
+        }
+        compact();
+    }
+
+    /**
+     * Sorts rules best discount first, so that evaluation stops at the first rule satisfied.
+     */
+    private static LoyaltyRule[] sortByDiscount(List<LoyaltyRule> rules) {
+        LoyaltyRule[] sorted = rules.toArray(new LoyaltyRule[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(LoyaltyRule::getDiscountPercent));
+        return sorted;
+    }
+
+    private static int getLongestWindow(LoyaltyRule[] rules) {
+        int longestWindow = 1;
+        for (LoyaltyRule rule : rules) {
+            longestWindow = Math.max(longestWindow, rule.getWindowDays());
+        }
+        return longestWindow;
+    }
+
+    /**
+     * Checks if no visit is known yet, in which case the counters should be seeded with {@link #seed(TicketDAO)}.
+     *
+     * @return {@code true} if no visit is known
+     */
+    public synchronized boolean isEmpty() {
+        return getNbPlate() == 0;
+    }
+
+    /**
+     * Returns the number of plates holding visits, plates evicted from the window excluded.
+     *
+     * @return the number of plates
+     */
+    public synchronized int getNbPlate() {
+        return nbSlot - nbFreeSlot;
+    }
+
+    /**
+     * Seeds the counters with the tickets whose in-time falls within the longest rule window, reading the ticket
+     * table once.
+     *
+     * @param ticketDAO the DAO used to stream the tickets
+     * @throws IOException if the journal cannot be rewritten
+     */
+    public synchronized void seed(TicketDAO ticketDAO) throws IOException {
+        int firstDay = day(clock.millis()) - ringDays + 1;
+        ticketDAO.streamTickets((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+            int day = day(inTime);
+            if (day >= firstDay) {
+                add(PlateNormalizer.normalize(vehicleRegNumber), day, 1);
+            }
+        });
+        compact();
+    }
+
+    @Override
+    public void onVehicleEntered(Ticket ticket) {
+        recordVisit(ticket.getVehicleRegNumber(), ticket.getInTime().getTime());
+    }
+
+    @Override
+    public void onVehicleExited(Ticket ticket) {
+    }
+
+    /**
+     * Records a visit of a vehicle.
+     *
+     * @param vehicleRegNumber the registration number of the vehicle
+     * @param time the time of the visit, in epoch milliseconds
+     */
+    public synchronized void recordVisit(String vehicleRegNumber, long time) {
+        String plate = PlateNormalizer.normalize(vehicleRegNumber);
+        int day = day(time);
+        add(plate, day, 1);
+        if (journalOut != null) {
+            try {
+                writeRecord(journalOut, plate, day, 1);
+                journalOut.flush();
+                if (pendingOut != null) {
+                    writeRecord(pendingOut, plate, day, 1);
+                } else if (++visitsSinceCompaction >= compactInterval && !compactor.isShutdown()) {
+                    visitsSinceCompaction = 0;
+                    compactor.execute(this::compactInBackground);
+                }
+            } catch (IOException e) {
+                logger.error("Error appending visit of " + plate + " to the loyalty journal", e);
+            }
+        }
+    }
+
+    /**
+     * Counts the visits of a vehicle within a window of days ending with the day of the given time.
+     *
+     * @param vehicleRegNumber the registration number of the vehicle
+     * @param windowDays the length of the window, in days, at most the longest rule window
+     * @param time the end of the window, in epoch milliseconds
+     * @return the number of visits
+     */
+    public synchronized int getVisits(String vehicleRegNumber, int windowDays, long time) {
+        int slot = findSlot(PlateNormalizer.normalize(vehicleRegNumber));
+        return (slot < 0) ? 0 : countVisits(slot, Math.min(windowDays, ringDays), day(time));
+    }
+
+    /**
+     * Evaluates the loyalty rules for a vehicle.
+     *
+     * @param vehicleRegNumber the registration number of the vehicle
+     * @param time the time of evaluation, in epoch milliseconds
+     * @return the percentage of the full fare to charge, 100 if no rule applies
+     */
+    public synchronized long getDiscountPercent(String vehicleRegNumber, long time) {
+        int slot = findSlot(PlateNormalizer.normalize(vehicleRegNumber));
+        if (slot >= 0) {
+            int day = day(time);
+            for (LoyaltyRule rule : rules) {
+                if (countVisits(slot, rule.getWindowDays(), day) >= rule.getMinVisits()) {
+                    return rule.getDiscountPercent();
+                }
+            }
+        }
+        return 100;
+    }
+
+    /**
+     * Waits for a rewrite of the journal in progress, then flushes and closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    public void close() throws IOException {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            closeJournal();
+        }
+    }
+
+    private void closeJournal() throws IOException {
+        if (journalOut != null) {
+            journalOut.close();
+            journalOut = null;
+        }
+    }
+
+    private int countVisits(int slot, int windowDays, int day) {
+        int lastDay = lastDays[slot];
+        int from = Math.max(day - windowDays + 1, lastDay - ringDays + 1);
+        int to = Math.min(day, lastDay);
+        int visits = 0;
+        for (int d = from; d <= to; d++) {
+            visits += counts[slot * ringDays + Math.floorMod(d, ringDays)] & MAX_BUCKET_COUNT;
+        }
+        return visits;
+    }
+
+    private void add(String plate, int day, int visits) {
+        int slot = findSlot(plate);
+        if (slot < 0) {
+            slot = newSlot(plate, day);
+        }
+        int lastDay = lastDays[slot];
+        if (day > lastDay) {
+            // Clear the buckets of the days the ring moves past
+            for (int d = Math.max(lastDay + 1, day - ringDays + 1); d <= day; d++) {
+                counts[slot * ringDays + Math.floorMod(d, ringDays)] = 0;
+            }
+            lastDays[slot] = day;
+        } else if (day <= lastDay - ringDays) {
+            return;
+        }
+        int bucket = slot * ringDays + Math.floorMod(day, ringDays);
+        counts[bucket] = (byte) Math.min(MAX_BUCKET_COUNT, (counts[bucket] & MAX_BUCKET_COUNT) + visits);
+    }
+
+    private int findSlot(String plate) {
+        long key = PlateNormalizer.pack(plate);
+        if (key != PlateNormalizer.NOT_PACKABLE) {
+            return packedSlots.get(key);
+        }
+        Integer slot = unpackedSlots.get(plate);
+        return (slot == null) ? -1 : slot;
+    }
+
+    private int newSlot(String plate, int day) {
+        int slot;
+        if (nbFreeSlot > 0) {
+            slot = freeSlots[--nbFreeSlot];
+            Arrays.fill(counts, slot * ringDays, (slot + 1) * ringDays, (byte) 0);
+        } else {
+            if (nbSlot == keys.length) {
+                keys = Arrays.copyOf(keys, nbSlot * 2);
+                lastDays = Arrays.copyOf(lastDays, nbSlot * 2);
+                counts = Arrays.copyOf(counts, nbSlot * 2 * ringDays);
+            }
+            slot = nbSlot++;
+        }
+        long key = PlateNormalizer.pack(plate);
+        if (key != PlateNormalizer.NOT_PACKABLE) {
+            packedSlots.put(key, slot);
+        } else {
+            unpackedSlots.put(plate, slot);
+        }
+        keys[slot] = key;
+        lastDays[slot] = day;
+        return slot;
+    }
+
+    /**
+     * Evicts the plates whose last visit left the window, keeping their slots for new plates.
+     */
+    private void evictExpired(int today) {
+        int expiredDay = today - ringDays;
+        for (int slot = 0; slot < nbSlot; slot++) {
+            if (lastDays[slot] != FREE_SLOT && lastDays[slot] <= expiredDay && keys[slot] != PlateNormalizer.NOT_PACKABLE) {
+                packedSlots.remove(keys[slot]);
+                freeSlot(slot);
+            }
+        }
+        unpackedSlots.values().removeIf(slot -> {
+            if (lastDays[slot] <= expiredDay) {
+                freeSlot(slot);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void freeSlot(int slot) {
+        if (nbFreeSlot == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, nbFreeSlot * 2);
+        }
+        freeSlots[nbFreeSlot++] = slot;
+        lastDays[slot] = FREE_SLOT;
+    }
+
+    private int day(long time) {
+        return (int) Math.floorDiv(time + zoneOffsetMillis(time), DAY_MILLIS);
+    }
+
+    private long zoneOffsetMillis(long time) {
+        return clock.getZone().getRules().getOffset(Instant.ofEpochMilli(time)).getTotalSeconds() * 1000L;
+    }
+
+    private void replay() throws IOException {
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            while (true) {
+                String plate = in.readUTF();
+                int day = in.readInt();
+                int visits = in.readUnsignedByte();
+                add(plate, day, visits);
+                records++;
+            }
+        } catch (EOFException e) {
+            // End of the journal, possibly with a torn record which the rewrite discards
+        }
+        logger.info("Replayed " + records + " loyalty records for " + getNbPlate() + " plates");
+    }
+
+    /**
+     * Rewrites the journal with one record per non-empty bucket still inside the window, holding the lock throughout.
+     */
+    private synchronized void compact() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        Path temporary = writeTemporaryJournal(encodeWindow());
+        closeJournal();
+        Files.move(temporary, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openJournal();
+    }
+
+    /**
+     * Rewrites the journal like {@link #compact()}, but only holds the lock to encode the records and to swap the
+     * files, so that visits are not held up by the file writes. Visits recorded meanwhile go to both journals.
+     */
+    private void compactInBackground() {
+        Path temporary = null;
+        try {
+            byte[] records;
+            synchronized (this) {
+                if (journalOut == null) {
+                    return;
+                }
+                records = encodeWindow();
+                pendingRecords = new ByteArrayOutputStream();
+                pendingOut = new DataOutputStream(pendingRecords);
+            }
+            temporary = writeTemporaryJournal(records);
+            synchronized (this) {
+                Files.write(temporary, pendingRecords.toByteArray(), StandardOpenOption.APPEND);
+                closeJournal();
+                Files.move(temporary, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                openJournal();
+            }
+        } catch (IOException e) {
+            logger.error("Error rewriting the loyalty journal", e);
+        } finally {
+            synchronized (this) {
+                pendingRecords = null;
+                pendingOut = null;
+            }
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    logger.error("Error deleting the temporary loyalty journal", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts the plates which left the window, then encodes a record per non-empty bucket still inside the window.
+     */
+    private byte[] encodeWindow() throws IOException {
+        int today = day(clock.millis());
+        evictExpired(today);
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        for (int slot = 0; slot < nbSlot; slot++) {
+            if (lastDays[slot] != FREE_SLOT && keys[slot] != PlateNormalizer.NOT_PACKABLE) {
+                writeSlot(out, PlateNormalizer.unpack(keys[slot]), slot, today);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : unpackedSlots.entrySet()) {
+            writeSlot(out, entry.getKey(), entry.getValue(), today);
+        }
+        out.flush();
+        return records.toByteArray();
+    }
+
+    private Path writeTemporaryJournal(byte[] records) throws IOException {
+        Path temporary = journal.resolveSibling(journal.getFileName() + ".tmp");
+        Files.write(temporary, records);
+        return temporary;
+    }
+
+    private void openJournal() throws IOException {
+        journalOut = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        visitsSinceCompaction = 0;
+    }
+
+    private void writeSlot(DataOutputStream out, String plate, int slot, int today) throws IOException {
+        int lastDay = lastDays[slot];
+        for (int d = Math.max(lastDay - ringDays + 1, today - ringDays + 1); d <= lastDay; d++) {
+            int visits = counts[slot * ringDays + Math.floorMod(d, ringDays)] & MAX_BUCKET_COUNT;
+            if (visits > 0) {
+                writeRecord(out, plate, d, visits);
+            }
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, String plate, int day, int visits) throws IOException {
+        out.writeUTF(plate);
+        out.writeInt(day);
+        out.writeByte(visits);
+    }
+}
@@ -0,0 +1,222 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.OverstayAlert;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import com.parkit.parkingsystem.util.TimingWheel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Raises {@link OverstayAlert}s for vehicles parked longer than configurable thresholds, such as an overstay
+ * after a day and a presumably abandoned vehicle after a week.
+ * <p>
+ * Each open ticket has a single timeout in a {@link TimingWheel}, scheduled on entry for its first threshold,
+ * moved to the next threshold when it fires and cancelled on exit. Detection therefore costs a constant time
+ * per ticket and never scans the open tickets, however many there are. Methods are synchronized.
+ */
+public class OverstayMonitor implements ParkingEventListener {
+
+    private static final Logger logger = LogManager.getLogger("OverstayMonitor");
+
+    public static final long MINUTE_MILLIS = 60 * 1000;
+    public static final long DEFAULT_OVERSTAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+    public static final long DEFAULT_ABANDONED_MILLIS = 7 * 24 * 60 * MINUTE_MILLIS;
+
+    // Four levels of one-minute ticks cover about 31 years
+    private static final int WHEEL_LEVELS = 4;
+
+    private final long tickMillis;
+    private final long[] thresholdsMillis;
+    private final TimingWheel<OpenTicket> timingWheel;
+    private final Map<String, TimingWheel.Timeout<OpenTicket>> timeoutsByPlate = new HashMap<>();
+    private final List<Consumer<OverstayAlert>> alertListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Open ticket tracked by the wheel, with the index of the next threshold it will cross.
+     */
+    private static final class OpenTicket {
+
+        private final String vehicleRegNumber;
+        private final int parkingNumber;
+        private final ParkingType parkingType;
+        private final long inTime;
+        private int thresholdIndex;
+
+        private OpenTicket(String vehicleRegNumber, int parkingNumber, ParkingType parkingType, long inTime) {
+            this.vehicleRegNumber = vehicleRegNumber;
+            this.parkingNumber = parkingNumber;
+            this.parkingType = parkingType;
+            this.inTime = inTime;
+        }
+    }
+
+    /**
+     * Creates a monitor with the default overstay and abandoned-vehicle thresholds.
+     */
+    public OverstayMonitor() {
+        this(System.currentTimeMillis(), MINUTE_MILLIS, DEFAULT_OVERSTAY_MILLIS, DEFAULT_ABANDONED_MILLIS);
+    }
+
+    /**
+     * Creates a monitor.
+     *
+     * @param now the current time, in epoch milliseconds
+     * @param tickMillis the precision of the alerts
+     * @param thresholdsMillis the parking durations raising an alert, in increasing order
+     */
+    public OverstayMonitor(long now, long tickMillis, long... thresholdsMillis) {
+        if (thresholdsMillis.length == 0) {
+            throw new IllegalArgumentException("At least one threshold is required");
+        }
+        for (int i = 0; i < thresholdsMillis.length; i++) {
+            if (thresholdsMillis[i] <= 0 || (i > 0 && thresholdsMillis[i] <= thresholdsMillis[i - 1])) {
+                throw new IllegalArgumentException("Thresholds must be positive and increasing");
+            }
+        }
+        this.tickMillis = tickMillis;
+        this.thresholdsMillis = thresholdsMillis.clone();
+        this.timingWheel = new TimingWheel<>(tickMillis, WHEEL_LEVELS, now);
+    }
+
+    /**
+     * Registers a listener receiving the alerts, on the thread advancing the monitor.
+     *
+     * @param listener the listener to register
+     */
+    public void addAlertListener(Consumer<OverstayAlert> listener) {
+        alertListeners.add(listener);
+    }
+
+    /**
+     * Tracks the tickets of the ticket table which were open at a given time, once at startup. Entries and exits
+     * from then on are left to the events, so that vehicles can be processed during the backfill if their events
+     * are delivered after it.
+     *
+     * @param ticketDAO the DAO used to stream the tickets
+     * @param now the current time, in epoch milliseconds
+     */
+    public synchronized void backfill(TicketDAO ticketDAO, long now) {
+        ticketDAO.streamTickets((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+            if (inTime < now && (outTime < 0 || outTime >= now)) {
+                track(vehicleRegNumber, parkingNumber, parkingType, inTime);
+            }
+        });
+        logger.info("Monitoring " + timeoutsByPlate.size() + " open tickets");
+    }
+
+    /**
+     * Tracks the open tickets recovered by the {@link ParkingEventLog}, once at startup, without reading the
+     * ticket table.
+     *
+     * @param openTickets the tickets still open
+     */
+    public synchronized void backfill(List<Ticket> openTickets) {
+        for (Ticket ticket : openTickets) {
+            track(ticket.getVehicleRegNumber(), ticket.getParkingSpot().getId(),
+                    ticket.getParkingSpot().getParkingType(), ticket.getInTime().getTime());
+        }
+        logger.info("Monitoring " + timeoutsByPlate.size() + " open tickets");
+    }
+
+    /**
+     * Advances the monitor every tick on a background thread until {@link #stop()} is called.
+     */
+    public synchronized void start() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "overstay-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(() -> advanceTo(System.currentTimeMillis()),
+                    tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the background thread started by {@link #start()}.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public synchronized void onVehicleEntered(Ticket ticket) {
+        track(ticket.getVehicleRegNumber(), ticket.getParkingSpot().getId(), ticket.getParkingSpot().getParkingType(),
+                ticket.getInTime().getTime());
+    }
+
+    @Override
+    public synchronized void onVehicleExited(Ticket ticket) {
+        TimingWheel.Timeout<OpenTicket> timeout =
+                timeoutsByPlate.remove(PlateNormalizer.normalize(ticket.getVehicleRegNumber()));
+        if (timeout != null) {
+            timingWheel.cancel(timeout);
+        }
+    }
+
+    /**
+     * Raises the alerts of every threshold crossed up to the given time.
+     *
+     * @param now the current time, in epoch milliseconds
+     * @return the number of alerts raised
+     */
+    public synchronized int advanceTo(long now) {
+        return timingWheel.advanceTo(now, this::raise);
+    }
+
+    /**
+     * Returns the number of open tickets being monitored.
+     *
+     * @return the number of monitored tickets
+     */
+    public synchronized int getNbMonitoredTicket() {
+        return timeoutsByPlate.size();
+    }
+
+    private void track(String vehicleRegNumber, int parkingNumber, ParkingType parkingType, long inTime) {
+        String plate = PlateNormalizer.normalize(vehicleRegNumber);
+        OpenTicket openTicket = new OpenTicket(plate, parkingNumber, parkingType, inTime);
+        TimingWheel.Timeout<OpenTicket> previous =
+                timeoutsByPlate.put(plate, timingWheel.schedule(openTicket, inTime + thresholdsMillis[0]));
+        if (previous != null) {
+            timingWheel.cancel(previous);
+        }
+    }
+
+    private void raise(TimingWheel.Timeout<OpenTicket> timeout) {
+        OpenTicket openTicket = timeout.getPayload();
+        int thresholdIndex = openTicket.thresholdIndex;
+        OverstayAlert alert = new OverstayAlert(openTicket.vehicleRegNumber, openTicket.parkingNumber,
+                openTicket.parkingType, openTicket.inTime, thresholdIndex, thresholdsMillis[thresholdIndex]);
+        logger.warn(alert);
+        for (Consumer<OverstayAlert> listener : alertListeners) {
+            try {
+                listener.accept(alert);
+            } catch (Exception e) {
+                logger.error("Error notifying overstay alert", e);
+            }
+        }
+        if (++openTicket.thresholdIndex < thresholdsMillis.length) {
+            timingWheel.reschedule(timeout, openTicket.inTime + thresholdsMillis[openTicket.thresholdIndex]);
+        } else {
+            timeoutsByPlate.remove(openTicket.vehicleRegNumber);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Callback notified by {@link ParkingService} whenever a vehicle enters or leaves the parking lot.
+ * Listeners are invoked on the gate thread once the ticket has been persisted, so implementations
+ * must be fast and must not block.
+ */
+public interface ParkingEventListener {
+
+    /**
+     * Called after a ticket has been generated and saved for an incoming vehicle.
+     *
+     * @param ticket the newly saved ticket, with its parking spot and in-time set
+     */
+    void onVehicleEntered(Ticket ticket);
+
+    /**
+     * Called after the ticket of an exiting vehicle has been priced and updated.
+     *
+     * @param ticket the closed ticket, with its out-time and price set
+     */
+    void onVehicleExited(Ticket ticket);
+
+    /**
+     * Called after the spot of an exiting vehicle has been made available again.
+     *
+     * @param parkingSpot the released parking spot
+     * @param releaseTime the time the spot was released, in epoch milliseconds
+     */
+    default void onSpotReleased(ParkingSpot parkingSpot, long releaseTime) {
+    }
+}
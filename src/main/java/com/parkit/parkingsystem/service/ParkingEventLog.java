@@ -0,0 +1,300 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingEvent;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.ParkingState;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the {@link ParkingEvent}s emitted by {@link ParkingService}, with periodic binary
+ * snapshots of the resulting {@link ParkingState}.
+ * <p>
+ * Events are appended to segment files named after the sequence of their first event. Every
+ * {@code snapshotInterval} events, the state is written to a snapshot file and a new segment is started,
+ * after which older segments and snapshots are deleted. On opening, the latest snapshot is loaded and only
+ * the events that follow it are replayed, so startup time does not depend on the ticket history.
+ * Each record carries a CRC32, and a torn record at the end of the last segment is discarded.
+ */
+public class ParkingEventLog implements ParkingEventListener {
+
+    private static final Logger logger = LogManager.getLogger("ParkingEventLog");
+
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final ParkingEvent.Type[] EVENT_TYPES = ParkingEvent.Type.values();
+    private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+
+    private static final int MAX_RECORD_BYTES = 256;
+
+    private final Path directory;
+    private final int snapshotInterval;
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    private ParkingState state;
+    private FileChannel segment;
+    private long eventsSinceSnapshot;
+
+    /**
+     * Opens the event log stored in the given directory, recovering the state from the latest snapshot
+     * and the events appended after it.
+     *
+     * @param directory the directory holding the snapshots and the segments
+     * @param snapshotInterval the number of events between two snapshots
+     * @throws IOException if the log cannot be read
+     */
+    public ParkingEventLog(Path directory, int snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        Files.createDirectories(directory);
+        long start = System.currentTimeMillis();
+        state = loadLatestSnapshot();
+        long snapshotSequence = state.getLastSequence();
+        for (Path path : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).values()) {
+            replay(path);
+        }
+        eventsSinceSnapshot = state.getLastSequence() - snapshotSequence;
+        openSegment(state.getLastSequence() + 1);
+        logger.info("Parking state recovered up to event " + state.getLastSequence() + " ("
+                + eventsSinceSnapshot + " replayed) in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Checks if the log holds no event nor snapshot yet, in which case it should be seeded with {@link #seed}.
+     *
+     * @return {@code true} if the log is empty, {@code false} otherwise
+     */
+    public synchronized boolean isEmpty() {
+        return state.getLastSequence() == 0 && listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).isEmpty();
+    }
+
+    /**
+     * Seeds the state by reading the parking and ticket tables once, then writes a first snapshot.
+     * Nothing is written if either table cannot be read, so that the log is seeded again on the next start.
+     *
+     * @param parkingSpotDAO the DAO used to read the parking spots
+     * @param ticketDAO the DAO used to stream the tickets
+     * @throws IOException if a table cannot be read or the snapshot cannot be written
+     */
+    public synchronized void seed(ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO) throws IOException {
+        List<ParkingSpot> parkingSpots = parkingSpotDAO.getParkingSpots();
+        if (parkingSpots.isEmpty()) {
+            throw new IOException("Unable to read the parking spots");
+        }
+        ParkingState seeded = new ParkingState();
+        for (ParkingSpot parkingSpot : parkingSpots) {
+            seeded.registerSpot(parkingSpot.getId(), parkingSpot.getParkingType(), parkingSpot.isAvailable());
+        }
+        long count = ticketDAO.streamTickets((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+            if (outTime < 0) {
+                seeded.openTicket(id, parkingNumber, parkingType, vehicleRegNumber, inTime);
+            }
+        });
+        if (count < 0) {
+            throw new IOException("Unable to read the ticket table");
+        }
+        state = seeded;
+        snapshot();
+    }
+
+    public ParkingState getState() {
+        return state;
+    }
+
+    @Override
+    public void onVehicleEntered(Ticket ticket) {
+        append(ParkingEvent.Type.VEHICLE_ENTERED, ticket.getInTime().getTime(), ticket.getParkingSpot(),
+                ticket.getId(), ticket.getVehicleRegNumber(), 0);
+    }
+
+    @Override
+    public void onVehicleExited(Ticket ticket) {
+        append(ParkingEvent.Type.VEHICLE_EXITED, ticket.getOutTime().getTime(), ticket.getParkingSpot(),
+                ticket.getId(), ticket.getVehicleRegNumber(), ticket.getPriceCents());
+    }
+
+    @Override
+    public void onSpotReleased(ParkingSpot parkingSpot, long releaseTime) {
+        append(ParkingEvent.Type.SPOT_RELEASED, releaseTime, parkingSpot, 0, null, 0);
+    }
+
+    private synchronized void append(ParkingEvent.Type type, long timestamp, ParkingSpot parkingSpot, int ticketId,
+                                     String vehicleRegNumber, long priceCents) {
+        ParkingEvent event = new ParkingEvent(state.getLastSequence() + 1, type, timestamp, parkingSpot.getId(),
+                parkingSpot.getParkingType(), ticketId, vehicleRegNumber, priceCents);
+        try {
+            write(event);
+            state.apply(event);
+            if (++eventsSinceSnapshot >= snapshotInterval) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            logger.error("Error appending parking event", e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current state, starts a new segment and deletes the files the snapshot makes obsolete.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized void snapshot() throws IOException {
+        long sequence = state.getLastSequence();
+        Path snapshot = directory.resolve(SNAPSHOT_PREFIX + sequence + SNAPSHOT_SUFFIX);
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + sequence + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            state.writeTo(out);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (segment != null) {
+            segment.close();
+        }
+        openSegment(sequence + 1);
+        for (Path path : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(sequence).values()) {
+            Files.delete(path);
+        }
+        for (Path path : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).headMap(sequence + 1).values()) {
+            Files.delete(path);
+        }
+        eventsSinceSnapshot = 0;
+        logger.info("Parking state snapshot written at event " + sequence);
+    }
+
+    /**
+     * Flushes and closes the current segment.
+     *
+     * @throws IOException if the segment cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        segment.force(false);
+        segment.close();
+    }
+
+    private void write(ParkingEvent event) throws IOException {
+        byte[] plate = (event.getVehicleRegNumber() == null) ? new byte[0]
+                : event.getVehicleRegNumber().getBytes(StandardCharsets.UTF_8);
+        record.clear();
+        record.putInt(0).putInt(0);
+        record.putLong(event.getSequence()).put((byte) event.getType().ordinal()).putLong(event.getTimestamp())
+                .putInt(event.getParkingNumber()).put((byte) event.getParkingType().ordinal())
+                .putInt(event.getTicketId()).putLong(event.getPriceCents())
+                .putShort((short) plate.length).put(plate);
+        int length = record.position() - 8;
+        crc.reset();
+        crc.update(record.array(), 8, length);
+        record.putInt(0, length).putInt(4, (int) crc.getValue());
+        record.flip();
+        while (record.hasRemaining()) {
+            segment.write(record);
+        }
+    }
+
+    private void replay(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // read the whole segment
+            }
+            data.flip();
+            while (data.remaining() >= 8) {
+                int start = data.position();
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length <= 0 || length > data.remaining()) {
+                    data.position(start);
+                    break;
+                }
+                crc.reset();
+                crc.update(data.array(), data.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    data.position(start);
+                    break;
+                }
+                ParkingEvent event = readEvent(data);
+                if (event.getSequence() > state.getLastSequence()) {
+                    state.apply(event);
+                }
+            }
+            if (data.hasRemaining()) {
+                logger.warn("Discarding " + data.remaining() + " bytes of torn events at the end of " + path);
+                channel.truncate(data.position());
+            }
+        }
+    }
+
+    private ParkingEvent readEvent(ByteBuffer data) {
+        long sequence = data.getLong();
+        ParkingEvent.Type type = EVENT_TYPES[data.get()];
+        long timestamp = data.getLong();
+        int parkingNumber = data.getInt();
+        ParkingType parkingType = PARKING_TYPES[data.get()];
+        int ticketId = data.getInt();
+        long priceCents = data.getLong();
+        byte[] plate = new byte[data.getShort()];
+        data.get(plate);
+        return new ParkingEvent(sequence, type, timestamp, parkingNumber, parkingType, ticketId,
+                (plate.length == 0) ? null : new String(plate, StandardCharsets.UTF_8), priceCents);
+    }
+
+    private ParkingState loadLatestSnapshot() {
+        List<Path> snapshots = new ArrayList<>(listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).descendingMap().values());
+        for (Path path : snapshots) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                return ParkingState.readFrom(in);
+            } catch (IOException e) {
+                logger.error("Error reading snapshot " + path + ", falling back to an older one", e);
+            }
+        }
+        return new ParkingState();
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        segment = FileChannel.open(directory.resolve(SEGMENT_PREFIX + firstSequence + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Lists the files of the directory with the given prefix and suffix, keyed by the sequence in their name.
+     */
+    private TreeMap<Long, Path> listFiles(String prefix, String suffix) {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), path);
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file " + path);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error listing " + directory, e);
+        }
+        return files;
+    }
+}
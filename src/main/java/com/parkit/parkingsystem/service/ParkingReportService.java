@@ -0,0 +1,328 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ReportWindow;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Service computing hourly revenue, stay duration and peak occupancy per {@link ParkingType} incrementally,
+ * from the entry and exit events of {@link ParkingService}.
+ * Figures are kept in hourly tumbling windows stored in primitive ring arrays, together with running totals
+ * over a sliding window of the last hours, so that reading a report never scans the ticket table.
+ */
+public class ParkingReportService implements ParkingEventListener {
+
+    private static final Logger logger = LogManager.getLogger("ParkingReportService");
+
+    public static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    private static final int NB_TYPES = ParkingType.values().length;
+
+    private final int retainedHours;
+    private final int slidingHours;
+
+    // Tumbling windows: one slot per retained hour, figures indexed by slot * NB_TYPES + type
+    private final long[] bucketHour;
+    private final long[] revenueCents;
+    private final int[] entries;
+    private final int[] exits;
+    private final long[] stayMillis;
+    private final int[] peakOccupancy;
+
+    // Running totals over the sliding window ending at the current hour
+    private final long[] slidingRevenueCents = new long[NB_TYPES];
+    private final int[] slidingEntries = new int[NB_TYPES];
+    private final int[] slidingExits = new int[NB_TYPES];
+    private final long[] slidingStayMillis = new long[NB_TYPES];
+
+    private final int[] occupancy = new int[NB_TYPES];
+    private long currentHour = -1;
+
+    /**
+     * Constructs a report service keeping one week of hourly windows and a 24 hours sliding window.
+     */
+    public ParkingReportService() {
+        this(7 * 24, 24);
+    }
+
+    /**
+     * Constructs a report service.
+     *
+     * @param retainedHours the number of hourly windows kept in memory
+     * @param slidingHours the width of the sliding window, in hours
+     * @throws IllegalArgumentException if the sliding window is wider than the retained history
+     */
+    public ParkingReportService(int retainedHours, int slidingHours) {
+        if (retainedHours < 1 || slidingHours < 1 || slidingHours > retainedHours) {
+            throw new IllegalArgumentException("Sliding window must be between 1 and " + retainedHours + " hours");
+        }
+        this.retainedHours = retainedHours;
+        this.slidingHours = slidingHours;
+        this.bucketHour = new long[retainedHours];
+        this.revenueCents = new long[retainedHours * NB_TYPES];
+        this.entries = new int[retainedHours * NB_TYPES];
+        this.exits = new int[retainedHours * NB_TYPES];
+        this.stayMillis = new long[retainedHours * NB_TYPES];
+        this.peakOccupancy = new int[retainedHours * NB_TYPES];
+        Arrays.fill(bucketHour, -1);
+    }
+
+    @Override
+    public synchronized void onVehicleEntered(Ticket ticket) {
+        int type = ticket.getParkingSpot().getParkingType().ordinal();
+        long hour = ticket.getInTime().getTime() / HOUR_MILLIS;
+        advanceTo(hour);
+        occupancy[type]++;
+        addEntry(hour, type);
+        int index = index(hour, type);
+        if (index >= 0 && occupancy[type] > peakOccupancy[index]) {
+            peakOccupancy[index] = occupancy[type];
+        }
+    }
+
+    @Override
+    public synchronized void onVehicleExited(Ticket ticket) {
+        int type = ticket.getParkingSpot().getParkingType().ordinal();
+        long inTime = ticket.getInTime().getTime();
+        long outTime = ticket.getOutTime().getTime();
+        long hour = outTime / HOUR_MILLIS;
+        advanceTo(hour);
+        if (occupancy[type] > 0) {
+            occupancy[type]--;
+        }
+        addExit(hour, type, ticket.getPriceCents(), outTime - inTime);
+    }
+
+    /**
+     * Seeds the windows from the existing ticket table, which is streamed exactly once.
+     * All previously aggregated figures are discarded. Peak occupancy of the backfilled hours is
+     * reconstructed from the hourly entry and exit counts and is therefore an upper bound.
+     * Tickets are aggregated as they stood at {@code now}: entries and exits from then on are left to the events,
+     * so that vehicles can be processed during the backfill if their events are delivered after it.
+     *
+     * @param ticketDAO the DAO used to stream the ticket table
+     * @param now the current time, in epoch milliseconds
+     * @return the number of tickets streamed, or -1 if the ticket table could not be streamed entirely
+     */
+    public synchronized long backfill(TicketDAO ticketDAO, long now) {
+        reset(now / HOUR_MILLIS);
+        final int[] openTickets = new int[NB_TYPES];
+        long count = ticketDAO.streamTickets((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+            if (inTime >= now) {
+                return;
+            }
+            int type = parkingType.ordinal();
+            addEntry(inTime / HOUR_MILLIS, type);
+            if (outTime < 0 || outTime >= now) {
+                openTickets[type]++;
+            } else {
+                addExit(outTime / HOUR_MILLIS, type, priceCents, outTime - inTime);
+            }
+        });
+        rebuildOccupancy(openTickets);
+        logger.info("Report backfilled from " + count + " tickets");
+        return count;
+    }
+
+    /**
+     * Seeds the windows from the open tickets recovered by the {@link ParkingEventLog} and from the tickets closed
+     * within the retained history, so that the rest of the ticket table is not streamed.
+     * All previously aggregated figures are discarded. Tickets closed from {@code now} on are left to the events.
+     *
+     * @param ticketDAO the DAO used to stream the tickets closed within the retained history
+     * @param openTickets the tickets open at {@code now}
+     * @param now the current time, in epoch milliseconds
+     * @return the number of closed tickets streamed, or -1 if they could not be streamed entirely
+     */
+    public synchronized long backfill(TicketDAO ticketDAO, List<Ticket> openTickets, long now) {
+        reset(now / HOUR_MILLIS);
+        final int[] nbOpenTicket = new int[NB_TYPES];
+        for (Ticket ticket : openTickets) {
+            int type = ticket.getParkingSpot().getParkingType().ordinal();
+            addEntry(ticket.getInTime().getTime() / HOUR_MILLIS, type);
+            nbOpenTicket[type]++;
+        }
+        long count = ticketDAO.streamClosedTickets((currentHour - retainedHours + 1) * HOUR_MILLIS, now,
+                (id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+                    int type = parkingType.ordinal();
+                    addEntry(inTime / HOUR_MILLIS, type);
+                    addExit(outTime / HOUR_MILLIS, type, priceCents, outTime - inTime);
+                });
+        rebuildOccupancy(nbOpenTicket);
+        logger.info("Report backfilled from " + openTickets.size() + " open and " + count + " closed tickets");
+        return count;
+    }
+
+    /**
+     * Sets the current occupancy and reconstructs the peak occupancy of the retained hours backwards from it.
+     */
+    private void rebuildOccupancy(int[] openTickets) {
+        for (int type = 0; type < NB_TYPES; type++) {
+            occupancy[type] = openTickets[type];
+            int occupancyAtEnd = openTickets[type];
+            for (long hour = currentHour; hour > currentHour - retainedHours; hour--) {
+                int index = index(hour, type);
+                peakOccupancy[index] = occupancyAtEnd + exits[index];
+                occupancyAtEnd = Math.max(0, occupancyAtEnd + exits[index] - entries[index]);
+            }
+        }
+    }
+
+    /**
+     * Returns the window of the current hour.
+     *
+     * @return the current hourly window, or {@code null} if no event was received yet
+     */
+    public synchronized ReportWindow getCurrentWindow() {
+        return (currentHour < 0) ? null : getHourWindow(currentHour);
+    }
+
+    /**
+     * Returns the hourly window containing the given time.
+     *
+     * @param time a time, in epoch milliseconds
+     * @return the hourly window, or {@code null} if that hour is not retained
+     */
+    public synchronized ReportWindow getWindow(long time) {
+        long hour = time / HOUR_MILLIS;
+        return (index(hour, 0) < 0) ? null : getHourWindow(hour);
+    }
+
+    /**
+     * Returns the totals of the sliding window ending with the current hour.
+     *
+     * @return the sliding window, or {@code null} if no event was received yet
+     */
+    public synchronized ReportWindow getSlidingWindow() {
+        if (currentHour < 0) {
+            return null;
+        }
+        int[] peak = new int[NB_TYPES];
+        for (long hour = currentHour; hour > currentHour - slidingHours; hour--) {
+            for (int type = 0; type < NB_TYPES; type++) {
+                int index = index(hour, type);
+                if (index >= 0) {
+                    peak[type] = Math.max(peak[type], peakOccupancy[index]);
+                }
+            }
+        }
+        return new ReportWindow((currentHour - slidingHours + 1) * HOUR_MILLIS, (currentHour + 1) * HOUR_MILLIS,
+                slidingRevenueCents.clone(), slidingEntries.clone(), slidingExits.clone(), slidingStayMillis.clone(), peak);
+    }
+
+    /**
+     * Returns the number of spots currently occupied, as seen from the events received.
+     *
+     * @param parkingType the type of parking spot
+     * @return the current occupancy
+     */
+    public synchronized int getCurrentOccupancy(ParkingType parkingType) {
+        return occupancy[parkingType.ordinal()];
+    }
+
+    private ReportWindow getHourWindow(long hour) {
+        int from = slot(hour) * NB_TYPES;
+        int to = from + NB_TYPES;
+        return new ReportWindow(hour * HOUR_MILLIS, (hour + 1) * HOUR_MILLIS,
+                Arrays.copyOfRange(revenueCents, from, to), Arrays.copyOfRange(entries, from, to),
+                Arrays.copyOfRange(exits, from, to), Arrays.copyOfRange(stayMillis, from, to),
+                Arrays.copyOfRange(peakOccupancy, from, to));
+    }
+
+    private void addEntry(long hour, int type) {
+        int index = index(hour, type);
+        if (index < 0) {
+            return;
+        }
+        entries[index]++;
+        if (isInSlidingWindow(hour)) {
+            slidingEntries[type]++;
+        }
+    }
+
+    private void addExit(long hour, int type, long priceCents, long stay) {
+        int index = index(hour, type);
+        if (index < 0) {
+            return;
+        }
+        exits[index]++;
+        revenueCents[index] += priceCents;
+        stayMillis[index] += stay;
+        if (isInSlidingWindow(hour)) {
+            slidingExits[type]++;
+            slidingRevenueCents[type] += priceCents;
+            slidingStayMillis[type] += stay;
+        }
+    }
+
+    /**
+     * Moves the current hour forward, evicting the hours leaving the sliding window and recycling
+     * the slots of the hours leaving the retained history.
+     */
+    private void advanceTo(long hour) {
+        if (currentHour < 0 || hour - currentHour >= retainedHours) {
+            reset(hour);
+            return;
+        }
+        while (currentHour < hour) {
+            currentHour++;
+            long evicted = currentHour - slidingHours;
+            if (bucketHour[slot(evicted)] == evicted) {
+                int base = slot(evicted) * NB_TYPES;
+                for (int type = 0; type < NB_TYPES; type++) {
+                    slidingEntries[type] -= entries[base + type];
+                    slidingExits[type] -= exits[base + type];
+                    slidingRevenueCents[type] -= revenueCents[base + type];
+                    slidingStayMillis[type] -= stayMillis[base + type];
+                }
+            }
+            clearSlot(currentHour);
+        }
+    }
+
+    private void reset(long hour) {
+        Arrays.fill(bucketHour, -1);
+        Arrays.fill(slidingRevenueCents, 0);
+        Arrays.fill(slidingEntries, 0);
+        Arrays.fill(slidingExits, 0);
+        Arrays.fill(slidingStayMillis, 0);
+        currentHour = hour;
+        for (long retained = hour - retainedHours + 1; retained <= hour; retained++) {
+            clearSlot(retained);
+        }
+    }
+
+    private void clearSlot(long hour) {
+        int slot = slot(hour);
+        bucketHour[slot] = hour;
+        int base = slot * NB_TYPES;
+        for (int type = 0; type < NB_TYPES; type++) {
+            revenueCents[base + type] = 0;
+            entries[base + type] = 0;
+            exits[base + type] = 0;
+            stayMillis[base + type] = 0;
+            peakOccupancy[base + type] = occupancy[type];
+        }
+    }
+
+    private boolean isInSlidingWindow(long hour) {
+        return hour > currentHour - slidingHours && hour <= currentHour;
+    }
+
+    private int index(long hour, int type) {
+        if (hour < 0 || bucketHour[slot(hour)] != hour) {
+            return -1;
+        }
+        return slot(hour) * NB_TYPES + type;
+    }
+
+    private int slot(long hour) {
+        return (int) Math.floorMod(hour, (long) retainedHours);
+    }
+}
@@ -1,15 +1,25 @@
 package com.parkit.parkingsystem.service;
 
+import com.parkit.parkingsystem.config.DataBaseAccessScheduler;
+import com.parkit.parkingsystem.constants.Fare;
 import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.dao.ParkingSpotDAO;
 import com.parkit.parkingsystem.dao.TicketDAO;
 import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Reservation;
+import com.parkit.parkingsystem.model.SpotStateTable;
 import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.WaitingVehicle;
+import com.parkit.parkingsystem.util.IdempotencyCache;
 import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.Tracer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Clock;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service responsible for handling parking operations such as processing incoming and outgoing vehicles, 
@@ -20,11 +30,27 @@ public class ParkingService {
 
     private static final Logger logger = LogManager.getLogger("ParkingService");
 
-    private static FareCalculatorService fareCalculatorService = new FareCalculatorService();
+
+    /**
+     * Gate retries happen within seconds: requests are remembered in memory for ten minutes,
+     * older retries being caught by the unique request id columns of the ticket table.
+     */
+    private static final int MAX_REMEMBERED_REQUESTS = 10000;
+    private static final long REQUEST_TTL_MILLIS = 10 * 60 * 1000;
 
     private InputReaderUtil inputReaderUtil;
     private ParkingSpotDAO parkingSpotDAO;
     private  TicketDAO ticketDAO;
+    private final List<ParkingEventListener> parkingEventListeners = new CopyOnWriteArrayList<>();
+    private ReservationService reservationService;
+    private SpotLeaseAllocator spotLeaseAllocator;
+    private SpotStateTable spotStateTable;
+    private LoyaltyService loyaltyService;
+    private WaitingQueueService waitingQueueService;
+    private final IdempotencyCache<Ticket> entryRequests = new IdempotencyCache<>(MAX_REMEMBERED_REQUESTS, REQUEST_TTL_MILLIS);
+    private final IdempotencyCache<Ticket> exitRequests = new IdempotencyCache<>(MAX_REMEMBERED_REQUESTS, REQUEST_TTL_MILLIS);
+    private final Clock clock;
+    private final FareCalculatorService fareCalculatorService;
 
     /**
      * Constructs a ParkingService instance with necessary dependencies.
@@ -34,9 +60,95 @@ public class ParkingService {
      * @param ticketDAO data access object for ticket information
      */
     public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO){
+        this(inputReaderUtil, parkingSpotDAO, ticketDAO, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a ParkingService instance reading in and out times from the given clock, so that
+     * simulations and tests can run on virtual time.
+     * 
+     * @param inputReaderUtil utility class for reading user input
+     * @param parkingSpotDAO data access object for parking spot information
+     * @param ticketDAO data access object for ticket information
+     * @param clock the clock giving the current time
+     */
+    public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO, Clock clock){
         this.inputReaderUtil = inputReaderUtil;
         this.parkingSpotDAO = parkingSpotDAO;
         this.ticketDAO = ticketDAO;
+        this.clock = clock;
+        this.fareCalculatorService = new FareCalculatorService(clock);
+    }
+
+    /**
+     * Registers a listener notified of every vehicle entering or leaving the parking lot.
+     * 
+     * @param listener the listener to register
+     */
+    public void addParkingEventListener(ParkingEventListener listener) {
+        parkingEventListeners.add(listener);
+    }
+
+    /**
+     * Sets the reservation service holding booked spots for their holders.
+     * Without reservation service, any vehicle gets the next available spot.
+     * 
+     * @param reservationService the reservation service, or null to disable reservations
+     */
+    public void setReservationService(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Sets the allocator handing out spots from blocks leased to this instance, for deployments where
+     * several instances share the database. Without allocator, spots are looked up in the database.
+     * 
+     * @param spotLeaseAllocator the allocator, or null to look up spots in the database
+     */
+    public void setSpotLeaseAllocator(SpotLeaseAllocator spotLeaseAllocator) {
+        this.spotLeaseAllocator = spotLeaseAllocator;
+    }
+
+    /**
+     * Sets the table holding the spots of this instance, from which spots are taken and given back
+     * without querying the database or allocating spot objects. Ignored when a spot lease allocator is set.
+     * 
+     * @param spotStateTable the spot state table, or null to look up spots in the database
+     */
+    public void setSpotStateTable(SpotStateTable spotStateTable) {
+        this.spotStateTable = spotStateTable;
+    }
+
+    /**
+     * Sets the loyalty service evaluating discounts from recent visits. Without loyalty service, vehicles
+     * with more than one ticket get the standard discount. The loyalty service must also be registered as a
+     * listener so that it records visits.
+     * 
+     * @param loyaltyService the loyalty service, or null to count the tickets of each vehicle
+     */
+    public void setLoyaltyService(LoyaltyService loyaltyService) {
+        this.loyaltyService = loyaltyService;
+    }
+
+    /**
+     * Sets the pricing service adjusting hourly rates to occupancy. The rate in force when a vehicle enters is
+     * recorded on its ticket and charged at exit. The pricing service must also be registered as a listener so
+     * that it follows occupancy.
+     * 
+     * @param dynamicPricingService the pricing service, or null to charge the base rates
+     */
+    public void setDynamicPricingService(DynamicPricingService dynamicPricingService) {
+        fareCalculatorService.setDynamicPricingService(dynamicPricingService);
+    }
+
+    /**
+     * Sets the waiting queue in which vehicles arriving at a full parking lot wait for a spot, instead of being
+     * turned away. Spots freed by exiting vehicles are then handed to the head of the queue of their type.
+     * 
+     * @param waitingQueueService the waiting queue, or null to turn vehicles away when the lot is full
+     */
+    public void setWaitingQueueService(WaitingQueueService waitingQueueService) {
+        this.waitingQueueService = waitingQueueService;
     }
 
     /**
@@ -44,34 +156,129 @@ public class ParkingService {
      * and saving ticket information to the database.
      */
     public void processIncomingVehicle() {
+        processIncomingVehicle(null);
+    }
+
+    /**
+     * Handles the process of an incoming vehicle for a gate request identified by its id.
+     * A retry of a request processed recently returns the ticket of the original request
+     * without reading the input, allocating another spot or saving another ticket. An older retry is
+     * caught when saving its ticket, and the spot it was allocated is given back.
+     *
+     * @param requestId the id of the entry request, or null to process the vehicle without deduplication
+     * @return the ticket of the vehicle, or null if the vehicle could not be parked
+     */
+    public Ticket processIncomingVehicle(String requestId) {
+        if(requestId != null && !entryRequests.begin(requestId, clock.millis())) {
+            return replayRequest(entryRequests, requestId);
+        }
+        Tracer.Span trace = Tracer.startTrace("ParkingService.processIncomingVehicle");
+        DataBaseAccessScheduler.Priority previousPriority = DataBaseAccessScheduler.setPriority(
+                DataBaseAccessScheduler.Priority.ENTRY);
+        Ticket ticket = null;
+        // Spot taken from the state table, given back unless a ticket is saved for it
+        ParkingSpot takenSpot = null;
+        // Spot handed by an exiting vehicle, still taken in the database
+        ParkingSpot handedSpot = null;
         try{
-            ParkingSpot parkingSpot = getNextParkingNumberIfAvailable();
+            ParkingSpot parkingSpot;
+            String vehicleRegNumber = null;
+            if(waitingQueueService == null) {
+                parkingSpot = getNextParkingNumberIfAvailable();
+            } else {
+                ParkingType parkingType = getVehichleType();
+                parkingSpot = getNextParkingNumberIfAvailable(parkingType);
+                if(parkingSpot == null) {
+                    vehicleRegNumber = getVehichleRegNumber();
+                    parkingSpot = handedSpot = waitForSpot(vehicleRegNumber, parkingType);
+                }
+            }
             System.out.print("parking spot = " + parkingSpot);
             if(parkingSpot !=null && parkingSpot.getId() > 0){
+                takenSpot = parkingSpot;
                 System.out.println("DEBUG: Parking spot set to unavailable");
-                String vehicleRegNumber = getVehichleRegNumber();
-                parkingSpot.setAvailable(false);
-                parkingSpotDAO.updateParking(parkingSpot);
+                if(vehicleRegNumber == null) {
+                    vehicleRegNumber = getVehichleRegNumber();
+                }
+                ParkingType spotType = parkingSpot.getParkingType();
+                // The spot taken from the state table is no longer counted there, unlike in the database
+                int takenFromTable = (handedSpot == null) ? 1 : 0;
+                if(reservationService != null && !reservationService.admit(vehicleRegNumber, spotType,
+                        clock.millis(), (spotStateTable != null && spotLeaseAllocator == null)
+                                ? () -> spotStateTable.getNbAvailable(spotType) + takenFromTable
+                                : () -> parkingSpotDAO.getNbAvailableParkingSpot(spotType))) {
+                    System.out.println("Sorry, all remaining spots are reserved");
+                    return null;
+                }
+                if(handedSpot == null) {
+                    parkingSpot = takenSpot = occupySpot(parkingSpot);
+                    if(parkingSpot == null) {
+                        System.out.println("Unable to process incoming vehicle. Parking slots might be full");
+                        return null;
+                    }
+                }
+                // Tickets are counted before saving, which adds the plate to the plate filter of the ticket DAO
+                long discountPercent = (loyaltyService == null && ticketDAO.getNbTicket(vehicleRegNumber) > 0)
+                        ? Fare.DISCOUNT_PERCENT : 100;
 
-                Date inTime = new Date();
-                Ticket ticket = new Ticket();
+                Date inTime = new Date(clock.millis());
+                Ticket newTicket = new Ticket();
            
-                ticket.setParkingSpot(parkingSpot);
-                ticket.setVehicleRegNumber(vehicleRegNumber);
-                ticket.setPrice(0);
-                ticket.setInTime(inTime);
-                ticket.setOutTime(null);
-                ticketDAO.saveTicket(ticket);
-                if(ticketDAO.getNbTicket(vehicleRegNumber)>1) {
-                	System.out.println("Heureux de vous revoir ! En tant qu’utilisateur régulier de notre parking, vous allez obtenir une remise de 5%");
+                newTicket.setParkingSpot(parkingSpot);
+                newTicket.setVehicleRegNumber(vehicleRegNumber);
+                newTicket.setPriceCents(0);
+                newTicket.setInTime(inTime);
+                newTicket.setOutTime(null);
+                newTicket.setRatePerHourCents(fareCalculatorService.getRatePerHourCents(parkingSpot.getParkingType()));
+                if(requestId == null) {
+                    ticketDAO.saveTicket(newTicket);
+                } else if(!ticketDAO.saveTicket(newTicket, requestId)) {
+                    // Another gate process saved this request first: give the spot back and return its ticket
+                    parkingSpotDAO.updateParking(parkingSpot, true);
+                    ticket = ticketDAO.getTicketByEntryRequestId(requestId);
+                    if(ticket != null) {
+                        printEntry(ticket);
+                    } else {
+                        System.out.println("Unable to save ticket information. Error occurred");
+                    }
+                    return ticket;
+                }
+                takenSpot = null;
+                handedSpot = null;
+                ticket = newTicket;
+                fireVehicleEntered(ticket);
+                if(loyaltyService != null) {
+                    discountPercent = getDiscountPercent(vehicleRegNumber);
+                }
+                if(discountPercent < 100) {
+                	System.out.println("Heureux de vous revoir ! En tant qu’utilisateur régulier de notre parking, vous allez obtenir une remise de "
+                	        + (100 - discountPercent) + "%");
                 }
                 System.out.println("Generated Ticket and saved in DB");
-                System.out.println("Please park your vehicle in spot number:"+parkingSpot.getId());
-                System.out.println("Recorded in-time for vehicle number:"+vehicleRegNumber+" is:"+inTime);
+                printEntry(ticket);
+            }else if(requestId != null && (ticket = ticketDAO.getTicketByEntryRequestId(requestId)) != null) {
+                // The lot filled up since the original request saved its ticket
+                printEntry(ticket);
             }
         }catch(Exception e){
             logger.error("Unable to process incoming vehicle",e);
+            ticket = null;
+        }finally {
+            if(handedSpot != null) {
+                releaseSpot(handedSpot);
+            } else if(takenSpot != null) {
+                giveBackTakenSpot(takenSpot);
+            }
+            completeRequest(entryRequests, requestId, ticket);
+            DataBaseAccessScheduler.setPriority(previousPriority);
+            trace.end();
         }
+        return ticket;
+    }
+
+    private void printEntry(Ticket ticket) {
+        System.out.println("Please park your vehicle in spot number:"+ticket.getParkingSpot().getId());
+        System.out.println("Recorded in-time for vehicle number:"+ticket.getVehicleRegNumber()+" is:"+ticket.getInTime());
     }
     
     /**
@@ -92,24 +299,123 @@ public class ParkingService {
      * @throws Exception if an error occurs while fetching the parking spot from the database
      */
     public ParkingSpot getNextParkingNumberIfAvailable(){
+        try{
+            return getNextParkingNumberIfAvailable(getVehichleType());
+        }catch(IllegalArgumentException ie){
+            logger.error("Error parsing user input for type of vehicle", ie);
+        }
+        return null;
+    }
+
+    private ParkingSpot getNextParkingNumberIfAvailable(ParkingType parkingType){
         int parkingNumber=0;
         ParkingSpot parkingSpot = null;
         try{
-            ParkingType parkingType = getVehichleType();
-            parkingNumber = parkingSpotDAO.getNextAvailableSlot(parkingType);
+            if(spotLeaseAllocator == null && spotStateTable != null) {
+                parkingSpot = spotStateTable.acquire(parkingType);
+                if(parkingSpot == null) {
+                    throw new Exception("No spot left in the spot state table. Parking slots might be full");
+                }
+                return parkingSpot;
+            }
+            parkingNumber = (spotLeaseAllocator != null)
+                    ? spotLeaseAllocator.allocate(parkingType, clock.millis())
+                    : parkingSpotDAO.getNextAvailableSlot(parkingType);
             if(parkingNumber > 0){
                 parkingSpot = new ParkingSpot(parkingNumber,parkingType, true);
             }else{
                 throw new Exception("Error fetching parking number from DB. Parking slots might be full");
             }
-        }catch(IllegalArgumentException ie){
-            logger.error("Error parsing user input for type of vehicle", ie);
         }catch(Exception e){
             logger.error("Error fetching next available parking slot", e);
         }
         return parkingSpot;
     }
 
+    /**
+     * Marks an allocated spot unavailable in the database. A spot leased to this instance is occupied with a
+     * conditional update, which fails if its lease expired while the vehicle was processed and another instance
+     * took it: another spot of the same type is then allocated.
+     *
+     * @return the occupied spot, or null if no other spot is available
+     */
+    private ParkingSpot occupySpot(ParkingSpot parkingSpot) {
+        if(spotLeaseAllocator == null) {
+            parkingSpotDAO.updateParking(parkingSpot, false);
+            return parkingSpot;
+        }
+        ParkingType parkingType = parkingSpot.getParkingType();
+        while(!spotLeaseAllocator.occupy(parkingSpot.getId())) {
+            parkingSpot = getNextParkingNumberIfAvailable(parkingType);
+            if(parkingSpot == null) {
+                return null;
+            }
+        }
+        return parkingSpot;
+    }
+
+    /**
+     * Gives back a spot allocated to a vehicle which could not be parked.
+     */
+    private void giveBackTakenSpot(ParkingSpot parkingSpot) {
+        if(spotLeaseAllocator != null) {
+            spotLeaseAllocator.giveBack(parkingSpot.getId());
+        } else {
+            releaseToSpotStateTable(parkingSpot);
+        }
+    }
+
+    /**
+     * Queues a vehicle arriving at a full parking lot and waits for an exiting vehicle to hand it a spot.
+     * A spot released by an exit between the first check and the join, with nobody in the queue to hand it to,
+     * is found by checking again once queued: the vehicle then leaves the queue and takes that spot.
+     * 
+     * @return the handed spot, still marked unavailable, or null if the vehicle timed out or was already queued
+     * @throws InterruptedException if the gate thread is interrupted while waiting
+     */
+    private ParkingSpot waitForSpot(String vehicleRegNumber, ParkingType parkingType) throws InterruptedException {
+        WaitingVehicle waitingVehicle = waitingQueueService.join(vehicleRegNumber, parkingType);
+        if(waitingVehicle == null) {
+            System.out.println("Vehicle number:"+vehicleRegNumber+" is already waiting for a spot");
+            return null;
+        }
+        try {
+            ParkingSpot freeSpot = getNextParkingNumberIfAvailable(parkingType);
+            if(freeSpot != null) {
+                if(waitingVehicle.cancel()) {
+                    return occupySpot(freeSpot);
+                }
+                // A spot was handed to the vehicle meanwhile
+                giveBackTakenSpot(freeSpot);
+            }
+            System.out.println("Parking slots are full. Your position in the waiting queue is:"
+                    +waitingQueueService.getPosition(vehicleRegNumber));
+            ParkingSpot parkingSpot = waitingVehicle.awaitSpot();
+            if(parkingSpot == null) {
+                System.out.println("Sorry, no spot was freed in time");
+            }
+            return parkingSpot;
+        } finally {
+            waitingQueueService.leave(waitingVehicle);
+        }
+    }
+
+    /**
+     * Hands a spot given back by a vehicle to the next waiting vehicle, or makes it available again.
+     */
+    private void releaseSpot(ParkingSpot parkingSpot) {
+        WaitingVehicle waitingVehicle = (waitingQueueService == null) ? null : waitingQueueService.handOff(parkingSpot);
+        if(waitingVehicle != null) {
+            System.out.println("Spot number:"+parkingSpot.getId()+" handed to waiting vehicle number:"
+                    +waitingVehicle.getVehicleRegNumber());
+            return;
+        }
+        if(parkingSpotDAO.updateParking(parkingSpot, true)) {
+            releaseToSpotStateTable(parkingSpot);
+            fireSpotReleased(parkingSpot, clock.millis());
+        }
+    }
+
     /**
      * Prompts the user to select the vehicle type (CAR or BIKE).
      * 
@@ -135,31 +441,186 @@ public class ParkingService {
         }
     }
 
+    /**
+     * Handles the booking of a spot ahead of time, held for the vehicle from the start of its stay
+     * until the vehicle enters or its stay ends.
+     *
+     * @return the reservation, or null if reservations are disabled, the input is invalid or no spot is free
+     */
+    public Reservation processReservation() {
+        if(reservationService == null) {
+            System.out.println("Reservations are not available");
+            return null;
+        }
+        try{
+            ParkingType parkingType = getVehichleType();
+            String vehicleRegNumber = getVehichleRegNumber();
+            System.out.println("Please type in how many hours the stay starts and press enter key");
+            int startHours = inputReaderUtil.readSelection();
+            System.out.println("Please type the number of hours of the stay and press enter key");
+            int durationHours = inputReaderUtil.readSelection();
+            if(startHours < 0 || durationHours < 1) {
+                System.out.println("Incorrect input provided");
+                return null;
+            }
+            long now = clock.millis();
+            long from = now + startHours * 60L * 60 * 1000;
+            long to = from + durationHours * 60L * 60 * 1000;
+            Reservation reservation = reservationService.book(vehicleRegNumber, parkingType, 1, from, to, now);
+            if(reservation == null) {
+                System.out.println("Sorry, no spot is free for the whole stay");
+            } else {
+                System.out.println("Booked reservation number:"+reservation.getId()+" for vehicle number:"
+                        +vehicleRegNumber+" from:"+new Date(from)+" to:"+new Date(to));
+            }
+            return reservation;
+        }catch(Exception e){
+            logger.error("Unable to process reservation",e);
+        }
+        return null;
+    }
+
     /**
      * Handles the process of a vehicle exiting the parking lot, including calculating the fare,
      * updating ticket information, and marking the parking spot as available.
      */
     public void processExitingVehicle() {
+        processExitingVehicle(null);
+    }
+
+    /**
+     * Handles the process of a vehicle exiting the parking lot for a gate request identified by its id.
+     * A retry of a request already processed returns the ticket closed by the original request
+     * without pricing or updating it again, from memory if the request was processed recently, or else
+     * once the ticket of the vehicle turns out to be closed.
+     *
+     * @param requestId the id of the exit request, or null to process the vehicle without deduplication
+     * @return the closed ticket, or null if the vehicle could not exit
+     */
+    public Ticket processExitingVehicle(String requestId) {
+        if(requestId != null && !exitRequests.begin(requestId, clock.millis())) {
+            return replayRequest(exitRequests, requestId);
+        }
+        Tracer.Span trace = Tracer.startTrace("ParkingService.processExitingVehicle");
+        DataBaseAccessScheduler.Priority previousPriority = DataBaseAccessScheduler.setPriority(
+                DataBaseAccessScheduler.Priority.EXIT);
+        Ticket result = null;
         try{
             String vehicleRegNumber = getVehichleRegNumber();
             Ticket ticket = ticketDAO.getTicket(vehicleRegNumber);
-            ticket.setDiscount(ticketDAO.getNbTicket(vehicleRegNumber) > 1);
-            Date outTime = new Date();
-            ticket.setOutTime(outTime);
-            fareCalculatorService.calculateFare(ticket);
-            if(ticketDAO.updateTicket(ticket)) {
+            if(ticket == null || ticket.getOutTime() != null) {
+                if(requestId != null && (result = ticketDAO.getTicketByExitRequestId(requestId)) != null) {
+                    // This request already closed the ticket, before a restart or in another gate process
+                    printExit(result);
+                } else {
+                    System.out.println("No parked vehicle found for vehicle number:"+vehicleRegNumber);
+                }
+                return result;
+            }
+            ticket.setDiscountPercent(getDiscountPercent(vehicleRegNumber));
+            fareCalculatorService.closeTicket(ticket);
+            boolean updated = (requestId == null) ? ticketDAO.updateTicket(ticket) : ticketDAO.closeTicket(ticket, requestId);
+            if(updated) {
                 ParkingSpot parkingSpot = ticket.getParkingSpot();
-                parkingSpot.setAvailable(true);
-                parkingSpotDAO.updateParking(parkingSpot);
-                System.out.println("Please pay the parking fare:" + ticket.getPrice());
-                System.out.println("Recorded out-time for vehicle number:" + ticket.getVehicleRegNumber() + " is:" + outTime);
+                WaitingVehicle waitingVehicle = (waitingQueueService == null) ? null : waitingQueueService.handOff(parkingSpot);
+                fireVehicleExited(ticket);
+                if(waitingVehicle != null) {
+                    System.out.println("Spot number:"+parkingSpot.getId()+" handed to waiting vehicle number:"
+                            +waitingVehicle.getVehicleRegNumber());
+                } else if(parkingSpotDAO.updateParking(parkingSpot, true)) {
+                    // The spot is only offered again once the database no longer shows it occupied
+                    releaseToSpotStateTable(parkingSpot);
+                    fireSpotReleased(parkingSpot, ticket.getOutTime().getTime());
+                }
+                result = ticket;
+                printExit(ticket);
+            }else if(requestId != null && (result = ticketDAO.getTicketByExitRequestId(requestId)) != null) {
+                // Another gate process closed the ticket for this request first, or the vehicle entered again
+                // since this request closed its ticket and the exit request id is already taken
+                printExit(result);
             }else{
                 System.out.println("Unable to update ticket information. Error occurred");
             }
             
         }catch(Exception e){
             logger.error("Unable to process exiting vehicle",e);
+            result = null;
+        }finally {
+            completeRequest(exitRequests, requestId, result);
+            DataBaseAccessScheduler.setPriority(previousPriority);
+            trace.end();
+        }
+        return result;
+    }
+
+    private long getDiscountPercent(String vehicleRegNumber) {
+        if(loyaltyService != null) {
+            return loyaltyService.getDiscountPercent(vehicleRegNumber, clock.millis());
+        }
+        return (ticketDAO.getNbTicket(vehicleRegNumber) > 1) ? Fare.DISCOUNT_PERCENT : 100;
+    }
+
+    private void releaseToSpotStateTable(ParkingSpot parkingSpot) {
+        if(spotStateTable != null && spotLeaseAllocator == null) {
+            spotStateTable.release(parkingSpot.getId());
+        }
+    }
+
+    private void printExit(Ticket ticket) {
+        System.out.println("Please pay the parking fare:" + ticket.getPrice());
+        System.out.println("Recorded out-time for vehicle number:" + ticket.getVehicleRegNumber() + " is:" + ticket.getOutTime());
+    }
+
+    private Ticket replayRequest(IdempotencyCache<Ticket> requests, String requestId) {
+        Ticket ticket = requests.get(requestId, clock.millis());
+        if(ticket == null) {
+            System.out.println("This request is already being processed");
+        } else if(ticket.getOutTime() == null) {
+            printEntry(ticket);
+        } else {
+            printExit(ticket);
+        }
+        return ticket;
+    }
+
+    private void completeRequest(IdempotencyCache<Ticket> requests, String requestId, Ticket ticket) {
+        if(requestId == null) {
+            return;
+        }
+        if(ticket != null) {
+            requests.complete(requestId, ticket);
+        } else {
+            requests.abort(requestId);
+        }
+    }
+
+    private void fireVehicleEntered(Ticket ticket) {
+        for (ParkingEventListener listener : parkingEventListeners) {
+            try {
+                listener.onVehicleEntered(ticket);
+            } catch (Exception e) {
+                logger.error("Error notifying vehicle entry", e);
+            }
+        }
+    }
+
+    private void fireVehicleExited(Ticket ticket) {
+        for (ParkingEventListener listener : parkingEventListeners) {
+            try {
+                listener.onVehicleExited(ticket);
+            } catch (Exception e) {
+                logger.error("Error notifying vehicle exit", e);
+            }
+        }
+    }
+
+    private void fireSpotReleased(ParkingSpot parkingSpot, long releaseTime) {
+        for (ParkingEventListener listener : parkingEventListeners) {
+            try {
+                listener.onSpotReleased(parkingSpot, releaseTime);
+            } catch (Exception e) {
+                logger.error("Error notifying spot release", e);
+            }
         }
-        
     }
 }
@@ -0,0 +1,348 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.PlateMatch;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service finding the plates of parked and recently seen vehicles close to a misread or mistyped plate,
+ * for attendants looking for a ticket.
+ * <p>
+ * Plates are indexed in memory by their bigrams, the start and end of the plate counting as characters.
+ * A single insertion, deletion or substitution removes at most two distinct bigrams of a plate, so a plate
+ * within {@link #MAX_DISTANCE} edits of the searched plate shares all but {@code 2 * MAX_DISTANCE} of its
+ * bigrams: only the plates reaching that count in the posting lists are compared character by character.
+ * Searches take the read lock and do not allocate per indexed plate, so they stay well under a millisecond
+ * with tens of thousands of plates.
+ * <p>
+ * The index is kept up to date by registering the service as a {@link ParkingEventListener}. Plates without
+ * open ticket are dropped once they have not been seen for the retention period.
+ */
+public class PlateSearchService implements ParkingEventListener {
+
+    private static final Logger logger = LogManager.getLogger("PlateSearchService");
+
+    public static final int MAX_DISTANCE = 2;
+    public static final long DEFAULT_RETENTION_MILLIS = 24 * 60 * 60 * 1000;
+
+    private static final char BOUNDARY = '^';
+
+    private final Clock clock;
+    private final long retentionMillis;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Indexed plates, by slot; freed slots are reused
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] plates = new String[1024];
+    private boolean[] open = new boolean[1024];
+    private long[] lastSeenTimes = new long[1024];
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int nbSlot;
+
+    // Slots of the plates holding each bigram, keyed by the two characters
+    private final Map<Integer, Postings> postings = new HashMap<>();
+
+    // Exits in time order, to drop the plates not seen within the retention period
+    private final ArrayDeque<String> exitedPlates = new ArrayDeque<>();
+    private final ArrayDeque<Long> exitTimes = new ArrayDeque<>();
+
+    private final ThreadLocal<int[]> sharedCounts = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * Growable list of slots.
+     */
+    private static final class Postings {
+
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        private void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs a PlateSearchService.
+     *
+     * @param clock the clock giving the current time
+     * @param retentionMillis the time during which plates without open ticket remain searchable, in milliseconds
+     */
+    public PlateSearchService(Clock clock, long retentionMillis) {
+        this.clock = clock;
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Indexes the plates of the open tickets and of the tickets closed within the retention period.
+     *
+     * @param ticketDAO data access object used to read the tickets
+     */
+    public void seed(TicketDAO ticketDAO) {
+        long recent = clock.millis() - retentionMillis;
+        lock.writeLock().lock();
+        try {
+            ticketDAO.streamTickets((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+                if (outTime < 0) {
+                    index(PlateNormalizer.normalize(vehicleRegNumber), true, inTime);
+                } else if (outTime >= recent) {
+                    String plate = PlateNormalizer.normalize(vehicleRegNumber);
+                    index(plate, false, outTime);
+                    exitedPlates.addLast(plate);
+                    exitTimes.addLast(outTime);
+                }
+            });
+            logger.info("Indexed " + slots.size() + " plates");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the indexed plates within {@link #MAX_DISTANCE} edits of a plate, closest first, then parked
+     * vehicles first, then most recently seen first.
+     *
+     * @param vehicleRegNumber the plate as read or typed
+     * @param maxResults the maximum number of plates returned
+     * @return the matching plates, best first
+     */
+    public List<PlateMatch> search(String vehicleRegNumber, int maxResults) {
+        String query = PlateNormalizer.normalize(vehicleRegNumber);
+        List<PlateMatch> matches = new ArrayList<>();
+        long recent = clock.millis() - retentionMillis;
+        lock.readLock().lock();
+        try {
+            int[] bigrams = distinctBigrams(query);
+            int minShared = bigrams.length - 2 * MAX_DISTANCE;
+            if (minShared <= 0) {
+                // Too short for the bigrams to filter anything
+                for (int slot = 0; slot < nbSlot; slot++) {
+                    addMatch(matches, query, slot, recent);
+                }
+            } else {
+                int[] counts = getCounts();
+                List<Integer> candidates = new ArrayList<>();
+                for (int bigram : bigrams) {
+                    Postings list = postings.get(bigram);
+                    if (list == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < list.size; i++) {
+                        int slot = list.slots[i];
+                        if (++counts[slot] == minShared) {
+                            candidates.add(slot);
+                        }
+                    }
+                }
+                for (int candidate : candidates) {
+                    addMatch(matches, query, candidate, recent);
+                }
+                for (int bigram : bigrams) {
+                    Postings list = postings.get(bigram);
+                    for (int i = 0; list != null && i < list.size; i++) {
+                        counts[list.slots[i]] = 0;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(PlateMatch::getDistance)
+                .thenComparing(match -> !match.isOpen())
+                .thenComparing(Comparator.comparingLong(PlateMatch::getLastSeenTime).reversed()));
+        return (matches.size() > maxResults) ? new ArrayList<>(matches.subList(0, maxResults)) : matches;
+    }
+
+    /**
+     * Returns the number of indexed plates.
+     *
+     * @return the number of plates
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onVehicleEntered(Ticket ticket) {
+        lock.writeLock().lock();
+        try {
+            index(PlateNormalizer.normalize(ticket.getVehicleRegNumber()), true, ticket.getInTime().getTime());
+            expire(clock.millis() - retentionMillis);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onVehicleExited(Ticket ticket) {
+        String plate = PlateNormalizer.normalize(ticket.getVehicleRegNumber());
+        long outTime = ticket.getOutTime().getTime();
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(plate);
+            if (slot != null) {
+                open[slot] = false;
+            }
+            index(plate, false, outTime);
+            exitedPlates.addLast(plate);
+            exitTimes.addLast(outTime);
+            expire(clock.millis() - retentionMillis);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(String plate, boolean isOpen, long seenTime) {
+        Integer slot = slots.get(plate);
+        if (slot != null) {
+            open[slot] |= isOpen;
+            lastSeenTimes[slot] = Math.max(lastSeenTimes[slot], seenTime);
+            return;
+        }
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+        } else {
+            if (nbSlot == plates.length) {
+                plates = Arrays.copyOf(plates, nbSlot * 2);
+                open = Arrays.copyOf(open, nbSlot * 2);
+                lastSeenTimes = Arrays.copyOf(lastSeenTimes, nbSlot * 2);
+            }
+            slot = nbSlot++;
+        }
+        plates[slot] = plate;
+        open[slot] = isOpen;
+        lastSeenTimes[slot] = seenTime;
+        slots.put(plate, slot);
+        for (int bigram : distinctBigrams(plate)) {
+            postings.computeIfAbsent(bigram, key -> new Postings()).add(slot);
+        }
+    }
+
+    private void expire(long recent) {
+        while (!exitTimes.isEmpty() && exitTimes.peekFirst() < recent) {
+            exitTimes.pollFirst();
+            Integer slot = slots.get(exitedPlates.pollFirst());
+            if (slot != null && !open[slot] && lastSeenTimes[slot] < recent) {
+                remove(slot);
+            }
+        }
+    }
+
+    private void remove(int slot) {
+        String plate = plates[slot];
+        for (int bigram : distinctBigrams(plate)) {
+            Postings list = postings.get(bigram);
+            list.remove(slot);
+            if (list.size == 0) {
+                postings.remove(bigram);
+            }
+        }
+        slots.remove(plate);
+        plates[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    private void addMatch(List<PlateMatch> matches, String query, int slot, long recent) {
+        String plate = plates[slot];
+        if (plate == null || (!open[slot] && lastSeenTimes[slot] < recent)) {
+            return;
+        }
+        int distance = distance(query, plate, MAX_DISTANCE);
+        if (distance <= MAX_DISTANCE) {
+            matches.add(new PlateMatch(plate, distance, open[slot], lastSeenTimes[slot]));
+        }
+    }
+
+    private int[] getCounts() {
+        int[] counts = sharedCounts.get();
+        if (counts.length < nbSlot) {
+            counts = new int[plates.length];
+            sharedCounts.set(counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the distinct bigrams of a plate framed by boundaries, each packed as two characters in an int.
+     */
+    private static int[] distinctBigrams(String plate) {
+        int[] bigrams = new int[plate.length() + 1];
+        int size = 0;
+        char previous = BOUNDARY;
+        for (int i = 0; i <= plate.length(); i++) {
+            char current = (i < plate.length()) ? plate.charAt(i) : BOUNDARY;
+            int bigram = (previous << 16) | current;
+            boolean seen = false;
+            for (int j = 0; j < size && !seen; j++) {
+                seen = bigrams[j] == bigram;
+            }
+            if (!seen) {
+                bigrams[size++] = bigram;
+            }
+            previous = current;
+        }
+        return Arrays.copyOf(bigrams, size);
+    }
+
+    /**
+     * Computes the Levenshtein distance between two plates, giving up as soon as it exceeds a bound.
+     *
+     * @return the distance, or {@code max + 1} if it exceeds {@code max}
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + ((a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,308 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.Reservation;
+import com.parkit.parkingsystem.util.CapacityTimeline;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Service handling bookings of parking spots ahead of time.
+ * <p>
+ * Each {@link ParkingType} has a {@link CapacityTimeline} of booked spots, so checking whether N spots can be
+ * booked over a time range and recording the booking cost O(log n) in the number of time slots. Bookings of
+ * different parking types never contend; bookings of the same type are serialized by a per-type lock.
+ * <p>
+ * Booked spots are held for their holder: when a vehicle without reservation arrives, {@link ParkingService}
+ * only admits it if some free spot is left once the reservations in progress are set aside. When the holder
+ * arrives, its reservation is checked in and stops holding a spot.
+ * <p>
+ * Reservations are kept in memory only: a restart forgets them. Reservations are forgotten once over, as time
+ * advances for their parking type, so that reservations never checked in do not pile up.
+ */
+public class ReservationService {
+
+    private static final Logger logger = LogManager.getLogger("ReservationService");
+
+    public static final long DEFAULT_SLOT_MILLIS = 15 * 60 * 1000;
+    public static final int DEFAULT_HORIZON_SLOTS = 90 * 24 * 4;
+
+    private final Map<ParkingType, Integer> bookableSpots;
+    private final Map<ParkingType, CapacityTimeline> timelines = new EnumMap<>(ParkingType.class);
+    private final Map<ParkingType, ReentrantLock> locks = new EnumMap<>(ParkingType.class);
+    // Reservations of each type by end time, guarded by the lock of the type
+    private final Map<ParkingType, PriorityQueue<Reservation>> endings = new EnumMap<>(ParkingType.class);
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> reservationsByPlate = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Constructs a ReservationService with 15 minutes slots over a 90 days horizon.
+     *
+     * @param bookableSpots the number of spots that can be booked at the same time, per parking type
+     */
+    public ReservationService(Map<ParkingType, Integer> bookableSpots) {
+        this(bookableSpots, System.currentTimeMillis(), DEFAULT_SLOT_MILLIS, DEFAULT_HORIZON_SLOTS);
+    }
+
+    /**
+     * Constructs a ReservationService.
+     *
+     * @param bookableSpots the number of spots that can be booked at the same time, per parking type
+     * @param now the current time, in epoch milliseconds
+     * @param slotMillis the booking granularity, in milliseconds
+     * @param horizonSlots the number of slots ahead of now that can be booked
+     */
+    public ReservationService(Map<ParkingType, Integer> bookableSpots, long now, long slotMillis, int horizonSlots) {
+        this.bookableSpots = new EnumMap<>(bookableSpots);
+        for (ParkingType parkingType : ParkingType.values()) {
+            timelines.put(parkingType, new CapacityTimeline(now, slotMillis, horizonSlots));
+            locks.put(parkingType, new ReentrantLock());
+            endings.put(parkingType, new PriorityQueue<>(Comparator.comparingLong(Reservation::getEndTime)));
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of bookable spots written parkingType:spots, such as "CAR:2,BIKE:1".
+     *
+     * @param bookableSpots the bookable spots to parse
+     * @return the number of spots that can be booked at the same time, per parking type
+     * @throws IllegalArgumentException if an entry is malformed
+     */
+    public static Map<ParkingType, Integer> parseBookableSpots(String bookableSpots) {
+        Map<ParkingType, Integer> parsed = new EnumMap<>(ParkingType.class);
+        for (String entry : bookableSpots.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid bookable spots: " + entry);
+            }
+            int spots = Integer.parseInt(parts[1].trim());
+            if (spots < 0) {
+                throw new IllegalArgumentException("Invalid bookable spots: " + entry);
+            }
+            parsed.put(ParkingType.valueOf(parts[0].trim()), spots);
+        }
+        return parsed;
+    }
+
+    /**
+     * Checks if a number of spots can be booked over a time range.
+     *
+     * @param parkingType the type of parking spot
+     * @param spots the number of spots
+     * @param from the start of the range, in epoch milliseconds
+     * @param to the end of the range, in epoch milliseconds
+     * @param now the current time, in epoch milliseconds
+     * @return {@code true} if the spots are free for the whole range, {@code false} otherwise
+     * @throws IllegalArgumentException if the range is empty, in the past or beyond the booking horizon
+     */
+    public boolean canBook(ParkingType parkingType, int spots, long from, long to, long now) {
+        ReentrantLock lock = locks.get(parkingType);
+        lock.lock();
+        try {
+            CapacityTimeline timeline = advanceTo(parkingType, now);
+            return timeline.getMaxBooked(from, to) + spots <= getBookableSpots(parkingType);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Books a number of spots over a time range, if they are free for the whole range.
+     *
+     * @param vehicleRegNumber the registration number of the vehicle holding the reservation
+     * @param parkingType the type of parking spot
+     * @param spots the number of spots
+     * @param from the start of the range, in epoch milliseconds
+     * @param to the end of the range, in epoch milliseconds
+     * @param now the current time, in epoch milliseconds
+     * @return the reservation, or {@code null} if not enough spots are free
+     * @throws IllegalArgumentException if the range is empty, in the past or beyond the booking horizon
+     */
+    public Reservation book(String vehicleRegNumber, ParkingType parkingType, int spots, long from, long to, long now) {
+        if (spots < 1) {
+            throw new IllegalArgumentException("At least one spot must be booked");
+        }
+        String plate = PlateNormalizer.normalize(vehicleRegNumber);
+        Reservation reservation;
+        ReentrantLock lock = locks.get(parkingType);
+        lock.lock();
+        try {
+            CapacityTimeline timeline = advanceTo(parkingType, now);
+            if (timeline.getMaxBooked(from, to) + spots > getBookableSpots(parkingType)) {
+                return null;
+            }
+            timeline.add(from, to, spots);
+            reservation = new Reservation(nextId.getAndIncrement(), plate, parkingType, spots, from, to);
+            reservations.put(reservation.getId(), reservation);
+            endings.get(parkingType).add(reservation);
+            long id = reservation.getId();
+            reservationsByPlate.compute(plate, (key, ids) -> {
+                Set<Long> plateIds = (ids != null) ? ids : ConcurrentHashMap.newKeySet();
+                plateIds.add(id);
+                return plateIds;
+            });
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Reservation " + reservation.getId() + " booked for vehicle " + plate);
+        return reservation;
+    }
+
+    /**
+     * Cancels a reservation, releasing its spots for the part of the reservation not elapsed yet.
+     *
+     * @param reservationId the identifier of the reservation
+     * @param now the current time, in epoch milliseconds
+     * @return {@code true} if the reservation was cancelled, {@code false} if it does not exist
+     */
+    public boolean cancel(long reservationId, long now) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        release(reservation, now);
+        forget(reservation.getVehicleRegNumber(), reservationId);
+        return true;
+    }
+
+    /**
+     * Checks in the reservation a vehicle holds for the current time, if any. The reservation stops holding
+     * spots, since the vehicle is about to occupy one.
+     *
+     * @param vehicleRegNumber the registration number of the arriving vehicle
+     * @param parkingType the type of parking spot
+     * @param now the current time, in epoch milliseconds
+     * @return the checked-in reservation, or {@code null} if the vehicle has no reservation in progress
+     */
+    public Reservation checkIn(String vehicleRegNumber, ParkingType parkingType, long now) {
+        String plate = PlateNormalizer.normalize(vehicleRegNumber);
+        Set<Long> ids = reservationsByPlate.get(plate);
+        if (ids == null) {
+            return null;
+        }
+        for (Long id : ids) {
+            Reservation reservation = reservations.get(id);
+            if (reservation == null || reservation.getEndTime() <= now) {
+                reservations.remove(id);
+                forget(plate, id);
+            } else if (reservation.getParkingType() == parkingType && reservation.isActiveAt(now)
+                    && cancel(id, now)) {
+                logger.info("Reservation " + id + " checked in");
+                return reservation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decides whether an arriving vehicle may take a spot. A vehicle holding a reservation in progress is
+     * always admitted and its reservation is checked in; any other vehicle is only admitted if a free spot
+     * remains once the spots held by reservations in progress are set aside.
+     *
+     * @param vehicleRegNumber the registration number of the arriving vehicle
+     * @param parkingType the type of parking spot
+     * @param now the current time, in epoch milliseconds
+     * @param availableSpots supplies the number of free spots, only queried when some spots are held
+     * @return {@code true} if the vehicle may take a spot, {@code false} otherwise
+     */
+    public boolean admit(String vehicleRegNumber, ParkingType parkingType, long now, IntSupplier availableSpots) {
+        if (checkIn(vehicleRegNumber, parkingType, now) != null) {
+            return true;
+        }
+        int held = getHeldSpots(parkingType, now);
+        return held == 0 || availableSpots.getAsInt() > held;
+    }
+
+    /**
+     * Returns the number of spots held by reservations in progress.
+     *
+     * @param parkingType the type of parking spot
+     * @param now the current time, in epoch milliseconds
+     * @return the number of held spots
+     */
+    public int getHeldSpots(ParkingType parkingType, long now) {
+        ReentrantLock lock = locks.get(parkingType);
+        lock.lock();
+        try {
+            CapacityTimeline timeline = advanceTo(parkingType, now);
+            return timeline.getBookedAt(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Reservation reservation, long now) {
+        ReentrantLock lock = locks.get(reservation.getParkingType());
+        lock.lock();
+        try {
+            CapacityTimeline timeline = advanceTo(reservation.getParkingType(), now);
+            if (reservation.getEndTime() > now) {
+                timeline.add(Math.max(now, reservation.getStartTime()), reservation.getEndTime(), -reservation.getSpots());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of reservations booked, neither over, checked in nor cancelled yet.
+     *
+     * @return the number of reservations
+     */
+    public int getNbReservation() {
+        return reservations.size();
+    }
+
+    /**
+     * Returns the number of vehicles holding reservations.
+     *
+     * @return the number of vehicles
+     */
+    public int getNbPlate() {
+        return reservationsByPlate.size();
+    }
+
+    /**
+     * Moves the timeline of a type to the current time and forgets the reservations of the type which are over.
+     * Must be called with the lock of the type held.
+     */
+    private CapacityTimeline advanceTo(ParkingType parkingType, long now) {
+        CapacityTimeline timeline = timelines.get(parkingType);
+        timeline.advanceTo(now);
+        PriorityQueue<Reservation> ending = endings.get(parkingType);
+        while (!ending.isEmpty() && ending.peek().getEndTime() <= now) {
+            Reservation reservation = ending.poll();
+            if (reservations.remove(reservation.getId(), reservation)) {
+                forget(reservation.getVehicleRegNumber(), reservation.getId());
+            }
+        }
+        return timeline;
+    }
+
+    /**
+     * Removes a reservation from the reservations of its holder, dropping the holder once it has none left.
+     */
+    private void forget(String plate, long reservationId) {
+        reservationsByPlate.computeIfPresent(plate, (key, ids) -> {
+            ids.remove(reservationId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private int getBookableSpots(ParkingType parkingType) {
+        Integer spots = bookableSpots.get(parkingType);
+        return (spots == null) ? 0 : spots;
+    }
+}
@@ -0,0 +1,98 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.DailySettlement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Service computing the end-of-day settlement: the number and exact total price, in cents, of the tickets
+ * closed during a day, per {@link ParkingType}.
+ * <p>
+ * The prices of the day are streamed once into one primitive column per parking type and then totalled with
+ * a plain counted loop over a {@code long[]}, which the JIT unrolls and vectorizes.
+ */
+public class SettlementService {
+
+    private static final Logger logger = LogManager.getLogger("SettlementService");
+
+    private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+
+    private final TicketDAO ticketDAO;
+    private final ZoneId zoneId;
+
+    /**
+     * Constructs a settlement service using the system time zone to delimit days.
+     *
+     * @param ticketDAO data access object for ticket information
+     */
+    public SettlementService(TicketDAO ticketDAO) {
+        this(ticketDAO, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructs a settlement service.
+     *
+     * @param ticketDAO data access object for ticket information
+     * @param zoneId the time zone delimiting days
+     */
+    public SettlementService(TicketDAO ticketDAO, ZoneId zoneId) {
+        this.ticketDAO = ticketDAO;
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Settles the tickets closed during the given day.
+     *
+     * @param day the day to settle
+     * @return the settlement of the day
+     * @throws IllegalStateException if the tickets cannot be read, rather than settling the day short
+     */
+    public DailySettlement settle(LocalDate day) {
+        long from = day.atStartOfDay(zoneId).toInstant().toEpochMilli();
+        long to = day.plusDays(1).atStartOfDay(zoneId).toInstant().toEpochMilli();
+
+        long[][] prices = new long[PARKING_TYPES.length][1024];
+        int[] nbTickets = new int[PARKING_TYPES.length];
+        long count = ticketDAO.streamClosedTickets(from, to, (id, parkingNumber, parkingType, vehicleRegNumber, priceCents,
+                                                 inTime, outTime) -> {
+            int type = parkingType.ordinal();
+            if (nbTickets[type] == prices[type].length) {
+                prices[type] = Arrays.copyOf(prices[type], nbTickets[type] * 2);
+            }
+            prices[type][nbTickets[type]++] = priceCents;
+        });
+        if (count < 0) {
+            throw new IllegalStateException("Unable to read the tickets closed on " + day);
+        }
+
+        long[] totalCents = new long[PARKING_TYPES.length];
+        for (int type = 0; type < PARKING_TYPES.length; type++) {
+            totalCents[type] = sum(prices[type], nbTickets[type]);
+        }
+        DailySettlement settlement = new DailySettlement(day, nbTickets, totalCents);
+        logger.info("Settled " + settlement.getNbTicket() + " tickets for " + day + ": "
+                + settlement.getTotalCents() + " cents");
+        return settlement;
+    }
+
+    /**
+     * Sums the first values of an array.
+     *
+     * @param values the values
+     * @param length the number of values to sum
+     * @return the sum
+     */
+    static long sum(long[] values, int length) {
+        long total = 0;
+        for (int i = 0; i < length; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+}
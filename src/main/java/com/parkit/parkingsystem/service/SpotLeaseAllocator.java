@@ -0,0 +1,166 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Allocates parking spots from blocks leased to this node, so that several instances of the application can
+ * share the same database without racing on {@code getNextAvailableSlot} and {@code updateParking}.
+ * <p>
+ * For each parking type, the node leases a block of free spots with a single conditional update and then hands
+ * them out locally, without any database round trip. The block is renewed when it runs out or when its lease
+ * comes close to expiry; spots a crashed or idle node no longer renews become claimable by the other nodes once
+ * their lease has expired. A spot handed out is occupied with {@link #occupy(int)}, a conditional update which
+ * fails if its lease expired and another node took it meanwhile; until then it is kept out of renewed blocks.
+ * Occupying a spot clears its lease. Methods are synchronized.
+ */
+public class SpotLeaseAllocator {
+
+    private static final Logger logger = LogManager.getLogger("SpotLeaseAllocator");
+
+    public static final int DEFAULT_BLOCK_SIZE = 8;
+    public static final long DEFAULT_LEASE_MILLIS = 60 * 1000;
+
+    private final ParkingSpotDAO parkingSpotDAO;
+    private final String nodeId;
+    private final int blockSize;
+    private final long leaseMillis;
+    private final Map<ParkingType, Block> blocks = new EnumMap<>(ParkingType.class);
+    // Spots handed out and neither occupied nor given back yet, still leased to this node in the database
+    private final Set<Integer> handedOut = new HashSet<>();
+
+    /**
+     * Spots leased for one parking type, handed out lowest number first.
+     */
+    private static final class Block {
+
+        private final PriorityQueue<Integer> parkingNumbers = new PriorityQueue<>();
+        private long leaseExpiry;
+    }
+
+    /**
+     * Creates an allocator with a random node id and the default block size and lease duration.
+     *
+     * @param parkingSpotDAO data access object for parking spot information
+     */
+    public SpotLeaseAllocator(ParkingSpotDAO parkingSpotDAO) {
+        this(parkingSpotDAO, UUID.randomUUID().toString(), DEFAULT_BLOCK_SIZE, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * Creates an allocator.
+     *
+     * @param parkingSpotDAO data access object for parking spot information
+     * @param nodeId the id of this node, unique among the nodes sharing the database
+     * @param blockSize the number of spots leased at once for each parking type
+     * @param leaseMillis the duration of a lease, at least two seconds
+     */
+    public SpotLeaseAllocator(ParkingSpotDAO parkingSpotDAO, String nodeId, int blockSize, long leaseMillis) {
+        if (blockSize <= 0 || leaseMillis < 2000) {
+            throw new IllegalArgumentException("Invalid lease configuration");
+        }
+        this.parkingSpotDAO = parkingSpotDAO;
+        this.nodeId = nodeId;
+        this.blockSize = blockSize;
+        this.leaseMillis = leaseMillis;
+        for (ParkingType parkingType : ParkingType.values()) {
+            blocks.put(parkingType, new Block());
+        }
+    }
+
+    /**
+     * Takes a spot of the given type from the block leased to this node, leasing a new block when needed.
+     * The caller is expected to {@link #occupy(int)} the spot, or to {@link #giveBack(int)} it.
+     *
+     * @param parkingType the type of parking spot required (CAR or BIKE)
+     * @param now the current time, in epoch milliseconds
+     * @return the parking spot number, or -1 if no spot is free
+     */
+    public synchronized int allocate(ParkingType parkingType, long now) {
+        Block block = blocks.get(parkingType);
+        // Renew a quarter of the lease before expiry, so that a spot is never handed out after another node took it
+        if (block.parkingNumbers.isEmpty() || now >= block.leaseExpiry - leaseMillis / 4) {
+            renew(parkingType, block, now);
+        }
+        Integer parkingNumber = block.parkingNumbers.poll();
+        if (parkingNumber == null) {
+            return -1;
+        }
+        handedOut.add(parkingNumber);
+        return parkingNumber;
+    }
+
+    /**
+     * Marks a spot handed out by {@link #allocate(ParkingType, long)} occupied, unless its lease expired while the
+     * vehicle was processed and another node took it. The caller should then allocate another spot.
+     *
+     * @param parkingNumber the spot number
+     * @return true if the spot was occupied, false if it was taken over or could not be updated
+     */
+    public synchronized boolean occupy(int parkingNumber) {
+        handedOut.remove(parkingNumber);
+        boolean occupied = parkingSpotDAO.occupyLeasedParkingSpot(parkingNumber, nodeId);
+        if (!occupied) {
+            logger.warn("Node " + nodeId + " lost the lease of spot " + parkingNumber);
+        }
+        return occupied;
+    }
+
+    /**
+     * Gives back a spot handed out but not occupied, which is leased again with the next renewed block.
+     *
+     * @param parkingNumber the spot number
+     */
+    public synchronized void giveBack(int parkingNumber) {
+        handedOut.remove(parkingNumber);
+    }
+
+    /**
+     * Returns the number of spots of the given type currently leased to this node and not handed out yet.
+     *
+     * @param parkingType the type of parking spot
+     * @return the number of leased spots
+     */
+    public synchronized int getNbLeasedSpot(ParkingType parkingType) {
+        return blocks.get(parkingType).parkingNumbers.size();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Gives back every spot leased to this node, typically on shutdown.
+     */
+    public synchronized void releaseAll() {
+        for (Block block : blocks.values()) {
+            block.parkingNumbers.clear();
+            block.leaseExpiry = 0;
+        }
+        handedOut.clear();
+        int released = parkingSpotDAO.releaseParkingLeases(nodeId);
+        logger.info("Released " + released + " leased parking spots of node " + nodeId);
+    }
+
+    private void renew(ParkingType parkingType, Block block, long now) {
+        // DATETIME columns only keep whole seconds
+        long leaseExpiry = (now + leaseMillis) / 1000 * 1000;
+        List<Integer> parkingNumbers = parkingSpotDAO.claimParkingSpots(parkingType, nodeId, blockSize, now, leaseExpiry);
+        block.parkingNumbers.clear();
+        block.parkingNumbers.addAll(parkingNumbers);
+        // The claim renews the spots still being handed out, which must not be handed out twice
+        block.parkingNumbers.removeAll(handedOut);
+        block.leaseExpiry = leaseExpiry;
+        logger.debug("Node " + nodeId + " leased " + parkingNumbers.size() + " " + parkingType + " spots");
+    }
+}
@@ -0,0 +1,175 @@
+package com.parkit.parkingsystem.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service warming up the subsystems of the application in parallel on background threads, so that the gate
+ * accepts input while database connections, caches and indexes are being prepared.
+ * <p>
+ * Each warm-up task must be safe to run while vehicles are processed: a subsystem which is not warmed up yet
+ * still works, only slower, or holds back the events it receives until its task finishes. The service reports
+ * readiness once every task has finished, failed tasks included, since a failed warm-up leaves its subsystem on
+ * its cold path.
+ */
+public class StartupService {
+
+    private static final Logger logger = LogManager.getLogger("StartupService");
+
+    /**
+     * State of a warm-up task.
+     */
+    public enum Status {
+        PENDING,
+        RUNNING,
+        READY,
+        FAILED
+    }
+
+    private final List<Task> tasks = new ArrayList<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicInteger nbRunning = new AtomicInteger();
+    private volatile CountDownLatch remaining;
+    private volatile long startNanos;
+
+    /**
+     * A named warm-up task with its state.
+     */
+    private static final class Task {
+
+        private final String name;
+        private final Callable<Boolean> warmUp;
+        private volatile Status status = Status.PENDING;
+        private volatile long durationMillis;
+
+        private Task(String name, Callable<Boolean> warmUp) {
+            this.name = name;
+            this.warmUp = warmUp;
+        }
+    }
+
+    /**
+     * Registers a warm-up task, before {@link #start()}.
+     *
+     * @param name the name of the task, as reported
+     * @param warmUp the task, returning {@code false} or throwing if the subsystem could not be warmed up
+     */
+    public synchronized void addTask(String name, Callable<Boolean> warmUp) {
+        if (remaining != null) {
+            throw new IllegalStateException("Startup already started");
+        }
+        tasks.add(new Task(name, warmUp));
+    }
+
+    /**
+     * Runs every registered task on its own daemon thread and returns immediately.
+     */
+    public synchronized void start() {
+        if (remaining != null) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        nbRunning.set(tasks.size());
+        remaining = new CountDownLatch(tasks.size());
+        if (tasks.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), runnable -> {
+            Thread thread = new Thread(runnable, "startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Task task : tasks) {
+            executor.execute(() -> run(task));
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Tells whether every task has finished.
+     *
+     * @return {@code true} once the application is warmed up
+     */
+    public boolean isReady() {
+        CountDownLatch latch = remaining;
+        return latch != null && latch.getCount() == 0;
+    }
+
+    /**
+     * Waits until every task has finished.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return {@code true} if the application is warmed up, {@code false} if the timeout elapsed first
+     * @throws InterruptedException if the waiting thread is interrupted
+     * @throws IllegalStateException if the startup was not started
+     */
+    public boolean awaitReady(long timeoutMillis) throws InterruptedException {
+        CountDownLatch latch = remaining;
+        if (latch == null) {
+            throw new IllegalStateException("Startup not started");
+        }
+        return latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the state of a task.
+     *
+     * @param name the name of the task
+     * @return the state, or {@code null} if no task has that name
+     */
+    public synchronized Status getStatus(String name) {
+        for (Task task : tasks) {
+            if (task.name.equals(name)) {
+                return task.status;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Describes the state and duration of every task, for logs and health checks.
+     *
+     * @return one entry per task, such as {@code "database: READY in 812 ms"}
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Task task : tasks) {
+            if (report.length() > 0) {
+                report.append(", ");
+            }
+            report.append(task.name).append(": ").append(task.status);
+            if (task.status == Status.READY || task.status == Status.FAILED) {
+                report.append(" in ").append(task.durationMillis).append(" ms");
+            }
+        }
+        return report.toString();
+    }
+
+    private void run(Task task) {
+        long taskStartNanos = System.nanoTime();
+        task.status = Status.RUNNING;
+        boolean ready = false;
+        try {
+            ready = Boolean.TRUE.equals(task.warmUp.call());
+        } catch (Exception e) {
+            logger.error("Error warming up " + task.name, e);
+        }
+        task.durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - taskStartNanos);
+        task.status = ready ? Status.READY : Status.FAILED;
+        boolean last = nbRunning.decrementAndGet() == 0;
+        remaining.countDown();
+        if (last) {
+            logger.info("Ready in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+                    + " ms: " + getReport());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.util.TicketColumnarWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service exporting the whole ticket table to a compact columnar file, readable with
+ * {@link com.parkit.parkingsystem.util.TicketColumnarReader} without touching the database.
+ * Rows are streamed from the database and written block by block, so the export runs in constant memory
+ * apart from the plate dictionary. A failed export deletes its file, so that a file with a footer is complete.
+ * Large tables can be exported in chunks of ticket ids scanned in parallel, one file per chunk.
+ */
+public class TicketExportService {
+
+    private static final Logger logger = LogManager.getLogger("TicketExportService");
+
+    private TicketDAO ticketDAO;
+
+    /**
+     * Constructs a TicketExportService.
+     *
+     * @param ticketDAO data access object used to stream the ticket table
+     */
+    public TicketExportService(TicketDAO ticketDAO) {
+        this.ticketDAO = ticketDAO;
+    }
+
+    /**
+     * Exports every ticket to the given file, replacing it if it exists.
+     *
+     * @param path the file to write
+     * @return the number of tickets exported
+     * @throws IOException if the file cannot be written, or if the ticket table could not be streamed entirely
+     */
+    public long exportTickets(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        final IOException[] failure = new IOException[1];
+        long streamed;
+        try {
+            try (TicketColumnarWriter writer = new TicketColumnarWriter(path)) {
+                streamed = ticketDAO.streamTickets((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        writer.write(id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                if (streamed < 0) {
+                    throw new IOException("Ticket export incomplete: the ticket table could not be streamed entirely");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            deletePartialFile(path);
+            throw e;
+        }
+        logger.info("Exported " + streamed + " tickets to " + path + " in " + (System.currentTimeMillis() - start) + " ms");
+        return streamed;
+    }
+
+    /**
+     * Exports every ticket to one file per chunk of ticket ids, named {@code tickets-<first id>.pktc}, scanning
+     * the chunks in parallel. Each worker holds its own connection and cursor. A failed export deletes every
+     * file it was to write, once its workers have stopped.
+     *
+     * @param directory the directory to write the files to, created if missing
+     * @param workers the number of chunks scanned at the same time
+     * @param chunkSize the number of ticket ids per chunk
+     * @return the number of tickets exported
+     * @throws IOException if a file cannot be written, or if the id range or a chunk could not be read entirely
+     */
+    public long exportTicketChunks(Path directory, int workers, int chunkSize) throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        int[] idRange = ticketDAO.getTicketIdRange();
+        if (idRange == null) {
+            throw new IOException("Ticket export failed: the ticket id range could not be read");
+        }
+        if (idRange.length == 0) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Path> paths = new ArrayList<>();
+        List<Future<Long>> chunks = new ArrayList<>();
+        boolean exportedAll = false;
+        try {
+            for (long fromId = idRange[0]; fromId <= idRange[1]; fromId += chunkSize) {
+                int chunkStart = (int) fromId;
+                int chunkEnd = (int) Math.min(fromId + chunkSize, (long) idRange[1] + 1);
+                Path path = directory.resolve("tickets-" + chunkStart + ".pktc");
+                paths.add(path);
+                chunks.add(executor.submit(() -> exportChunk(path, chunkStart, chunkEnd)));
+            }
+            long exported = 0;
+            for (Future<Long> chunk : chunks) {
+                exported += chunk.get();
+            }
+            exportedAll = true;
+            logger.info("Exported " + exported + " tickets in " + chunks.size() + " chunks to " + directory + " in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            return exported;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ticket export interrupted", e);
+        } catch (ExecutionException e) {
+            throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            if (!exportedAll) {
+                // Chunks already being written finish first, so that none is left behind once deleted
+                awaitTermination(executor);
+                for (Path path : paths) {
+                    deletePartialFile(path);
+                }
+            }
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long exportChunk(Path path, int fromId, int toId) throws IOException {
+        final IOException[] failure = new IOException[1];
+        try (TicketColumnarWriter writer = new TicketColumnarWriter(path)) {
+            long streamed = ticketDAO.streamTicketsByIdRange(fromId, toId,
+                    (id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    writer.write(id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            if (streamed < 0) {
+                throw new IOException("Ticket export of ids " + fromId + " to " + toId + " incomplete");
+            }
+            return streamed;
+        } catch (IOException | RuntimeException e) {
+            deletePartialFile(path);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a file left by a failed export, so that no truncated file with a valid footer remains.
+     */
+    private static void deletePartialFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.error("Unable to delete the partial export " + path, e);
+        }
+    }
+}
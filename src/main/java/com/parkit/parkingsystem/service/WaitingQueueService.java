@@ -0,0 +1,153 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.WaitingVehicle;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service queuing vehicles arriving while every spot of their type is taken, first come first served.
+ * A spot freed by an exiting vehicle is handed straight to the vehicle at the head of the queue of its type:
+ * the spot stays taken in the database and in memory, so the handoff costs no database round trip and no
+ * other gate can take the spot meanwhile.
+ * <p>
+ * Queues are lock-free: vehicles are appended and handed spots with compare-and-set only, and a vehicle which
+ * times out or gives up while a spot is handed to it either gets the spot or lets it go to the next vehicle.
+ * Positions are computed by walking the queue, which stays cheap for the hundreds of vehicles a full lot
+ * may queue.
+ */
+public class WaitingQueueService {
+
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 15 * 60 * 1000;
+
+    private final long maxWaitNanos;
+    private final Map<ParkingType, Queue<WaitingVehicle>> queues = new EnumMap<>(ParkingType.class);
+    private final ConcurrentMap<String, WaitingVehicle> waitingVehicles = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a WaitingQueueService.
+     *
+     * @param maxWaitMillis the time after which a queued vehicle stops waiting, in milliseconds
+     */
+    public WaitingQueueService(long maxWaitMillis) {
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        for (ParkingType parkingType : ParkingType.values()) {
+            queues.put(parkingType, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Appends a vehicle to the queue of its type.
+     *
+     * @param vehicleRegNumber the registration number of the vehicle
+     * @param parkingType the type of spot the vehicle waits for
+     * @return the queued vehicle, or {@code null} if the vehicle is already waiting
+     */
+    public WaitingVehicle join(String vehicleRegNumber, ParkingType parkingType) {
+        String plate = PlateNormalizer.normalize(vehicleRegNumber);
+        long now = System.nanoTime();
+        WaitingVehicle waitingVehicle = new WaitingVehicle(plate, parkingType, now + maxWaitNanos);
+        WaitingVehicle previous = waitingVehicles.putIfAbsent(plate, waitingVehicle);
+        if (previous != null) {
+            if (previous.isWaiting(now) || !waitingVehicles.replace(plate, previous, waitingVehicle)) {
+                return null;
+            }
+            queues.get(previous.getParkingType()).remove(previous);
+        }
+        queues.get(parkingType).add(waitingVehicle);
+        return waitingVehicle;
+    }
+
+    /**
+     * Removes a vehicle which stopped waiting from its queue.
+     *
+     * @param waitingVehicle the vehicle, handed a spot or not
+     */
+    public void leave(WaitingVehicle waitingVehicle) {
+        waitingVehicle.cancel();
+        waitingVehicles.remove(waitingVehicle.getVehicleRegNumber(), waitingVehicle);
+        queues.get(waitingVehicle.getParkingType()).remove(waitingVehicle);
+    }
+
+    /**
+     * Hands a freed spot to the first vehicle still waiting for its type, dropping the vehicles which stopped
+     * waiting from the head of the queue.
+     *
+     * @param parkingSpot the freed spot, still marked unavailable
+     * @return the vehicle which took the spot, or {@code null} if no vehicle waits and the spot must be released
+     */
+    public WaitingVehicle handOff(ParkingSpot parkingSpot) {
+        Queue<WaitingVehicle> queue = queues.get(parkingSpot.getParkingType());
+        WaitingVehicle waitingVehicle;
+        while ((waitingVehicle = queue.poll()) != null) {
+            boolean handed = waitingVehicle.handOff(parkingSpot, System.nanoTime());
+            waitingVehicles.remove(waitingVehicle.getVehicleRegNumber(), waitingVehicle);
+            if (handed) {
+                return waitingVehicle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the position of a vehicle in the queue of its type, for display boards.
+     *
+     * @param vehicleRegNumber the registration number of the vehicle
+     * @return the position, 1 for the head of the queue, or 0 if the vehicle is not waiting
+     */
+    public int getPosition(String vehicleRegNumber) {
+        WaitingVehicle waitingVehicle = waitingVehicles.get(PlateNormalizer.normalize(vehicleRegNumber));
+        long now = System.nanoTime();
+        if (waitingVehicle == null || !waitingVehicle.isWaiting(now)) {
+            return 0;
+        }
+        int position = 0;
+        for (WaitingVehicle queued : queues.get(waitingVehicle.getParkingType())) {
+            if (queued.isWaiting(now)) {
+                position++;
+            }
+            if (queued == waitingVehicle) {
+                return position;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the registration numbers of the vehicles waiting for a type, head of the queue first,
+     * for display boards.
+     *
+     * @param parkingType the type of spot
+     * @return the waiting vehicles, in queue order
+     */
+    public List<String> getWaitingVehicles(ParkingType parkingType) {
+        List<String> plates = new ArrayList<>();
+        long now = System.nanoTime();
+        for (WaitingVehicle queued : queues.get(parkingType)) {
+            if (queued.isWaiting(now)) {
+                plates.add(queued.getVehicleRegNumber());
+            }
+        }
+        return plates;
+    }
+
+    /**
+     * Returns the number of vehicles waiting for a type.
+     *
+     * @param parkingType the type of spot
+     * @return the number of waiting vehicles
+     */
+    public int getNbWaiting(ParkingType parkingType) {
+        return getWaitingVehicles(parkingType).size();
+    }
+}
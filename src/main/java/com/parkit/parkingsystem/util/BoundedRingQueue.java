@@ -0,0 +1,127 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue supporting several producers and several consumers.
+ * <p>
+ * Elements are stored in a ring whose cells carry a sequence number: a producer claims the tail cell with a
+ * compare-and-set once the cell sequence shows it has been consumed, and a consumer claims the head cell once
+ * its sequence shows it has been published. Neither side ever blocks, so {@link #offer(Object)} simply returns
+ * {@code false} when the ring is full, leaving the caller to apply back-pressure.
+ *
+ * @param <E> the type of the queued elements
+ */
+public class BoundedRingQueue<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param capacity the minimum capacity, rounded up to a power of two
+     */
+    public BoundedRingQueue(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Appends an element if the queue is not full.
+     *
+     * @param element the element to append, not null
+     * @return {@code true} if the element was appended, {@code false} if the queue is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Element cannot be null");
+        }
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element.
+     *
+     * @return the oldest element, or {@code null} if the queue is empty
+     */
+    public E poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes up to {@code maxElements} elements and adds them to the given collection.
+     *
+     * @param target the collection receiving the elements
+     * @param maxElements the maximum number of elements to remove
+     * @return the number of elements removed
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        int count = 0;
+        E element;
+        while (count < maxElements && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns an estimate of the number of queued elements, exact when the queue is not being modified.
+     *
+     * @return the number of queued elements
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,178 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.Arrays;
+
+/**
+ * Timeline of booked capacity over fixed-size time slots, backed by a segment tree with lazy range updates.
+ * Adding bookings over a time range and finding the most booked slot of a range both cost O(log n).
+ * <p>
+ * The timeline covers a rolling horizon of {@code slotCount} slots starting at the current slot: slots are
+ * stored in a ring, and the slots left behind by {@link #advanceTo(long)} are cleared and reused for the end
+ * of the horizon. This class is not thread-safe.
+ */
+public class CapacityTimeline {
+
+    private final long slotMillis;
+    private final int slotCount;
+    private final int[] max;
+    private final int[] lazy;
+    private long currentSlot;
+
+    /**
+     * Constructs an empty timeline.
+     *
+     * @param now the current time, in epoch milliseconds
+     * @param slotMillis the duration of a slot, in milliseconds
+     * @param slotCount the number of slots of the horizon
+     */
+    public CapacityTimeline(long now, long slotMillis, int slotCount) {
+        this.slotMillis = slotMillis;
+        this.slotCount = slotCount;
+        this.max = new int[4 * slotCount];
+        this.lazy = new int[4 * slotCount];
+        this.currentSlot = now / slotMillis;
+    }
+
+    /**
+     * Moves the start of the horizon to the slot containing the given time, clearing the slots left behind.
+     *
+     * @param now the current time, in epoch milliseconds
+     */
+    public void advanceTo(long now) {
+        long slot = now / slotMillis;
+        if (slot - currentSlot >= slotCount) {
+            Arrays.fill(max, 0);
+            Arrays.fill(lazy, 0);
+        } else {
+            for (long past = currentSlot; past < slot; past++) {
+                int index = ring(past);
+                int booked = query(1, 0, slotCount - 1, index, index);
+                if (booked != 0) {
+                    update(1, 0, slotCount - 1, index, index, -booked);
+                }
+            }
+        }
+        currentSlot = Math.max(currentSlot, slot);
+    }
+
+    /**
+     * Returns the highest booked capacity over a time range.
+     *
+     * @param from the start of the range, in epoch milliseconds (inclusive)
+     * @param to the end of the range, in epoch milliseconds (exclusive)
+     * @return the highest number of spots booked in any slot of the range
+     * @throws IllegalArgumentException if the range is empty or goes beyond the horizon
+     */
+    public int getMaxBooked(long from, long to) {
+        long fromSlot = firstSlot(from, to);
+        long toSlot = lastSlot(to);
+        int first = ring(fromSlot);
+        int last = ring(toSlot);
+        if (first <= last) {
+            return query(1, 0, slotCount - 1, first, last);
+        }
+        return Math.max(query(1, 0, slotCount - 1, first, slotCount - 1), query(1, 0, slotCount - 1, 0, last));
+    }
+
+    /**
+     * Returns the capacity booked in the slot containing the given time.
+     *
+     * @param time a time within the horizon, in epoch milliseconds
+     * @return the number of spots booked in that slot
+     */
+    public int getBookedAt(long time) {
+        return getMaxBooked(time, time + 1);
+    }
+
+    /**
+     * Adds a number of booked spots over a time range. The part of the range already in the past is ignored.
+     *
+     * @param from the start of the range, in epoch milliseconds (inclusive)
+     * @param to the end of the range, in epoch milliseconds (exclusive)
+     * @param delta the number of spots to book, or to release if negative
+     * @throws IllegalArgumentException if the range is empty or goes beyond the horizon
+     */
+    public void add(long from, long to, int delta) {
+        long fromSlot = firstSlot(from, to);
+        long toSlot = lastSlot(to);
+        int first = ring(fromSlot);
+        int last = ring(toSlot);
+        if (first <= last) {
+            update(1, 0, slotCount - 1, first, last, delta);
+        } else {
+            update(1, 0, slotCount - 1, first, slotCount - 1, delta);
+            update(1, 0, slotCount - 1, 0, last, delta);
+        }
+    }
+
+    /**
+     * Returns the end of the horizon: ranges must end before this time.
+     *
+     * @return the end of the horizon, in epoch milliseconds
+     */
+    public long getHorizonEnd() {
+        return (currentSlot + slotCount) * slotMillis;
+    }
+
+    private long firstSlot(long from, long to) {
+        if (to <= from || to <= currentSlot * slotMillis) {
+            throw new IllegalArgumentException("Time range is empty or in the past");
+        }
+        return Math.max(currentSlot, from / slotMillis);
+    }
+
+    private long lastSlot(long to) {
+        long slot = (to - 1) / slotMillis;
+        if (slot >= currentSlot + slotCount) {
+            throw new IllegalArgumentException("Time range goes beyond the booking horizon");
+        }
+        return slot;
+    }
+
+    private int ring(long slot) {
+        return (int) (slot % slotCount);
+    }
+
+    private void update(int node, int low, int high, int from, int to, int delta) {
+        if (from <= low && high <= to) {
+            max[node] += delta;
+            lazy[node] += delta;
+            return;
+        }
+        push(node);
+        int middle = (low + high) >>> 1;
+        if (from <= middle) {
+            update(2 * node, low, middle, from, to, delta);
+        }
+        if (to > middle) {
+            update(2 * node + 1, middle + 1, high, from, to, delta);
+        }
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+    }
+
+    private int query(int node, int low, int high, int from, int to) {
+        if (from <= low && high <= to) {
+            return max[node];
+        }
+        push(node);
+        int middle = (low + high) >>> 1;
+        int result = Integer.MIN_VALUE;
+        if (from <= middle) {
+            result = query(2 * node, low, middle, from, to);
+        }
+        if (to > middle) {
+            result = Math.max(result, query(2 * node + 1, middle + 1, high, from, to));
+        }
+        return result;
+    }
+
+    private void push(int node) {
+        if (lazy[node] != 0) {
+            max[2 * node] += lazy[node];
+            lazy[2 * node] += lazy[node];
+            max[2 * node + 1] += lazy[node];
+            lazy[2 * node + 1] += lazy[node];
+            lazy[node] = 0;
+        }
+    }
+}
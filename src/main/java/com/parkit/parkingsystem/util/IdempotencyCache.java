@@ -0,0 +1,116 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, time-expiring table of the results of recent requests, keyed by request id.
+ * <p>
+ * A request is first marked in flight with {@link #begin}, which fails for a request id already seen, then
+ * completed with its result or aborted. Entries are kept in insertion order so that the oldest ones are
+ * evicted first, either when they expire or when the table is full. Methods are synchronized.
+ *
+ * @param <V> the type of the stored results
+ */
+public class IdempotencyCache<V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+
+    private static final class Entry<V> {
+
+        private final long createdTime;
+        private V result;
+
+        private Entry(long createdTime) {
+            this.createdTime = createdTime;
+        }
+    }
+
+    /**
+     * Creates an empty table.
+     *
+     * @param maxEntries the maximum number of remembered requests
+     * @param ttlMillis how long a request is remembered, in milliseconds
+     */
+    public IdempotencyCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Capacity and time to live must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Marks a request as in flight, unless it has already been seen.
+     *
+     * @param requestId the request id
+     * @param now the current time, in epoch milliseconds
+     * @return {@code true} if the request is new and must be processed, {@code false} if it is a retry
+     */
+    public synchronized boolean begin(String requestId, long now) {
+        evictExpired(now);
+        if (entries.containsKey(requestId)) {
+            return false;
+        }
+        if (entries.size() >= maxEntries) {
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+        entries.put(requestId, new Entry<>(now));
+        return true;
+    }
+
+    /**
+     * Records the result of a request marked in flight.
+     *
+     * @param requestId the request id
+     * @param result the result returned to retries of the request
+     */
+    public synchronized void complete(String requestId, V result) {
+        Entry<V> entry = entries.get(requestId);
+        if (entry != null) {
+            entry.result = result;
+        }
+    }
+
+    /**
+     * Forgets a request which failed, so that a retry processes it again.
+     *
+     * @param requestId the request id
+     */
+    public synchronized void abort(String requestId) {
+        entries.remove(requestId);
+    }
+
+    /**
+     * Returns the result of a request.
+     *
+     * @param requestId the request id
+     * @param now the current time, in epoch milliseconds
+     * @return the result, or {@code null} if the request is unknown, expired or still in flight
+     */
+    public synchronized V get(String requestId, long now) {
+        evictExpired(now);
+        Entry<V> entry = entries.get(requestId);
+        return (entry == null) ? null : entry.result;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next().getValue();
+            if (now - entry.createdTime < ttlMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+}
@@ -35,8 +35,8 @@ public class InputReaderUtil {
 
     /**
      * Reads the vehicle registration number from the console.
-     * This method reads the next line of input, checks if it is a non-empty string,
-     * and returns the registration number. If the input is invalid, it logs the error 
+     * This method reads the next line of input, normalizes it with {@link PlateNormalizer},
+     * checks that the result is a non-empty string, and returns the registration number. If the input is invalid, it logs the error 
      * and throws an exception.
      * 
      * @return the vehicle registration number as a string
@@ -44,8 +44,8 @@ public class InputReaderUtil {
      */
     public String readVehicleRegistrationNumber() throws Exception {
         try {
-            String vehicleRegNumber= scan.nextLine();
-            if(vehicleRegNumber == null || vehicleRegNumber.trim().length()==0) {
+            String vehicleRegNumber= PlateNormalizer.normalize(scan.nextLine());
+            if(vehicleRegNumber == null || vehicleRegNumber.length()==0) {
                 throw new IllegalArgumentException("Invalid input provided");
             }
             return vehicleRegNumber;
@@ -0,0 +1,173 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter of canonical plates, answering whether a plate may have been seen or has definitely never
+ * been seen.
+ * <p>
+ * Plates go into the newest of a chain of fixed-size filters. When it holds its capacity, a filter twice as large
+ * with half the false positive probability is appended, so that the overall false positive probability stays below
+ * twice the probability of the first filter however many plates are added. At 1% a plate costs about 1.4 bytes
+ * in a filter sized for its plates, and up to twice as much once the chain has grown, so ten million plates take
+ * between 14 and 28 MB. Each plate is hashed once to 64 bits, from which the bit positions are derived by double
+ * hashing.
+ * <p>
+ * This class is thread-safe: bits are set with compare-and-set and only growing the chain is synchronized.
+ */
+public class PlateBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final double falsePositiveProbability;
+    private volatile Slice[] slices;
+
+    /**
+     * A fixed-size Bloom filter of the chain.
+     */
+    private static final class Slice {
+
+        private final AtomicLongArray bits;
+        private final long nbBit;
+        private final int nbHash;
+        private final long capacity;
+        private final AtomicLong size = new AtomicLong();
+
+        private Slice(long capacity, double falsePositiveProbability) {
+            long words = Math.max(1, (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (LN2 * LN2) / 64));
+            this.bits = new AtomicLongArray(Math.toIntExact(words));
+            this.nbBit = words * 64;
+            this.nbHash = Math.max(1, (int) Math.round((double) nbBit / capacity * LN2));
+            this.capacity = capacity;
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < nbHash; i++) {
+                long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % nbBit;
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < nbHash; i++) {
+                long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % nbBit;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                for (long value; ((value = bits.get(word)) & mask) == 0; ) {
+                    if (bits.compareAndSet(word, value, value | mask)) {
+                        break;
+                    }
+                }
+            }
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Constructs an empty filter.
+     *
+     * @param initialCapacity the number of plates held by the first filter of the chain
+     * @param falsePositiveProbability the overall probability that a plate never added is reported as seen
+     */
+    public PlateBloomFilter(long initialCapacity, double falsePositiveProbability) {
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.slices = new Slice[]{new Slice(Math.max(64, initialCapacity), falsePositiveProbability / 2)};
+    }
+
+    /**
+     * Checks whether a plate may have been added.
+     *
+     * @param canonicalPlate a plate in canonical form
+     * @return {@code false} if the plate has definitely never been added
+     */
+    public boolean mightContain(String canonicalPlate) {
+        long hash = hash(canonicalPlate);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a plate, unless it may already have been added.
+     *
+     * @param canonicalPlate a plate in canonical form
+     */
+    public void add(String canonicalPlate) {
+        long hash = hash(canonicalPlate);
+        Slice[] current = slices;
+        for (Slice slice : current) {
+            if (slice.mightContain(hash)) {
+                return;
+            }
+        }
+        Slice last = current[current.length - 1];
+        if (last.size.get() >= last.capacity) {
+            last = grow(last);
+        }
+        last.add(hash);
+    }
+
+    /**
+     * Returns the number of plates added, not counting plates reported as possibly seen when added.
+     *
+     * @return the number of plates
+     */
+    public long size() {
+        long size = 0;
+        for (Slice slice : slices) {
+            size += slice.size.get();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the memory held by the bits of the filter.
+     *
+     * @return the size of the bit arrays, in bytes
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (Slice slice : slices) {
+            bytes += slice.nbBit / 8;
+        }
+        return bytes;
+    }
+
+    private synchronized Slice grow(Slice full) {
+        Slice[] current = slices;
+        Slice last = current[current.length - 1];
+        if (last != full) {
+            // Another thread already appended a filter
+            return last;
+        }
+        Slice[] grown = new Slice[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = new Slice(full.capacity * 2, falsePositiveProbability / (2L << current.length));
+        slices = grown;
+        return grown[current.length];
+    }
+
+    /**
+     * Hashes a plate to 64 bits with FNV-1a followed by the MurmurHash3 finalizer.
+     */
+    private static long hash(String canonicalPlate) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < canonicalPlate.length(); i++) {
+            hash = (hash ^ canonicalPlate.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,88 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary interning vehicle registration numbers as dense int codes.
+ * Plates are normalized with {@link PlateNormalizer}, so every spelling of the same plate gets the same code,
+ * and each distinct plate is stored once. Codes are also indexes usable with plain arrays.
+ * <p>
+ * Plates that pack into a long key are looked up through a {@link PlateIndex}; the rare plates that do not
+ * fall back to a {@code String} map. A dictionary may be shared by several caches: methods are synchronized.
+ */
+public class PlateDictionary {
+
+    private final PlateIndex packedCodes = new PlateIndex(1024);
+    private final Map<String, Integer> unpackedCodes = new HashMap<>();
+    private String[] plates = new String[64];
+    private int size;
+
+    /**
+     * Returns the code of the given plate, adding it to the dictionary if it is not known yet.
+     *
+     * @param plate the vehicle registration number, in any spelling
+     * @return the code of the plate
+     */
+    public synchronized int encode(String plate) {
+        String canonical = PlateNormalizer.normalize(plate);
+        long key = PlateNormalizer.pack(canonical);
+        int code = lookup(canonical, key);
+        if (code >= 0) {
+            return code;
+        }
+        if (size == plates.length) {
+            plates = Arrays.copyOf(plates, size * 2);
+        }
+        plates[size] = canonical;
+        if (key == PlateNormalizer.NOT_PACKABLE) {
+            unpackedCodes.put(canonical, size);
+        } else {
+            packedCodes.put(key, size);
+        }
+        return size++;
+    }
+
+    /**
+     * Returns the code of the given plate without adding it to the dictionary.
+     *
+     * @param plate the vehicle registration number, in any spelling
+     * @return the code of the plate, or -1 if it is not known
+     */
+    public synchronized int lookup(String plate) {
+        String canonical = PlateNormalizer.normalize(plate);
+        return lookup(canonical, PlateNormalizer.pack(canonical));
+    }
+
+    /**
+     * Returns the canonical plate with the given code.
+     *
+     * @param code the code of the plate
+     * @return the vehicle registration number, in canonical form
+     * @throws IndexOutOfBoundsException if the code is unknown
+     */
+    public synchronized String decode(int code) {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("Unknown plate code:" + code);
+        }
+        return plates[code];
+    }
+
+    /**
+     * Returns the number of distinct plates in the dictionary.
+     *
+     * @return the number of plates
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private int lookup(String canonical, long key) {
+        if (key == PlateNormalizer.NOT_PACKABLE) {
+            Integer code = unpackedCodes.get(canonical);
+            return (code == null) ? PlateIndex.NOT_FOUND : code;
+        }
+        return packedCodes.get(key);
+    }
+}
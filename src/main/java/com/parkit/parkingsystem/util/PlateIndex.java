@@ -0,0 +1,128 @@
+package com.parkit.parkingsystem.util;
+
+/**
+ * Open-addressing hash index from packed plate keys to int values, using linear probing over
+ * primitive arrays. Looking up a plate costs a few array reads, without boxing nor {@code String} hashing.
+ * Key 0 ({@link PlateNormalizer#NOT_PACKABLE}) marks free cells and cannot be stored.
+ * This class is not thread-safe.
+ */
+public class PlateIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final float MAX_LOAD = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param expectedSize the number of keys the index can hold before growing
+     */
+    public PlateIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) * 2 - 1);
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the value associated with a key.
+     *
+     * @param key a packed plate key
+     * @return the value, or {@link #NOT_FOUND} if the key is absent
+     */
+    public int get(long key) {
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == 0) {
+                return NOT_FOUND;
+            }
+        }
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key a packed plate key
+     * @param value the value
+     * @throws IllegalArgumentException if the key is {@link PlateNormalizer#NOT_PACKABLE}
+     */
+    public void put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Plate key is not packed");
+        }
+        if (size + 1 > keys.length * MAX_LOAD) {
+            resize(keys.length * 2);
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Removes a key, shifting back the following keys of its probe sequence so that no tombstone is left.
+     *
+     * @param key a packed plate key
+     * @return the removed value, or {@link #NOT_FOUND} if the key was absent
+     */
+    public int remove(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return NOT_FOUND;
+            }
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        int free = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            // Move the key back if its home cell is not between the free cell and its current cell
+            if (((j - home) & mask) >= ((j - free) & mask)) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        keys[free] = 0;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,95 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.Locale;
+
+/**
+ * Utility class turning raw vehicle registration numbers into a canonical form, and packing canonical
+ * plates into fixed-width long keys.
+ * <p>
+ * The canonical form keeps letters and digits only, in upper case, so that "AB-123-CD" and "ab123cd "
+ * denote the same vehicle. A canonical plate of at most {@link #MAX_PACKED_LENGTH} ASCII letters and digits
+ * is packed on 6 bits per character, which gives a unique, non-zero long key.
+ */
+public class PlateNormalizer {
+
+    public static final int MAX_PACKED_LENGTH = 10;
+
+    /**
+     * Key returned by {@link #pack(String)} for plates that cannot be packed.
+     */
+    public static final long NOT_PACKABLE = 0;
+
+    private static final int BITS_PER_CHAR = 6;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private PlateNormalizer() {
+    }
+
+    /**
+     * Computes the canonical form of a vehicle registration number.
+     *
+     * @param vehicleRegNumber the raw vehicle registration number
+     * @return the plate in upper case without separators, or {@code null} if the input is {@code null}
+     */
+    public static String normalize(String vehicleRegNumber) {
+        if (vehicleRegNumber == null) {
+            return null;
+        }
+        StringBuilder canonical = new StringBuilder(vehicleRegNumber.length());
+        for (int i = 0; i < vehicleRegNumber.length(); i++) {
+            char c = vehicleRegNumber.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                canonical.append(c);
+            }
+        }
+        return canonical.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Packs a canonical plate into a long key.
+     *
+     * @param canonicalPlate a plate in canonical form
+     * @return the packed key, or {@link #NOT_PACKABLE} if the plate is empty, too long or holds
+     * characters other than ASCII letters and digits
+     */
+    public static long pack(String canonicalPlate) {
+        int length = canonicalPlate.length();
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return NOT_PACKABLE;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            char c = canonicalPlate.charAt(i);
+            int code;
+            if (c >= '0' && c <= '9') {
+                code = c - '0' + 1;
+            } else if (c >= 'A' && c <= 'Z') {
+                code = c - 'A' + 11;
+            } else {
+                return NOT_PACKABLE;
+            }
+            key = (key << BITS_PER_CHAR) | code;
+        }
+        return key;
+    }
+
+    /**
+     * Rebuilds the canonical plate of a packed key.
+     *
+     * @param key a key returned by {@link #pack(String)}
+     * @return the canonical plate
+     * @throws IllegalArgumentException if the key is {@link #NOT_PACKABLE}
+     */
+    public static String unpack(long key) {
+        if (key == NOT_PACKABLE) {
+            throw new IllegalArgumentException("Plate key is not packed");
+        }
+        char[] chars = new char[MAX_PACKED_LENGTH];
+        int start = MAX_PACKED_LENGTH;
+        while (key != 0) {
+            chars[--start] = ALPHABET[(int) (key & ((1 << BITS_PER_CHAR) - 1)) - 1];
+            key >>>= BITS_PER_CHAR;
+        }
+        return new String(chars, start, MAX_PACKED_LENGTH - start);
+    }
+}
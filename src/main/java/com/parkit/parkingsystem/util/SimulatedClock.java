@@ -0,0 +1,101 @@
+package com.parkit.parkingsystem.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Clock running on virtual time, which only moves when it is advanced. It lets simulations replay days of
+ * parking lot operations in seconds and makes time-dependent behaviour deterministic in tests.
+ * The current time may be read from any thread.
+ */
+public class SimulatedClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long millis;
+
+    /**
+     * Creates a clock stopped at the given instant.
+     *
+     * @param start the initial time
+     * @param zone the time zone of the clock
+     */
+    public SimulatedClock(Instant start, ZoneId zone) {
+        this(start.toEpochMilli(), zone);
+    }
+
+    private SimulatedClock(long millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param deltaMillis the duration to advance by, in milliseconds
+     * @throws IllegalArgumentException if the duration is negative
+     */
+    public synchronized void advance(long deltaMillis) {
+        if (deltaMillis < 0) {
+            throw new IllegalArgumentException("Simulated time cannot go backwards");
+        }
+        millis += deltaMillis;
+    }
+
+    /**
+     * Moves the clock forward to the given time.
+     *
+     * @param epochMillis the new time, in epoch milliseconds
+     * @throws IllegalArgumentException if the time is before the current time
+     */
+    public synchronized void advanceTo(long epochMillis) {
+        advance(epochMillis - millis);
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns a view of this clock in another time zone, sharing its virtual time.
+     *
+     * @param zone the time zone
+     * @return a clock that reads the same time in the given zone
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        SimulatedClock parent = this;
+        return new Clock() {
+            @Override
+            public long millis() {
+                return parent.millis();
+            }
+
+            @Override
+            public Instant instant() {
+                return parent.instant();
+            }
+
+            @Override
+            public ZoneId getZone() {
+                return zone;
+            }
+
+            @Override
+            public Clock withZone(ZoneId otherZone) {
+                return parent.withZone(otherZone);
+            }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Throughput and queue-depth counters of one stage of a pipeline.
+ * Counters are {@link LongAdder}s so that stage threads never contend when updating them.
+ */
+public class StageMetrics {
+
+    private final String name;
+    private final IntSupplier queueDepth;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private volatile int maxQueueDepth;
+
+    /**
+     * Creates the metrics of a stage.
+     *
+     * @param name the name of the stage
+     * @param queueDepth supplier of the current depth of the stage input queue
+     */
+    public StageMetrics(String name, IntSupplier queueDepth) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Records a batch of items processed by the stage.
+     *
+     * @param items the number of items of the batch
+     * @param nanos the time spent processing the batch
+     */
+    public void recordBatch(int items, long nanos) {
+        processed.add(items);
+        batches.increment();
+        busyNanos.add(nanos);
+    }
+
+    /**
+     * Records an item refused because the stage input queue was full.
+     */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Samples the depth of the stage input queue, keeping track of the highest depth seen.
+     *
+     * @return the current queue depth
+     */
+    public int sampleQueueDepth() {
+        int depth = queueDepth.getAsInt();
+        if (depth > maxQueueDepth) {
+            maxQueueDepth = depth;
+        }
+        return depth;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Returns the average number of items per batch, which grows when the stage falls behind.
+     *
+     * @return the average batch size, or 0 if no batch was processed
+     */
+    public double getAverageBatchSize() {
+        long nbBatch = batches.sum();
+        return (nbBatch == 0) ? 0 : (double) processed.sum() / nbBatch;
+    }
+
+    /**
+     * Returns the throughput of the stage while it was busy.
+     *
+     * @return the number of items processed per second of busy time, or 0 if nothing was processed
+     */
+    public double getThroughputPerSecond() {
+        long nanos = busyNanos.sum();
+        return (nanos == 0) ? 0 : processed.sum() * 1_000_000_000d / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": processed=" + getProcessed() + " batches=" + getBatches() + " rejected=" + getRejected()
+                + " queueDepth=" + getQueueDepth() + " maxQueueDepth=" + maxQueueDepth
+                + " avgBatch=" + String.format("%.1f", getAverageBatchSize())
+                + " throughput=" + String.format("%.0f/s", getThroughputPerSecond());
+    }
+}
@@ -0,0 +1,178 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketRowHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader of the columnar ticket files produced by {@link TicketColumnarWriter}.
+ * Each block is memory-mapped, so that analytics only touch the pages of the columns they scan
+ * and never need the database.
+ * <p>
+ * Within a block of n rows, after the block header, columns start at these byte offsets: id 0,
+ * parking number 4n, type 8n, plate code 9n, in-time 13n, stay 17n, price 21n.
+ */
+public class TicketColumnarReader implements Closeable {
+
+    private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+
+    private final FileChannel channel;
+    private final String[] plates;
+    private final MappedByteBuffer[] blocks;
+    private final int[] blockRowCounts;
+    private final long rowCount;
+
+    private TicketColumnarReader(FileChannel channel, String[] plates, MappedByteBuffer[] blocks, int[] blockRowCounts) {
+        this.channel = channel;
+        this.plates = plates;
+        this.blocks = blocks;
+        this.blockRowCounts = blockRowCounts;
+        long rows = 0;
+        for (int blockRowCount : blockRowCounts) {
+            rows += blockRowCount;
+        }
+        this.rowCount = rows;
+    }
+
+    /**
+     * Opens a columnar ticket file and maps its blocks.
+     *
+     * @param path the file to read
+     * @return the reader
+     * @throws IOException if the file cannot be read or is not a columnar ticket file
+     */
+    public static TicketColumnarReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 8);
+            if (size < 8 + 12 || header.getInt() != TicketColumnarWriter.MAGIC
+                    || header.getInt() != TicketColumnarWriter.VERSION) {
+                throw new IOException("Not a columnar ticket file:" + path);
+            }
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - 12, 12);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != TicketColumnarWriter.MAGIC) {
+                throw new IOException("Truncated columnar ticket file:" + path);
+            }
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, size - 12 - footerOffset);
+            String[] plates = new String[footer.getInt()];
+            for (int code = 0; code < plates.length; code++) {
+                byte[] plate = new byte[footer.getShort()];
+                footer.get(plate);
+                plates[code] = new String(plate, StandardCharsets.UTF_8);
+            }
+            int blockCount = footer.getInt();
+            MappedByteBuffer[] blocks = new MappedByteBuffer[blockCount];
+            int[] blockRowCounts = new int[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+                long offset = footer.getLong();
+                blockRowCounts[block] = footer.getInt();
+                blocks[block] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        TicketColumnarWriter.BLOCK_HEADER_BYTES + (long) blockRowCounts[block] * TicketColumnarWriter.ROW_BYTES);
+            }
+            return new TicketColumnarReader(channel, plates, blocks, blockRowCounts);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBlockCount() {
+        return blocks.length;
+    }
+
+    public int getPlateCount() {
+        return plates.length;
+    }
+
+    /**
+     * Returns the plate with the given dictionary code.
+     *
+     * @param code the code of the plate
+     * @return the vehicle registration number
+     */
+    public String getPlate(int code) {
+        return plates[code];
+    }
+
+    /**
+     * Decodes every row of the file, in the order they were written.
+     *
+     * @param handler the handler receiving each row
+     */
+    public void forEachRow(TicketRowHandler handler) {
+        for (int block = 0; block < blocks.length; block++) {
+            ByteBuffer data = blocks[block].duplicate();
+            int rows = blockRowCounts[block];
+            long baseInSeconds = data.getLong(4);
+            int base = TicketColumnarWriter.BLOCK_HEADER_BYTES;
+            for (int row = 0; row < rows; row++) {
+                long inTime = (baseInSeconds + data.getInt(base + 13 * rows + 4 * row)) * 1000;
+                int stay = data.getInt(base + 17 * rows + 4 * row);
+                handler.onRow(data.getInt(base + 4 * row),
+                        data.getInt(base + 4 * rows + 4 * row),
+                        PARKING_TYPES[data.get(base + 8 * rows + row)],
+                        plates[data.getInt(base + 9 * rows + 4 * row)],
+                        data.getInt(base + 21 * rows + 4 * row),
+                        inTime,
+                        (stay < 0) ? -1 : inTime + stay * 1000L);
+            }
+        }
+    }
+
+    /**
+     * Sums the price column of the whole file.
+     *
+     * @return the total price of all tickets, in cents
+     */
+    public long sumPriceCents() {
+        long total = 0;
+        for (int block = 0; block < blocks.length; block++) {
+            ByteBuffer data = blocks[block];
+            int rows = blockRowCounts[block];
+            int column = TicketColumnarWriter.BLOCK_HEADER_BYTES + 21 * rows;
+            for (int row = 0; row < rows; row++) {
+                total += data.getInt(column + 4 * row);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Counts the tickets that had no out-time when the file was written.
+     *
+     * @return the number of open tickets
+     */
+    public long countOpenTickets() {
+        long count = 0;
+        for (int block = 0; block < blocks.length; block++) {
+            ByteBuffer data = blocks[block];
+            int rows = blockRowCounts[block];
+            int column = TicketColumnarWriter.BLOCK_HEADER_BYTES + 17 * rows;
+            for (int row = 0; row < rows; row++) {
+                if (data.getInt(column + 4 * row) < 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
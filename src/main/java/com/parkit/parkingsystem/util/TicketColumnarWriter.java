@@ -0,0 +1,213 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writer of the compact columnar ticket file format read by {@link TicketColumnarReader}.
+ * <p>
+ * Rows are buffered in primitive arrays and flushed as blocks of fixed-width columns through a direct
+ * buffer, so that memory use stays bounded whatever the number of tickets. Plates are dictionary-encoded,
+ * in-times are stored in seconds as deltas from the first in-time of their block, out-times in seconds
+ * from the in-time and prices in cents.
+ * <p>
+ * Layout: header (magic, version), blocks, dictionary, block index, trailer (footer offset, magic).
+ */
+public class TicketColumnarWriter implements Closeable {
+
+    public static final int MAGIC = 0x504B5443;
+    public static final int VERSION = 1;
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Size in bytes of one row across all columns: id, parking number, type, plate code, in-time, stay, price.
+     */
+    static final int ROW_BYTES = 4 + 4 + 1 + 4 + 4 + 4 + 4;
+
+    /**
+     * Size in bytes of a block header: row count and base in-time.
+     */
+    static final int BLOCK_HEADER_BYTES = 4 + 8;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int blockSize;
+    private final PlateDictionary plateDictionary = new PlateDictionary();
+
+    private final int[] ids;
+    private final int[] parkingNumbers;
+    private final byte[] types;
+    private final int[] plateCodes;
+    private final long[] inTimes;
+    private final long[] outTimes;
+    private final int[] pricesCents;
+    private int rows;
+
+    private long[] blockOffsets = new long[16];
+    private int[] blockRowCounts = new int[16];
+    private int blockCount;
+    private long rowCount;
+
+    /**
+     * Creates the file, replacing any existing one, with the default block size.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be created
+     */
+    public TicketColumnarWriter(Path path) throws IOException {
+        this(path, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates the file, replacing any existing one.
+     *
+     * @param path the file to write
+     * @param blockSize the maximum number of rows per block
+     * @throws IOException if the file cannot be created
+     */
+    public TicketColumnarWriter(Path path, int blockSize) throws IOException {
+        this.blockSize = blockSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BLOCK_HEADER_BYTES + blockSize * ROW_BYTES);
+        this.ids = new int[blockSize];
+        this.parkingNumbers = new int[blockSize];
+        this.types = new byte[blockSize];
+        this.plateCodes = new int[blockSize];
+        this.inTimes = new long[blockSize];
+        this.outTimes = new long[blockSize];
+        this.pricesCents = new int[blockSize];
+        buffer.putInt(MAGIC).putInt(VERSION);
+        flushBuffer();
+    }
+
+    /**
+     * Appends a ticket row.
+     *
+     * @param id The ticket identifier.
+     * @param parkingNumber The parking spot number.
+     * @param parkingType The type of the parking spot.
+     * @param vehicleRegNumber The vehicle registration number.
+     * @param priceCents The price of the ticket, in cents.
+     * @param inTime The in-time, in epoch milliseconds.
+     * @param outTime The out-time, in epoch milliseconds, or -1 if the ticket is still open.
+     * @throws IOException if a block cannot be written
+     */
+    public void write(int id, int parkingNumber, ParkingType parkingType, String vehicleRegNumber,
+                      long priceCents, long inTime, long outTime) throws IOException {
+        ids[rows] = id;
+        parkingNumbers[rows] = parkingNumber;
+        types[rows] = (byte) parkingType.ordinal();
+        plateCodes[rows] = plateDictionary.encode(vehicleRegNumber);
+        inTimes[rows] = inTime;
+        outTimes[rows] = outTime;
+        pricesCents[rows] = Math.toIntExact(priceCents);
+        rows++;
+        rowCount++;
+        if (rows == blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Returns the number of rows written so far.
+     *
+     * @return the row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockCount == blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+            blockRowCounts = Arrays.copyOf(blockRowCounts, blockCount * 2);
+        }
+        blockOffsets[blockCount] = channel.position();
+        blockRowCounts[blockCount] = rows;
+        blockCount++;
+
+        long baseInSeconds = inTimes[0] / 1000;
+        buffer.putInt(rows).putLong(baseInSeconds);
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(ids[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(parkingNumbers[i]);
+        }
+        buffer.put(types, 0, rows);
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(plateCodes[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(Math.toIntExact(inTimes[i] / 1000 - baseInSeconds));
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt((outTimes[i] < 0) ? -1 : Math.toIntExact(outTimes[i] / 1000 - inTimes[i] / 1000));
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(pricesCents[i]);
+        }
+        flushBuffer();
+        rows = 0;
+    }
+
+    private void writeFooter() throws IOException {
+        long footerOffset = channel.position();
+        buffer.putInt(plateDictionary.size());
+        for (int code = 0; code < plateDictionary.size(); code++) {
+            byte[] plate = plateDictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+            ensureRemaining(2 + plate.length);
+            buffer.putShort((short) plate.length).put(plate);
+        }
+        ensureRemaining(4);
+        buffer.putInt(blockCount);
+        for (int block = 0; block < blockCount; block++) {
+            ensureRemaining(8 + 4);
+            buffer.putLong(blockOffsets[block]).putInt(blockRowCounts[block]);
+        }
+        ensureRemaining(8 + 4);
+        buffer.putLong(footerOffset).putInt(MAGIC);
+        flushBuffer();
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the last block, writes the dictionary and the block index, and closes the file.
+     *
+     * @throws IOException if the file cannot be completed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows > 0) {
+                writeBlock();
+            }
+            writeFooter();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.parkit.parkingsystem.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel scheduling timeouts in constant time.
+ * <p>
+ * Each level has 64 slots; a slot of level {@code l} spans {@code 64^l} ticks. A timeout is linked into the
+ * slot of the lowest level whose range covers its deadline, and timeouts of a higher level slot are cascaded
+ * down when the wheel reaches that slot. Scheduling and cancelling only link or unlink a node, and advancing
+ * the wheel only touches the slots of the elapsed ticks, so the cost does not depend on how many timeouts are
+ * pending. Deadlines beyond the range of the top level are parked in its farthest slot and re-examined when
+ * it is cascaded. This class is not thread-safe.
+ *
+ * @param <T> the type of the payload carried by the timeouts
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final Timeout<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * A scheduled timeout, linked in the slot it is waiting in.
+     *
+     * @param <T> the type of the payload
+     */
+    public static final class Timeout<T> {
+
+        private final T payload;
+        private long deadlineTick;
+        private int level = -1;
+        private int slot;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return level >= 0;
+        }
+    }
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the duration of a tick, which is the precision of the wheel
+     * @param levels the number of levels, covering {@code 64^levels} ticks
+     * @param startTime the current time, in epoch milliseconds
+     */
+    public TimingWheel(long tickMillis, int levels, long startTime) {
+        if (tickMillis <= 0 || levels < 1 || levels > 10) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = newSlots(levels);
+        this.currentTick = startTime / tickMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Timeout<T>[][] newSlots(int levels) {
+        return (Timeout<T>[][]) new Timeout<?>[levels][SLOTS];
+    }
+
+    /**
+     * Schedules a timeout. A deadline in the past expires on the next tick.
+     *
+     * @param payload the payload handed back on expiry
+     * @param deadline the expiry time, in epoch milliseconds
+     * @return the timeout, which can be cancelled
+     */
+    public Timeout<T> schedule(T payload, long deadline) {
+        Timeout<T> timeout = new Timeout<>(payload, 0);
+        reschedule(timeout, deadline);
+        return timeout;
+    }
+
+    /**
+     * Schedules again a timeout which has expired or has been cancelled, avoiding a new allocation.
+     *
+     * @param timeout the timeout to schedule again
+     * @param deadline the new expiry time, in epoch milliseconds
+     */
+    public void reschedule(Timeout<T> timeout, long deadline) {
+        cancel(timeout);
+        timeout.deadlineTick = Math.max(ceilDiv(deadline, tickMillis), currentTick + 1);
+        link(timeout);
+        size++;
+    }
+
+    /**
+     * Cancels a pending timeout.
+     *
+     * @param timeout the timeout to cancel
+     * @return {@code true} if the timeout was pending, {@code false} if it had already expired or been cancelled
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isPending()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to the given time, handing every timeout whose deadline has passed to the handler.
+     * The handler may schedule or reschedule timeouts.
+     *
+     * @param now the current time, in epoch milliseconds
+     * @param handler the handler receiving the expired timeouts
+     * @return the number of expired timeouts
+     */
+    public int advanceTo(long now, Consumer<Timeout<T>> handler) {
+        long targetTick = now / tickMillis;
+        int expired = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            int index = (int) (currentTick & SLOT_MASK);
+            for (int level = 1; index == 0 && level < levels; level++) {
+                index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                cascade(level, index);
+            }
+            int slot = (int) (currentTick & SLOT_MASK);
+            Timeout<T> timeout;
+            while ((timeout = slots[0][slot]) != null) {
+                unlink(timeout);
+                size--;
+                expired++;
+                handler.accept(timeout);
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the time the wheel has been advanced to.
+     *
+     * @return the start of the current tick, in epoch milliseconds
+     */
+    public long getCurrentTime() {
+        return currentTick * tickMillis;
+    }
+
+    private void cascade(int level, int index) {
+        Timeout<T> timeout;
+        while ((timeout = slots[level][index]) != null) {
+            unlink(timeout);
+            link(timeout);
+        }
+    }
+
+    private void link(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        long deadlineTick = timeout.deadlineTick;
+        while (level < levels - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        if (delta >= (1L << (SLOT_BITS * levels))) {
+            deadlineTick = currentTick + (1L << (SLOT_BITS * levels)) - 1;
+        }
+        int slot = (delta <= 0) ? (int) (currentTick & SLOT_MASK)
+                : (int) ((deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        Timeout<T> head = slots[level][slot];
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        slots[level][slot] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
@@ -0,0 +1,262 @@
+package com.parkit.parkingsystem.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sampled tracing of gate operations, telling where the time of one slow entry or exit went.
+ * <p>
+ * A gate operation opens a trace with {@link #startTrace(String)}; while it runs, the database accesses and fare
+ * computations made by the same thread open child spans with {@link #startSpan(String, String)}. Only a fraction
+ * of the operations are sampled: for the others, and whenever tracing is off, both methods return
+ * {@link #NOOP}, so an operation which is not sampled costs a volatile read and a thread-local lookup per span.
+ * <p>
+ * Finished spans of sampled operations are kept in a fixed-size ring buffer, the oldest being overwritten without
+ * lock, and are written on demand in the Chrome trace event format, which {@code chrome://tracing} and Perfetto
+ * open.
+ */
+public final class Tracer {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Span returned when the operation is not sampled, ending which records nothing.
+     */
+    public static final Span NOOP = new Span(null, null, null, 0, 0);
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    // Offset turning System.nanoTime() into nanoseconds since the epoch, for the exported timestamps
+    private static final long EPOCH_OFFSET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    private static volatile double sampleRate;
+    private static volatile Ring ring = new Ring(DEFAULT_CAPACITY);
+
+    /**
+     * Timed step of a traced operation.
+     */
+    public static final class Span {
+
+        private final Span parent;
+        private final String name;
+        private final String detail;
+        private final long traceId;
+        private final long spanId;
+        private final long threadId;
+        private final long startNanos;
+        private volatile long durationNanos = -1;
+
+        private Span(Span parent, String name, String detail, long traceId, long spanId) {
+            this.parent = parent;
+            this.name = name;
+            this.detail = detail;
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.threadId = Thread.currentThread().getId();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Ends the span, records it and makes its parent the current span of the thread again.
+         * Must be called by the thread which started the span.
+         * Ending a span twice, or ending {@link #NOOP}, does nothing.
+         */
+        public void end() {
+            if (this == NOOP || durationNanos >= 0) {
+                return;
+            }
+            durationNanos = System.nanoTime() - startNanos;
+            // Also unwinds the children left open by an exception, so that the thread does not stay traced
+            Span current = CURRENT.get();
+            if (current != null && current.traceId == traceId) {
+                CURRENT.set(parent);
+            }
+            ring.add(this);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the detail of the span, such as the name of the SQL query it runs.
+         *
+         * @return the detail, or {@code null} if the span has none
+         */
+        public String getDetail() {
+            return detail;
+        }
+
+        public long getTraceId() {
+            return traceId;
+        }
+
+        public long getSpanId() {
+            return spanId;
+        }
+
+        /**
+         * Returns the id of the span enclosing this one.
+         *
+         * @return the id of the parent span, or 0 for the root span of a trace
+         */
+        public long getParentId() {
+            return (parent == null) ? 0 : parent.spanId;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+    }
+
+    /**
+     * Fixed-size buffer of finished spans, overwritten oldest first.
+     */
+    private static final class Ring {
+
+        private final AtomicReferenceArray<Span> spans;
+        private final int mask;
+        private final AtomicLong next = new AtomicLong();
+
+        private Ring(int capacity) {
+            int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            this.spans = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        private void add(Span span) {
+            spans.set((int) (next.getAndIncrement() & mask), span);
+        }
+    }
+
+    private Tracer() {
+    }
+
+    /**
+     * Sets the fraction of gate operations traced and the number of spans kept, dropping the spans recorded so far.
+     *
+     * @param rate the fraction of operations traced, from 0 for none to 1 for all
+     * @param capacity the number of finished spans kept, rounded up to a power of two
+     */
+    public static void configure(double rate, int capacity) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + rate);
+        }
+        ring = new Ring(capacity);
+        sampleRate = rate;
+    }
+
+    /**
+     * Starts tracing a gate operation if it is sampled. Called within a traced operation, it opens a child span.
+     *
+     * @param name the name of the operation
+     * @return the root span, to end when the operation completes, or {@link #NOOP} if the operation is not sampled
+     */
+    public static Span startTrace(String name) {
+        double rate = sampleRate;
+        if (rate <= 0) {
+            return NOOP;
+        }
+        Span parent = CURRENT.get();
+        if (parent != null) {
+            return open(parent, name, null);
+        }
+        if (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            return NOOP;
+        }
+        return open(null, name, null);
+    }
+
+    /**
+     * Starts a child span of the operation traced by the current thread.
+     *
+     * @param name the name of the step, such as the called method
+     * @param detail the detail of the step, such as the name of the SQL query, or {@code null}
+     * @return the span, to end when the step completes, or {@link #NOOP} if the thread traces no operation
+     */
+    public static Span startSpan(String name, String detail) {
+        if (sampleRate <= 0) {
+            return NOOP;
+        }
+        Span parent = CURRENT.get();
+        return (parent == null) ? NOOP : open(parent, name, detail);
+    }
+
+    private static Span open(Span parent, String name, String detail) {
+        long spanId = NEXT_ID.incrementAndGet();
+        Span span = new Span(parent, name, detail, (parent == null) ? spanId : parent.traceId, spanId);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Returns the finished spans still in the buffer, oldest first.
+     *
+     * @return the spans
+     */
+    public static List<Span> getSpans() {
+        Ring current = ring;
+        List<Span> spans = new ArrayList<>();
+        for (int i = 0; i < current.spans.length(); i++) {
+            Span span = current.spans.get(i);
+            if (span != null) {
+                spans.add(span);
+            }
+        }
+        spans.sort(Comparator.comparingLong(span -> span.startNanos));
+        return spans;
+    }
+
+    /**
+     * Writes the finished spans still in the buffer to a file in the Chrome trace event format.
+     *
+     * @param path the file to write, replaced if it exists
+     * @return the number of spans written
+     * @throws IOException if the file cannot be written
+     */
+    public static int export(Path path) throws IOException {
+        List<Span> spans = getSpans();
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            for (int i = 0; i < spans.size(); i++) {
+                Span span = spans.get(i);
+                writer.write((i == 0) ? "\n" : ",\n");
+                writer.write("{\"name\":\"" + escape(span.name) + "\",\"cat\":\"parkit\",\"ph\":\"X\""
+                        + ",\"ts\":" + TimeUnit.NANOSECONDS.toMicros(span.startNanos + EPOCH_OFFSET_NANOS)
+                        + ",\"dur\":" + TimeUnit.NANOSECONDS.toMicros(span.durationNanos)
+                        + ",\"pid\":1,\"tid\":" + span.threadId
+                        + ",\"args\":{\"traceId\":" + span.traceId + ",\"spanId\":" + span.spanId
+                        + ",\"parentId\":" + span.getParentId()
+                        + ((span.detail == null) ? "" : ",\"sql\":\"" + escape(span.detail) + "\"") + "}}");
+            }
+            writer.write("\n]}\n");
+        }
+        return spans.size();
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < ' ') {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ImportReport;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.TicketBatch;
+import com.parkit.parkingsystem.service.BulkImportService;
+import com.parkit.parkingsystem.util.TicketColumnarWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for the BulkImportService class.
+ * These tests validate that rows are validated, split into batches written by several workers, and counted.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BulkImportServiceTest {
+
+    @Mock
+    private static TicketDAO ticketDAO;
+    @Mock
+    private static ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private static DataBaseConfig dataBaseConfig;
+    @Mock
+    private static Connection connection;
+
+    private BulkImportService bulkImportService;
+    private List<String> plates;
+    private Path file;
+
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        ticketDAO.dataBaseConfig = dataBaseConfig;
+        when(dataBaseConfig.getConnection()).thenReturn(connection);
+        bulkImportService = new BulkImportService(ticketDAO, parkingSpotDAO, 3, 100);
+        plates = Collections.synchronizedList(new ArrayList<>());
+        file = Files.createTempFile("import", ".csv");
+    }
+
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    private void recordTicketBatches() {
+        when(ticketDAO.bulkInsertTickets(any(Connection.class), any(TicketBatch.class))).thenAnswer(invocation -> {
+            TicketBatch batch = invocation.getArgument(1);
+            for (int row = 0; row < batch.size(); row++) {
+                plates.add(batch.getVehicleRegNumber(row));
+            }
+            return batch.size();
+        });
+    }
+
+    /**
+     * Test case to validate that a CSV file is imported in batches, with invalid rows rejected
+     * and every worker connection closed.
+     */
+    @Test
+    public void importTicketsFromCsv() throws Exception {
+        recordTicketBatches();
+        List<String> lines = new ArrayList<>();
+        lines.add("PARKING_NUMBER,VEHICLE_REG_NUMBER,PRICE,IN_TIME,OUT_TIME");
+        for (int i = 0; i < 250; i++) {
+            lines.add("1,ab-" + i + ",1.5,2023-01-01 10:00:00,2023-01-01 11:00:00");
+        }
+        lines.add("2,OPEN,0,2023-01-01 10:00:00,");
+        lines.add("0,ZERO,1,2023-01-01 10:00:00,");
+        lines.add("3,BACKWARDS,1,2023-01-01 10:00:00,2023-01-01 09:00:00");
+        lines.add("4,TOOLONGPLATE1,1,2023-01-01 10:00:00,");
+        lines.add("5,NOTIME,1,yesterday,");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        ImportReport report = bulkImportService.importTickets(file);
+
+        assertThat(report.getRowsRead()).isEqualTo(255);
+        assertThat(report.getRowsImported()).isEqualTo(251);
+        assertThat(report.getRowsRejected()).isEqualTo(4);
+        assertThat(report.getRowsFailed()).isZero();
+        assertThat(plates).hasSize(251).contains("AB0", "AB249", "OPEN");
+        verify(ticketDAO, times(3)).bulkInsertTickets(any(Connection.class), any(TicketBatch.class));
+        verify(dataBaseConfig, times(3)).closeConnection(connection);
+    }
+
+    /**
+     * Test case to validate that a batch refused by the database is counted as failed.
+     */
+    @Test
+    public void importTicketsWithFailedBatch() throws Exception {
+        when(ticketDAO.bulkInsertTickets(any(Connection.class), any(TicketBatch.class))).thenReturn(-1);
+        Files.write(file, Collections.singletonList("1,ABCDEF,1.5,2023-01-01 10:00:00,"), StandardCharsets.UTF_8);
+
+        ImportReport report = bulkImportService.importTickets(file);
+
+        assertThat(report.getRowsImported()).isZero();
+        assertThat(report.getRowsFailed()).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that a columnar ticket file is imported without going through CSV parsing.
+     */
+    @Test
+    public void importColumnarTickets() throws Exception {
+        recordTicketBatches();
+        long inTime = 1700000000000L;
+        try (TicketColumnarWriter writer = new TicketColumnarWriter(file, 64)) {
+            for (int i = 0; i < 150; i++) {
+                writer.write(i + 1, 1, ParkingType.CAR, "PLATE" + i, 150, inTime, inTime + 3600000);
+            }
+        }
+
+        ImportReport report = bulkImportService.importColumnarTickets(file);
+
+        assertThat(report.getRowsRead()).isEqualTo(150);
+        assertThat(report.getRowsImported()).isEqualTo(150);
+        assertThat(plates).hasSize(150).contains("PLATE0", "PLATE149");
+    }
+
+    /**
+     * Test case to validate that parking spots are imported with their availability and type.
+     */
+    @Test
+    public void importParkingSpots() throws Exception {
+        List<ParkingSpot> parkingSpots = Collections.synchronizedList(new ArrayList<>());
+        when(parkingSpotDAO.bulkInsertParkingSpots(any(Connection.class), anyList())).thenAnswer(invocation -> {
+            List<ParkingSpot> batch = invocation.getArgument(1);
+            parkingSpots.addAll(batch);
+            return batch.size();
+        });
+        Files.write(file, Arrays.asList("PARKING_NUMBER,AVAILABLE,TYPE", "1,true,CAR", "2,0,bike",
+                "3,maybe,CAR", "4,1,TRUCK"), StandardCharsets.UTF_8);
+
+        ImportReport report = bulkImportService.importParkingSpots(file);
+
+        assertThat(report.getRowsImported()).isEqualTo(2);
+        assertThat(report.getRowsRejected()).isEqualTo(2);
+        assertThat(parkingSpots).containsExactlyInAnyOrder(new ParkingSpot(1, ParkingType.CAR, true),
+                new ParkingSpot(2, ParkingType.BIKE, false));
+    }
+}
@@ -0,0 +1,123 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseAccessScheduler;
+import com.parkit.parkingsystem.config.DataBaseAccessScheduler.Priority;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.load.EmbeddedDataBaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for the DataBaseAccessScheduler class.
+ * These tests validate that waiting connections are granted by priority class in proportion to the class weights,
+ * that the concurrency limit of a class holds while other classes still get connections, and that connections
+ * open through a scheduled database configuration are given back when closed.
+ */
+public class DataBaseAccessSchedulerTest {
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        DataBaseAccessScheduler.setPriority(Priority.BACKGROUND);
+    }
+
+    /**
+     * Test case to validate that, on a saturated database, the exit goes first and entries get four connections
+     * for each connection of the background work, which is not starved.
+     */
+    @Test
+    public void grantWaitingConnectionsByWeight() throws Exception {
+        DataBaseAccessScheduler scheduler = new DataBaseAccessScheduler(1, 10000);
+        List<Priority> grants = Collections.synchronizedList(new ArrayList<>());
+        DataBaseAccessScheduler.setPriority(Priority.ENTRY);
+        Priority held = scheduler.acquire();
+        for (int i = 0; i < 6; i++) {
+            queue(scheduler, Priority.BACKGROUND, grants);
+            queue(scheduler, Priority.ENTRY, grants);
+        }
+        queue(scheduler, Priority.EXIT, grants);
+        while (scheduler.getNbWaiting(Priority.BACKGROUND) + scheduler.getNbWaiting(Priority.ENTRY)
+                + scheduler.getNbWaiting(Priority.EXIT) < 13) {
+            Thread.sleep(1);
+        }
+
+        scheduler.release(held);
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        assertThat(grants).hasSize(13);
+        assertThat(grants.subList(0, 11)).containsExactly(Priority.EXIT, Priority.ENTRY, Priority.ENTRY,
+                Priority.ENTRY, Priority.BACKGROUND, Priority.ENTRY, Priority.ENTRY, Priority.ENTRY,
+                Priority.BACKGROUND, Priority.BACKGROUND, Priority.BACKGROUND);
+        assertThat(scheduler.getNbActive(Priority.ENTRY)).isZero();
+    }
+
+    /**
+     * Test case to validate that background work cannot take more connections than its limit and times out,
+     * while an exit still opens a connection, and that closing connections gives them back.
+     */
+    @Test
+    public void limitBackgroundConnections() throws Exception {
+        EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("scheduler" + System.nanoTime(), 2, 1);
+        try {
+            DataBaseAccessScheduler scheduler = new DataBaseAccessScheduler(4, 50);
+            dataBaseConfig.setAccessScheduler(scheduler);
+            ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+            parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+
+            Connection report = dataBaseConfig.getConnection();
+            assertThatThrownBy(dataBaseConfig::getConnection).isInstanceOf(SQLException.class);
+            assertThat(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(-1);
+            DataBaseAccessScheduler.setPriority(Priority.EXIT);
+            assertThat(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(1);
+            Connection exit = dataBaseConfig.getConnection();
+            assertThat(scheduler.getNbActive(Priority.EXIT)).isEqualTo(1);
+            assertThat(scheduler.getNbActive(Priority.BACKGROUND)).isEqualTo(1);
+
+            dataBaseConfig.closeConnection(exit);
+            dataBaseConfig.closeConnection(report);
+            assertThat(scheduler.getNbActive(Priority.EXIT)).isZero();
+            assertThat(scheduler.getNbActive(Priority.BACKGROUND)).isZero();
+            DataBaseAccessScheduler.setPriority(Priority.BACKGROUND);
+            assertThat(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(1);
+        } finally {
+            dataBaseConfig.shutdown();
+        }
+    }
+
+    private void queue(DataBaseAccessScheduler scheduler, Priority priority, List<Priority> grants)
+            throws InterruptedException {
+        int nbWaiting = scheduler.getNbWaiting(priority);
+        Thread thread = new Thread(() -> {
+            DataBaseAccessScheduler.setPriority(priority);
+            try {
+                Priority granted = scheduler.acquire();
+                grants.add(granted);
+                scheduler.release(granted);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        threads.add(thread);
+        thread.start();
+        // Queue in a known order
+        while (scheduler.getNbWaiting(priority) == nbWaiting) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.load.EmbeddedDataBaseConfig;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.RateSnapshot;
+import com.parkit.parkingsystem.model.SpotStateTable;
+import com.parkit.parkingsystem.model.SurgeBand;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.DynamicPricingService;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Unit tests for the DynamicPricingService class.
+ * These tests validate that rates follow the surge bands reached by occupancy, are only republished when a band
+ * changes, and that a ticket is charged the rate it entered under.
+ */
+public class DynamicPricingServiceTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private SpotStateTable spotStateTable;
+    private DynamicPricingService dynamicPricingService;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        for (int number = 1; number <= 12; number++) {
+            parkingSpots.add(new ParkingSpot(number, (number <= 10) ? ParkingType.CAR : ParkingType.BIKE, true));
+        }
+        spotStateTable = new SpotStateTable(parkingSpots);
+        dynamicPricingService = new DynamicPricingService(SurgeBand.parse("95:200, 85:150"), spotStateTable);
+    }
+
+    /**
+     * Test case to validate that the rate of a type follows its occupancy band, up and down, without affecting
+     * the other types.
+     */
+    @Test
+    public void ratesFollowOccupancyBands() {
+        RateSnapshot base = dynamicPricingService.getCurrentRates();
+        for (int i = 0; i < 8; i++) {
+            spotStateTable.acquire(ParkingType.CAR);
+        }
+        assertThat(dynamicPricingService.refresh()).isSameAs(base);
+
+        spotStateTable.acquire(ParkingType.CAR);
+        RateSnapshot surge = dynamicPricingService.refresh();
+        spotStateTable.acquire(ParkingType.CAR);
+        RateSnapshot full = dynamicPricingService.refresh();
+        spotStateTable.release(10);
+        spotStateTable.release(9);
+        dynamicPricingService.onSpotReleased(spotStateTable.getSpot(9), 0);
+        RateSnapshot after = dynamicPricingService.getCurrentRates();
+
+        assertThat(base.getRatePerHourCents(ParkingType.CAR)).isEqualTo(150);
+        assertThat(surge.getRatePerHourCents(ParkingType.CAR)).isEqualTo(225);
+        assertThat(surge.getRatePercent(ParkingType.CAR)).isEqualTo(150);
+        assertThat(full.getRatePerHourCents(ParkingType.CAR)).isEqualTo(300);
+        assertThat(full.getRatePerHourCents(ParkingType.BIKE)).isEqualTo(100);
+        assertThat(after.getRatePerHourCents(ParkingType.CAR)).isEqualTo(150);
+        assertThat(after.getVersion()).isEqualTo(3);
+    }
+
+    /**
+     * Test case to validate that the rate in force at entry is saved with the ticket and charged at exit,
+     * whatever the rates at exit.
+     */
+    @Test
+    public void ticketKeepsEntryRate() throws Exception {
+        FareCalculatorService fareCalculatorService = new FareCalculatorService();
+        fareCalculatorService.setDynamicPricingService(dynamicPricingService);
+        for (int i = 0; i < 9; i++) {
+            spotStateTable.acquire(ParkingType.CAR);
+        }
+        dynamicPricingService.refresh();
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber("ABCDEF");
+        ticket.setInTime(new Date(System.currentTimeMillis() - HOUR));
+        ticket.setRatePerHourCents(fareCalculatorService.getRatePerHourCents(ParkingType.CAR));
+
+        EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("pricing" + System.nanoTime(), 10, 2);
+        try {
+            TicketDAO ticketDAO = new TicketDAO();
+            ticketDAO.dataBaseConfig = dataBaseConfig;
+            ticketDAO.saveTicket(ticket);
+            for (int number = 1; number <= 9; number++) {
+                spotStateTable.release(number);
+            }
+            dynamicPricingService.refresh();
+            Ticket saved = ticketDAO.getTicket("ABCDEF");
+            saved.setOutTime(new Date(saved.getInTime().getTime() + HOUR));
+            fareCalculatorService.calculateFare(saved);
+
+            assertThat(fareCalculatorService.getRatePerHourCents(ParkingType.CAR)).isEqualTo(150);
+            assertThat(saved.getRatePerHourCents()).isEqualTo(225);
+            assertThat(saved.getPriceCents()).isEqualTo(225);
+        } finally {
+            dataBaseConfig.shutdown();
+        }
+    }
+}
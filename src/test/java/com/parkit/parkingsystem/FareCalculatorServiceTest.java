@@ -136,7 +136,7 @@ public class FareCalculatorServiceTest {
         ticket.setOutTime(outTime);
         ticket.setParkingSpot(parkingSpot);
         fareCalculatorService.calculateFare(ticket);
-        assertEquals( (0.75 * Fare.CAR_RATE_PER_HOUR) , ticket.getPrice());
+        assertEquals(113, ticket.getPriceCents());//112.5 cents rounded half up
     }
 
     /**
@@ -209,7 +209,7 @@ public class FareCalculatorServiceTest {
         ticket.setOutTime(outTime);
         ticket.setParkingSpot(parkingSpot);
         fareCalculatorService.calculateFare(ticket);
-        assertEquals((2 * Fare.CAR_RATE_PER_HOUR * Fare.DISCOUNT_RATE), ticket.getPrice());
+        assertEquals((2 * Fare.CAR_RATE_PER_HOUR_CENTS * Fare.DISCOUNT_PERCENT / 100), ticket.getPriceCents());
     }
     
     /**
@@ -228,9 +228,28 @@ public class FareCalculatorServiceTest {
         ticket.setOutTime(outTime);
         ticket.setParkingSpot(parkingSpot);
         fareCalculatorService.calculateFare(ticket);
-        assertEquals((2 * Fare.BIKE_RATE_PER_HOUR * Fare.DISCOUNT_RATE), ticket.getPrice());
+        assertEquals((2 * Fare.BIKE_RATE_PER_HOUR_CENTS * Fare.DISCOUNT_PERCENT / 100), ticket.getPriceCents());
     }
-    
-    
 
+    /**
+     * Test case to validate that the fare is computed in exact cents, rounded once and half up,
+     * even when the discount applies to a fractional price.
+     */
+    @Test
+    public void calculateFareInExactCents() {
+        Date inTime = new Date(1700000000000L);
+        Date outTime = new Date(inTime.getTime() + (61 * 60 * 1000));//61 minutes give 152.5 cents, 144.875 with the discount
+        ParkingSpot parkingSpot = new ParkingSpot(1, ParkingType.CAR,false);
+
+        ticket.setInTime(inTime);
+        ticket.setOutTime(outTime);
+        ticket.setParkingSpot(parkingSpot);
+        fareCalculatorService.calculateFare(ticket);
+        assertEquals(153, ticket.getPriceCents());
+        assertEquals(1.53, ticket.getPrice());
+
+        ticket.setDiscount(true);
+        fareCalculatorService.calculateFare(ticket);
+        assertEquals(145, ticket.getPriceCents());
+    }
 }
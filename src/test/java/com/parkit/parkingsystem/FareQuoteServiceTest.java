@@ -0,0 +1,116 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.FareQuote;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareQuoteService;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Unit tests for the FareQuoteService class.
+ * These tests validate that open tickets are quoted without being modified, and that polling within a pricing
+ * bucket, or across buckets, does not query the database again.
+ */
+@ExtendWith(MockitoExtension.class)
+public class FareQuoteServiceTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final long IN_TIME = Instant.parse("2024-03-01T08:00:00Z").toEpochMilli();
+
+    @Mock
+    private static TicketDAO ticketDAO;
+
+    private SimulatedClock clock;
+    private FareQuoteService fareQuoteService;
+    private Ticket ticket;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        clock = new SimulatedClock(Instant.ofEpochMilli(IN_TIME + 90 * MINUTE + 10 * 1000), ZoneOffset.UTC);
+        fareQuoteService = new FareQuoteService(ticketDAO, clock, FareQuoteService.DEFAULT_BUCKET_MILLIS);
+        ticket = new Ticket();
+        ticket.setId(12);
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber("ABCDEF");
+        ticket.setInTime(new Date(IN_TIME));
+    }
+
+    /**
+     * Test case to validate that polling within a bucket returns the cached quote, and that the next bucket
+     * is priced from the cached ticket, without modifying it.
+     */
+    @Test
+    public void quoteOpenTicketFromCache() {
+        when(ticketDAO.getTicket("ABCDEF")).thenReturn(ticket);
+        when(ticketDAO.getNbTicket("ABCDEF")).thenReturn(1);
+
+        FareQuote quote = fareQuoteService.quote("ab-cdef");
+        clock.advance(30 * 1000);
+        FareQuote again = fareQuoteService.quote("ABCDEF");
+        clock.advance(30 * MINUTE);
+        FareQuote later = fareQuoteService.quote("ABCDEF");
+
+        assertThat(quote.getPriceCents()).isEqualTo(225);
+        assertThat(quote.getAsOfTime()).isEqualTo(IN_TIME + 90 * MINUTE);
+        assertThat(again).isSameAs(quote);
+        assertThat(later.getPriceCents()).isEqualTo(300);
+        verify(ticketDAO, times(1)).getTicket("ABCDEF");
+        verify(ticketDAO, times(1)).getNbTicket("ABCDEF");
+        assertThat(ticket.getOutTime()).isNull();
+        assertThat(ticket.getPriceCents()).isZero();
+    }
+
+    /**
+     * Test case to validate that the exit of the vehicle drops its cached ticket, and that a vehicle without
+     * open ticket gets no quote.
+     */
+    @Test
+    public void exitDropsCachedTicket() {
+        when(ticketDAO.getTicket("ABCDEF")).thenReturn(ticket);
+        when(ticketDAO.getNbTicket("ABCDEF")).thenReturn(2);
+        assertThat(fareQuoteService.quote("ABCDEF").getPriceCents()).isEqualTo(214);
+
+        ticket.setOutTime(new Date(clock.millis()));
+        fareQuoteService.onVehicleExited(ticket);
+
+        assertThat(fareQuoteService.getCachedCount()).isZero();
+        assertThat(fareQuoteService.quote("ABCDEF")).isNull();
+        verify(ticketDAO, times(2)).getTicket("ABCDEF");
+    }
+
+    /**
+     * Test case to validate that a vehicle leaving while its open ticket is fetched for a first quote
+     * does not leave that ticket cached.
+     */
+    @Test
+    public void exitDuringFirstQuoteIsNotCached() {
+        doAnswer(invocation -> {
+            Ticket closed = new Ticket();
+            closed.setVehicleRegNumber("ABCDEF");
+            closed.setOutTime(new Date(clock.millis()));
+            fareQuoteService.onVehicleExited(closed);
+            return ticket;
+        }).when(ticketDAO).getTicket("ABCDEF");
+        when(ticketDAO.getNbTicket("ABCDEF")).thenReturn(1);
+
+        assertThat(fareQuoteService.quote("ABCDEF").getPriceCents()).isEqualTo(225);
+        assertThat(fareQuoteService.getCachedCount()).isZero();
+    }
+}
@@ -0,0 +1,338 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.GateRequest;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.GatePipeline;
+import com.parkit.parkingsystem.service.ParkingEventListener;
+import com.parkit.parkingsystem.util.BoundedRingQueue;
+import com.parkit.parkingsystem.util.StageMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the GatePipeline class and its BoundedRingQueue.
+ * These tests validate spot allocation, batched persistence, exits releasing spots and back-pressure.
+ */
+@ExtendWith(MockitoExtension.class)
+public class GatePipelineTest {
+
+    @Mock
+    private static ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private static TicketDAO ticketDAO;
+
+    private GatePipeline gatePipeline;
+    private Map<String, GateRequest> completed;
+    private CountDownLatch latch;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        completed = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    private void tearDownPerTest() throws InterruptedException {
+        if (gatePipeline != null) {
+            gatePipeline.stop();
+        }
+    }
+
+    private void startPipeline(int queueCapacity, int expectedRequests) {
+        latch = new CountDownLatch(expectedRequests);
+        gatePipeline = new GatePipeline(parkingSpotDAO, ticketDAO, queueCapacity, 16);
+        gatePipeline.setCompletionHandler(request -> {
+            completed.put(request.getInput(), request);
+            latch.countDown();
+        });
+        gatePipeline.start();
+    }
+
+    /**
+     * Test case to validate that entries get the lowest free spot of their type,
+     * and that full types and invalid input are rejected without reaching the database.
+     */
+    @Test
+    public void allocateSpotsToEntries() throws InterruptedException {
+        when(parkingSpotDAO.getParkingSpots()).thenReturn(Arrays.asList(
+                new ParkingSpot(1, ParkingType.CAR, true), new ParkingSpot(2, ParkingType.CAR, true),
+                new ParkingSpot(3, ParkingType.CAR, false), new ParkingSpot(4, ParkingType.BIKE, true)));
+        when(parkingSpotDAO.updateParkings(anyList())).thenReturn(true);
+        when(ticketDAO.saveTickets(anyList())).thenReturn(true);
+        AtomicInteger entered = new AtomicInteger();
+        startPipeline(GatePipeline.DEFAULT_QUEUE_CAPACITY, 5);
+        gatePipeline.addParkingEventListener(new ParkingEventListener() {
+            @Override
+            public void onVehicleEntered(Ticket ticket) {
+                entered.incrementAndGet();
+            }
+
+            @Override
+            public void onVehicleExited(Ticket ticket) {
+            }
+        });
+
+        for (String input : new String[] {"IN CAR AAA111", "IN CAR bb-b 222", "IN CAR CCC333", "IN TRUCK X", "IN BIKE DDD444"}) {
+            assertThat(gatePipeline.submit(input)).isTrue();
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed.get("IN CAR AAA111").getParkingSpot().getId()).isEqualTo(1);
+        assertThat(completed.get("IN CAR bb-b 222").getTicket().getVehicleRegNumber()).isEqualTo("BBB222");
+        assertThat(completed.get("IN CAR bb-b 222").getParkingSpot().getId()).isEqualTo(2);
+        assertThat(completed.get("IN CAR CCC333").getStatus()).isEqualTo(GateRequest.Status.REJECTED);
+        assertThat(completed.get("IN TRUCK X").getStatus()).isEqualTo(GateRequest.Status.REJECTED);
+        assertThat(completed.get("IN BIKE DDD444").getStatus()).isEqualTo(GateRequest.Status.ACCEPTED);
+        assertThat(completed.get("IN BIKE DDD444").getParkingSpot().getId()).isEqualTo(4);
+        assertThat(entered.get()).isEqualTo(3);
+
+        gatePipeline.stop();
+        List<StageMetrics> metrics = gatePipeline.getStageMetrics();
+        assertThat(metrics.get(0).getProcessed()).isEqualTo(5);
+        assertThat(metrics.get(2).getProcessed()).isEqualTo(3);
+    }
+
+    /**
+     * Test case to validate that an exit closes the ticket and makes its spot available to the next entry,
+     * without changing the spot of the ticket.
+     */
+    @Test
+    public void exitReleasesSpot() throws InterruptedException {
+        when(parkingSpotDAO.getParkingSpots()).thenReturn(
+                Collections.singletonList(new ParkingSpot(1, ParkingType.CAR, false)));
+        Ticket ticket = new Ticket();
+        ticket.setId(7);
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber("AAA111");
+        ticket.setInTime(new Date(System.currentTimeMillis() - 60 * 60 * 1000));
+        when(ticketDAO.getTicket("AAA111")).thenReturn(ticket);
+        when(ticketDAO.getNbTicket("AAA111")).thenReturn(1);
+        when(ticketDAO.closeTickets(anyList())).thenReturn(new boolean[] {true});
+        when(parkingSpotDAO.updateParkings(anyList())).thenReturn(true);
+        when(ticketDAO.saveTickets(anyList())).thenReturn(true);
+        startPipeline(GatePipeline.DEFAULT_QUEUE_CAPACITY, 2);
+
+        gatePipeline.submit("OUT AAA111");
+        gatePipeline.submit("OUT ZZZ999");
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed.get("OUT AAA111").getStatus()).isEqualTo(GateRequest.Status.ACCEPTED);
+        assertThat(completed.get("OUT AAA111").getTicket().getPrice()).isGreaterThan(0);
+        assertThat(completed.get("OUT ZZZ999").getStatus()).isEqualTo(GateRequest.Status.REJECTED);
+        // The spot of the ticket may be shared with a spot state table: only a free copy is stored
+        assertThat(ticket.getParkingSpot().isAvailable()).isFalse();
+        verify(parkingSpotDAO).updateParkings(argThat((List<ParkingSpot> parkingSpots) ->
+                parkingSpots.size() == 1 && parkingSpots.get(0).getId() == 1 && parkingSpots.get(0).isAvailable()));
+
+        latch = new CountDownLatch(1);
+        gatePipeline.submit("IN CAR BBB222");
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed.get("IN CAR BBB222").getParkingSpot().getId()).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that two exits of the same vehicle close its ticket and release its spot only once,
+     * whether they are persisted in the same batch or not.
+     */
+    @Test
+    public void duplicateExitReleasesSpotOnce() throws InterruptedException {
+        when(parkingSpotDAO.getParkingSpots()).thenReturn(
+                Collections.singletonList(new ParkingSpot(1, ParkingType.CAR, false)));
+        when(ticketDAO.getTicket("AAA111")).thenAnswer(invocation -> {
+            Ticket ticket = new Ticket();
+            ticket.setId(7);
+            ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+            ticket.setVehicleRegNumber("AAA111");
+            ticket.setInTime(new Date(System.currentTimeMillis() - 60 * 60 * 1000));
+            return ticket;
+        });
+        when(ticketDAO.getNbTicket("AAA111")).thenReturn(1);
+        AtomicBoolean open = new AtomicBoolean(true);
+        when(ticketDAO.closeTickets(anyList())).thenAnswer(invocation -> {
+            boolean[] closed = new boolean[invocation.<List<?>>getArgument(0).size()];
+            for (int i = 0; i < closed.length; i++) {
+                closed[i] = open.getAndSet(false);
+            }
+            return closed;
+        });
+        when(parkingSpotDAO.updateParkings(anyList())).thenReturn(true);
+        AtomicInteger released = new AtomicInteger();
+        startPipeline(GatePipeline.DEFAULT_QUEUE_CAPACITY, 2);
+        gatePipeline.addParkingEventListener(new ParkingEventListener() {
+            @Override
+            public void onVehicleEntered(Ticket ticket) {
+            }
+
+            @Override
+            public void onVehicleExited(Ticket ticket) {
+            }
+
+            @Override
+            public void onSpotReleased(ParkingSpot parkingSpot, long releaseTime) {
+                released.incrementAndGet();
+            }
+        });
+
+        gatePipeline.submit("OUT AAA111");
+        gatePipeline.submit("OUT aaa-111");
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed.values()).extracting(GateRequest::getStatus)
+                .containsExactlyInAnyOrder(GateRequest.Status.ACCEPTED, GateRequest.Status.REJECTED);
+        assertThat(released.get()).isEqualTo(1);
+        verify(parkingSpotDAO, times(1)).updateParkings(anyList());
+    }
+
+    /**
+     * Test case to validate that a vehicle leaving and entering again within one persistence batch has its ticket
+     * closed before its new ticket is saved.
+     */
+    @Test
+    public void exitThenEntryInOneBatchKeepsArrivalOrder() throws InterruptedException {
+        when(parkingSpotDAO.getParkingSpots()).thenReturn(Arrays.asList(new ParkingSpot(1, ParkingType.CAR, true),
+                new ParkingSpot(2, ParkingType.CAR, false), new ParkingSpot(3, ParkingType.CAR, true)));
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(2, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber("AAA111");
+        ticket.setInTime(new Date(System.currentTimeMillis() - 60 * 60 * 1000));
+        when(ticketDAO.getTicket("AAA111")).thenReturn(ticket);
+        when(ticketDAO.getNbTicket("AAA111")).thenReturn(1);
+        when(ticketDAO.closeTickets(anyList())).thenReturn(new boolean[] {true});
+        CountDownLatch databaseCalled = new CountDownLatch(1);
+        CountDownLatch databaseStalled = new CountDownLatch(1);
+        when(parkingSpotDAO.updateParkings(anyList())).thenAnswer(invocation -> {
+            databaseCalled.countDown();
+            return databaseStalled.await(5, TimeUnit.SECONDS);
+        });
+        when(ticketDAO.saveTickets(anyList())).thenReturn(true);
+        startPipeline(GatePipeline.DEFAULT_QUEUE_CAPACITY, 3);
+
+        gatePipeline.submit("IN CAR FIRST");
+        assertThat(databaseCalled.await(5, TimeUnit.SECONDS)).isTrue();
+        gatePipeline.submit("OUT AAA111");
+        gatePipeline.submit("IN CAR AAA111");
+        while (gatePipeline.getStageMetrics().get(1).getProcessed() < 3) {
+            Thread.sleep(1);
+        }
+        databaseStalled.countDown();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed.get("OUT AAA111").getStatus()).isEqualTo(GateRequest.Status.ACCEPTED);
+        assertThat(completed.get("IN CAR AAA111").getStatus()).isEqualTo(GateRequest.Status.ACCEPTED);
+        InOrder inOrder = inOrder(ticketDAO);
+        inOrder.verify(ticketDAO).saveTickets(anyList());
+        inOrder.verify(ticketDAO).closeTickets(anyList());
+        inOrder.verify(ticketDAO).saveTickets(anyList());
+    }
+
+    /**
+     * Test case to validate that a stalled database fills the queues until input is refused,
+     * and that every accepted request completes once the database recovers.
+     */
+    @Test
+    public void slowDatabaseAppliesBackPressure() throws InterruptedException {
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            parkingSpots.add(new ParkingSpot(i, ParkingType.CAR, true));
+        }
+        when(parkingSpotDAO.getParkingSpots()).thenReturn(parkingSpots);
+        CountDownLatch databaseCalled = new CountDownLatch(1);
+        CountDownLatch databaseStalled = new CountDownLatch(1);
+        when(parkingSpotDAO.updateParkings(anyList())).thenAnswer(invocation -> {
+            databaseCalled.countDown();
+            return databaseStalled.await(5, TimeUnit.SECONDS);
+        });
+        when(ticketDAO.saveTickets(anyList())).thenReturn(true);
+        startPipeline(4, 0);
+        gatePipeline.submit("IN CAR FIRST");
+        assertThat(databaseCalled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        int submitted = 1;
+        long deadline = System.currentTimeMillis() + 5000;
+        int rejected = 0;
+        while (rejected < 50 && System.currentTimeMillis() < deadline) {
+            if (gatePipeline.submit("IN CAR CAR" + submitted)) {
+                submitted++;
+                rejected = 0;
+            } else {
+                rejected++;
+                Thread.sleep(1);
+            }
+        }
+        assertThat(submitted).isGreaterThan(3 * 4).isLessThan(1000);
+        assertThat(gatePipeline.getStageMetrics().get(0).getRejected()).isGreaterThanOrEqualTo(50);
+
+        databaseStalled.countDown();
+        gatePipeline.stop();
+        assertThat(completed).hasSize(submitted);
+        assertThat(gatePipeline.getStageMetrics().get(2).getAverageBatchSize()).isGreaterThan(1);
+    }
+
+    /**
+     * Test case to validate that concurrent producers and consumers of the ring queue neither lose nor duplicate elements.
+     */
+    @Test
+    public void ringQueueTransfersEveryElementOnce() throws InterruptedException {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(64);
+        int perProducer = 2000;
+        boolean[] seen = new boolean[4 * perProducer];
+        AtomicInteger received = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int p = 0; p < 4; p++) {
+            final int first = p * perProducer;
+            executorService.execute(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    while (!queue.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            executorService.execute(() -> {
+                while (received.get() < seen.length) {
+                    Integer element = queue.poll();
+                    if (element != null) {
+                        synchronized (seen) {
+                            assertThat(seen[element]).isFalse();
+                            seen[element] = true;
+                        }
+                        received.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(received.get()).isEqualTo(seen.length);
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(new BoundedRingQueue<Integer>(5).capacity()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,87 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.load.LoadHarness;
+import com.parkit.parkingsystem.load.LoadProfile;
+import com.parkit.parkingsystem.load.LoadReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Smoke tests for the LoadHarness class.
+ * These tests validate that a short run drives ParkingService end to end against the embedded database
+ * and reports consistent counts and latencies.
+ */
+public class LoadHarnessTest {
+
+    private LoadProfile profile;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        profile = new LoadProfile();
+        profile.setSimulatedHours(6);
+        profile.setArrivalsPerHour(40);
+        profile.setMeanStayMinutes(60);
+    }
+
+    /**
+     * Test case to validate that a single gate turns vehicles away once the lot is full,
+     * never hands out an occupied spot and lets every parked vehicle leave.
+     */
+    @Test
+    public void singleGateFillsTheLot() throws Exception {
+        profile.setNbGate(1);
+        profile.setNbCarSpot(5);
+        profile.setNbBikeSpot(2);
+
+        LoadReport report = new LoadHarness(profile).run();
+
+        assertThat(report.getAllocationFailures()).isPositive();
+        assertThat(report.getSpotConflicts()).isZero();
+        assertThat(report.getExitFailures()).isZero();
+        assertThat(report.getEntryLatencies().getCount()).isEqualTo(report.getNbEntry() + report.getAllocationFailures());
+        assertThat(report.getNbExit()).isPositive().isLessThanOrEqualTo(report.getNbEntry());
+    }
+
+    /**
+     * Test case to validate that concurrent gates process every operation and report ordered percentiles.
+     */
+    @Test
+    public void concurrentGatesReportLatencies() throws Exception {
+        profile.setNbGate(4);
+        profile.setNbCarSpot(200);
+        profile.setNbBikeSpot(100);
+
+        LoadReport report = new LoadHarness(profile).run();
+
+        assertThat(report.getNbEntry()).isPositive();
+        assertThat(report.getExitFailures()).isZero();
+        assertThat(report.getOperationsPerSecond()).isPositive();
+        assertThat(report.getEntryLatencies().getPercentile(50))
+                .isPositive()
+                .isLessThanOrEqualTo(report.getEntryLatencies().getPercentile(99));
+        assertThat(report.getExitLatencies().getPercentile(99))
+                .isLessThanOrEqualTo(report.getExitLatencies().getPercentile(100));
+    }
+
+    /**
+     * Test case to validate that concurrent gates sharing a spot state table never hand out an occupied spot,
+     * even when the lot fills up.
+     */
+    @Test
+    public void concurrentGatesShareSpotStateTable() throws Exception {
+        profile.setNbGate(4);
+        profile.setNbCarSpot(10);
+        profile.setNbBikeSpot(4);
+        profile.setArrivalsPerHour(200);
+        profile.setSpotStateTable(true);
+
+        LoadReport report = new LoadHarness(profile).run();
+
+        assertThat(report.getNbEntry()).isPositive();
+        assertThat(report.getAllocationFailures()).isPositive();
+        assertThat(report.getSpotConflicts()).isZero();
+        assertThat(report.getExitFailures()).isZero();
+    }
+}
@@ -0,0 +1,150 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.LoyaltyRule;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.LoyaltyService;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Unit tests for the LoyaltyService class.
+ * These tests validate that discounts follow the visits within sliding windows, and that counters survive a restart.
+ */
+public class LoyaltyServiceTest {
+
+    private static final long DAY = 24 * 3600 * 1000;
+    private static final long START = Instant.parse("2024-03-01T09:00:00Z").toEpochMilli();
+
+    private List<LoyaltyRule> rules;
+    private SimulatedClock clock;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        rules = LoyaltyRule.parse("2/30:95, 5/7:90");
+        clock = new SimulatedClock(Instant.ofEpochMilli(START), ZoneOffset.UTC);
+    }
+
+    /**
+     * Test case to validate that the best discount among the satisfied rules applies, and that visits
+     * leave the window once it slides past them.
+     */
+    @Test
+    public void discountFollowsSlidingWindows() {
+        LoyaltyService loyaltyService = new LoyaltyService(rules, clock);
+
+        loyaltyService.recordVisit("ab-123-cd", START);
+        assertThat(loyaltyService.getDiscountPercent("AB123CD", START)).isEqualTo(100);
+
+        loyaltyService.recordVisit("AB123CD", START + DAY);
+        assertThat(loyaltyService.getDiscountPercent("AB123CD", START + DAY)).isEqualTo(95);
+
+        for (int i = 2; i < 5; i++) {
+            loyaltyService.recordVisit("AB123CD", START + i * DAY);
+        }
+        assertThat(loyaltyService.getVisits("AB123CD", 7, START + 4 * DAY)).isEqualTo(5);
+        assertThat(loyaltyService.getDiscountPercent("AB123CD", START + 4 * DAY)).isEqualTo(90);
+        assertThat(loyaltyService.getDiscountPercent("AB123CD", START + 7 * DAY)).isEqualTo(95);
+
+        assertThat(loyaltyService.getDiscountPercent("AB123CD", START + 32 * DAY)).isEqualTo(95);
+        assertThat(loyaltyService.getDiscountPercent("AB123CD", START + 34 * DAY)).isEqualTo(100);
+        assertThat(loyaltyService.getDiscountPercent("ZZ999", START)).isEqualTo(100);
+    }
+
+    /**
+     * Test case to validate that a visit recorded long after the previous ones resets the ring,
+     * and that the fare of the ticket applies the percentage granted.
+     */
+    @Test
+    public void oldVisitsExpireFromRing() {
+        LoyaltyService loyaltyService = new LoyaltyService(rules, clock);
+        loyaltyService.recordVisit("AB123CD", START);
+        loyaltyService.recordVisit("AB123CD", START + 29 * DAY);
+        loyaltyService.recordVisit("AB123CD", START + 100 * DAY);
+        assertThat(loyaltyService.getVisits("AB123CD", 30, START + 100 * DAY)).isEqualTo(1);
+
+        loyaltyService.recordVisit("AB123CD", START + 101 * DAY);
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setInTime(new Date(START + 101 * DAY));
+        ticket.setOutTime(new Date(START + 101 * DAY + 2 * 3600 * 1000));
+        ticket.setDiscountPercent(loyaltyService.getDiscountPercent("AB123CD", START + 101 * DAY));
+        new FareCalculatorService().calculateFare(ticket);
+
+        assertThat(ticket.getDiscount()).isTrue();
+        assertThat(ticket.getPriceCents()).isEqualTo(285);
+    }
+
+    /**
+     * Test case to validate that counters are recovered from the journal after a restart, including after
+     * a rewrite of the journal.
+     */
+    @Test
+    public void recoverCountersFromJournal() throws IOException {
+        Path journal = Files.createTempDirectory("loyalty").resolve("loyalty.journal");
+        LoyaltyService loyaltyService = new LoyaltyService(rules, clock, journal, 3);
+        for (int i = 0; i < 5; i++) {
+            loyaltyService.recordVisit("AB123CD", START + i * DAY);
+        }
+        loyaltyService.recordVisit("PLATE-WITH-A-LONG-NAME", START);
+        loyaltyService.recordVisit("PLATE-WITH-A-LONG-NAME", START + DAY);
+        loyaltyService.close();
+
+        clock.advanceTo(START + 4 * DAY);
+        LoyaltyService recovered = new LoyaltyService(rules, clock, journal, 3);
+
+        assertThat(recovered.isEmpty()).isFalse();
+        assertThat(recovered.getVisits("AB123CD", 30, START + 4 * DAY)).isEqualTo(5);
+        assertThat(recovered.getDiscountPercent("AB123CD", START + 4 * DAY)).isEqualTo(90);
+        assertThat(recovered.getDiscountPercent("PLATEWITHALONGNAME", START + 4 * DAY)).isEqualTo(95);
+        recovered.close();
+    }
+
+    /**
+     * Test case to validate that rewriting the journal evicts the plates without visit left in the window,
+     * and that a plate taking an evicted slot does not inherit its visits.
+     */
+    @Test
+    public void evictExpiredPlatesOnRewrite() throws IOException {
+        Path journal = Files.createTempDirectory("loyalty").resolve("loyalty.journal");
+        LoyaltyService loyaltyService = new LoyaltyService(rules, clock, journal, 2);
+        loyaltyService.recordVisit("AB123CD", START);
+        clock.advanceTo(START + 40 * DAY);
+        loyaltyService.recordVisit("EF456GH", START + 40 * DAY);
+        loyaltyService.close();
+
+        assertThat(loyaltyService.getNbPlate()).isEqualTo(1);
+        loyaltyService.recordVisit("IJ789KL", START + 40 * DAY);
+        assertThat(loyaltyService.getNbPlate()).isEqualTo(2);
+        assertThat(loyaltyService.getVisits("IJ789KL", 30, START + 40 * DAY)).isEqualTo(1);
+        assertThat(loyaltyService.getVisits("AB123CD", 30, START + 40 * DAY)).isZero();
+
+        LoyaltyService recovered = new LoyaltyService(rules, clock, journal, 2);
+        assertThat(recovered.getNbPlate()).isEqualTo(1);
+        assertThat(recovered.getVisits("EF456GH", 30, START + 40 * DAY)).isEqualTo(1);
+        recovered.close();
+    }
+
+    /**
+     * Test case to validate that malformed rules are rejected.
+     */
+    @Test
+    public void rejectMalformedRules() {
+        assertThrows(IllegalArgumentException.class, () -> LoyaltyRule.parse("2/30"));
+        assertThrows(IllegalArgumentException.class, () -> LoyaltyRule.parse("2/30:120"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketRowHandler;
+import com.parkit.parkingsystem.model.OverstayAlert;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.OverstayMonitor;
+import com.parkit.parkingsystem.util.TimingWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the OverstayMonitor class and its TimingWheel.
+ * These tests validate that timeouts fire once and never early, and that alerts follow entries, exits and thresholds.
+ */
+@ExtendWith(MockitoExtension.class)
+public class OverstayMonitorTest {
+
+    private static final long MINUTE = OverstayMonitor.MINUTE_MILLIS;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long NOW = 1000 * HOUR;
+
+    @Mock
+    private static TicketDAO ticketDAO;
+
+    private OverstayMonitor overstayMonitor;
+    private List<OverstayAlert> alerts;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        overstayMonitor = new OverstayMonitor(NOW, MINUTE, HOUR, 24 * HOUR);
+        alerts = new ArrayList<>();
+        overstayMonitor.addAlertListener(alerts::add);
+    }
+
+    private Ticket ticket(String plate, int spot, long inTime) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(spot, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber(plate);
+        ticket.setInTime(new Date(inTime));
+        return ticket;
+    }
+
+    /**
+     * Test case to validate that random timeouts spread over every level of the wheel fire exactly once,
+     * on the first advance reaching their deadline, unless cancelled.
+     */
+    @Test
+    public void timeoutsFireOnceAndNeverEarly() {
+        Random random = new Random(42);
+        TimingWheel<long[]> timingWheel = new TimingWheel<>(1, 3, 0);
+        List<TimingWheel.Timeout<long[]>> timeouts = new ArrayList<>();
+        // payload: deadline, fired time, cancelled flag
+        for (int i = 0; i < 5000; i++) {
+            long deadline = 1 + (long) (random.nextDouble() * random.nextDouble() * 400000);
+            timeouts.add(timingWheel.schedule(new long[] {deadline, -1, 0}, deadline));
+        }
+        for (int i = 0; i < 500; i++) {
+            TimingWheel.Timeout<long[]> timeout = timeouts.get(random.nextInt(timeouts.size()));
+            if (timingWheel.cancel(timeout)) {
+                timeout.getPayload()[2] = 1;
+            }
+        }
+
+        long now = 0;
+        while (now < 400000) {
+            now += 1 + random.nextInt(3000);
+            final long time = now;
+            timingWheel.advanceTo(time, timeout -> {
+                assertThat(timeout.getPayload()[1]).isEqualTo(-1);
+                timeout.getPayload()[1] = time;
+            });
+        }
+
+        for (TimingWheel.Timeout<long[]> timeout : timeouts) {
+            long[] payload = timeout.getPayload();
+            if (payload[2] == 1) {
+                assertThat(payload[1]).isEqualTo(-1);
+            } else {
+                assertThat(payload[1]).isGreaterThanOrEqualTo(payload[0]);
+                assertThat(payload[1] - payload[0]).isLessThanOrEqualTo(3000);
+            }
+        }
+        assertThat(timingWheel.size()).isZero();
+    }
+
+    /**
+     * Test case to validate that an alert is raised for each crossed threshold, and that exits cancel the monitoring.
+     */
+    @Test
+    public void alertOnEachThresholdUntilExit() {
+        overstayMonitor.onVehicleEntered(ticket("AB-123-CD", 1, NOW));
+        overstayMonitor.onVehicleEntered(ticket("EF456GH", 2, NOW + 30 * MINUTE));
+        overstayMonitor.onVehicleExited(ticket("EF456GH", 2, NOW + 30 * MINUTE));
+        assertThat(overstayMonitor.getNbMonitoredTicket()).isEqualTo(1);
+
+        assertThat(overstayMonitor.advanceTo(NOW + 59 * MINUTE)).isZero();
+        assertThat(overstayMonitor.advanceTo(NOW + HOUR)).isEqualTo(1);
+        assertThat(alerts.get(0).getVehicleRegNumber()).isEqualTo("AB123CD");
+        assertThat(alerts.get(0).getThresholdIndex()).isZero();
+
+        assertThat(overstayMonitor.advanceTo(NOW + 25 * HOUR)).isEqualTo(1);
+        assertThat(alerts.get(1).getThresholdIndex()).isEqualTo(1);
+        assertThat(alerts.get(1).getParkingNumber()).isEqualTo(1);
+        assertThat(overstayMonitor.getNbMonitoredTicket()).isZero();
+        assertThat(overstayMonitor.advanceTo(NOW + 100 * HOUR)).isZero();
+    }
+
+    /**
+     * Test case to validate that open tickets loaded at startup raise the alerts of the thresholds they already crossed.
+     */
+    @Test
+    public void backfillOpenTickets() {
+        doAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(0);
+            handler.onRow(1, 1, ParkingType.CAR, "OLD111", 0, NOW - 48 * HOUR, -1);
+            handler.onRow(2, 2, ParkingType.CAR, "DONE22", 150, NOW - 48 * HOUR, NOW - 47 * HOUR);
+            handler.onRow(3, 3, ParkingType.BIKE, "NEW333", 0, NOW - 30 * MINUTE, -1);
+            return 3L;
+        }).when(ticketDAO).streamTickets(any(TicketRowHandler.class));
+
+        overstayMonitor.backfill(ticketDAO, NOW);
+
+        assertThat(overstayMonitor.getNbMonitoredTicket()).isEqualTo(2);
+        assertThat(overstayMonitor.advanceTo(NOW + 2 * MINUTE)).isEqualTo(2);
+        assertThat(alerts).extracting(OverstayAlert::getVehicleRegNumber).containsExactly("OLD111", "OLD111");
+        assertThat(overstayMonitor.advanceTo(NOW + 30 * MINUTE)).isEqualTo(1);
+        assertThat(alerts.get(2).getParkingType()).isEqualTo(ParkingType.BIKE);
+    }
+}
@@ -0,0 +1,180 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketRowHandler;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingEventLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the ParkingEventLog class.
+ * These tests validate seeding from the database, recovery from snapshots and segments, and torn tail handling.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ParkingEventLogTest {
+
+    @Mock
+    private static ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private static TicketDAO ticketDAO;
+
+    private Path directory;
+
+    @BeforeEach
+    private void setUpPerTest() throws IOException {
+        directory = Files.createTempDirectory("eventlog");
+    }
+
+    private Ticket ticket(int id, int spot, String plate, long inTime) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setParkingSpot(new ParkingSpot(spot, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber(plate);
+        ticket.setInTime(new Date(inTime));
+        return ticket;
+    }
+
+    private void enterAndExit(ParkingEventLog parkingEventLog, Ticket ticket, long outTime) {
+        ticket.setOutTime(new Date(outTime));
+        ticket.setPrice(1.5);
+        parkingEventLog.onVehicleExited(ticket);
+        ParkingSpot parkingSpot = ticket.getParkingSpot();
+        parkingSpot.setAvailable(true);
+        parkingEventLog.onSpotReleased(parkingSpot, outTime);
+    }
+
+    /**
+     * Test case to validate that an empty log is seeded once from the database and that the seed survives a restart,
+     * giving back the spots and open tickets read from the database.
+     */
+    @Test
+    public void seedFromDatabase() throws IOException {
+        when(parkingSpotDAO.getParkingSpots()).thenReturn(Arrays.asList(
+                new ParkingSpot(1, ParkingType.CAR, false), new ParkingSpot(2, ParkingType.CAR, true),
+                new ParkingSpot(4, ParkingType.BIKE, true)));
+        doAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(0);
+            handler.onRow(7, 1, ParkingType.CAR, "ABCDEF", 0, 1000L, -1);
+            handler.onRow(3, 2, ParkingType.CAR, "OLD123", 150, 500L, 900L);
+            return 2L;
+        }).when(ticketDAO).streamTickets(any(TicketRowHandler.class));
+
+        ParkingEventLog parkingEventLog = new ParkingEventLog(directory, 100);
+        assertThat(parkingEventLog.isEmpty()).isTrue();
+        parkingEventLog.seed(parkingSpotDAO, ticketDAO);
+        parkingEventLog.close();
+
+        ParkingEventLog reopened = new ParkingEventLog(directory, 100);
+        assertThat(reopened.isEmpty()).isFalse();
+        assertThat(reopened.getState().getNbAvailableSpot(ParkingType.CAR)).isEqualTo(1);
+        assertThat(reopened.getState().getNbAvailableSpot(ParkingType.BIKE)).isEqualTo(1);
+        assertThat(reopened.getState().getNbOpenTicket()).isEqualTo(1);
+        assertThat(reopened.getState().getOpenTicket("ABCDEF").getId()).isEqualTo(7);
+        assertThat(reopened.getState().getOpenTicket("OLD123")).isNull();
+        assertThat(reopened.getState().getParkingSpots()).extracting(ParkingSpot::getId, ParkingSpot::isAvailable)
+                .containsExactly(tuple(1, false), tuple(2, true), tuple(4, true));
+        assertThat(reopened.getState().getOpenTickets()).extracting(Ticket::getId, Ticket::getVehicleRegNumber)
+                .containsExactly(tuple(7, "ABCDEF"));
+        reopened.close();
+    }
+
+    /**
+     * Test case to validate that a seed interrupted by a database failure writes nothing, so that the log
+     * is still empty and seeded again on the next start.
+     */
+    @Test
+    public void seedFailsWhenTicketTableCannotBeRead() throws IOException {
+        when(parkingSpotDAO.getParkingSpots()).thenReturn(Arrays.asList(new ParkingSpot(1, ParkingType.CAR, true)));
+        when(ticketDAO.streamTickets(any(TicketRowHandler.class))).thenReturn(-1L);
+
+        ParkingEventLog parkingEventLog = new ParkingEventLog(directory, 100);
+        assertThatThrownBy(() -> parkingEventLog.seed(parkingSpotDAO, ticketDAO)).isInstanceOf(IOException.class);
+        parkingEventLog.close();
+
+        ParkingEventLog reopened = new ParkingEventLog(directory, 100);
+        assertThat(reopened.isEmpty()).isTrue();
+        assertThat(reopened.getState().getParkingSpots()).isEmpty();
+        reopened.close();
+    }
+
+    /**
+     * Test case to validate that reopening the log restores the state from the latest snapshot plus the events after it,
+     * and that older files are deleted once a snapshot covers them.
+     */
+    @Test
+    public void recoverFromSnapshotAndTail() throws IOException {
+        ParkingEventLog parkingEventLog = new ParkingEventLog(directory, 3);
+        Ticket first = ticket(1, 1, "AAA111", 1000);
+        Ticket second = ticket(2, 2, "BBB222", 2000);
+        parkingEventLog.onVehicleEntered(first);
+        parkingEventLog.onVehicleEntered(second);
+        enterAndExit(parkingEventLog, first, 5000);
+        parkingEventLog.onVehicleEntered(ticket(3, 1, "CCC333", 6000));
+        parkingEventLog.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .containsExactlyInAnyOrder("snapshot-3.bin", "events-4.log");
+        }
+
+        ParkingEventLog reopened = new ParkingEventLog(directory, 3);
+        assertThat(reopened.getState().getLastSequence()).isEqualTo(5);
+        assertThat(reopened.getState().getNbOpenTicket()).isEqualTo(2);
+        assertThat(reopened.getState().getOpenTicket("AAA111")).isNull();
+        assertThat(reopened.getState().getOpenTicket("CCC333").getParkingSpot().getId()).isEqualTo(1);
+        assertThat(reopened.getState().isAvailable(1)).isFalse();
+        assertThat(reopened.getState().isAvailable(2)).isFalse();
+
+        reopened.onVehicleEntered(ticket(4, 3, "DDD444", 7000));
+        assertThat(reopened.getState().getLastSequence()).isEqualTo(6);
+        reopened.close();
+    }
+
+    /**
+     * Test case to validate that a partially written record at the end of a segment is discarded on recovery.
+     */
+    @Test
+    public void discardTornTail() throws IOException {
+        ParkingEventLog parkingEventLog = new ParkingEventLog(directory, 100);
+        parkingEventLog.onVehicleEntered(ticket(1, 1, "AAA111", 1000));
+        parkingEventLog.onVehicleEntered(ticket(2, 2, "BBB222", 2000));
+        parkingEventLog.close();
+
+        Path segment = directory.resolve("events-1.log");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        ParkingEventLog reopened = new ParkingEventLog(directory, 100);
+        assertThat(reopened.getState().getLastSequence()).isEqualTo(1);
+        assertThat(reopened.getState().getOpenTicket("AAA111")).isNotNull();
+        assertThat(reopened.getState().getOpenTicket("BBB222")).isNull();
+
+        reopened.onVehicleEntered(ticket(2, 2, "BBB222", 2000));
+        reopened.close();
+        assertThat(new ParkingEventLog(directory, 100).getState().getNbOpenTicket()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,176 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketRowHandler;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.ReportWindow;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.DeferredParkingEventListener;
+import com.parkit.parkingsystem.service.ParkingReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Unit tests for the ParkingReportService class.
+ * These tests validate the incremental aggregation of entries and exits into hourly and sliding windows.
+ */
+public class ParkingReportServiceTest {
+
+    private static final long HOUR = ParkingReportService.HOUR_MILLIS;
+    private static final long START = 1000 * HOUR;
+
+    private ParkingReportService parkingReportService;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        parkingReportService = new ParkingReportService(48, 3);
+    }
+
+    private Ticket ticket(ParkingType parkingType, long inTime, long outTime, double price) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(1, parkingType, false));
+        ticket.setVehicleRegNumber("ABCDEF");
+        ticket.setInTime(new Date(inTime));
+        ticket.setOutTime(outTime < 0 ? null : new Date(outTime));
+        ticket.setPrice(price);
+        return ticket;
+    }
+
+    /**
+     * Test case to validate that entries and exits of the same hour are aggregated in the current window.
+     * It ensures revenue, average stay and peak occupancy are tracked per parking type.
+     */
+    @Test
+    public void aggregateEventsInCurrentHour() {
+        parkingReportService.onVehicleEntered(ticket(ParkingType.CAR, START, -1, 0));
+        parkingReportService.onVehicleEntered(ticket(ParkingType.CAR, START + 60000, -1, 0));
+        parkingReportService.onVehicleEntered(ticket(ParkingType.BIKE, START + 60000, -1, 0));
+        parkingReportService.onVehicleExited(ticket(ParkingType.CAR, START, START + 30 * 60000, 1.5));
+
+        ReportWindow window = parkingReportService.getCurrentWindow();
+
+        assertThat(window.getStartTime()).isEqualTo(START);
+        assertThat(window.getEntries(ParkingType.CAR)).isEqualTo(2);
+        assertThat(window.getExits(ParkingType.CAR)).isEqualTo(1);
+        assertThat(window.getRevenueCents(ParkingType.CAR)).isEqualTo(150);
+        assertThat(window.getAverageStayMillis(ParkingType.CAR)).isEqualTo(30 * 60000);
+        assertThat(window.getPeakOccupancy(ParkingType.CAR)).isEqualTo(2);
+        assertThat(window.getEntries(ParkingType.BIKE)).isEqualTo(1);
+        assertThat(parkingReportService.getCurrentOccupancy(ParkingType.CAR)).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that the sliding window only keeps the last hours while older hourly windows remain queryable.
+     */
+    @Test
+    public void slidingWindowEvictsOldHours() {
+        parkingReportService.onVehicleEntered(ticket(ParkingType.CAR, START, -1, 0));
+        parkingReportService.onVehicleExited(ticket(ParkingType.CAR, START, START + HOUR, 2));
+        parkingReportService.onVehicleEntered(ticket(ParkingType.CAR, START + 2 * HOUR, -1, 0));
+
+        assertThat(parkingReportService.getSlidingWindow().getEntries(ParkingType.CAR)).isEqualTo(2);
+        assertThat(parkingReportService.getSlidingWindow().getRevenueCents(ParkingType.CAR)).isEqualTo(200);
+
+        parkingReportService.onVehicleExited(ticket(ParkingType.CAR, START + 2 * HOUR, START + 4 * HOUR, 3));
+
+        ReportWindow sliding = parkingReportService.getSlidingWindow();
+        assertThat(sliding.getEntries(ParkingType.CAR)).isEqualTo(1);
+        assertThat(sliding.getExits(ParkingType.CAR)).isEqualTo(1);
+        assertThat(sliding.getRevenueCents(ParkingType.CAR)).isEqualTo(300);
+        assertThat(parkingReportService.getWindow(START).getEntries(ParkingType.CAR)).isEqualTo(1);
+        assertThat(parkingReportService.getWindow(START - 100 * HOUR)).isNull();
+    }
+
+    /**
+     * Test case to validate that a backfill seeds the windows from the streamed ticket table.
+     */
+    @Test
+    public void backfillFromTicketTable() {
+        TicketDAO ticketDAO = mock(TicketDAO.class);
+        doAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(0);
+            handler.onRow(1, 1, ParkingType.CAR, "ABCDEF", 150, START, START + HOUR);
+            handler.onRow(2, 2, ParkingType.CAR, "GHIJKL", 0, START + HOUR, -1);
+            return 2L;
+        }).when(ticketDAO).streamTickets(any(TicketRowHandler.class));
+
+        assertThat(parkingReportService.backfill(ticketDAO, START + HOUR + 1)).isEqualTo(2);
+
+        ReportWindow current = parkingReportService.getCurrentWindow();
+        assertThat(current.getEntries(ParkingType.CAR)).isEqualTo(1);
+        assertThat(current.getExits(ParkingType.CAR)).isEqualTo(1);
+        assertThat(current.getRevenueCents(ParkingType.CAR)).isEqualTo(150);
+        assertThat(current.getPeakOccupancy(ParkingType.CAR)).isEqualTo(2);
+        assertThat(parkingReportService.getWindow(START).getPeakOccupancy(ParkingType.CAR)).isEqualTo(1);
+        assertThat(parkingReportService.getCurrentOccupancy(ParkingType.CAR)).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that a backfill from the open tickets of the event log only streams the tickets closed
+     * within the retained history.
+     */
+    @Test
+    public void backfillFromOpenTickets() {
+        TicketDAO ticketDAO = mock(TicketDAO.class);
+        doAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(2);
+            handler.onRow(1, 1, ParkingType.CAR, "ABCDEF", 150, START, START + HOUR);
+            return 1L;
+        }).when(ticketDAO).streamClosedTickets(eq(START - 46 * HOUR), eq(START + HOUR + 1), any(TicketRowHandler.class));
+
+        assertThat(parkingReportService.backfill(ticketDAO,
+                Collections.singletonList(ticket(ParkingType.CAR, START + HOUR, -1, 0)), START + HOUR + 1)).isEqualTo(1);
+
+        ReportWindow current = parkingReportService.getCurrentWindow();
+        assertThat(current.getEntries(ParkingType.CAR)).isEqualTo(1);
+        assertThat(current.getExits(ParkingType.CAR)).isEqualTo(1);
+        assertThat(current.getRevenueCents(ParkingType.CAR)).isEqualTo(150);
+        assertThat(current.getPeakOccupancy(ParkingType.CAR)).isEqualTo(2);
+        assertThat(parkingReportService.getWindow(START).getPeakOccupancy(ParkingType.CAR)).isEqualTo(1);
+        assertThat(parkingReportService.getCurrentOccupancy(ParkingType.CAR)).isEqualTo(1);
+        verify(ticketDAO, never()).streamTickets(any(TicketRowHandler.class));
+    }
+
+    /**
+     * Test case to validate that a backfill running while vehicles are processed counts each entry and exit once,
+     * the events received meanwhile being delivered after the backfill.
+     */
+    @Test
+    public void backfillWhileEventsAreDeferred() {
+        long now = START + HOUR + 1;
+        DeferredParkingEventListener deferred = new DeferredParkingEventListener(parkingReportService);
+        deferred.onVehicleExited(ticket(ParkingType.CAR, START, now + 5, 1.5));
+        deferred.onVehicleEntered(ticket(ParkingType.CAR, now + 10, -1, 0));
+        TicketDAO ticketDAO = mock(TicketDAO.class);
+        doAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(0);
+            handler.onRow(1, 1, ParkingType.CAR, "ABCDEF", 150, START, now + 5);
+            handler.onRow(2, 2, ParkingType.CAR, "GHIJKL", 0, now + 10, -1);
+            return 2L;
+        }).when(ticketDAO).streamTickets(any(TicketRowHandler.class));
+
+        parkingReportService.backfill(ticketDAO, now);
+        assertThat(deferred.getNbPendingEvent()).isEqualTo(2);
+        deferred.release();
+
+        ReportWindow current = parkingReportService.getCurrentWindow();
+        assertThat(deferred.getNbPendingEvent()).isZero();
+        assertThat(current.getEntries(ParkingType.CAR)).isEqualTo(1);
+        assertThat(current.getExits(ParkingType.CAR)).isEqualTo(1);
+        assertThat(current.getRevenueCents(ParkingType.CAR)).isEqualTo(150);
+        assertThat(parkingReportService.getWindow(START).getEntries(ParkingType.CAR)).isEqualTo(1);
+        assertThat(parkingReportService.getCurrentOccupancy(ParkingType.CAR)).isEqualTo(1);
+    }
+}
@@ -1,12 +1,24 @@
 package com.parkit.parkingsystem;
 
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.Fare;
 import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.dao.ParkingSpotDAO;
 import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.LoyaltyRule;
 import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.SpotStateTable;
+import com.parkit.parkingsystem.model.SurgeBand;
 import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.DynamicPricingService;
+import com.parkit.parkingsystem.service.LoyaltyService;
 import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.service.ReservationService;
+import com.parkit.parkingsystem.service.SpotLeaseAllocator;
 import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.PlateBloomFilter;
+import com.parkit.parkingsystem.util.SimulatedClock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,7 +28,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 
@@ -67,12 +91,12 @@ public class ParkingServiceTest {
 
         when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
         
-        when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+        when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
         when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
     	
         parkingService.processExitingVehicle();
         verify(ticketDAO, Mockito.times(1)).getNbTicket(any(String.class));
-        verify(parkingSpotDAO, Mockito.times(1)).updateParking(any(ParkingSpot.class));
+        verify(parkingSpotDAO, Mockito.times(1)).updateParking(any(ParkingSpot.class), eq(true));
     }
     
     /**
@@ -83,7 +107,7 @@ public class ParkingServiceTest {
     public void testProcessIncomingVehicle() throws Exception {
     	
     	when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
-        when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+        when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
         
         parkingService = spy(new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO));
         
@@ -92,7 +116,7 @@ public class ParkingServiceTest {
         
     	parkingService.processIncomingVehicle();
     	
-        verify(parkingSpotDAO, times(1)).updateParking(any(ParkingSpot.class));
+        verify(parkingSpotDAO, times(1)).updateParking(any(ParkingSpot.class), eq(false));
         verify(ticketDAO, times(1)).saveTicket(any(Ticket.class));
         verify(ticketDAO, times(1)).getNbTicket(any(String.class));
     }
@@ -118,9 +142,24 @@ public class ParkingServiceTest {
         
     	parkingService.processExitingVehicle();
         verify(ticketDAO, Mockito.times(1)).getNbTicket(any(String.class));
-        verify(parkingSpotDAO, Mockito.times(0)).updateParking(any(ParkingSpot.class));
+        verify(parkingSpotDAO, Mockito.times(0)).updateParking(any(ParkingSpot.class), anyBoolean());
     }
     
+    /**
+     * Test method for processing an exiting vehicle which has no ticket, such as a plate mistyped at the gate.
+     * Verifies that the exit is refused without pricing a ticket or releasing a spot.
+     */
+    @Test
+    public void processExitingVehicleWithoutTicket() throws Exception {
+
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ZZ-999-ZZ");
+        when(ticketDAO.getTicket(anyString())).thenReturn(null);
+
+        assertNull(parkingService.processExitingVehicle(null));
+        verify(ticketDAO, never()).updateTicket(any(Ticket.class));
+        verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), anyBoolean());
+    }
+
     /**
      * Test method for retrieving the next available parking spot.
      * Verifies that the correct parking spot is returned when a parking slot is available.
@@ -168,4 +207,284 @@ public class ParkingServiceTest {
          assertNull(result);
     }
 
+    /**
+     * Test method for retrying an entry request.
+     * Verifies that the retry returns the original ticket without allocating a spot or saving a ticket again.
+     */
+    @Test
+    public void processIncomingVehicleRetryReturnsOriginalTicket() throws Exception {
+
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        when(ticketDAO.saveTicket(any(Ticket.class), eq("entry-1"))).thenReturn(true);
+
+        parkingService = spy(new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO));
+        doReturn(new ParkingSpot(1, ParkingType.CAR, true))
+            .when(parkingService).getNextParkingNumberIfAvailable();
+
+        Ticket ticket = parkingService.processIncomingVehicle("entry-1");
+        Ticket retried = parkingService.processIncomingVehicle("entry-1");
+
+        assertThat(ticket).isNotNull();
+        assertThat(retried).isSameAs(ticket);
+        verify(parkingService, times(1)).getNextParkingNumberIfAvailable();
+        verify(parkingSpotDAO, times(1)).updateParking(any(ParkingSpot.class), anyBoolean());
+        verify(ticketDAO, times(1)).saveTicket(any(Ticket.class), eq("entry-1"));
+        verify(ticketDAO, never()).saveTicket(any(Ticket.class));
+        verify(ticketDAO, never()).getTicketByEntryRequestId(anyString());
+    }
+
+    /**
+     * Test method for an entry request already saved by another process.
+     * Verifies that the allocated spot is given back and the ticket saved first is returned.
+     */
+    @Test
+    public void processIncomingVehicleDuplicateInDataBase() throws Exception {
+
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        Ticket original = new Ticket();
+        original.setParkingSpot(new ParkingSpot(2, ParkingType.CAR, false));
+        original.setVehicleRegNumber("ABCDEF");
+        when(ticketDAO.getTicketByEntryRequestId("entry-1")).thenReturn(original);
+        when(ticketDAO.saveTicket(any(Ticket.class), eq("entry-1"))).thenReturn(false);
+
+        parkingService = spy(new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO));
+        doReturn(new ParkingSpot(1, ParkingType.CAR, true))
+            .when(parkingService).getNextParkingNumberIfAvailable();
+
+        assertThat(parkingService.processIncomingVehicle("entry-1")).isSameAs(original);
+        verify(parkingSpotDAO, times(1)).updateParking(argThat(parkingSpot -> parkingSpot.getId() == 1), eq(false));
+        verify(parkingSpotDAO, times(1)).updateParking(argThat(parkingSpot -> parkingSpot.getId() == 1), eq(true));
+    }
+
+    /**
+     * Test method for retrying an exit request already processed before a restart.
+     * Verifies that, finding the ticket of the vehicle closed, the exit returns the ticket closed by the original
+     * request without pricing it again.
+     */
+    @Test
+    public void processExitingVehicleRetryAfterRestart() throws Exception {
+
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        Ticket closed = new Ticket();
+        closed.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, true));
+        closed.setVehicleRegNumber("ABCDEF");
+        closed.setPrice(1.5);
+        closed.setInTime(new Date(System.currentTimeMillis() - (60*60*1000)));
+        closed.setOutTime(new Date());
+        when(ticketDAO.getTicket("ABCDEF")).thenReturn(closed);
+        when(ticketDAO.getTicketByExitRequestId("exit-1")).thenReturn(closed);
+
+        assertThat(parkingService.processExitingVehicle("exit-1")).isSameAs(closed);
+        verify(ticketDAO, never()).closeTicket(any(Ticket.class), anyString());
+        verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), anyBoolean());
+    }
+
+    /**
+     * Test method for an exit request whose ticket was closed concurrently by the same request.
+     * Verifies that the conditional update is not retried and the spot is not released twice.
+     */
+    @Test
+    public void processExitingVehicleAlreadyClosed() throws Exception {
+
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        Ticket ticket = new Ticket();
+        ticket.setInTime(new Date(System.currentTimeMillis() - (60*60*1000)));
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber("ABCDEF");
+        Ticket closed = new Ticket();
+        closed.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, true));
+        closed.setOutTime(new Date());
+        when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
+        when(ticketDAO.getTicketByExitRequestId("exit-1")).thenReturn(closed);
+        when(ticketDAO.closeTicket(any(Ticket.class), eq("exit-1"))).thenReturn(false);
+
+        assertThat(parkingService.processExitingVehicle("exit-1")).isSameAs(closed);
+        assertThat(parkingService.processExitingVehicle("exit-1")).isSameAs(closed);
+        verify(ticketDAO, times(1)).closeTicket(any(Ticket.class), eq("exit-1"));
+        verify(ticketDAO, never()).updateTicket(any(Ticket.class));
+        verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), anyBoolean());
+    }
+
+    /**
+     * Test method for walk-in vehicles arriving while a spot is booked, with spots taken from the state table.
+     * Verifies that the free spots are counted in the state table, so that the booked spot is held
+     * without querying the database.
+     */
+    @Test
+    public void processIncomingVehicleHoldsBookedSpotFromStateTable() throws Exception {
+
+        SimulatedClock clock = new SimulatedClock(Instant.parse("2024-01-01T08:00:00Z"), ZoneOffset.UTC);
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF", "GHIJKL");
+        when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+        ReservationService reservationService = new ReservationService(Collections.singletonMap(ParkingType.CAR, 1),
+                clock.millis(), ReservationService.DEFAULT_SLOT_MILLIS, 24 * 4);
+        reservationService.book("MNOPQR", ParkingType.CAR, 1, clock.millis(), clock.millis() + 60 * 60 * 1000,
+                clock.millis());
+        SpotStateTable spotStateTable = new SpotStateTable(Arrays.asList(new ParkingSpot(1, ParkingType.CAR, true),
+                new ParkingSpot(2, ParkingType.CAR, true)));
+        parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO, clock);
+        parkingService.setSpotStateTable(spotStateTable);
+        parkingService.setReservationService(reservationService);
+
+        assertThat(parkingService.processIncomingVehicle(null)).isNotNull();
+        assertNull(parkingService.processIncomingVehicle(null));
+        assertThat(spotStateTable.getNbAvailable(ParkingType.CAR)).isEqualTo(1);
+        verify(parkingSpotDAO, never()).getNbAvailableParkingSpot(any(ParkingType.class));
+    }
+
+    /**
+     * Test method for an exiting vehicle whose spot cannot be marked free in the database.
+     * Verifies that the spot stays taken in the state table, and that the spot of the ticket is left untouched.
+     */
+    @Test
+    public void processExitingVehicleKeepsSpotWhenParkingUpdateFails() throws Exception {
+
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        SpotStateTable spotStateTable = new SpotStateTable(Collections.singletonList(new ParkingSpot(1, ParkingType.CAR, false)));
+        ParkingSpot parkingSpot = spotStateTable.getSpot(1);
+        Ticket ticket = new Ticket();
+        ticket.setInTime(new Date(System.currentTimeMillis() - (60*60*1000)));
+        ticket.setParkingSpot(parkingSpot);
+        ticket.setVehicleRegNumber("ABCDEF");
+        when(ticketDAO.getTicket("ABCDEF")).thenReturn(ticket);
+        when(ticketDAO.updateTicket(ticket)).thenReturn(true);
+        when(parkingSpotDAO.updateParking(parkingSpot, true)).thenReturn(false);
+        parkingService.setSpotStateTable(spotStateTable);
+
+        assertThat(parkingService.processExitingVehicle(null)).isSameAs(ticket);
+        assertThat(spotStateTable.isAvailable(1)).isFalse();
+        assertThat(parkingSpot.isAvailable()).isFalse();
+    }
+
+    /**
+     * Test method for a vehicle whose leased spot was taken by another instance while its plate was typed.
+     * Verifies that the conditional update fails and that the vehicle is parked in the next leased spot.
+     */
+    @Test
+    public void processIncomingVehicleReallocatesSpotWhenLeaseLost() throws Exception {
+
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        when(parkingSpotDAO.claimParkingSpots(eq(ParkingType.CAR), eq("node-1"), eq(8), anyLong(), anyLong()))
+                .thenReturn(Arrays.asList(1, 2));
+        when(parkingSpotDAO.occupyLeasedParkingSpot(1, "node-1")).thenReturn(false);
+        doReturn(true).when(parkingSpotDAO).occupyLeasedParkingSpot(2, "node-1");
+        when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(true);
+        parkingService.setSpotLeaseAllocator(new SpotLeaseAllocator(parkingSpotDAO, "node-1",
+                SpotLeaseAllocator.DEFAULT_BLOCK_SIZE, SpotLeaseAllocator.DEFAULT_LEASE_MILLIS));
+
+        Ticket ticket = parkingService.processIncomingVehicle(null);
+
+        assertThat(ticket.getParkingSpot().getId()).isEqualTo(2);
+        verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), anyBoolean());
+    }
+
+    /**
+     * Test method for the first visit of a vehicle once the plates are loaded in the plate filter.
+     * Verifies that the vehicle is known to be new before its ticket is saved, so its tickets are not counted
+     * in the database.
+     */
+    @Test
+    public void processIncomingVehicleFirstVisitSkipsTicketCount() throws Exception {
+
+        DataBaseConfig dataBaseConfig = mock(DataBaseConfig.class);
+        Connection con = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(dataBaseConfig.getConnection()).thenReturn(con);
+        when(con.prepareStatement(DBConstants.GET_ALL_PLATES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+                .thenReturn(ps);
+        doReturn(ps).when(con).prepareStatement(DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(ps.getGeneratedKeys()).thenReturn(rs);
+        TicketDAO plateFilterTicketDAO = new TicketDAO();
+        plateFilterTicketDAO.dataBaseConfig = dataBaseConfig;
+        assertThat(plateFilterTicketDAO.loadPlateFilter(new PlateBloomFilter(1000, 0.01))).isTrue();
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+        parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, plateFilterTicketDAO);
+
+        assertThat(parkingService.processIncomingVehicle(null)).isNotNull();
+        verify(ps, times(1)).executeUpdate();
+        verify(con, never()).prepareStatement(DBConstants.GET_NB_TICKET);
+    }
+
+    /**
+     * Test method for a regular vehicle entering with a loyalty discount.
+     * Verifies that the welcome message announces the discount granted by the loyalty rules.
+     */
+    @Test
+    public void processIncomingVehicleAnnouncesLoyaltyDiscount() throws Exception {
+
+        SimulatedClock clock = new SimulatedClock(Instant.parse("2024-01-01T08:00:00Z"), ZoneOffset.UTC);
+        LoyaltyService loyaltyService = new LoyaltyService(LoyaltyRule.parse("2/30:90"), clock);
+        loyaltyService.recordVisit("ABCDEF", clock.millis() - 24 * 60 * 60 * 1000);
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+        parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO, clock);
+        parkingService.addParkingEventListener(loyaltyService);
+        parkingService.setLoyaltyService(loyaltyService);
+        PrintStream console = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, "UTF-8"));
+        try {
+            assertThat(parkingService.processIncomingVehicle(null)).isNotNull();
+        } finally {
+            System.setOut(console);
+        }
+
+        assertThat(output.toString("UTF-8")).contains("remise de 10%");
+        verify(ticketDAO, never()).getNbTicket(any(String.class));
+    }
+
+    /**
+     * Test method for a vehicle taking the spot which moves its parking type into a surge band.
+     * Verifies that the ticket records the surge rate, although the rates are only republished on entry events.
+     */
+    @Test
+    public void processIncomingVehicleRecordsRateWithItsSpot() throws Exception {
+
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        for (int number = 1; number <= 10; number++) {
+            parkingSpots.add(new ParkingSpot(number, ParkingType.CAR, number > 8));
+        }
+        SpotStateTable spotStateTable = new SpotStateTable(parkingSpots);
+        parkingService.setSpotStateTable(spotStateTable);
+        parkingService.setDynamicPricingService(new DynamicPricingService(SurgeBand.parse("85:150"), spotStateTable));
+
+        Ticket ticket = parkingService.processIncomingVehicle(null);
+
+        assertThat(ticket.getParkingSpot().getId()).isEqualTo(9);
+        assertThat(ticket.getRatePerHourCents()).isEqualTo(Fare.CAR_RATE_PER_HOUR_CENTS * 3 / 2);
+    }
+
+    /**
+     * Test method for a vehicle staying two days on a simulated clock.
+     * Verifies that in and out times come from the injected clock, so long stays are priced without waiting.
+     */
+    @Test
+    public void processVehicleOnSimulatedClock() throws Exception {
+
+        SimulatedClock clock = new SimulatedClock(Instant.parse("2024-01-01T08:00:00Z"), ZoneOffset.UTC);
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+        when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+        when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+        parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO, clock);
+
+        Ticket ticket = parkingService.processIncomingVehicle(null);
+        assertThat(ticket.getInTime().getTime()).isEqualTo(clock.millis());
+
+        clock.advance(48 * 60 * 60 * 1000);
+        when(ticketDAO.getTicket("ABCDEF")).thenReturn(ticket);
+        when(ticketDAO.updateTicket(ticket)).thenReturn(true);
+        assertThat(parkingService.processExitingVehicle(null)).isSameAs(ticket);
+        assertThat(ticket.getOutTime().getTime()).isEqualTo(clock.millis());
+        assertThat(ticket.getPriceCents()).isEqualTo(48 * Fare.CAR_RATE_PER_HOUR_CENTS);
+    }
 }
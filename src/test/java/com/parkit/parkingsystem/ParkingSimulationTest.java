@@ -0,0 +1,53 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.load.LoadProfile;
+import com.parkit.parkingsystem.load.ParkingSimulation;
+import com.parkit.parkingsystem.load.SimulationReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Tests for the ParkingSimulation class.
+ * These tests validate that a month of operations runs on virtual time, deterministically for a given seed.
+ */
+public class ParkingSimulationTest {
+
+    private LoadProfile profile;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        profile = new LoadProfile();
+        profile.setSimulatedHours(30 * 24);
+        profile.setArrivalsPerHour(1);
+        profile.setNbCarSpot(10);
+        profile.setNbBikeSpot(3);
+        profile.setRegularShare(0.5);
+        profile.setNbRegular(20);
+    }
+
+    /**
+     * Test case to validate that a month is simulated within seconds, that regular customers get the
+     * discount, and that the same seed gives the same outcome.
+     */
+    @Test
+    public void simulateMonthDeterministically() throws Exception {
+        LocalDate startDay = LocalDate.of(2024, 1, 1);
+
+        SimulationReport report = new ParkingSimulation(profile, startDay, ZoneOffset.UTC).run();
+        SimulationReport replay = new ParkingSimulation(profile, startDay, ZoneOffset.UTC).run();
+
+        assertThat(report.getNbEntry()).isGreaterThan(300);
+        assertThat(report.getNbExit()).isGreaterThan(300);
+        assertThat(report.getNbDiscounted()).isPositive();
+        assertThat(report.getPeakOccupancy()).isLessThanOrEqualTo(13);
+        assertThat(report.getRevenueCents()).isPositive();
+        assertThat(replay.getNbEntry()).isEqualTo(report.getNbEntry());
+        assertThat(replay.getNbTurnedAway()).isEqualTo(report.getNbTurnedAway());
+        assertThat(replay.getRevenueCents()).isEqualTo(report.getRevenueCents());
+    }
+}
@@ -0,0 +1,94 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.util.PlateBloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Unit tests for the PlateBloomFilter class and its use by TicketDAO.
+ * These tests validate that added plates are always found, that unseen plates are rarely reported as seen,
+ * and that unseen plates are counted without querying the database.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PlateBloomFilterTest {
+
+    @Mock
+    private static DataBaseConfig dataBaseConfig;
+    @Mock
+    private static Connection con;
+    @Mock
+    private static PreparedStatement ps;
+    @Mock
+    private static ResultSet rs;
+
+    private PlateBloomFilter plateFilter;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        plateFilter = new PlateBloomFilter(1000, 0.01);
+    }
+
+    /**
+     * Test case to validate that plates added beyond the initial capacity are all found, and that the false
+     * positive rate and the memory per plate stay within bounds as the filter grows.
+     */
+    @Test
+    public void growWithoutFalseNegatives() {
+        for (int i = 0; i < 50000; i++) {
+            plateFilter.add("AB" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 50000; i++) {
+            assertThat(plateFilter.mightContain("AB" + i)).isTrue();
+            if (plateFilter.mightContain("CD" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(plateFilter.size()).isBetween(49000L, 50000L);
+        assertThat(falsePositives).isLessThan(500);
+        assertThat(plateFilter.getMemoryBytes()).isLessThan(2 * 50000 * 2);
+    }
+
+    /**
+     * Test case to validate that once the plates are loaded, an unseen plate is counted without a query
+     * while a known plate is still counted in the database.
+     */
+    @Test
+    public void getNbTicketSkipsQueryForUnseenPlate() throws Exception {
+        when(dataBaseConfig.getConnection()).thenReturn(con);
+        when(con.prepareStatement(DBConstants.GET_ALL_PLATES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+                .thenReturn(ps);
+        doReturn(ps).when(con).prepareStatement(DBConstants.GET_NB_TICKET);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, false, true);
+        when(rs.getString(1)).thenReturn("ABC123");
+        when(rs.getInt(anyInt())).thenReturn(2);
+        TicketDAO ticketDAO = new TicketDAO();
+        ticketDAO.dataBaseConfig = dataBaseConfig;
+
+        assertThat(ticketDAO.loadPlateFilter(plateFilter)).isTrue();
+
+        assertThat(ticketDAO.getNbTicket("zz-999")).isZero();
+        verify(dataBaseConfig, times(1)).getConnection();
+        assertThat(ticketDAO.getNbTicket("abc-123")).isEqualTo(2);
+        verify(dataBaseConfig, times(2)).getConnection();
+    }
+}
@@ -0,0 +1,68 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.util.PlateDictionary;
+import com.parkit.parkingsystem.util.PlateIndex;
+import com.parkit.parkingsystem.util.PlateNormalizer;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the PlateNormalizer, PlateIndex and PlateDictionary classes.
+ * These tests validate plate canonicalization, key packing and primitive-key lookups.
+ */
+public class PlateIndexTest {
+
+    /**
+     * Test case to validate that different spellings of a plate share the same canonical form and packed key.
+     */
+    @Test
+    public void normalizeAndPackPlates() {
+        assertThat(PlateNormalizer.normalize("AB-123-CD")).isEqualTo("AB123CD");
+        assertThat(PlateNormalizer.normalize(" ab123cd ")).isEqualTo("AB123CD");
+
+        long key = PlateNormalizer.pack("AB123CD");
+        assertThat(key).isNotEqualTo(PlateNormalizer.NOT_PACKABLE);
+        assertThat(PlateNormalizer.unpack(key)).isEqualTo("AB123CD");
+        assertThat(PlateNormalizer.pack("ZZZZZZZZZZ")).isPositive();
+        assertThat(PlateNormalizer.pack("ABCDEFGHIJK")).isEqualTo(PlateNormalizer.NOT_PACKABLE);
+        assertThat(PlateNormalizer.pack("ÉCOLE1")).isEqualTo(PlateNormalizer.NOT_PACKABLE);
+    }
+
+    /**
+     * Test case to validate that the index keeps every key through resizes and removals.
+     */
+    @Test
+    public void putGetAndRemoveKeys() {
+        PlateIndex plateIndex = new PlateIndex(4);
+        for (int i = 0; i < 10000; i++) {
+            plateIndex.put(PlateNormalizer.pack("P" + i), i);
+        }
+        for (int i = 0; i < 10000; i += 2) {
+            assertThat(plateIndex.remove(PlateNormalizer.pack("P" + i))).isEqualTo(i);
+        }
+
+        assertThat(plateIndex.size()).isEqualTo(5000);
+        for (int i = 0; i < 10000; i++) {
+            int expected = (i % 2 == 0) ? PlateIndex.NOT_FOUND : i;
+            assertThat(plateIndex.get(PlateNormalizer.pack("P" + i))).isEqualTo(expected);
+        }
+    }
+
+    /**
+     * Test case to validate that the dictionary interns every spelling of a plate, including plates that cannot be packed.
+     */
+    @Test
+    public void internPlatesInDictionary() {
+        PlateDictionary plateDictionary = new PlateDictionary();
+
+        int code = plateDictionary.encode("AB-123-CD");
+        int longCode = plateDictionary.encode("ABCDEFGHIJKL");
+
+        assertThat(plateDictionary.encode("ab123cd ")).isEqualTo(code);
+        assertThat(plateDictionary.lookup("abcdefghijkl")).isEqualTo(longCode);
+        assertThat(plateDictionary.decode(code)).isEqualTo("AB123CD");
+        assertThat(plateDictionary.lookup("XYZ")).isEqualTo(-1);
+        assertThat(plateDictionary.size()).isEqualTo(2);
+    }
+}
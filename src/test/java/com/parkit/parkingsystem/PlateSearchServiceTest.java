@@ -0,0 +1,167 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.PlateMatch;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.PlateSearchService;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for the PlateSearchService class.
+ * These tests validate the ranking of close plates, the expiry of plates no longer seen, and that the bigram
+ * filter never misses a plate within the maximum distance.
+ */
+public class PlateSearchServiceTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTVWXYZ0123456789";
+
+    private SimulatedClock clock;
+    private PlateSearchService plateSearchService;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        clock = new SimulatedClock(Instant.parse("2024-03-01T08:00:00Z"), ZoneOffset.UTC);
+        plateSearchService = new PlateSearchService(clock, 24 * HOUR);
+    }
+
+    /**
+     * Test case to validate that the closest plates come first, then parked vehicles, then the most recently seen.
+     */
+    @Test
+    public void rankCloserAndParkedPlatesFirst() {
+        enter("AB-123-CD");
+        enter("AB-128-CD");
+        exit("AB-128-CD");
+        enter("AB-12-CE");
+        enter("XY-999-ZZ");
+
+        List<PlateMatch> matches = plateSearchService.search("ab 12 cd", 10);
+
+        assertThat(matches).extracting(PlateMatch::getVehicleRegNumber)
+                .containsExactly("AB12CE", "AB123CD", "AB128CD");
+        assertThat(matches).extracting(PlateMatch::getDistance).containsExactly(1, 1, 1);
+        assertThat(matches).extracting(PlateMatch::isOpen).containsExactly(true, true, false);
+        assertThat(plateSearchService.search("AB123CD", 1)).extracting(PlateMatch::getDistance).containsExactly(0);
+    }
+
+    /**
+     * Test case to validate that departed vehicles are no longer found after the retention period,
+     * while parked vehicles are.
+     */
+    @Test
+    public void dropDepartedPlatesAfterRetention() {
+        enter("AB123CD");
+        exit("AB123CD");
+        enter("EF456GH");
+        clock.advance(25 * HOUR);
+        enter("IJ789KL");
+
+        assertThat(plateSearchService.search("AB123CX", 10)).isEmpty();
+        assertThat(plateSearchService.search("EF456GX", 10)).hasSize(1);
+        assertThat(plateSearchService.size()).isEqualTo(2);
+    }
+
+    /**
+     * Test case to validate against a full scan that every plate within two edits is found among many plates.
+     */
+    @Test
+    public void findEveryPlateWithinTwoEdits() {
+        Random random = new Random(42);
+        List<String> plates = new ArrayList<>();
+        Set<String> unique = new HashSet<>();
+        while (plates.size() < 50000) {
+            String plate = randomPlate(random);
+            if (unique.add(plate)) {
+                plates.add(plate);
+                enter(plate);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            String query = mistype(plates.get(random.nextInt(plates.size())), random);
+            Set<String> expected = new HashSet<>();
+            for (String plate : plates) {
+                if (levenshtein(query, plate) <= PlateSearchService.MAX_DISTANCE) {
+                    expected.add(plate);
+                }
+            }
+            List<PlateMatch> matches = plateSearchService.search(query, Integer.MAX_VALUE);
+            assertThat(matches).extracting(PlateMatch::getVehicleRegNumber).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    private void enter(String plate) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber(plate);
+        ticket.setInTime(new Date(clock.millis()));
+        plateSearchService.onVehicleEntered(ticket);
+        clock.advance(1000);
+    }
+
+    private void exit(String plate) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber(plate);
+        ticket.setInTime(new Date(clock.millis() - HOUR));
+        ticket.setOutTime(new Date(clock.millis()));
+        plateSearchService.onVehicleExited(ticket);
+        clock.advance(1000);
+    }
+
+    private static String randomPlate(Random random) {
+        StringBuilder plate = new StringBuilder();
+        for (int i = 0; i < 7; i++) {
+            plate.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return plate.toString();
+    }
+
+    private static String mistype(String plate, Random random) {
+        StringBuilder mistyped = new StringBuilder(plate);
+        for (int edit = random.nextInt(3); edit > 0; edit--) {
+            int position = random.nextInt(mistyped.length());
+            switch (random.nextInt(3)) {
+                case 0:
+                    mistyped.setCharAt(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    break;
+                case 1:
+                    mistyped.deleteCharAt(position);
+                    break;
+                default:
+                    mistyped.insert(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+        return mistyped.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] distances = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    distances[i][j] = i + j;
+                } else {
+                    distances[i][j] = Math.min(distances[i - 1][j - 1] + ((a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1),
+                            Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+                }
+            }
+        }
+        return distances[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,123 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.Reservation;
+import com.parkit.parkingsystem.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the ReservationService class.
+ * These tests validate capacity checks over time ranges, check-in of holders and admission of walk-in vehicles.
+ */
+public class ReservationServiceTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final long NOW = 1000 * HOUR;
+
+    private ReservationService reservationService;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        reservationService = new ReservationService(Collections.singletonMap(ParkingType.CAR, 2),
+                NOW, ReservationService.DEFAULT_SLOT_MILLIS, 7 * 24 * 4);
+    }
+
+    /**
+     * Test case to validate that overlapping bookings are refused once the capacity is reached,
+     * while bookings outside the full range are still accepted.
+     */
+    @Test
+    public void bookUntilCapacityIsReached() {
+        assertThat(reservationService.book("AAA111", ParkingType.CAR, 1, NOW + HOUR, NOW + 3 * HOUR, NOW)).isNotNull();
+        assertThat(reservationService.book("BBB222", ParkingType.CAR, 1, NOW + 2 * HOUR, NOW + 4 * HOUR, NOW)).isNotNull();
+
+        assertThat(reservationService.canBook(ParkingType.CAR, 1, NOW + 2 * HOUR, NOW + 5 * HOUR, NOW)).isFalse();
+        assertThat(reservationService.book("CCC333", ParkingType.CAR, 1, NOW, NOW + 3 * HOUR, NOW)).isNull();
+        assertThat(reservationService.book("CCC333", ParkingType.CAR, 1, NOW + 3 * HOUR, NOW + 5 * HOUR, NOW)).isNotNull();
+        assertThat(reservationService.book("DDD444", ParkingType.BIKE, 1, NOW + HOUR, NOW + 2 * HOUR, NOW)).isNull();
+        assertThrows(IllegalArgumentException.class,
+                () -> reservationService.book("EEE555", ParkingType.CAR, 1, NOW, NOW + 30 * 24 * HOUR, NOW));
+    }
+
+    /**
+     * Test case to validate that cancelling a reservation frees its spots.
+     */
+    @Test
+    public void cancelReleasesSpots() {
+        Reservation reservation = reservationService.book("AAA111", ParkingType.CAR, 2, NOW + HOUR, NOW + 2 * HOUR, NOW);
+        assertThat(reservationService.canBook(ParkingType.CAR, 1, NOW + HOUR, NOW + 2 * HOUR, NOW)).isFalse();
+
+        assertThat(reservationService.cancel(reservation.getId(), NOW)).isTrue();
+
+        assertThat(reservationService.canBook(ParkingType.CAR, 2, NOW + HOUR, NOW + 2 * HOUR, NOW)).isTrue();
+        assertThat(reservationService.cancel(reservation.getId(), NOW)).isFalse();
+    }
+
+    /**
+     * Test case to validate that reservations never checked in are forgotten once over, along with their holders,
+     * as later bookings and admissions advance time.
+     */
+    @Test
+    public void forgetReservationsOnceOver() {
+        reservationService.book("AAA111", ParkingType.CAR, 1, NOW, NOW + HOUR, NOW);
+        reservationService.book("AAA111", ParkingType.CAR, 1, NOW + HOUR, NOW + 2 * HOUR, NOW);
+        reservationService.book("BBB222", ParkingType.CAR, 1, NOW, NOW + 3 * HOUR, NOW);
+        assertThat(reservationService.getNbReservation()).isEqualTo(3);
+        assertThat(reservationService.getNbPlate()).isEqualTo(2);
+
+        assertThat(reservationService.getHeldSpots(ParkingType.CAR, NOW + HOUR)).isEqualTo(2);
+        assertThat(reservationService.getNbReservation()).isEqualTo(2);
+        assertThat(reservationService.getNbPlate()).isEqualTo(2);
+
+        assertThat(reservationService.book("CCC333", ParkingType.CAR, 1, NOW + 4 * HOUR, NOW + 5 * HOUR,
+                NOW + 3 * HOUR)).isNotNull();
+        assertThat(reservationService.getNbReservation()).isEqualTo(1);
+        assertThat(reservationService.getNbPlate()).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that held spots refuse walk-in vehicles but admit the holder, whose arrival frees the hold.
+     */
+    @Test
+    public void admitHolderAndWalkInVehicles() {
+        reservationService.book("AB-123-CD", ParkingType.CAR, 1, NOW, NOW + 2 * HOUR, NOW);
+        long arrival = NOW + HOUR;
+
+        assertThat(reservationService.getHeldSpots(ParkingType.CAR, arrival)).isEqualTo(1);
+        assertThat(reservationService.admit("XYZ999", ParkingType.CAR, arrival, () -> 1)).isFalse();
+        assertThat(reservationService.admit("XYZ999", ParkingType.CAR, arrival, () -> 2)).isTrue();
+        assertThat(reservationService.admit("ab123cd", ParkingType.CAR, arrival, () -> 1)).isTrue();
+        assertThat(reservationService.getHeldSpots(ParkingType.CAR, arrival)).isZero();
+    }
+
+    /**
+     * Test case to validate that concurrent booking requests never book more spots than available.
+     */
+    @Test
+    public void concurrentBookingsNeverOverbook() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        AtomicInteger booked = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            final String plate = "CAR" + i;
+            executorService.execute(() -> {
+                if (reservationService.book(plate, ParkingType.CAR, 1, NOW + HOUR, NOW + 2 * HOUR, NOW) != null) {
+                    booked.incrementAndGet();
+                }
+            });
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(booked.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,99 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketRowHandler;
+import com.parkit.parkingsystem.model.DailySettlement;
+import com.parkit.parkingsystem.service.SettlementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Unit tests for the SettlementService class.
+ * These tests validate that the tickets closed during a day are totalled exactly, per parking type.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SettlementServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 11, 14);
+    private static final long DAY_START = DAY.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long DAY_END = DAY_START + 24 * 60 * 60 * 1000;
+
+    @Mock
+    private static TicketDAO ticketDAO;
+
+    private SettlementService settlementService;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        settlementService = new SettlementService(ticketDAO, ZoneOffset.UTC);
+    }
+
+    /**
+     * Test case to validate that many fractional prices add up to the exact total, with no rounding drift,
+     * and that the day is delimited in the configured time zone.
+     */
+    @Test
+    public void settleDayExactly() {
+        when(ticketDAO.streamClosedTickets(eq(DAY_START), eq(DAY_END), any(TicketRowHandler.class))).thenAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(2);
+            for (int i = 0; i < 10000; i++) {
+                handler.onRow(i, 1, ParkingType.CAR, "AB" + i, 10, DAY_START, DAY_START + i);
+            }
+            for (int i = 0; i < 3; i++) {
+                handler.onRow(10000 + i, 4, ParkingType.BIKE, "CD" + i, 95, DAY_START, DAY_START + i);
+            }
+            return 10003L;
+        });
+
+        DailySettlement settlement = settlementService.settle(DAY);
+
+        assertThat(settlement.getDay()).isEqualTo(DAY);
+        assertThat(settlement.getNbTicket(ParkingType.CAR)).isEqualTo(10000);
+        assertThat(settlement.getTotalCents(ParkingType.CAR)).isEqualTo(100000);
+        assertThat(settlement.getNbTicket(ParkingType.BIKE)).isEqualTo(3);
+        assertThat(settlement.getTotalCents(ParkingType.BIKE)).isEqualTo(285);
+        assertThat(settlement.getNbTicket()).isEqualTo(10003);
+        assertThat(settlement.getTotalCents()).isEqualTo(100285);
+    }
+
+    /**
+     * Test case to validate that a day without closed tickets settles to zero.
+     */
+    @Test
+    public void settleEmptyDay() {
+        when(ticketDAO.streamClosedTickets(eq(DAY_START), eq(DAY_END), any(TicketRowHandler.class))).thenReturn(0L);
+
+        DailySettlement settlement = settlementService.settle(DAY);
+
+        assertThat(settlement.getNbTicket()).isZero();
+        assertThat(settlement.getTotalCents()).isZero();
+    }
+
+    /**
+     * Test case to validate that a day whose tickets cannot be read fails instead of settling the rows read
+     * before the error.
+     */
+    @Test
+    public void settleFailsWhenTicketsCannotBeRead() {
+        when(ticketDAO.streamClosedTickets(eq(DAY_START), eq(DAY_END), any(TicketRowHandler.class))).thenAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(2);
+            handler.onRow(1, 1, ParkingType.CAR, "AB1", 10, DAY_START, DAY_START + 1);
+            return -1L;
+        });
+
+        assertThatThrownBy(() -> settlementService.settle(DAY)).isInstanceOf(IllegalStateException.class);
+    }
+}
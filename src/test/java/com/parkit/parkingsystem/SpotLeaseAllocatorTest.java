@@ -0,0 +1,114 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.service.SpotLeaseAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit tests for the SpotLeaseAllocator class.
+ * These tests validate local allocation from leased blocks, renewal before expiry and release of leases.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SpotLeaseAllocatorTest {
+
+    private static final long LEASE = 60 * 1000;
+    private static final long NOW = 1_000_000_000L;
+
+    @Mock
+    private static ParkingSpotDAO parkingSpotDAO;
+
+    private SpotLeaseAllocator spotLeaseAllocator;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        spotLeaseAllocator = new SpotLeaseAllocator(parkingSpotDAO, "node-1", 3, LEASE);
+    }
+
+    /**
+     * Test case to validate that a leased block is handed out locally, lowest number first,
+     * and that a new block is claimed once it runs out.
+     */
+    @Test
+    public void allocateFromLeasedBlock() {
+        when(parkingSpotDAO.claimParkingSpots(eq(ParkingType.CAR), eq("node-1"), eq(3), anyLong(), anyLong()))
+                .thenReturn(Arrays.asList(3, 1, 2)).thenReturn(Collections.singletonList(7));
+
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, NOW)).isEqualTo(1);
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, NOW + 1000)).isEqualTo(2);
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, NOW + 2000)).isEqualTo(3);
+        verify(parkingSpotDAO, times(1)).claimParkingSpots(eq(ParkingType.CAR), eq("node-1"), eq(3), anyLong(), anyLong());
+
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, NOW + 3000)).isEqualTo(7);
+        verify(parkingSpotDAO, times(2)).claimParkingSpots(eq(ParkingType.CAR), eq("node-1"), eq(3), anyLong(), anyLong());
+    }
+
+    /**
+     * Test case to validate that the lease is renewed before it expires, so that a spot whose lease may have been
+     * taken over by another node is never handed out.
+     */
+    @Test
+    public void renewLeaseBeforeExpiry() {
+        when(parkingSpotDAO.claimParkingSpots(ParkingType.CAR, "node-1", 3, NOW, NOW + LEASE))
+                .thenReturn(Arrays.asList(1, 2, 3));
+        long later = NOW + LEASE - LEASE / 4;
+        doReturn(Arrays.asList(3, 4))
+                .when(parkingSpotDAO).claimParkingSpots(ParkingType.CAR, "node-1", 3, later, later + LEASE);
+
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, NOW)).isEqualTo(1);
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, later)).isEqualTo(3);
+        assertThat(spotLeaseAllocator.getNbLeasedSpot(ParkingType.CAR)).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that a renewed block leaves out the spots handed out and not occupied yet, which the
+     * claim renews along with the others, so that a spot is not handed out twice.
+     */
+    @Test
+    public void renewKeepsHandedOutSpotsOutOfBlock() {
+        when(parkingSpotDAO.claimParkingSpots(eq(ParkingType.CAR), eq("node-1"), eq(3), anyLong(), anyLong()))
+                .thenReturn(Arrays.asList(1, 2, 3));
+        when(parkingSpotDAO.occupyLeasedParkingSpot(1, "node-1")).thenReturn(false);
+        long later = NOW + LEASE - LEASE / 4;
+
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, NOW)).isEqualTo(1);
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, later)).isEqualTo(2);
+        assertThat(spotLeaseAllocator.getNbLeasedSpot(ParkingType.CAR)).isEqualTo(1);
+
+        assertThat(spotLeaseAllocator.occupy(1)).isFalse();
+        spotLeaseAllocator.giveBack(2);
+        assertThat(spotLeaseAllocator.allocate(ParkingType.CAR, later + LEASE)).isEqualTo(1);
+        assertThat(spotLeaseAllocator.getNbLeasedSpot(ParkingType.CAR)).isEqualTo(2);
+    }
+
+    /**
+     * Test case to validate that a full parking lot yields -1 and that leases are given back on release.
+     */
+    @Test
+    public void noFreeSpotAndRelease() {
+        when(parkingSpotDAO.claimParkingSpots(eq(ParkingType.BIKE), eq("node-1"), eq(3), anyLong(), anyLong()))
+                .thenReturn(Collections.emptyList());
+        when(parkingSpotDAO.releaseParkingLeases("node-1")).thenReturn(0);
+
+        assertThat(spotLeaseAllocator.allocate(ParkingType.BIKE, NOW)).isEqualTo(-1);
+        spotLeaseAllocator.releaseAll();
+
+        verify(parkingSpotDAO).releaseParkingLeases("node-1");
+        assertThat(spotLeaseAllocator.getNbLeasedSpot(ParkingType.BIKE)).isZero();
+    }
+}
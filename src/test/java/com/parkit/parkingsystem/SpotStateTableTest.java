@@ -0,0 +1,128 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.SpotStateTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the SpotStateTable class.
+ * These tests validate that spots are taken and given back atomically and that the table hands out shared spots.
+ */
+public class SpotStateTableTest {
+
+    private static final int NB_CAR_SPOT = 100;
+    private static final int NB_BIKE_SPOT = 50;
+
+    private List<ParkingSpot> parkingSpots;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        parkingSpots = new ArrayList<>();
+        for (int number = 1; number <= NB_CAR_SPOT + NB_BIKE_SPOT; number++) {
+            parkingSpots.add(new ParkingSpot(number, (number <= NB_CAR_SPOT) ? ParkingType.CAR : ParkingType.BIKE, true));
+        }
+    }
+
+    /**
+     * Test case to validate that the free spot of the requested type with the lowest number is taken,
+     * and that it is the same instance as the one returned by number.
+     */
+    @Test
+    public void acquireLowestFreeSpotOfType() {
+        parkingSpots.get(0).setAvailable(false);
+        SpotStateTable spotStateTable = new SpotStateTable(parkingSpots);
+
+        ParkingSpot car = spotStateTable.acquire(ParkingType.CAR);
+        ParkingSpot bike = spotStateTable.acquire(ParkingType.BIKE);
+
+        assertThat(car.getId()).isEqualTo(2);
+        assertThat(bike.getId()).isEqualTo(NB_CAR_SPOT + 1);
+        assertThat(bike.getParkingType()).isEqualTo(ParkingType.BIKE);
+        assertThat(spotStateTable.getSpot(2)).isSameAs(car);
+        assertThat(spotStateTable.isAvailable(2)).isFalse();
+        assertThat(spotStateTable.getNbAvailable(ParkingType.CAR)).isEqualTo(NB_CAR_SPOT - 2);
+        assertThat(spotStateTable.getNbAvailable(ParkingType.BIKE)).isEqualTo(NB_BIKE_SPOT - 1);
+    }
+
+    /**
+     * Test case to validate that a spot is given back only once, and that no spot is taken when all are taken.
+     */
+    @Test
+    public void releaseAndExhaust() {
+        SpotStateTable spotStateTable = new SpotStateTable(parkingSpots.subList(NB_CAR_SPOT - 1, NB_CAR_SPOT + 1));
+
+        assertThat(spotStateTable.acquire(ParkingType.CAR).getId()).isEqualTo(NB_CAR_SPOT);
+        assertThat(spotStateTable.acquire(ParkingType.CAR)).isNull();
+        assertThat(spotStateTable.release(NB_CAR_SPOT)).isTrue();
+        assertThat(spotStateTable.release(NB_CAR_SPOT)).isFalse();
+        assertThat(spotStateTable.tryAcquire(NB_CAR_SPOT)).isTrue();
+        assertThat(spotStateTable.tryAcquire(NB_CAR_SPOT)).isFalse();
+        assertThat(spotStateTable.release(1)).isFalse();
+        assertThat(spotStateTable.getSpot(1)).isNull();
+        assertThat(spotStateTable.getNbAvailable(ParkingType.CAR)).isZero();
+        assertThat(spotStateTable.getNbAvailable(ParkingType.BIKE)).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that the shared instance of a spot reports its current availability as the spot is taken
+     * and given back.
+     */
+    @Test
+    public void sharedSpotFollowsAvailability() {
+        SpotStateTable spotStateTable = new SpotStateTable(parkingSpots);
+
+        ParkingSpot car = spotStateTable.acquire(ParkingType.CAR);
+        assertThat(car.isAvailable()).isFalse();
+        assertThat(spotStateTable.release(car.getId())).isTrue();
+        assertThat(car.isAvailable()).isTrue();
+        assertThat(spotStateTable.tryAcquire(car.getId())).isTrue();
+        assertThat(spotStateTable.getSpot(car.getId()).isAvailable()).isFalse();
+        assertThat(spotStateTable.getSpot(NB_CAR_SPOT + 1).isAvailable()).isTrue();
+    }
+
+    /**
+     * Test case to validate that concurrent threads never take the same spot, and take every spot of the type.
+     */
+    @Test
+    public void concurrentAcquireNeverSharesSpot() throws Exception {
+        SpotStateTable spotStateTable = new SpotStateTable(parkingSpots);
+        ConcurrentHashMap<Integer, Boolean> taken = new ConcurrentHashMap<>();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (ParkingSpot spot; (spot = spotStateTable.acquire(ParkingType.CAR)) != null; ) {
+                    if (taken.putIfAbsent(spot.getId(), Boolean.TRUE) != null) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        ready.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(conflicts.get()).isZero();
+        assertThat(taken).hasSize(NB_CAR_SPOT);
+        assertThat(spotStateTable.getNbAvailable(ParkingType.CAR)).isZero();
+        assertThat(spotStateTable.getNbAvailable(ParkingType.BIKE)).isEqualTo(NB_BIKE_SPOT);
+    }
+}
@@ -0,0 +1,64 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.service.StartupService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the StartupService class.
+ * These tests validate that warm-up tasks run in parallel in the background and that readiness is reported
+ * once every task has finished, failed or not.
+ */
+public class StartupServiceTest {
+
+    /**
+     * Test case to validate that starting does not wait for the tasks, which run concurrently,
+     * and that the service is ready once they are done.
+     */
+    @Test
+    public void runTasksInParallelInBackground() throws Exception {
+        StartupService startupService = new StartupService();
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (String name : new String[] {"database", "plate filter"}) {
+            startupService.addTask(name, () -> {
+                bothRunning.countDown();
+                return bothRunning.await(5, TimeUnit.SECONDS) && release.await(5, TimeUnit.SECONDS);
+            });
+        }
+
+        startupService.start();
+        assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(startupService.isReady()).isFalse();
+        assertThat(startupService.getStatus("database")).isEqualTo(StartupService.Status.RUNNING);
+        release.countDown();
+
+        assertThat(startupService.awaitReady(5000)).isTrue();
+        assertThat(startupService.getStatus("plate filter")).isEqualTo(StartupService.Status.READY);
+    }
+
+    /**
+     * Test case to validate that failed tasks do not prevent readiness and are reported as failed.
+     */
+    @Test
+    public void reportFailedTasks() throws Exception {
+        StartupService startupService = new StartupService();
+        startupService.addTask("database", () -> {
+            throw new IllegalStateException("Connection refused");
+        });
+        startupService.addTask("fares", () -> true);
+        startupService.addTask("plate filter", () -> false);
+
+        startupService.start();
+
+        assertThat(startupService.awaitReady(5000)).isTrue();
+        assertThat(startupService.getStatus("database")).isEqualTo(StartupService.Status.FAILED);
+        assertThat(startupService.getStatus("fares")).isEqualTo(StartupService.Status.READY);
+        assertThat(startupService.getReport()).matches(
+                "database: FAILED in \\d+ ms, fares: READY in \\d+ ms, plate filter: FAILED in \\d+ ms");
+    }
+}
@@ -0,0 +1,78 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.util.TicketColumnarReader;
+import com.parkit.parkingsystem.util.TicketColumnarWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the TicketColumnarWriter and TicketColumnarReader classes.
+ * These tests validate that a columnar ticket file reads back the rows that were written.
+ */
+public class TicketColumnarFileTest {
+
+    private static final long IN_TIME = 1700000000000L;
+
+    private Path file;
+
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        file = Files.createTempFile("tickets", ".pktc");
+    }
+
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test case to validate that rows spread over several blocks are read back in order, with plates decoded.
+     */
+    @Test
+    public void writeAndReadBackSeveralBlocks() throws Exception {
+        try (TicketColumnarWriter writer = new TicketColumnarWriter(file, 2)) {
+            writer.write(1, 1, ParkingType.CAR, "ABCDEF", 150, IN_TIME, IN_TIME + 3600000);
+            writer.write(2, 4, ParkingType.BIKE, "GHIJKL", 100, IN_TIME + 60000, IN_TIME + 3660000);
+            writer.write(3, 2, ParkingType.CAR, "ABCDEF", 0, IN_TIME + 7200000, -1);
+        }
+
+        List<String> rows = new ArrayList<>();
+        try (TicketColumnarReader reader = TicketColumnarReader.open(file)) {
+            assertThat(reader.getRowCount()).isEqualTo(3);
+            assertThat(reader.getBlockCount()).isEqualTo(2);
+            assertThat(reader.getPlateCount()).isEqualTo(2);
+            assertThat(reader.sumPriceCents()).isEqualTo(250);
+            assertThat(reader.countOpenTickets()).isEqualTo(1);
+            reader.forEachRow((id, parkingNumber, parkingType, vehicleRegNumber, priceCents, inTime, outTime) ->
+                    rows.add(id + ":" + parkingNumber + ":" + parkingType + ":" + vehicleRegNumber + ":" + priceCents
+                            + ":" + (inTime - IN_TIME) + ":" + (outTime < 0 ? -1 : outTime - IN_TIME)));
+        }
+
+        assertThat(rows).containsExactly(
+                "1:1:CAR:ABCDEF:150:0:3600000",
+                "2:4:BIKE:GHIJKL:100:60000:3660000",
+                "3:2:CAR:ABCDEF:0:7200000:-1");
+    }
+
+    /**
+     * Test case to validate that an export without any ticket still produces a readable file.
+     */
+    @Test
+    public void writeAndReadBackEmptyFile() throws Exception {
+        new TicketColumnarWriter(file).close();
+
+        try (TicketColumnarReader reader = TicketColumnarReader.open(file)) {
+            assertThat(reader.getRowCount()).isZero();
+            assertThat(reader.getBlockCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketRowHandler;
+import com.parkit.parkingsystem.service.TicketExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the TicketExportService class.
+ * These tests validate that an export interrupted by a database failure fails and leaves no truncated file,
+ * whether it writes a single file or one file per chunk.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TicketExportServiceTest {
+
+    private static final long IN_TIME = 1700000000000L;
+
+    @Mock
+    private static TicketDAO ticketDAO;
+
+    private Path file;
+
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        file = Files.createTempFile("tickets", ".pktc");
+    }
+
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test case to validate that rows delivered before the ticket table stopped streaming are not exported
+     * as a complete file.
+     */
+    @Test
+    public void deleteFileWhenStreamingFails() {
+        doAnswer(invocation -> {
+            TicketRowHandler handler = invocation.getArgument(0);
+            handler.onRow(1, 1, ParkingType.CAR, "ABCDEF", 150, IN_TIME, IN_TIME + 3600000);
+            handler.onRow(2, 4, ParkingType.BIKE, "GHIJKL", 100, IN_TIME, -1);
+            return -1L;
+        }).when(ticketDAO).streamTickets(any(TicketRowHandler.class));
+
+        assertThatThrownBy(() -> new TicketExportService(ticketDAO).exportTickets(file))
+                .isInstanceOf(IOException.class);
+        assertThat(file).doesNotExist();
+    }
+
+    /**
+     * Test case to validate that a chunked export fails when the id range cannot be read, instead of exporting
+     * nothing as if the ticket table were empty.
+     */
+    @Test
+    public void chunkedExportFailsWhenIdRangeCannotBeRead() throws Exception {
+        Path directory = Files.createTempDirectory("tickets");
+        try {
+            when(ticketDAO.getTicketIdRange()).thenReturn(null);
+
+            assertThatThrownBy(() -> new TicketExportService(ticketDAO).exportTicketChunks(directory, 2, 10))
+                    .isInstanceOf(IOException.class);
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Test case to validate that a chunked export failing on one chunk deletes the files of the other chunks too,
+     * so that no partial export remains.
+     */
+    @Test
+    public void deleteEveryChunkWhenOneChunkFails() throws Exception {
+        Path directory = Files.createTempDirectory("tickets");
+        try {
+            when(ticketDAO.getTicketIdRange()).thenReturn(new int[] {1, 4});
+            doAnswer(invocation -> {
+                TicketRowHandler handler = invocation.getArgument(2);
+                handler.onRow(1, 1, ParkingType.CAR, "ABCDEF", 150, IN_TIME, IN_TIME + 3600000);
+                handler.onRow(2, 4, ParkingType.BIKE, "GHIJKL", 100, IN_TIME, -1);
+                return 2L;
+            }).when(ticketDAO).streamTicketsByIdRange(eq(1), eq(3), any(TicketRowHandler.class));
+            doReturn(-1L).when(ticketDAO).streamTicketsByIdRange(eq(3), eq(5), any(TicketRowHandler.class));
+
+            assertThatThrownBy(() -> new TicketExportService(ticketDAO).exportTicketChunks(directory, 1, 2))
+                    .isInstanceOf(IOException.class);
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files).isEmpty();
+            }
+        } finally {
+            Files.delete(directory);
+        }
+    }
+}
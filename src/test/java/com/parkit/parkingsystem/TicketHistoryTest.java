@@ -0,0 +1,153 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.load.EmbeddedDataBaseConfig;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketPage;
+import com.parkit.parkingsystem.service.TicketExportService;
+import com.parkit.parkingsystem.util.TicketColumnarReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tests for the ticket history API of TicketDAO against an embedded database.
+ * These tests validate that keyset pages neither skip nor repeat tickets, including tickets entered at the same
+ * time, that saved tickets get their generated ids, and that the ticket table is exported in parallel chunks.
+ */
+public class TicketHistoryTest {
+
+    private static final long IN_TIME = 1700000000000L;
+    private static final long MINUTE = 60 * 1000;
+    private static final int NB_TICKET = 30;
+
+    private EmbeddedDataBaseConfig dataBaseConfig;
+    private TicketDAO ticketDAO;
+
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        dataBaseConfig = new EmbeddedDataBaseConfig("history" + System.nanoTime(), 2, 1);
+        ticketDAO = new TicketDAO();
+        ticketDAO.dataBaseConfig = dataBaseConfig;
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < NB_TICKET; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setParkingSpot(new ParkingSpot(1 + i % 3, (i % 3 == 2) ? ParkingType.BIKE : ParkingType.CAR, false));
+            ticket.setVehicleRegNumber((i % 4 == 3) ? "CD-456" : "AB-123");
+            // Pairs of tickets entered at the same minute
+            ticket.setInTime(new Date(IN_TIME + (i / 2) * MINUTE));
+            ticket.setOutTime(new Date(IN_TIME + (i / 2) * MINUTE + 30 * MINUTE));
+            ticket.setPriceCents(75);
+            tickets.add(ticket);
+        }
+        assertThat(ticketDAO.saveTickets(tickets)).isTrue();
+    }
+
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        dataBaseConfig.shutdown();
+    }
+
+    /**
+     * Test case to validate that the history of a plate is read most recent first, page after page,
+     * with every ticket exactly once.
+     */
+    @Test
+    public void pageThroughPlateHistory() {
+        List<Ticket> history = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        TicketPage page = null;
+        do {
+            page = ticketDAO.getTicketHistory("ab123", page, 10);
+            pageSizes.add(page.getTickets().size());
+            history.addAll(page.getTickets());
+        } while (page.hasMore());
+
+        assertThat(pageSizes).containsExactly(10, 10, 3);
+        assertThat(history).extracting(Ticket::getId).doesNotHaveDuplicates();
+        assertThat(history).extracting(Ticket::getVehicleRegNumber).containsOnly("AB123");
+        for (int i = 1; i < history.size(); i++) {
+            Ticket newer = history.get(i - 1);
+            Ticket older = history.get(i);
+            assertThat(newer.getInTime().getTime() > older.getInTime().getTime()
+                    || (newer.getInTime().equals(older.getInTime()) && newer.getId() > older.getId())).isTrue();
+        }
+    }
+
+    /**
+     * Test case to validate that saving a single ticket sets its generated id, so that its entry event carries it.
+     */
+    @Test
+    public void saveTicketSetsGeneratedId() {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber("EF-789");
+        ticket.setInTime(new Date(IN_TIME + NB_TICKET * MINUTE));
+
+        assertThat(ticketDAO.saveTicket(ticket)).isTrue();
+
+        assertThat(ticket.getId()).isEqualTo(NB_TICKET + 1);
+        assertThat(ticketDAO.getTicket("EF789").getId()).isEqualTo(ticket.getId());
+    }
+
+    /**
+     * Test case to validate that the tickets of a time range are read in in-time order across pages,
+     * and that an empty range gives an empty last page.
+     */
+    @Test
+    public void pageThroughTimeRange() {
+        long from = IN_TIME + 5 * MINUTE;
+        long to = IN_TIME + 10 * MINUTE;
+        List<Integer> ids = new ArrayList<>();
+        TicketPage page = null;
+        do {
+            page = ticketDAO.getTicketsInTimeRange(from, to, page, 3);
+            for (Ticket ticket : page.getTickets()) {
+                assertThat(ticket.getInTime().getTime()).isBetween(from, to - 1);
+                ids.add(ticket.getId());
+            }
+        } while (page.hasMore());
+
+        assertThat(ids).hasSize(10).isSorted().doesNotHaveDuplicates();
+        TicketPage empty = ticketDAO.getTicketsInTimeRange(to + MINUTE * 60, to + MINUTE * 120, null, 3);
+        assertThat(empty.getTickets()).isEmpty();
+        assertThat(empty.hasMore()).isFalse();
+    }
+
+    /**
+     * Test case to validate that the ticket table is exported in chunks of ids scanned in parallel,
+     * each chunk in its own readable file.
+     */
+    @Test
+    public void exportTicketsInParallelChunks() throws Exception {
+        Path directory = Files.createTempDirectory("export");
+
+        long exported = new TicketExportService(ticketDAO).exportTicketChunks(directory, 3, 7);
+
+        long read = 0;
+        int files = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                files++;
+                try (TicketColumnarReader reader = TicketColumnarReader.open(path)) {
+                    read += reader.getRowCount();
+                    assertThat(reader.sumPriceCents()).isEqualTo(75 * reader.getRowCount());
+                }
+            }
+        }
+        assertThat(exported).isEqualTo(NB_TICKET);
+        assertThat(read).isEqualTo(NB_TICKET);
+        assertThat(files).isEqualTo(5);
+    }
+}
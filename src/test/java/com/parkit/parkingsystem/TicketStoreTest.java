@@ -0,0 +1,87 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+
+/**
+ * Unit tests for the TicketStore class.
+ * These tests validate that tickets stored in primitive columns are found and rebuilt correctly.
+ */
+public class TicketStoreTest {
+
+    private static final long IN_TIME = 1700000000000L;
+
+    private TicketStore ticketStore;
+
+    @BeforeEach
+    private void setUpPerTest() {
+        ticketStore = new TicketStore(2);
+    }
+
+    /**
+     * Test case to validate that a ticket view rebuilt from the store holds the values of the added ticket.
+     */
+    @Test
+    public void addTicketAndBuildView() {
+        Ticket ticket = new Ticket();
+        ticket.setId(7);
+        ticket.setParkingSpot(new ParkingSpot(4, ParkingType.BIKE, false));
+        ticket.setVehicleRegNumber("ABCDEF");
+        ticket.setInTime(new Date(IN_TIME));
+
+        int slot = ticketStore.add(ticket);
+        Ticket view = ticketStore.getTicket(slot);
+
+        assertThat(view.getId()).isEqualTo(7);
+        assertThat(view.getParkingSpot()).isEqualTo(ticket.getParkingSpot());
+        assertThat(view.getParkingSpot().getParkingType()).isEqualTo(ParkingType.BIKE);
+        assertThat(view.getVehicleRegNumber()).isEqualTo("ABCDEF");
+        assertThat(view.getInTime()).isEqualTo(new Date(IN_TIME));
+        assertThat(view.getOutTime()).isNull();
+        assertThat(ticketStore.findOpenTicket("ABCDEF")).isEqualTo(slot);
+    }
+
+    /**
+     * Test case to validate that closing a ticket removes it from the open tickets of its plate.
+     */
+    @Test
+    public void closeTicketClearsOpenTicket() {
+        int slot = ticketStore.add(1, 1, ParkingType.CAR, "ABCDEF", 0, IN_TIME, -1);
+        assertThat(ticketStore.getOpenCount()).isEqualTo(1);
+
+        ticketStore.close(slot, IN_TIME + 3600000, 150);
+
+        assertThat(ticketStore.findOpenTicket("ABCDEF")).isEqualTo(-1);
+        assertThat(ticketStore.getOpenCount()).isZero();
+        assertThat(ticketStore.getPriceCents(slot)).isEqualTo(150);
+        assertThat(ticketStore.getTicket(slot).getPrice()).isEqualTo(1.5);
+    }
+
+    /**
+     * Test case to validate that the store grows beyond its initial capacity and reuses removed slots.
+     */
+    @Test
+    public void growAndReuseSlots() {
+        for (int i = 0; i < 100; i++) {
+            ticketStore.add(i, i, ParkingType.CAR, "PLATE" + i, 0, IN_TIME + i, -1);
+        }
+        assertThat(ticketStore.size()).isEqualTo(100);
+        int slot = ticketStore.findOpenTicket("PLATE42");
+
+        ticketStore.remove(slot);
+
+        assertThat(ticketStore.findOpenTicket("PLATE42")).isEqualTo(-1);
+        assertThrows(IllegalArgumentException.class, () -> ticketStore.getTicket(slot));
+        assertThat(ticketStore.add(100, 1, ParkingType.CAR, "PLATE100", 0, IN_TIME, -1)).isEqualTo(slot);
+        assertThat(ticketStore.getOpenCount()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,116 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.load.EmbeddedDataBaseConfig;
+import com.parkit.parkingsystem.load.ScriptedInputReaderUtil;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import com.parkit.parkingsystem.util.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for the Tracer class.
+ * These tests validate that a sampled gate operation records its database accesses and fare computation as
+ * child spans, that the spans are exported in the Chrome trace event format, and that nothing is recorded
+ * for operations which are not sampled.
+ */
+public class TracerTest {
+
+    private Path file;
+
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        file = Files.createTempFile("trace", ".json");
+    }
+
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        Tracer.configure(0, Tracer.DEFAULT_CAPACITY);
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test case to validate the spans of a traced entry and exit, their nesting and their export.
+     */
+    @Test
+    public void traceEntryAndExitWithChildSpans() throws Exception {
+        Tracer.configure(1, 256);
+        EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("tracer" + System.nanoTime(), 2, 1);
+        try {
+            ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+            parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+            TicketDAO ticketDAO = new TicketDAO();
+            ticketDAO.dataBaseConfig = dataBaseConfig;
+            SimulatedClock clock = new SimulatedClock(Instant.parse("2024-03-01T08:00:00Z"), ZoneOffset.UTC);
+            ScriptedInputReaderUtil input = new ScriptedInputReaderUtil();
+            ParkingService parkingService = new ParkingService(input, parkingSpotDAO, ticketDAO, clock);
+            input.present(ParkingType.CAR, "AB-123-CD");
+
+            parkingService.processIncomingVehicle(null);
+            clock.advance(60 * 60 * 1000);
+            parkingService.processExitingVehicle(null);
+
+            List<Tracer.Span> spans = Tracer.getSpans();
+            List<Tracer.Span> roots = spans.stream().filter(span -> span.getParentId() == 0).collect(Collectors.toList());
+            assertThat(roots).extracting(Tracer.Span::getName)
+                    .containsExactly("ParkingService.processIncomingVehicle", "ParkingService.processExitingVehicle");
+            Tracer.Span exit = roots.get(1);
+            List<Tracer.Span> exitSpans = spans.stream().filter(span -> span.getTraceId() == exit.getTraceId())
+                    .collect(Collectors.toList());
+            assertThat(exitSpans).extracting(Tracer.Span::getName).contains("TicketDAO.getTicket",
+                    "TicketDAO.updateTicket", "FareCalculatorService.calculateFare", "ParkingSpotDAO.updateParking",
+                    "DataBaseConfig.getConnection");
+            Tracer.Span getTicket = exitSpans.stream().filter(span -> span.getName().equals("TicketDAO.getTicket"))
+                    .findFirst().get();
+            assertThat(getTicket.getDetail()).isEqualTo("GET_TICKET");
+            assertThat(getTicket.getParentId()).isEqualTo(exit.getSpanId());
+            assertThat(exitSpans).filteredOn(span -> span.getName().equals("DataBaseConfig.getConnection"))
+                    .extracting(Tracer.Span::getParentId).contains(getTicket.getSpanId());
+            assertThat(exitSpans).allMatch(span -> span.getDurationNanos() >= 0
+                    && span.getDurationNanos() <= exit.getDurationNanos());
+
+            assertThat(Tracer.export(file)).isEqualTo(spans.size());
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            assertThat(json).startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[")
+                    .contains("{\"name\":\"TicketDAO.getTicket\",\"cat\":\"parkit\",\"ph\":\"X\",\"ts\":")
+                    .contains(",\"sql\":\"GET_TICKET\"}}");
+        } finally {
+            dataBaseConfig.shutdown();
+        }
+    }
+
+    /**
+     * Test case to validate that operations which are not sampled, and work outside any operation,
+     * record no span and leave the thread untraced.
+     */
+    @Test
+    public void recordNothingWhenNotSampled() {
+        assertThat(Tracer.startTrace("ParkingService.processIncomingVehicle")).isSameAs(Tracer.NOOP);
+        Tracer.configure(1, 16);
+        assertThat(Tracer.startSpan("TicketDAO.getTicket", "GET_TICKET")).isSameAs(Tracer.NOOP);
+
+        Tracer.Span trace = Tracer.startTrace("ParkingService.processExitingVehicle");
+        Tracer.Span leftOpen = Tracer.startSpan("TicketDAO.getTicket", "GET_TICKET");
+        trace.end();
+        leftOpen.end();
+        trace.end();
+
+        assertThat(Tracer.startSpan("TicketDAO.getTicket", "GET_TICKET")).isSameAs(Tracer.NOOP);
+        assertThat(Tracer.getSpans()).extracting(Tracer.Span::getName)
+                .containsExactly("ParkingService.processExitingVehicle", "TicketDAO.getTicket");
+    }
+}
@@ -0,0 +1,157 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.load.EmbeddedDataBaseConfig;
+import com.parkit.parkingsystem.load.ScriptedInputReaderUtil;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.SpotStateTable;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.WaitingVehicle;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.service.WaitingQueueService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for the WaitingQueueService class.
+ * These tests validate that freed spots are handed to waiting vehicles first come first served, that vehicles
+ * which stopped waiting are skipped, and that an exiting vehicle hands its spot to a gate waiting at a full lot.
+ */
+public class WaitingQueueServiceTest {
+
+    /**
+     * Test case to validate queue positions and the handoff of freed spots in arrival order,
+     * skipping the vehicles which left the queue.
+     */
+    @Test
+    public void handOffInArrivalOrder() throws Exception {
+        WaitingQueueService waitingQueueService = new WaitingQueueService(WaitingQueueService.DEFAULT_MAX_WAIT_MILLIS);
+        WaitingVehicle first = waitingQueueService.join("AA-111", ParkingType.CAR);
+        WaitingVehicle second = waitingQueueService.join("BB-222", ParkingType.CAR);
+        WaitingVehicle third = waitingQueueService.join("CC-333", ParkingType.CAR);
+        waitingQueueService.join("DD-444", ParkingType.BIKE);
+
+        assertThat(waitingQueueService.join("aa111", ParkingType.CAR)).isNull();
+        assertThat(waitingQueueService.getWaitingVehicles(ParkingType.CAR)).containsExactly("AA111", "BB222", "CC333");
+        assertThat(waitingQueueService.getPosition("CC-333")).isEqualTo(3);
+
+        ParkingSpot freed = new ParkingSpot(4, ParkingType.CAR, false);
+        assertThat(waitingQueueService.handOff(freed)).isSameAs(first);
+        assertThat(first.awaitSpot()).isSameAs(freed);
+        waitingQueueService.leave(second);
+        assertThat(waitingQueueService.getPosition("CC-333")).isEqualTo(1);
+        assertThat(waitingQueueService.handOff(freed)).isSameAs(third);
+        assertThat(second.awaitSpot()).isNull();
+        assertThat(waitingQueueService.handOff(freed)).isNull();
+        assertThat(waitingQueueService.getNbWaiting(ParkingType.BIKE)).isEqualTo(1);
+    }
+
+    /**
+     * Test case to validate that a vehicle stops waiting at its deadline and is no longer handed spots.
+     */
+    @Test
+    public void waitingVehicleTimesOut() throws Exception {
+        WaitingQueueService waitingQueueService = new WaitingQueueService(20);
+        WaitingVehicle waitingVehicle = waitingQueueService.join("AA-111", ParkingType.CAR);
+
+        assertThat(waitingVehicle.awaitSpot()).isNull();
+        assertThat(waitingQueueService.getPosition("AA-111")).isZero();
+        assertThat(waitingQueueService.handOff(new ParkingSpot(1, ParkingType.CAR, false))).isNull();
+    }
+
+    /**
+     * Test case to validate that a vehicle arriving at a full parking lot waits at its gate and is given the spot
+     * of the next vehicle leaving through another gate, which stays taken in the database.
+     */
+    @Test
+    public void exitingVehicleHandsSpotToWaitingGate() throws Exception {
+        EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("waiting" + System.nanoTime(), 1, 1);
+        try {
+            ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+            parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+            TicketDAO ticketDAO = new TicketDAO();
+            ticketDAO.dataBaseConfig = dataBaseConfig;
+            SpotStateTable spotStateTable = new SpotStateTable(parkingSpotDAO.getParkingSpots());
+            ticketDAO.setSpotStateTable(spotStateTable);
+            WaitingQueueService waitingQueueService = new WaitingQueueService(10000);
+            ScriptedInputReaderUtil exitGateInput = new ScriptedInputReaderUtil();
+            ParkingService exitGate = new ParkingService(exitGateInput, parkingSpotDAO, ticketDAO);
+            ScriptedInputReaderUtil entryGateInput = new ScriptedInputReaderUtil();
+            ParkingService entryGate = new ParkingService(entryGateInput, parkingSpotDAO, ticketDAO);
+            for (ParkingService parkingService : new ParkingService[] {exitGate, entryGate}) {
+                parkingService.setSpotStateTable(spotStateTable);
+                parkingService.setWaitingQueueService(waitingQueueService);
+            }
+
+            exitGateInput.present(ParkingType.CAR, "AA-111");
+            assertThat(exitGate.processIncomingVehicle(null)).isNotNull();
+            AtomicReference<Ticket> waitingTicket = new AtomicReference<>();
+            entryGateInput.present(ParkingType.CAR, "BB-222");
+            Thread entry = new Thread(() -> waitingTicket.set(entryGate.processIncomingVehicle(null)));
+            entry.start();
+            while (waitingQueueService.getPosition("BB-222") != 1) {
+                Thread.sleep(1);
+            }
+            exitGate.processExitingVehicle(null);
+            entry.join(10000);
+
+            assertThat(waitingTicket.get()).isNotNull();
+            assertThat(waitingTicket.get().getParkingSpot().getId()).isEqualTo(1);
+            assertThat(spotStateTable.getNbAvailable(ParkingType.CAR)).isZero();
+            assertThat(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).isLessThanOrEqualTo(0);
+            assertThat(ticketDAO.getTicket("AA-111").getOutTime()).isNotNull();
+        } finally {
+            dataBaseConfig.shutdown();
+        }
+    }
+
+    /**
+     * Test case to validate that a vehicle finding the lot full is not left waiting when the only spot is released
+     * by an exit landing between its check and its join, while nobody was queued to be handed the spot.
+     */
+    @Test
+    public void exitBetweenCheckAndJoinIsNotLost() throws Exception {
+        EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("waiting" + System.nanoTime(), 1, 1);
+        try {
+            ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+            parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+            TicketDAO ticketDAO = new TicketDAO();
+            ticketDAO.dataBaseConfig = dataBaseConfig;
+            SpotStateTable spotStateTable = new SpotStateTable(parkingSpotDAO.getParkingSpots());
+            ticketDAO.setSpotStateTable(spotStateTable);
+            ScriptedInputReaderUtil exitGateInput = new ScriptedInputReaderUtil();
+            ParkingService exitGate = new ParkingService(exitGateInput, parkingSpotDAO, ticketDAO);
+            WaitingQueueService waitingQueueService = new WaitingQueueService(10000) {
+                @Override
+                public WaitingVehicle join(String vehicleRegNumber, ParkingType parkingType) {
+                    exitGate.processExitingVehicle(null);
+                    return super.join(vehicleRegNumber, parkingType);
+                }
+            };
+            ScriptedInputReaderUtil entryGateInput = new ScriptedInputReaderUtil();
+            ParkingService entryGate = new ParkingService(entryGateInput, parkingSpotDAO, ticketDAO);
+            for (ParkingService parkingService : new ParkingService[] {exitGate, entryGate}) {
+                parkingService.setSpotStateTable(spotStateTable);
+                parkingService.setWaitingQueueService(waitingQueueService);
+            }
+
+            exitGateInput.present(ParkingType.CAR, "AA-111");
+            assertThat(exitGate.processIncomingVehicle(null)).isNotNull();
+            entryGateInput.present(ParkingType.CAR, "BB-222");
+            Ticket ticket = entryGate.processIncomingVehicle(null);
+
+            assertThat(ticket).isNotNull();
+            assertThat(ticket.getParkingSpot().getId()).isEqualTo(1);
+            assertThat(waitingQueueService.getNbWaiting(ParkingType.CAR)).isZero();
+            assertThat(spotStateTable.getNbAvailable(ParkingType.CAR)).isZero();
+            assertThat(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).isLessThanOrEqualTo(0);
+        } finally {
+            dataBaseConfig.shutdown();
+        }
+    }
+}
@@ -23,7 +23,8 @@ public class DataBaseTestConfig extends DataBaseConfig {
      * @throws ClassNotFoundException if the MySQL JDBC driver is not found
      * @throws SQLException if a database access error occurs
      */
-    public Connection getConnection() throws ClassNotFoundException, SQLException {
+    @Override
+    protected Connection openConnection() throws ClassNotFoundException, SQLException {
         logger.info("Create DB connection");
         Class.forName("com.mysql.cj.jdbc.Driver");
         return DriverManager.getConnection(
@@ -36,7 +37,8 @@ public class DataBaseTestConfig extends DataBaseConfig {
      * 
      * @param con the {@link Connection} to be closed
      */
-    public void closeConnection(Connection con){
+    @Override
+    protected void releaseConnection(Connection con){
         if(con!=null){
             try {
                 con.close();
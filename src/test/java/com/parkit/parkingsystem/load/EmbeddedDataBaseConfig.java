@@ -0,0 +1,109 @@
+package com.parkit.parkingsystem.load;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Configuration for an in-memory H2 database in MySQL compatibility mode, used by the load harness.
+ * The schema mirrors {@code resources/Data.sql} and is created with the requested number of spots.
+ * Closed connections are kept open and handed out again, since opening a session would otherwise dominate
+ * the cost of the simple statements issued by the DAOs.
+ */
+public class EmbeddedDataBaseConfig extends DataBaseConfig {
+
+    private static final int STREAMING_FETCH_SIZE = 1000;
+
+    private final String url;
+    private final Queue<Connection> idleConnections = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a fresh in-memory database.
+     *
+     * @param name the name of the database, unique per harness run
+     * @param nbCarSpot the number of car spots
+     * @param nbBikeSpot the number of bike spots
+     * @throws SQLException if the schema cannot be created
+     */
+    public EmbeddedDataBaseConfig(String name, int nbCarSpot, int nbBikeSpot) throws SQLException {
+        this.url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        try (Connection con = openConnection(); Statement statement = con.createStatement()) {
+            statement.execute("create table parking("
+                    + "PARKING_NUMBER int PRIMARY KEY, AVAILABLE bool NOT NULL, TYPE varchar(10) NOT NULL,"
+                    + "LEASE_OWNER varchar(64), LEASE_EXPIRY DATETIME)");
+            statement.execute("create table ticket("
+                    + "ID int PRIMARY KEY AUTO_INCREMENT, PARKING_NUMBER int NOT NULL,"
+                    + "VEHICLE_REG_NUMBER varchar(10) NOT NULL, PRICE decimal(10,2), IN_TIME DATETIME NOT NULL,"
+                    + "OUT_TIME DATETIME, ENTRY_REQUEST_ID varchar(64) UNIQUE, EXIT_REQUEST_ID varchar(64) UNIQUE, RATE decimal(10,2),"
+                    + "FOREIGN KEY (PARKING_NUMBER) REFERENCES parking(PARKING_NUMBER))");
+            statement.execute("create index TICKET_PLATE_IN_TIME on ticket(VEHICLE_REG_NUMBER, IN_TIME, ID)");
+            statement.execute("create index TICKET_IN_TIME on ticket(IN_TIME, ID)");
+            try (PreparedStatement ps = con.prepareStatement(
+                    "insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(?,true,?)")) {
+                for (int number = 1; number <= nbCarSpot + nbBikeSpot; number++) {
+                    ps.setInt(1, number);
+                    ps.setString(2, (number <= nbCarSpot) ? "CAR" : "BIKE");
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Returns a positive fetch size, since H2 rejects the negative one asking the MySQL driver to stream rows.
+     *
+     * @return the number of rows fetched at a time by streamed scans
+     */
+    @Override
+    public int getStreamingFetchSize() {
+        return STREAMING_FETCH_SIZE;
+    }
+
+    /**
+     * Opens a connection to the in-memory database, or hands out an idle one.
+     *
+     * @return a {@link Connection} object for the in-memory database
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    protected Connection openConnection() throws SQLException {
+        Connection con = idleConnections.poll();
+        return (con != null) ? con : DriverManager.getConnection(url, "sa", "");
+    }
+
+    /**
+     * Gives a connection back to the idle connections, after restoring auto-commit.
+     *
+     * @param con the {@link Connection} to give back
+     */
+    @Override
+    protected void releaseConnection(Connection con) {
+        if (con != null) {
+            try {
+                con.setAutoCommit(true);
+                idleConnections.add(con);
+            } catch (SQLException e) {
+                super.releaseConnection(con);
+            }
+        }
+    }
+
+    /**
+     * Drops the in-memory database.
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public void shutdown() throws SQLException {
+        idleConnections.clear();
+        try (Connection con = openConnection(); Statement statement = con.createStatement()) {
+            statement.execute("shutdown");
+        }
+    }
+}
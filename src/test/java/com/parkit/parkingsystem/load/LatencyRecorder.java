@@ -0,0 +1,67 @@
+package com.parkit.parkingsystem.load;
+
+import java.util.Arrays;
+
+/**
+ * Records latencies in nanoseconds and computes exact percentiles once the run is over.
+ * Each gate owns its own recorder; recorders are merged for the report. Instances are not thread-safe.
+ */
+public class LatencyRecorder {
+
+    private long[] values = new long[1024];
+    private int count;
+    private boolean sorted;
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency, in nanoseconds
+     */
+    public void record(long nanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Adds every latency of another recorder to this one.
+     *
+     * @param other the recorder to merge
+     */
+    public void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.values[i]);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns a percentile using the nearest-rank method.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency, in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return values[Math.max(0, Math.min(count, rank) - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms", count,
+                getPercentile(50) / 1e6, getPercentile(90) / 1e6, getPercentile(99) / 1e6,
+                getPercentile(99.9) / 1e6, getPercentile(100) / 1e6);
+    }
+}
@@ -0,0 +1,272 @@
+package com.parkit.parkingsystem.load;
+
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.SpotStateTable;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator driving {@link ParkingService} through several concurrent simulated gates against an embedded
+ * database, to find the saturation point of the entry and exit paths before a release.
+ * <p>
+ * The arrivals and departures of a {@link LoadProfile} are generated up front, then replayed by one thread per gate,
+ * each with its own {@code ParkingService} and scripted input. Both operations of a vehicle go through the same gate
+ * so that its exit always follows its entry. When the profile is paced, latencies are measured from the time each
+ * operation was scheduled, so that a saturated gate shows up as queueing delay rather than as a lower arrival rate.
+ * The console output of the service is discarded and logging is restricted to warnings during the run.
+ * <p>
+ * Run {@link #main(String[])} from the test classpath, for example with
+ * {@code mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.parkit.parkingsystem.load.LoadHarness -Dload.gates=8 -Dload.arrivalsPerHour=2000}.
+ */
+public class LoadHarness {
+
+    private static final Logger logger = LogManager.getLogger("LoadHarness");
+
+    private static final AtomicInteger RUN_COUNTER = new AtomicInteger();
+
+    private final LoadProfile profile;
+
+    /**
+     * An entry or exit of a vehicle at a simulated time.
+     */
+    private static final class Operation {
+
+        private final long simulatedMillis;
+        private final int vehicle;
+        private final boolean entry;
+
+        private Operation(long simulatedMillis, int vehicle, boolean entry) {
+            this.simulatedMillis = simulatedMillis;
+            this.vehicle = vehicle;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Counters of one gate, merged into the report once the gate is done.
+     */
+    private static final class GateResult {
+
+        private final LatencyRecorder entryLatencies = new LatencyRecorder();
+        private final LatencyRecorder exitLatencies = new LatencyRecorder();
+        private int nbEntry;
+        private int nbExit;
+        private int allocationFailures;
+        private int exitFailures;
+    }
+
+    /**
+     * Creates a harness.
+     *
+     * @param profile the load to generate
+     */
+    public LoadHarness(LoadProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Runs the load against a fresh embedded database.
+     *
+     * @return the report of the run
+     * @throws Exception if the embedded database cannot be created
+     */
+    public LoadReport run() throws Exception {
+        EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("load" + RUN_COUNTER.incrementAndGet(),
+                profile.getNbCarSpot(), profile.getNbBikeSpot());
+        Traffic traffic = Traffic.generate(profile);
+        List<List<Operation>> gates = schedule(traffic);
+
+        ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+        parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+        TicketDAO ticketDAO = new TicketDAO();
+        ticketDAO.dataBaseConfig = dataBaseConfig;
+        SpotStateTable spotStateTable = null;
+        if (profile.isSpotStateTable()) {
+            spotStateTable = new SpotStateTable(parkingSpotDAO.getParkingSpots());
+            ticketDAO.setSpotStateTable(spotStateTable);
+        }
+        ConcurrentMap<Integer, Integer> occupiedSpots = new ConcurrentHashMap<>();
+        AtomicInteger spotConflicts = new AtomicInteger();
+
+        GateResult[] results = new GateResult[gates.size()];
+        long start;
+        long elapsedMillis;
+        QuietConsole quiet = new QuietConsole();
+        try {
+            CountDownLatch ready = new CountDownLatch(1);
+            Thread[] threads = new Thread[gates.size()];
+            long[] startNanos = new long[1];
+            for (int gate = 0; gate < gates.size(); gate++) {
+                GateResult result = new GateResult();
+                results[gate] = result;
+                List<Operation> operations = gates.get(gate);
+                ScriptedInputReaderUtil input = new ScriptedInputReaderUtil();
+                ParkingService parkingService = new ParkingService(input, parkingSpotDAO, ticketDAO);
+                parkingService.setSpotStateTable(spotStateTable);
+                threads[gate] = new Thread(() -> {
+                    try {
+                        ready.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    runGate(operations, traffic, input, parkingService, startNanos[0], result, occupiedSpots,
+                            spotConflicts);
+                }, "gate-" + gate);
+                threads[gate].start();
+            }
+            start = System.currentTimeMillis();
+            startNanos[0] = System.nanoTime();
+            ready.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            elapsedMillis = System.currentTimeMillis() - start;
+        } finally {
+            quiet.close();
+            dataBaseConfig.shutdown();
+        }
+
+        LatencyRecorder entryLatencies = new LatencyRecorder();
+        LatencyRecorder exitLatencies = new LatencyRecorder();
+        int nbEntry = 0;
+        int nbExit = 0;
+        int allocationFailures = 0;
+        int exitFailures = 0;
+        for (GateResult result : results) {
+            entryLatencies.merge(result.entryLatencies);
+            exitLatencies.merge(result.exitLatencies);
+            nbEntry += result.nbEntry;
+            nbExit += result.nbExit;
+            allocationFailures += result.allocationFailures;
+            exitFailures += result.exitFailures;
+        }
+        LoadReport report = new LoadReport(nbEntry, nbExit, allocationFailures, exitFailures, spotConflicts.get(),
+                elapsedMillis, entryLatencies, exitLatencies);
+        logger.info("Load run over " + profile.getNbGate() + " gates: " + report);
+        return report;
+    }
+
+    /**
+     * Assigns the arrivals and departures of the traffic to the gates, in time order.
+     */
+    private List<List<Operation>> schedule(Traffic traffic) {
+        List<List<Operation>> gates = new ArrayList<>();
+        for (int gate = 0; gate < profile.getNbGate(); gate++) {
+            gates.add(new ArrayList<>());
+        }
+        for (int vehicle = 0; vehicle < traffic.size(); vehicle++) {
+            List<Operation> operations = gates.get(vehicle % gates.size());
+            operations.add(new Operation(traffic.getArrival(vehicle), vehicle, true));
+            if (traffic.getDeparture(vehicle) >= 0) {
+                operations.add(new Operation(traffic.getDeparture(vehicle), vehicle, false));
+            }
+        }
+        for (List<Operation> operations : gates) {
+            operations.sort(Comparator.comparingLong(operation -> operation.simulatedMillis));
+        }
+        return gates;
+    }
+
+    private void runGate(List<Operation> operations, Traffic traffic, ScriptedInputReaderUtil input,
+                         ParkingService parkingService, long startNanos, GateResult result,
+                         ConcurrentMap<Integer, Integer> occupiedSpots, AtomicInteger spotConflicts) {
+        Map<Integer, Integer> parkedVehicles = new HashMap<>();
+        for (Operation operation : operations) {
+            long scheduledNanos = System.nanoTime();
+            if (profile.getTimeScale() > 0) {
+                scheduledNanos = startNanos + (long) (operation.simulatedMillis * 1e6 / profile.getTimeScale());
+                for (long wait; (wait = scheduledNanos - System.nanoTime()) > 0; ) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            String vehicleRegNumber = Traffic.getVehicleRegNumber(operation.vehicle);
+            if (operation.entry) {
+                input.present(traffic.getType(operation.vehicle), vehicleRegNumber);
+                Ticket ticket = parkingService.processIncomingVehicle(null);
+                result.entryLatencies.record(System.nanoTime() - scheduledNanos);
+                if (ticket == null) {
+                    result.allocationFailures++;
+                    continue;
+                }
+                result.nbEntry++;
+                int parkingNumber = ticket.getParkingSpot().getId();
+                parkedVehicles.put(operation.vehicle, parkingNumber);
+                if (occupiedSpots.putIfAbsent(parkingNumber, operation.vehicle) != null) {
+                    spotConflicts.incrementAndGet();
+                }
+            } else {
+                Integer parkingNumber = parkedVehicles.remove(operation.vehicle);
+                if (parkingNumber == null) {
+                    // The vehicle was turned away on entry
+                    continue;
+                }
+                // The spot can be handed out again as soon as the exit releases it, before the call returns
+                occupiedSpots.remove(parkingNumber, operation.vehicle);
+                input.present(traffic.getType(operation.vehicle), vehicleRegNumber);
+                Ticket ticket = parkingService.processExitingVehicle(null);
+                result.exitLatencies.record(System.nanoTime() - scheduledNanos);
+                if (ticket == null) {
+                    result.exitFailures++;
+                } else {
+                    result.nbExit++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the harness with a profile read from system properties prefixed with {@code load.}: gates, carSpots,
+     * bikeSpots, hours, arrivalsPerHour, rushHourFactor, meanStayMinutes, staySigma, carShare, timeScale, seed
+     * and spotStateTable.
+     * Properties that are not set keep their default value.
+     *
+     * @param args unused
+     * @throws Exception if the run fails
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println(new LoadHarness(readProfile()).run());
+    }
+
+    /**
+     * Reads a profile from the {@code load.*} system properties, using the defaults of {@link LoadProfile}
+     * for missing ones.
+     *
+     * @return the profile
+     */
+    static LoadProfile readProfile() {
+        LoadProfile profile = new LoadProfile();
+        profile.setNbGate(Integer.getInteger("load.gates", profile.getNbGate()));
+        profile.setNbCarSpot(Integer.getInteger("load.carSpots", profile.getNbCarSpot()));
+        profile.setNbBikeSpot(Integer.getInteger("load.bikeSpots", profile.getNbBikeSpot()));
+        profile.setSimulatedHours(doubleProperty("load.hours", profile.getSimulatedHours()));
+        profile.setArrivalsPerHour(doubleProperty("load.arrivalsPerHour", profile.getArrivalsPerHour()));
+        profile.setRushHourFactor(doubleProperty("load.rushHourFactor", profile.getRushHourFactor()));
+        profile.setMeanStayMinutes(doubleProperty("load.meanStayMinutes", profile.getMeanStayMinutes()));
+        profile.setStaySigma(doubleProperty("load.staySigma", profile.getStaySigma()));
+        profile.setCarShare(doubleProperty("load.carShare", profile.getCarShare()));
+        profile.setTimeScale(doubleProperty("load.timeScale", profile.getTimeScale()));
+        profile.setSeed(Long.getLong("load.seed", profile.getSeed()));
+        profile.setSpotStateTable(Boolean.getBoolean("load.spotStateTable"));
+        return profile;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return (value == null) ? defaultValue : Double.parseDouble(value);
+    }
+}
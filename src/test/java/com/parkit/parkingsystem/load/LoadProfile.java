@@ -0,0 +1,188 @@
+package com.parkit.parkingsystem.load;
+
+/**
+ * Parameters of a load run: the arrival process, the stay duration distribution, the vehicle mix,
+ * the parking lot and the number of gates.
+ * <p>
+ * Arrivals follow a non-homogeneous Poisson process whose rate rises to {@code rushHourFactor} times the base rate
+ * around the morning and evening rush hours. Stays follow a log-normal distribution.
+ */
+public class LoadProfile {
+
+    private int nbGate = 4;
+    private int nbCarSpot = 100;
+    private int nbBikeSpot = 30;
+    private double simulatedHours = 24;
+    private double arrivalsPerHour = 60;
+    private double rushHourFactor = 4;
+    private double meanStayMinutes = 120;
+    private double staySigma = 0.8;
+    private double carShare = 0.8;
+    private double regularShare = 0;
+    private int nbRegular = 100;
+    private double timeScale = 0;
+    private long seed = 42;
+    private boolean spotStateTable;
+
+    public int getNbGate() {
+        return nbGate;
+    }
+
+    public void setNbGate(int nbGate) {
+        this.nbGate = nbGate;
+    }
+
+    public int getNbCarSpot() {
+        return nbCarSpot;
+    }
+
+    public void setNbCarSpot(int nbCarSpot) {
+        this.nbCarSpot = nbCarSpot;
+    }
+
+    public int getNbBikeSpot() {
+        return nbBikeSpot;
+    }
+
+    public void setNbBikeSpot(int nbBikeSpot) {
+        this.nbBikeSpot = nbBikeSpot;
+    }
+
+    public double getSimulatedHours() {
+        return simulatedHours;
+    }
+
+    public void setSimulatedHours(double simulatedHours) {
+        this.simulatedHours = simulatedHours;
+    }
+
+    public double getArrivalsPerHour() {
+        return arrivalsPerHour;
+    }
+
+    /**
+     * Sets the off-peak arrival rate.
+     *
+     * @param arrivalsPerHour the mean number of arrivals per simulated hour outside rush hours
+     */
+    public void setArrivalsPerHour(double arrivalsPerHour) {
+        this.arrivalsPerHour = arrivalsPerHour;
+    }
+
+    public double getRushHourFactor() {
+        return rushHourFactor;
+    }
+
+    /**
+     * Sets the peak arrival rate, relative to the off-peak rate.
+     *
+     * @param rushHourFactor the arrival rate multiplier at 8:30 and 17:30
+     */
+    public void setRushHourFactor(double rushHourFactor) {
+        this.rushHourFactor = rushHourFactor;
+    }
+
+    public double getMeanStayMinutes() {
+        return meanStayMinutes;
+    }
+
+    public void setMeanStayMinutes(double meanStayMinutes) {
+        this.meanStayMinutes = meanStayMinutes;
+    }
+
+    public double getStaySigma() {
+        return staySigma;
+    }
+
+    /**
+     * Sets the spread of stay durations.
+     *
+     * @param staySigma the standard deviation of the logarithm of stay durations
+     */
+    public void setStaySigma(double staySigma) {
+        this.staySigma = staySigma;
+    }
+
+    public double getCarShare() {
+        return carShare;
+    }
+
+    /**
+     * Sets the vehicle mix.
+     *
+     * @param carShare the probability that an arriving vehicle is a car rather than a bike
+     */
+    public void setCarShare(double carShare) {
+        this.carShare = carShare;
+    }
+
+    public double getRegularShare() {
+        return regularShare;
+    }
+
+    /**
+     * Sets the share of arrivals made by regular customers, who come back and get the loyalty discount.
+     * Only the single-gate simulation reuses their registration numbers.
+     *
+     * @param regularShare the probability that an arriving vehicle belongs to a regular customer
+     */
+    public void setRegularShare(double regularShare) {
+        this.regularShare = regularShare;
+    }
+
+    public int getNbRegular() {
+        return nbRegular;
+    }
+
+    public void setNbRegular(int nbRegular) {
+        this.nbRegular = nbRegular;
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Sets how fast simulated time runs.
+     *
+     * @param timeScale the number of simulated seconds per real second, or 0 to replay the operations
+     *                  back to back as fast as the gates can process them
+     */
+    public void setTimeScale(double timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isSpotStateTable() {
+        return spotStateTable;
+    }
+
+    /**
+     * Sets whether the gates share a spot state table, as a single application instance does,
+     * instead of looking up free spots in the database.
+     *
+     * @param spotStateTable {@code true} to allocate spots from a shared spot state table
+     */
+    public void setSpotStateTable(boolean spotStateTable) {
+        this.spotStateTable = spotStateTable;
+    }
+
+    /**
+     * Returns the arrival rate at a given simulated time.
+     *
+     * @param hours the simulated time, in hours since midnight
+     * @return the arrival rate, in vehicles per simulated hour
+     */
+    public double getArrivalRate(double hours) {
+        double hourOfDay = hours % 24;
+        double peak = Math.exp(-Math.pow(hourOfDay - 8.5, 2) / 2) + Math.exp(-Math.pow(hourOfDay - 17.5, 2) / 2);
+        return arrivalsPerHour * (1 + (rushHourFactor - 1) * peak);
+    }
+}
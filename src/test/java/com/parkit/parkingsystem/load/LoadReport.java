@@ -0,0 +1,89 @@
+package com.parkit.parkingsystem.load;
+
+/**
+ * Outcome of a load run.
+ */
+public class LoadReport {
+
+    private final int nbEntry;
+    private final int nbExit;
+    private final int allocationFailures;
+    private final int exitFailures;
+    private final int spotConflicts;
+    private final long elapsedMillis;
+    private final LatencyRecorder entryLatencies;
+    private final LatencyRecorder exitLatencies;
+
+    /**
+     * Constructor to initialize a load report.
+     *
+     * @param nbEntry            The number of vehicles that entered.
+     * @param nbExit             The number of vehicles that left.
+     * @param allocationFailures The number of vehicles that could not be given a spot.
+     * @param exitFailures       The number of vehicles that could not leave.
+     * @param spotConflicts      The number of spots handed out while another vehicle was parked on them.
+     * @param elapsedMillis      The real duration of the run, in milliseconds.
+     * @param entryLatencies     The latencies of the entries.
+     * @param exitLatencies      The latencies of the exits.
+     */
+    public LoadReport(int nbEntry, int nbExit, int allocationFailures, int exitFailures, int spotConflicts,
+                      long elapsedMillis, LatencyRecorder entryLatencies, LatencyRecorder exitLatencies) {
+        this.nbEntry = nbEntry;
+        this.nbExit = nbExit;
+        this.allocationFailures = allocationFailures;
+        this.exitFailures = exitFailures;
+        this.spotConflicts = spotConflicts;
+        this.elapsedMillis = elapsedMillis;
+        this.entryLatencies = entryLatencies;
+        this.exitLatencies = exitLatencies;
+    }
+
+    public int getNbEntry() {
+        return nbEntry;
+    }
+
+    public int getNbExit() {
+        return nbExit;
+    }
+
+    public int getAllocationFailures() {
+        return allocationFailures;
+    }
+
+    public int getExitFailures() {
+        return exitFailures;
+    }
+
+    public int getSpotConflicts() {
+        return spotConflicts;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public LatencyRecorder getEntryLatencies() {
+        return entryLatencies;
+    }
+
+    public LatencyRecorder getExitLatencies() {
+        return exitLatencies;
+    }
+
+    /**
+     * Returns the throughput of the run.
+     *
+     * @return the number of gate operations processed per real second
+     */
+    public double getOperationsPerSecond() {
+        int operations = entryLatencies.getCount() + exitLatencies.getCount();
+        return (elapsedMillis == 0) ? operations : operations * 1000d / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entries, %d exits, %d allocation failures, %d exit failures, %d spot conflicts"
+                        + " in %d ms (%.0f ops/s)%n  entry: %s%n  exit:  %s", nbEntry, nbExit, allocationFailures,
+                exitFailures, spotConflicts, elapsedMillis, getOperationsPerSecond(), entryLatencies, exitLatencies);
+    }
+}
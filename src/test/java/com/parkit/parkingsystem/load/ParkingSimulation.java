@@ -0,0 +1,146 @@
+package com.parkit.parkingsystem.load;
+
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Discrete-event simulation of the parking lot over virtual time, for capacity planning and for regression testing
+ * long-stay behaviour such as fares and discounts.
+ * <p>
+ * The traffic of a {@link LoadProfile} is replayed through a single {@link ParkingService} running on a
+ * {@link SimulatedClock} against an embedded database. Events are processed in time order and the clock jumps
+ * straight to the next event, so a month of operations takes seconds and the outcome only depends on the profile
+ * and its seed. Departures at the same time as arrivals are processed first.
+ * <p>
+ * Run {@link #main(String[])} from the test classpath with the same {@code load.*} system properties as
+ * {@link LoadHarness}, plus {@code load.regularShare} and {@code load.regulars}.
+ */
+public class ParkingSimulation {
+
+    private static final Logger logger = LogManager.getLogger("ParkingSimulation");
+
+    private static final AtomicInteger RUN_COUNTER = new AtomicInteger();
+
+    private final LoadProfile profile;
+    private final LocalDate startDay;
+    private final ZoneId zoneId;
+
+    /**
+     * Creates a simulation starting at midnight of the given day.
+     *
+     * @param profile the traffic to simulate
+     * @param startDay the first simulated day
+     * @param zoneId the time zone of the parking lot
+     */
+    public ParkingSimulation(LoadProfile profile, LocalDate startDay, ZoneId zoneId) {
+        this.profile = profile;
+        this.startDay = startDay;
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Runs the simulation against a fresh embedded database.
+     *
+     * @return the report of the simulation
+     * @throws Exception if the embedded database cannot be created
+     */
+    public SimulationReport run() throws Exception {
+        EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("simulation" + RUN_COUNTER.incrementAndGet(),
+                profile.getNbCarSpot(), profile.getNbBikeSpot());
+        Traffic traffic = Traffic.generate(profile);
+        long start = startDay.atStartOfDay(zoneId).toInstant().toEpochMilli();
+        SimulatedClock clock = new SimulatedClock(startDay.atStartOfDay(zoneId).toInstant(), zoneId);
+
+        ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+        parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+        TicketDAO ticketDAO = new TicketDAO();
+        ticketDAO.dataBaseConfig = dataBaseConfig;
+        ScriptedInputReaderUtil input = new ScriptedInputReaderUtil();
+        ParkingService parkingService = new ParkingService(input, parkingSpotDAO, ticketDAO, clock);
+
+        // Pending departures: departure time and vehicle
+        PriorityQueue<long[]> departures = new PriorityQueue<>((a, b) -> (a[0] != b[0])
+                ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        String[] vehicleRegNumbers = new String[traffic.size()];
+        Set<String> parked = new HashSet<>();
+        int nbEntry = 0;
+        int nbExit = 0;
+        int nbTurnedAway = 0;
+        int nbDiscounted = 0;
+        int peakOccupancy = 0;
+        long revenueCents = 0;
+        long startMillis = System.currentTimeMillis();
+        QuietConsole quiet = new QuietConsole();
+        try {
+            int nextArrival = 0;
+            while (nextArrival < traffic.size() || !departures.isEmpty()) {
+                if (!departures.isEmpty() && (nextArrival == traffic.size()
+                        || departures.peek()[0] <= traffic.getArrival(nextArrival))) {
+                    long[] departure = departures.poll();
+                    int vehicle = (int) departure[1];
+                    clock.advanceTo(start + departure[0]);
+                    input.present(traffic.getType(vehicle), vehicleRegNumbers[vehicle]);
+                    Ticket ticket = parkingService.processExitingVehicle(null);
+                    parked.remove(vehicleRegNumbers[vehicle]);
+                    if (ticket != null) {
+                        nbExit++;
+                        revenueCents += ticket.getPriceCents();
+                        if (ticket.getDiscount()) {
+                            nbDiscounted++;
+                        }
+                    }
+                    continue;
+                }
+                int vehicle = nextArrival++;
+                clock.advanceTo(start + traffic.getArrival(vehicle));
+                int regular = traffic.getRegular(vehicle);
+                String vehicleRegNumber = (regular >= 0 && !parked.contains(Traffic.getRegularRegNumber(regular)))
+                        ? Traffic.getRegularRegNumber(regular) : Traffic.getVehicleRegNumber(vehicle);
+                input.present(traffic.getType(vehicle), vehicleRegNumber);
+                if (parkingService.processIncomingVehicle(null) == null) {
+                    nbTurnedAway++;
+                    continue;
+                }
+                nbEntry++;
+                vehicleRegNumbers[vehicle] = vehicleRegNumber;
+                parked.add(vehicleRegNumber);
+                peakOccupancy = Math.max(peakOccupancy, parked.size());
+                if (traffic.getDeparture(vehicle) >= 0) {
+                    departures.add(new long[]{traffic.getDeparture(vehicle), vehicle});
+                }
+            }
+        } finally {
+            quiet.close();
+            dataBaseConfig.shutdown();
+        }
+        SimulationReport report = new SimulationReport(profile.getSimulatedHours(), nbEntry, nbExit, nbTurnedAway,
+                nbDiscounted, peakOccupancy, revenueCents, System.currentTimeMillis() - startMillis);
+        logger.info("Simulation: " + report);
+        return report;
+    }
+
+    /**
+     * Runs a simulation with a profile read from system properties, starting today in the system time zone.
+     *
+     * @param args unused
+     * @throws Exception if the simulation fails
+     */
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = LoadHarness.readProfile();
+        profile.setRegularShare(Double.parseDouble(System.getProperty("load.regularShare", "0.3")));
+        profile.setNbRegular(Integer.getInteger("load.regulars", profile.getNbRegular()));
+        System.out.println(new ParkingSimulation(profile, LocalDate.now(), ZoneId.systemDefault()).run());
+    }
+}
@@ -0,0 +1,33 @@
+package com.parkit.parkingsystem.load;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Discards the console output of {@code ParkingService} and restricts logging to warnings until closed,
+ * so that printing does not dominate the measured or simulated run.
+ */
+class QuietConsole implements AutoCloseable {
+
+    private final PrintStream console = System.out;
+    private final Level level = LogManager.getRootLogger().getLevel();
+
+    QuietConsole() {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        Configurator.setRootLevel(Level.WARN);
+    }
+
+    @Override
+    public void close() {
+        System.setOut(console);
+        Configurator.setRootLevel(level);
+    }
+}
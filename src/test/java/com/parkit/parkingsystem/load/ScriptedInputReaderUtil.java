@@ -0,0 +1,35 @@
+package com.parkit.parkingsystem.load;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.util.InputReaderUtil;
+
+/**
+ * Input of a simulated gate: answers the prompts of {@code ParkingService} with the vehicle the gate is
+ * currently processing instead of reading the console. Each gate owns its own instance.
+ */
+public class ScriptedInputReaderUtil extends InputReaderUtil {
+
+    private ParkingType parkingType;
+    private String vehicleRegNumber;
+
+    /**
+     * Sets the vehicle presented at the gate.
+     *
+     * @param parkingType the type of the vehicle
+     * @param vehicleRegNumber the registration number of the vehicle
+     */
+    public void present(ParkingType parkingType, String vehicleRegNumber) {
+        this.parkingType = parkingType;
+        this.vehicleRegNumber = vehicleRegNumber;
+    }
+
+    @Override
+    public int readSelection() {
+        return (parkingType == ParkingType.CAR) ? 1 : 2;
+    }
+
+    @Override
+    public String readVehicleRegistrationNumber() {
+        return vehicleRegNumber;
+    }
+}
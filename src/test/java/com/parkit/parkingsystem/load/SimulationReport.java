@@ -0,0 +1,79 @@
+package com.parkit.parkingsystem.load;
+
+/**
+ * Outcome of a discrete-event simulation of the parking lot.
+ */
+public class SimulationReport {
+
+    private final double simulatedHours;
+    private final int nbEntry;
+    private final int nbExit;
+    private final int nbTurnedAway;
+    private final int nbDiscounted;
+    private final int peakOccupancy;
+    private final long revenueCents;
+    private final long elapsedMillis;
+
+    /**
+     * Constructor to initialize a simulation report.
+     *
+     * @param simulatedHours The simulated period, in hours.
+     * @param nbEntry        The number of vehicles that entered.
+     * @param nbExit         The number of vehicles that left.
+     * @param nbTurnedAway   The number of vehicles that found no free spot.
+     * @param nbDiscounted   The number of exits priced with the loyalty discount.
+     * @param peakOccupancy  The highest number of vehicles parked at the same time.
+     * @param revenueCents   The total price of the closed tickets, in cents.
+     * @param elapsedMillis  The real duration of the simulation, in milliseconds.
+     */
+    public SimulationReport(double simulatedHours, int nbEntry, int nbExit, int nbTurnedAway, int nbDiscounted,
+                            int peakOccupancy, long revenueCents, long elapsedMillis) {
+        this.simulatedHours = simulatedHours;
+        this.nbEntry = nbEntry;
+        this.nbExit = nbExit;
+        this.nbTurnedAway = nbTurnedAway;
+        this.nbDiscounted = nbDiscounted;
+        this.peakOccupancy = peakOccupancy;
+        this.revenueCents = revenueCents;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getSimulatedHours() {
+        return simulatedHours;
+    }
+
+    public int getNbEntry() {
+        return nbEntry;
+    }
+
+    public int getNbExit() {
+        return nbExit;
+    }
+
+    public int getNbTurnedAway() {
+        return nbTurnedAway;
+    }
+
+    public int getNbDiscounted() {
+        return nbDiscounted;
+    }
+
+    public int getPeakOccupancy() {
+        return peakOccupancy;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.0f simulated hours in %d ms: %d entries, %d exits (%d discounted), %d turned away,"
+                        + " peak occupancy %d, revenue %d cents", simulatedHours, elapsedMillis, nbEntry, nbExit,
+                nbDiscounted, nbTurnedAway, peakOccupancy, revenueCents);
+    }
+}
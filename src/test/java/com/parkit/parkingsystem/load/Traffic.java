@@ -0,0 +1,106 @@
+package com.parkit.parkingsystem.load;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Vehicles arriving and leaving over the simulated period of a {@link LoadProfile}, in arrival order.
+ * Times are in milliseconds since the start of the period, which is midnight.
+ */
+class Traffic {
+
+    private ParkingType[] types = new ParkingType[1024];
+    private long[] arrivals = new long[1024];
+    // -1 when the vehicle is still parked at the end of the period
+    private long[] departures = new long[1024];
+    // Index of the regular customer, or -1 for an occasional one
+    private int[] regulars = new int[1024];
+    private int size;
+
+    /**
+     * Generates the traffic of a profile.
+     *
+     * @param profile the profile
+     * @return the vehicles of the period
+     */
+    static Traffic generate(LoadProfile profile) {
+        Traffic traffic = new Traffic();
+        Random random = new Random(profile.getSeed());
+        double peakRate = profile.getArrivalsPerHour() * Math.max(1, profile.getRushHourFactor()) * 2;
+        double mu = Math.log(profile.getMeanStayMinutes()) - profile.getStaySigma() * profile.getStaySigma() / 2;
+        long endMillis = (long) (profile.getSimulatedHours() * 3600000);
+        double hours = 0;
+        while (true) {
+            // Thinning: candidate arrivals at the peak rate, each kept with probability rate / peak rate
+            hours += -Math.log(1 - random.nextDouble()) / peakRate;
+            if (hours >= profile.getSimulatedHours()) {
+                return traffic;
+            }
+            if (random.nextDouble() * peakRate > profile.getArrivalRate(hours)) {
+                continue;
+            }
+            ParkingType type = (random.nextDouble() < profile.getCarShare()) ? ParkingType.CAR : ParkingType.BIKE;
+            long arrival = (long) (hours * 3600000);
+            double stayMinutes = Math.exp(mu + profile.getStaySigma() * random.nextGaussian());
+            long departure = arrival + (long) (stayMinutes * 60000);
+            int regular = (random.nextDouble() < profile.getRegularShare()) ? random.nextInt(profile.getNbRegular()) : -1;
+            traffic.add(type, arrival, (departure < endMillis) ? departure : -1, regular);
+        }
+    }
+
+    private void add(ParkingType type, long arrival, long departure, int regular) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            arrivals = Arrays.copyOf(arrivals, size * 2);
+            departures = Arrays.copyOf(departures, size * 2);
+            regulars = Arrays.copyOf(regulars, size * 2);
+        }
+        types[size] = type;
+        arrivals[size] = arrival;
+        departures[size] = departure;
+        regulars[size] = regular;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    ParkingType getType(int vehicle) {
+        return types[vehicle];
+    }
+
+    long getArrival(int vehicle) {
+        return arrivals[vehicle];
+    }
+
+    long getDeparture(int vehicle) {
+        return departures[vehicle];
+    }
+
+    int getRegular(int vehicle) {
+        return regulars[vehicle];
+    }
+
+    /**
+     * Returns the registration number of a regular customer.
+     *
+     * @param regular the index of the regular customer
+     * @return the registration number
+     */
+    static String getRegularRegNumber(int regular) {
+        return "R" + Integer.toString(regular, 36).toUpperCase();
+    }
+
+    /**
+     * Returns the unique registration number of a vehicle, at most ten characters long.
+     *
+     * @param vehicle the vehicle
+     * @return the registration number
+     */
+    static String getVehicleRegNumber(int vehicle) {
+        return "V" + Integer.toString(vehicle, 36).toUpperCase();
+    }
+}